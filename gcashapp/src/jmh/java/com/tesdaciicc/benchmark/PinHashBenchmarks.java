@@ -0,0 +1,59 @@
+package com.tesdaciicc.benchmark;
+
+import com.tesdaciicc.security.Pbkdf2PinHasher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one PIN hash and one check for each candidate PBKDF2 setting, for
+ * choosing Config.PIN_HASH_ALGORITHM and PIN_HASH_ITERATIONS: pick the
+ * highest setting whose verify time the login path can afford, times
+ * Config.PIN_VERIFY_THREADS for the logins per second it allows. Needs no
+ * database, e.g. -Djmh.args="PinHashBenchmarks -p iterations=210000".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PinHashBenchmarks {
+
+    private static final String PIN = "4821";
+
+    @Param({"PBKDF2WithHmacSHA256", "PBKDF2WithHmacSHA512"})
+    public String algorithm;
+
+    @Param({"100000", "210000", "600000"})
+    public int iterations;
+
+    private Pbkdf2PinHasher hasher;
+    private String stored;
+
+    @Setup
+    public void setUp() {
+        hasher = new Pbkdf2PinHasher(algorithm, iterations, 16, 32);
+        stored = hasher.hash(PIN);
+    }
+
+    @Benchmark
+    public String hash() {
+        return hasher.hash(PIN);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return hasher.verify(PIN, stored);
+    }
+}
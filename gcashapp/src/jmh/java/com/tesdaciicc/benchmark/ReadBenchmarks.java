@@ -0,0 +1,44 @@
+package com.tesdaciicc.benchmark;
+
+import com.tesdaciicc.data.repository.BalanceDAO;
+import com.tesdaciicc.model.Balance;
+import com.tesdaciicc.model.Transactions;
+import com.tesdaciicc.service.TransactionsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read paths, each called for a random seeded user
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadBenchmarks {
+
+    private final BalanceDAO balanceDAO = new BalanceDAO();
+    private final TransactionsService transactionsService = new TransactionsService();
+
+    @Benchmark
+    public Optional<Balance> findBalanceByUserId(SeededDatabase db) {
+        return balanceDAO.findByUserId(db.randomUserId());
+    }
+
+    @Benchmark
+    public List<Transactions> viewUserTransactions(SeededDatabase db) {
+        return transactionsService.viewUserAll(db.randomUserId());
+    }
+}
@@ -0,0 +1,217 @@
+package com.tesdaciicc.benchmark;
+
+import com.tesdaciicc.LoadDataGenerator;
+import com.tesdaciicc.data.cache.BalanceCache;
+import com.tesdaciicc.data.cache.DailyTransferCounters;
+import com.tesdaciicc.data.cache.SessionActivity;
+import com.tesdaciicc.data.cache.SessionStore;
+import com.tesdaciicc.data.cache.UserCache;
+import com.tesdaciicc.data.util.ConnectionFactory;
+import com.tesdaciicc.data.util.DatabaseUtil;
+import com.tesdaciicc.data.util.TransactionTemplate;
+import com.tesdaciicc.model.Money;
+import com.tesdaciicc.security.PinVerifier;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Database seeded with a given number of transaction rows, shared by all
+ * benchmarks in a fork.
+ *
+ * Each size gets its own file under target/jmh-data, generated with
+ * {@link LoadDataGenerator} on first use and reused by later runs; a file
+ * whose seed did not finish is rebuilt. There are enough users for the write
+ * benchmarks to stay under the daily transfer limits, and their balances are
+ * raised so transfers never run out of funds.
+ */
+@State(Scope.Benchmark)
+public class SeededDatabase {
+
+    private static final String SEEDED_USERS = "FROM users WHERE number LIKE '0990%'";
+    private static final int MIN_USERS = 10_000;
+    private static final int ROWS_PER_USER = 100;
+    private static final int DATA_YEARS = 1;
+    private static final long DATA_SEED = 42L;
+    private static final Money STARTING_BALANCE = Money.ofPesos(1_000_000);
+
+    @Param({"1000", "100000", "10000000"})
+    public int rows;
+
+    private int firstUserId;
+    private int userCount;
+    private long lastSeededTransactionId;
+
+    @Setup(Level.Trial)
+    public void open() throws SQLException, IOException {
+        Path file = Paths.get("target", "jmh-data", "gcashapp-" + rows + ".db").toAbsolutePath();
+        int users = Math.max(MIN_USERS, rows / ROWS_PER_USER);
+        if (!isFullySeeded(file, users)) {
+            deleteDatabase(file);
+        }
+
+        // Must be set before anything touches ConnectionFactory in this JVM
+        System.setProperty("gcashapp.db.url", "jdbc:sqlite:" + file);
+        if (!DatabaseUtil.initializeDatabase()) {
+            throw new IllegalStateException("Database initialization failed for " + file);
+        }
+
+        if (countSeededUsers() == 0) {
+            seed(users);
+        }
+
+        try (Connection connection = ConnectionFactory.getReadConnection();
+             Statement stmt = connection.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SELECT MIN(userId), COUNT(*) " + SEEDED_USERS)) {
+                rs.next();
+                firstUserId = rs.getInt(1);
+                userCount = rs.getInt(2);
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT MAX(transactionId) FROM transactions")) {
+                rs.next();
+                lastSeededTransactionId = rs.getLong(1);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        ConnectionFactory.shutdown();
+    }
+
+    int randomUserId() {
+        return firstUserId + ThreadLocalRandom.current().nextInt(userCount);
+    }
+
+    String randomNumber() {
+        return LoadDataGenerator.numberOf(ThreadLocalRandom.current().nextInt(userCount));
+    }
+
+    /**
+     * @return Mobile number and PIN of a random seeded user
+     */
+    String[] randomCredentials() {
+        int index = ThreadLocalRandom.current().nextInt(userCount);
+        return new String[] {LoadDataGenerator.numberOf(index), LoadDataGenerator.pinOf(index)};
+    }
+
+    /**
+     * Mobile number of a random seeded user other than the given one
+     */
+    String randomNumberExcept(int userId) {
+        int index = ThreadLocalRandom.current().nextInt(userCount - 1);
+        if (index >= userId - firstUserId) {
+            index++;
+        }
+        return LoadDataGenerator.numberOf(index);
+    }
+
+    /**
+     * Delete the transactions and sessions written since seeding, put back the
+     * plain-text PINs that logins rehashed and forget the cached state derived
+     * from them, so every iteration starts from the same data
+     */
+    void discardWrites() throws SQLException {
+        TransactionTemplate.execute(connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(
+                    "DELETE FROM transactions WHERE transactionId > ?")) {
+                stmt.setLong(1, lastSeededTransactionId);
+                stmt.executeUpdate();
+            }
+            try (Statement stmt = connection.createStatement()) {
+                stmt.executeUpdate("DELETE FROM sessions WHERE userId IN (SELECT userId " + SEEDED_USERS + ")");
+            }
+            restoreSeededPins(connection);
+            return null;
+        });
+        BalanceCache.getInstance().clear();
+        DailyTransferCounters.getInstance().reset();
+        UserCache.getInstance().clear();
+        SessionStore.getInstance().clear();
+        SessionActivity.getInstance().clear();
+        PinVerifier.getInstance().clearCache();
+    }
+
+    private void restoreSeededPins(Connection connection) throws SQLException {
+        try (Statement select = connection.createStatement();
+             ResultSet rs = select.executeQuery("SELECT userId " + SEEDED_USERS + " AND pin LIKE 'pbkdf2%'");
+             PreparedStatement update = connection.prepareStatement("UPDATE users SET pin = ? WHERE userId = ?")) {
+            while (rs.next()) {
+                int userId = rs.getInt(1);
+                update.setString(1, LoadDataGenerator.pinOf(userId - firstUserId));
+                update.setInt(2, userId);
+                update.addBatch();
+            }
+            update.executeBatch();
+        }
+    }
+
+    private void seed(int users) throws SQLException {
+        LoadDataGenerator.generate(users, rows, DATA_YEARS, DATA_SEED);
+        TransactionTemplate.execute(connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(
+                    "UPDATE balance SET balanceAmount = ? WHERE userId IN (SELECT userId " + SEEDED_USERS + ")")) {
+                stmt.setLong(1, STARTING_BALANCE.getCentavos());
+                return stmt.executeUpdate();
+            }
+        });
+        BalanceCache.getInstance().clear();
+    }
+
+    private int countSeededUsers() throws SQLException {
+        try (Connection connection = ConnectionFactory.getReadConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) " + SEEDED_USERS)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Checked with a plain connection, before the pool has opened the file
+     */
+    private boolean isFullySeeded(Path file, int users) {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file);
+             Statement stmt = connection.createStatement();
+             ResultSet userCountRs = stmt.executeQuery("SELECT COUNT(*) " + SEEDED_USERS)) {
+            if (!userCountRs.next() || userCountRs.getInt(1) != users) {
+                return false;
+            }
+            try (ResultSet balanceCountRs = stmt.executeQuery(
+                    "SELECT COUNT(*) FROM balance WHERE userId IN (SELECT userId " + SEEDED_USERS + ")")) {
+                if (!balanceCountRs.next() || balanceCountRs.getInt(1) != users) {
+                    return false;
+                }
+            }
+            try (ResultSet rowCountRs = stmt.executeQuery(
+                    "SELECT COUNT(*) FROM transactions WHERE accountNumber LIKE '0990%'")) {
+                return rowCountRs.next() && rowCountRs.getLong(1) >= rows;
+            }
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void deleteDatabase(Path file) throws IOException {
+        for (String suffix : new String[] {"", "-wal", "-shm"}) {
+            Files.deleteIfExists(Paths.get(file + suffix));
+        }
+    }
+}
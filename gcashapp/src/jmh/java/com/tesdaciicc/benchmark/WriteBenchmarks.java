@@ -0,0 +1,103 @@
+package com.tesdaciicc.benchmark;
+
+import com.tesdaciicc.data.repository.UserAuthenticationDAO;
+import com.tesdaciicc.model.UserAuthentication;
+import com.tesdaciicc.service.CashInService;
+import com.tesdaciicc.service.CashTransferService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write paths. The rows they add are deleted, and the PINs they rehash put
+ * back, after every iteration so the dataset, the senders' daily limits and
+ * the share of first logins are the same for each one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteBenchmarks {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    private final CashTransferService transferService = new CashTransferService();
+    private final CashInService cashInService = new CashInService();
+    private final UserAuthenticationDAO userDAO = new UserAuthenticationDAO();
+
+    /**
+     * Outcome counts reported next to the timings, so a run that hits a
+     * limit or a failure shows up in the results
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcomes {
+        public long succeeded;
+        public long failed;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            succeeded = 0;
+            failed = 0;
+        }
+
+        void record(boolean success) {
+            if (success) {
+                succeeded++;
+            } else {
+                failed++;
+            }
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void discardWrites(SeededDatabase db) throws SQLException {
+        db.discardWrites();
+    }
+
+    @Benchmark
+    public CashTransferService.TransferResult cashTransfer(SeededDatabase db, Outcomes outcomes) {
+        int sender = db.randomUserId();
+        CashTransferService.TransferResult result = transferService.cashTransfer(
+                sender, db.randomNumberExcept(sender), AMOUNT, "Benchmark transfer");
+        outcomes.record(result.isSuccess());
+        return result;
+    }
+
+    @Benchmark
+    public boolean processCashIn(SeededDatabase db, Outcomes outcomes) {
+        boolean success = cashInService.processCashIn(db.randomNumber(), AMOUNT, "Benchmark Sender");
+        outcomes.record(success);
+        return success;
+    }
+
+    /**
+     * Each login adds a session. A user's first login in an iteration also
+     * rehashes the seeded plain-text PIN; later ones are mostly PinVerifier
+     * cache hits. PinHashBenchmarks measures the KDF itself.
+     */
+    @Benchmark
+    public Optional<UserAuthentication> authenticate(SeededDatabase db, Outcomes outcomes) {
+        String[] credentials = db.randomCredentials();
+        Optional<UserAuthentication> user = userDAO.authenticate(credentials[0], credentials[1]);
+        outcomes.record(user.isPresent());
+        return user;
+    }
+}
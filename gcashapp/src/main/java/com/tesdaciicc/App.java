@@ -1,11 +1,17 @@
 package com.tesdaciicc;
 
+import java.nio.file.Paths;
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
 
 import com.tesdaciicc.ui.LoginPage;
 import com.tesdaciicc.ui.RegistrationPage;
 import com.tesdaciicc.model.UserAuthentication;
 import com.tesdaciicc.ui.HomePage;
+import com.tesdaciicc.data.cache.SessionActivity;
+import com.tesdaciicc.data.util.Config;
+import com.tesdaciicc.metrics.MetricsRegistry;
+import com.tesdaciicc.metrics.MetricsReporter;
 
 
 public class App {
@@ -17,7 +23,17 @@ public class App {
         System.out.println("        Welcome to JCash App!        ");
         System.out.println("=====================================");
 
-        App.showMainMenu();
+        MetricsReporter metricsReporter = new MetricsReporter(MetricsRegistry.getInstance(),
+                Paths.get(Config.METRICS_REPORT_FILE));
+        metricsReporter.start(Config.METRICS_REPORT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        SessionActivity.getInstance().start();
+
+        try {
+            App.showMainMenu();
+        } finally {
+            SessionActivity.getInstance().stop();
+            metricsReporter.stop();
+        }
 
     }
 
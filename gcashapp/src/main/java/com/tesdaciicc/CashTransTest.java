@@ -6,8 +6,10 @@ import com.tesdaciicc.service.CashTransferService.DailyTransferSummary;
 import com.tesdaciicc.model.CashTransfer;
 import com.tesdaciicc.model.UserAuthentication;
 import com.tesdaciicc.model.Balance;
-import com.tesdaciicc.data.repository.UserDAO;
+import com.tesdaciicc.model.Money;
+import com.tesdaciicc.data.repository.UserRepository;
 import com.tesdaciicc.data.repository.BalanceDAO;
+import com.tesdaciicc.security.PinVerifier;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -17,7 +19,7 @@ import java.util.Scanner;
 public class CashTransTest {
 
     private final CashTransferService transferService;
-    private final UserDAO userDAO;
+    private final UserRepository userRepository;
     private final BalanceDAO balanceDAO;
     private final Scanner scanner;
     
@@ -27,7 +29,7 @@ public class CashTransTest {
     
     public CashTransTest() {
         this.transferService = new CashTransferService();
-        this.userDAO = new UserDAO();
+        this.userRepository = new UserRepository();
         this.balanceDAO = new BalanceDAO();
         this.scanner = new Scanner(System.in);
     }
@@ -118,8 +120,8 @@ public class CashTransTest {
         
         try {
             // Get test users
-            Optional<UserAuthentication> senderOpt = userDAO.findById(TEST_SENDER_ID);
-            Optional<UserAuthentication> recipientOpt = userDAO.findById(TEST_RECIPIENT_ID);
+            Optional<UserAuthentication> senderOpt = userRepository.findById(TEST_SENDER_ID);
+            Optional<UserAuthentication> recipientOpt = userRepository.findById(TEST_RECIPIENT_ID);
             
             if (!senderOpt.isPresent() || !recipientOpt.isPresent()) {
                 System.out.println("❌ Test users not found. Please run 'Setup Test Data' first.");
@@ -175,7 +177,7 @@ public class CashTransTest {
         System.out.println("\n✅ VALIDATION SCENARIOS TEST");
         System.out.println("============================");
         
-        Optional<UserAuthentication> senderOpt = userDAO.findById(TEST_SENDER_ID);
+        Optional<UserAuthentication> senderOpt = userRepository.findById(TEST_SENDER_ID);
         if (!senderOpt.isPresent()) {
             System.out.println("❌ Test sender not found.");
             return;
@@ -219,7 +221,7 @@ public class CashTransTest {
         System.out.println("\n📊 DAILY LIMITS TEST");
         System.out.println("====================");
         
-        Optional<UserAuthentication> senderOpt = userDAO.findById(TEST_SENDER_ID);
+        Optional<UserAuthentication> senderOpt = userRepository.findById(TEST_SENDER_ID);
         if (!senderOpt.isPresent()) {
             System.out.println("❌ Test sender not found.");
             return;
@@ -425,7 +427,7 @@ public class CashTransTest {
         
         try {
             for (int i = 1; i <= 3; i++) {
-                Optional<UserAuthentication> userOpt = userDAO.findById(i);
+                Optional<UserAuthentication> userOpt = userRepository.findById(i);
                 if (userOpt.isPresent()) {
                     UserAuthentication user = userOpt.get();
                     System.out.println("ID: " + user.getId() + " | Name: " + user.getName() + 
@@ -485,16 +487,16 @@ public class CashTransTest {
     
     private String getValidRecipientNumber() {
         // Try to get a valid recipient from test users
-        Optional<UserAuthentication> recipientOpt = userDAO.findById(TEST_RECIPIENT_ID);
+        Optional<UserAuthentication> recipientOpt = userRepository.findById(TEST_RECIPIENT_ID);
         return recipientOpt.map(UserAuthentication::getNumber).orElse(null);
     }
     
     private void createTestUserIfNotExists(int id, String name, String email, String number, String pin) {
-        Optional<UserAuthentication> userOpt = userDAO.findById(id);
+        Optional<UserAuthentication> userOpt = userRepository.findById(id);
         if (!userOpt.isPresent()) {
             UserAuthentication user = new UserAuthentication(name, email, number, pin);
             user.setId(id);
-            userDAO.save(user);
+            userRepository.save(user, PinVerifier.await(PinVerifier.getInstance().hash(pin)));
             System.out.println("✅ Created test user: " + name + " (" + number + ")");
         } else {
             System.out.println("ℹ️  Test user already exists: " + userOpt.get().getName());
@@ -504,7 +506,7 @@ public class CashTransTest {
     private void createTestBalanceIfNotExists(int userId, double amount) {
         Optional<Balance> balanceOpt = balanceDAO.findByUserId(userId);
         if (!balanceOpt.isPresent()) {
-            Balance balance = new Balance(BigDecimal.valueOf(amount), userId);
+            Balance balance = new Balance(Money.of(amount), userId);
             balanceDAO.create(balance);
             System.out.println("✅ Created balance for User " + userId + ": ₱" + String.format("%.2f", amount));
         } else {
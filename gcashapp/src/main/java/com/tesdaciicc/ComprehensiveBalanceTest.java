@@ -443,7 +443,7 @@ public class ComprehensiveBalanceTest {
         
         // Process all balances
         double totalBalance = allBalances.stream()
-            .mapToDouble(balance -> balance.getAmount().doubleValue())
+            .mapToDouble(balance -> balance.getAmount().toBigDecimal().doubleValue())
             .sum();
         
         long endTime = System.currentTimeMillis();
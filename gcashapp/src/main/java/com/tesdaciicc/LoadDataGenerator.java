@@ -0,0 +1,383 @@
+package com.tesdaciicc;
+
+import com.tesdaciicc.data.cache.BalanceCache;
+import com.tesdaciicc.data.cache.DailyTransferCounters;
+import com.tesdaciicc.data.repository.TransactionsDAO;
+import com.tesdaciicc.data.util.ConnectionFactory;
+import com.tesdaciicc.data.util.DatabaseUtil;
+import com.tesdaciicc.data.util.TransactionTemplate;
+import com.tesdaciicc.model.EpochMillis;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Fills the database with synthetic users, balances and transactions for load
+ * and performance testing.
+ *
+ * Usage: LoadDataGenerator [users] [transactions] [years] [seed]
+ * (defaults 100000, 1000000, 3, 42). Point it at another file with
+ * -Dgcashapp.db.url=jdbc:sqlite:/path/to/file.db.
+ *
+ * Account activity follows a Zipf distribution, so a few accounts are very
+ * busy and most see little traffic. About a third of the transactions are
+ * cash-ins and the rest are transfers. Dates run in order over the given
+ * number of years and end yesterday, so today's daily limits start empty.
+ * Each balance is an opening amount plus the account's net flow, floored at zero.
+ *
+ * Generated users have the mobile numbers 0990xxxxxxx (see {@link #numberOf(int)})
+ * and the PINs from {@link #pinOf(int)}, stored in plain text: hashing each
+ * one would dominate the load, and the DAOs hash a plain-text PIN on the
+ * user's first login. Rows are written with batched
+ * prepared statements, committing every {@value #ROWS_PER_COMMIT} rows. The
+ * transactions indexes and triggers are dropped during the load and rebuilt at
+ * the end, followed by one rebuild of user_transaction_stats.
+ */
+public class LoadDataGenerator {
+
+  private static final Logger logger = LoggerFactory.getLogger(LoadDataGenerator.class);
+
+  private static final int DEFAULT_USERS = 100_000;
+  private static final long DEFAULT_TRANSACTIONS = 1_000_000L;
+  private static final int DEFAULT_YEARS = 3;
+  private static final long DEFAULT_SEED = 42L;
+
+  private static final String NUMBER_PREFIX = "0990";
+  private static final int MAX_USERS = 10_000_000; // seven digits after the prefix
+  private static final int BATCH_SIZE = 10_000;
+  private static final int ROWS_PER_COMMIT = 200_000;
+
+  private static final double ZIPF_EXPONENT = 1.0;
+  private static final double CASH_IN_SHARE = 0.33;
+  private static final long TRANSFER_FEE_CENTAVOS = 500; // CashTransferService's flat fee
+  private static final long MAX_TRANSFER_CENTAVOS = 50_000_00L;
+
+  private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+  private static final String[] FIRST_NAMES = {
+      "Juan", "Maria", "Jose", "Ana", "Mark", "Kristine", "John Paul", "Angelica", "Michael", "Jennifer",
+      "Carlo", "Patricia", "Miguel", "Camille", "Rafael", "Bea", "Paolo", "Nicole", "Jericho", "Andrea" };
+
+  private static final String[] LAST_NAMES = {
+      "Santos", "Reyes", "Cruz", "Bautista", "Ocampo", "Garcia", "Mendoza", "Torres", "Tomas", "Andrada",
+      "Castillo", "Flores", "Villanueva", "Ramos", "Castro", "Rivera", "Aquino", "Navarro", "Salazar", "Mercado" };
+
+  private static final String[] CASH_IN_SOURCES = {
+      "BPI Online", "BDO Online", "UnionBank", "7-Eleven", "Cebuana Lhuillier", "Palawan Express", "SM Bills Payment" };
+
+  public static void main(String[] args) {
+    try {
+      int users = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_USERS;
+      long transactions = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_TRANSACTIONS;
+      int years = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_YEARS;
+      long seed = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_SEED;
+
+      if (!DatabaseUtil.initializeDatabase()) {
+        System.err.println("❌ Database initialization failed");
+        System.exit(1);
+      }
+
+      generate(users, transactions, years, seed);
+      System.out.println("✅ Load data generated.");
+
+    } catch (NumberFormatException e) {
+      System.err.println("Usage: LoadDataGenerator [users] [transactions] [years] [seed]");
+      System.exit(1);
+    } catch (Exception e) {
+      logger.error("Error generating load data: {}", e.getMessage(), e);
+      System.err.println("❌ Load data generation failed: " + e.getMessage());
+      System.exit(1);
+    } finally {
+      ConnectionFactory.shutdown();
+    }
+  }
+
+  /**
+   * Mobile number of the generated user with the given index (0-based)
+   */
+  public static String numberOf(int index) {
+    return NUMBER_PREFIX + String.format("%07d", index);
+  }
+
+  /**
+   * PIN of the generated user with the given index (0-based)
+   */
+  public static String pinOf(int index) {
+    return String.format("%04d", Math.floorMod(index * 7919 + 1234, 10_000));
+  }
+
+  /**
+   * Generate into an initialized database that has no generated users yet
+   *
+   * @param users        Number of users, each with a balance
+   * @param transactions Number of transaction rows
+   * @param years        How far back the transaction dates go
+   * @param seed         Random seed; the same arguments give the same data
+   * @throws SQLException if a write fails
+   */
+  public static void generate(int users, long transactions, int years, long seed) throws SQLException {
+    if (users < 2 || users > MAX_USERS) {
+      throw new IllegalArgumentException("Users must be between 2 and " + MAX_USERS + ": " + users);
+    }
+    if (transactions < 0 || years < 1) {
+      throw new IllegalArgumentException("Transactions must be >= 0 and years >= 1");
+    }
+    if (countGeneratedUsers() > 0) {
+      throw new IllegalStateException("Database already has generated users; reset it first");
+    }
+
+    logger.info("Generating {} users and {} transactions over {} years", users, transactions, years);
+    long start = System.currentTimeMillis();
+    SplittableRandom random = new SplittableRandom(seed);
+
+    int firstUserId = nextUserId();
+    insertUsers(firstUserId, users, random);
+
+    ZipfSampler activity = new ZipfSampler(users, ZIPF_EXPONENT, random);
+    long[] netFlow = new long[users];
+
+    List<String> schemaObjects = dropIndexesAndTriggers();
+    try {
+      insertTransactions(firstUserId, users, transactions, years, activity, netFlow, random);
+    } finally {
+      recreate(schemaObjects);
+    }
+    new TransactionsDAO().rebuildUserTransactionStats();
+
+    insertBalances(firstUserId, netFlow, random);
+
+    BalanceCache.getInstance().clear();
+    DailyTransferCounters.getInstance().reset();
+
+    long elapsed = System.currentTimeMillis() - start;
+    logger.info("Generated load data in {} ms", elapsed);
+    System.out.printf("Generated %,d users and %,d transactions in %.1f s%n", users, transactions, elapsed / 1000.0);
+  }
+
+  private static void insertUsers(int firstUserId, int users, SplittableRandom random) throws SQLException {
+    String sql = "INSERT INTO users (userId, name, email, number, pin, createdDate, updatedDate) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    String created = LocalDate.now().minusYears(5).atStartOfDay().format(DATE_FORMAT);
+
+    for (int from = 0; from < users; from += ROWS_PER_COMMIT) {
+      int to = Math.min(users, from + ROWS_PER_COMMIT);
+      final int batchStart = from;
+      TransactionTemplate.execute(connection -> {
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+          for (int i = batchStart; i < to; i++) {
+            stmt.setInt(1, firstUserId + i);
+            stmt.setString(2, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                + LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+            stmt.setString(3, "loaduser" + i + "@example.com");
+            stmt.setString(4, numberOf(i));
+            stmt.setString(5, pinOf(i));
+            stmt.setString(6, created);
+            stmt.setString(7, created);
+            stmt.addBatch();
+            if ((i - batchStart + 1) % BATCH_SIZE == 0) {
+              stmt.executeBatch();
+            }
+          }
+          stmt.executeBatch();
+        }
+        return null;
+      });
+      System.out.printf("  users %,d / %,d%n", to, users);
+    }
+  }
+
+  private static void insertTransactions(int firstUserId, int users, long transactions, int years,
+      ZipfSampler activity, long[] netFlow, SplittableRandom random) throws SQLException {
+    String sql = "INSERT INTO transactions (transactionAmount, transactionName, userId, transactionDate, "
+        + "transferToAccountNo, transferFromAccountNo, accountNumber) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // Spread the rows evenly from `years` ago up to the last second of yesterday
+    LocalDateTime end = LocalDate.now().atStartOfDay().minusSeconds(1);
+    LocalDateTime begin = end.minusYears(years);
+    long spanSeconds = Duration.between(begin, end).getSeconds();
+    long beginMillis = EpochMillis.of(begin);
+
+    for (long from = 0; from < transactions; from += ROWS_PER_COMMIT) {
+      long to = Math.min(transactions, from + ROWS_PER_COMMIT);
+      final long batchStart = from;
+      TransactionTemplate.execute(connection -> {
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+          for (long i = batchStart; i < to; i++) {
+            int user = activity.next();
+            String number = numberOf(user);
+            long date = beginMillis + spanSeconds * i / Math.max(1, transactions) * 1000;
+
+            stmt.setInt(3, firstUserId + user);
+            stmt.setLong(4, date);
+            stmt.setString(7, number);
+
+            if (random.nextDouble() < CASH_IN_SHARE) {
+              long centavos = (2 + random.nextInt(200)) * 50_00L; // 100 to 10,050 in steps of 50
+              stmt.setLong(1, centavos);
+              stmt.setString(2, "CASH_IN_COMPLETED");
+              stmt.setString(5, number);
+              stmt.setString(6, CASH_IN_SOURCES[random.nextInt(CASH_IN_SOURCES.length)]);
+              netFlow[user] += centavos;
+            } else {
+              int recipient = activity.next();
+              while (recipient == user) {
+                recipient = activity.next();
+              }
+              // Log-normal around 500 pesos, inside the service's transfer limits
+              long centavos = Math.round(Math.exp(Math.log(500) + random.nextGaussian()) * 100);
+              centavos = Math.max(100, Math.min(MAX_TRANSFER_CENTAVOS, centavos));
+              stmt.setLong(1, centavos);
+              stmt.setString(2, "CASH_TRANSFER_COMPLETED");
+              stmt.setString(5, numberOf(recipient));
+              stmt.setString(6, number);
+              netFlow[user] -= centavos + TRANSFER_FEE_CENTAVOS;
+              netFlow[recipient] += centavos;
+            }
+            stmt.addBatch();
+            if ((i - batchStart + 1) % BATCH_SIZE == 0) {
+              stmt.executeBatch();
+            }
+          }
+          stmt.executeBatch();
+        }
+        return null;
+      });
+      System.out.printf("  transactions %,d / %,d%n", to, transactions);
+    }
+  }
+
+  private static void insertBalances(int firstUserId, long[] netFlow, SplittableRandom random) throws SQLException {
+    String sql = "INSERT INTO balance (userId, balanceAmount) VALUES (?, ?)";
+
+    for (int from = 0; from < netFlow.length; from += ROWS_PER_COMMIT) {
+      int to = Math.min(netFlow.length, from + ROWS_PER_COMMIT);
+      final int batchStart = from;
+      TransactionTemplate.execute(connection -> {
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+          for (int i = batchStart; i < to; i++) {
+            long opening = random.nextLong(0, 20_000_00L);
+            stmt.setInt(1, firstUserId + i);
+            stmt.setLong(2, opening + Math.max(0, netFlow[i]));
+            stmt.addBatch();
+            if ((i - batchStart + 1) % BATCH_SIZE == 0) {
+              stmt.executeBatch();
+            }
+          }
+          stmt.executeBatch();
+        }
+        return null;
+      });
+    }
+  }
+
+  /**
+   * Drop the transactions indexes and triggers so the load only appends to the table
+   *
+   * @return CREATE statements to rebuild them with
+   */
+  private static List<String> dropIndexesAndTriggers() throws SQLException {
+    return TransactionTemplate.execute(connection -> {
+      List<String> drops = new ArrayList<>();
+      List<String> creates = new ArrayList<>();
+      try (Statement stmt = connection.createStatement()) {
+        try (ResultSet rs = stmt.executeQuery(
+            "SELECT type, name, sql FROM sqlite_master "
+                + "WHERE type IN ('index', 'trigger') AND tbl_name = 'transactions' AND sql IS NOT NULL")) {
+          while (rs.next()) {
+            drops.add("DROP " + rs.getString("type").toUpperCase() + " IF EXISTS " + rs.getString("name"));
+            creates.add(rs.getString("sql"));
+          }
+        }
+        for (String drop : drops) {
+          stmt.execute(drop);
+        }
+      }
+      logger.info("Dropped {} transactions indexes and triggers for the load", drops.size());
+      return creates;
+    });
+  }
+
+  private static void recreate(List<String> creates) throws SQLException {
+    System.out.println("  rebuilding " + creates.size() + " indexes and triggers...");
+    TransactionTemplate.execute(connection -> {
+      try (Statement stmt = connection.createStatement()) {
+        for (String create : creates) {
+          stmt.execute(create);
+        }
+      }
+      return null;
+    });
+  }
+
+  private static int nextUserId() throws SQLException {
+    try (Connection connection = ConnectionFactory.getReadConnection();
+        Statement stmt = connection.createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(userId), 0) + 1 FROM users")) {
+      return rs.next() ? rs.getInt(1) : 1;
+    }
+  }
+
+  private static int countGeneratedUsers() throws SQLException {
+    try (Connection connection = ConnectionFactory.getReadConnection();
+        PreparedStatement stmt = connection.prepareStatement("SELECT COUNT(*) FROM users WHERE number LIKE ?")) {
+      stmt.setString(1, NUMBER_PREFIX + "%");
+      try (ResultSet rs = stmt.executeQuery()) {
+        return rs.next() ? rs.getInt(1) : 0;
+      }
+    }
+  }
+
+  /**
+   * Draws user indexes with Zipf-distributed activity. Ranks are shuffled onto
+   * users so the busiest accounts are not simply the first ones created.
+   */
+  private static final class ZipfSampler {
+    private final double[] cumulative;
+    private final int[] userAtRank;
+    private final SplittableRandom random;
+
+    ZipfSampler(int users, double exponent, SplittableRandom random) {
+      this.random = random;
+      this.cumulative = new double[users];
+      double total = 0;
+      for (int rank = 0; rank < users; rank++) {
+        total += 1.0 / Math.pow(rank + 1, exponent);
+        cumulative[rank] = total;
+      }
+      for (int rank = 0; rank < users; rank++) {
+        cumulative[rank] /= total;
+      }
+
+      this.userAtRank = new int[users];
+      for (int i = 0; i < users; i++) {
+        userAtRank[i] = i;
+      }
+      for (int i = users - 1; i > 0; i--) {
+        int j = random.nextInt(i + 1);
+        int tmp = userAtRank[i];
+        userAtRank[i] = userAtRank[j];
+        userAtRank[j] = tmp;
+      }
+    }
+
+    int next() {
+      int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+      if (rank < 0) {
+        rank = -rank - 1;
+      }
+      return userAtRank[Math.min(rank, userAtRank.length - 1)];
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.tesdaciicc;
+
+import com.tesdaciicc.data.repository.TransactionsDAO;
+import com.tesdaciicc.data.util.ConnectionFactory;
+import com.tesdaciicc.data.util.DatabaseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Recomputes user_transaction_stats from the transactions table. The triggers
+ * keep it current for normal inserts; run this after loading or editing rows
+ * with the triggers disabled, or if the stats are suspected to have drifted.
+ *
+ * mvn exec:java@run-stats-rebuild
+ */
+public class RebuildTransactionStats {
+
+  private static final Logger logger = LoggerFactory.getLogger(RebuildTransactionStats.class);
+
+  public static void main(String[] args) {
+    logger.info("Starting user transaction stats rebuild...");
+
+    try {
+      if (!DatabaseUtil.initializeDatabase()) {
+        System.err.println("❌ Database initialization failed");
+        return;
+      }
+
+      long start = System.currentTimeMillis();
+      if (new TransactionsDAO().rebuildUserTransactionStats()) {
+        System.out.printf("✅ User transaction stats rebuilt in %.1f s%n",
+            (System.currentTimeMillis() - start) / 1000.0);
+      } else {
+        System.err.println("❌ Rebuilding user transaction stats failed, see the log");
+      }
+
+    } catch (Exception e) {
+      logger.error("Error during stats rebuild: {}", e.getMessage(), e);
+      System.err.println("❌ Stats rebuild failed: " + e.getMessage());
+    } finally {
+      ConnectionFactory.shutdown();
+    }
+  }
+}
@@ -3,8 +3,9 @@ package com.tesdaciicc;
 import com.tesdaciicc.service.TransactionsService;
 import com.tesdaciicc.service.TransactionsService.TransactionStatistics;
 import com.tesdaciicc.model.Transactions;
+import com.tesdaciicc.model.Money;
 import com.tesdaciicc.data.repository.TransactionsDAO;
-import com.tesdaciicc.data.repository.UserDAO;
+import com.tesdaciicc.data.repository.UserRepository;
 import com.tesdaciicc.model.UserAuthentication;
 
 import java.math.BigDecimal;
@@ -22,7 +23,7 @@ public class ViewTransactionTest {
     
     private final TransactionsService transactionsService;
     private final TransactionsDAO transactionsDAO;
-    private final UserDAO userDAO;
+    private final UserRepository userRepository;
     private final Scanner scanner;
     
     // Test constants
@@ -32,7 +33,7 @@ public class ViewTransactionTest {
     public ViewTransactionTest() {
         this.transactionsService = new TransactionsService();
         this.transactionsDAO = new TransactionsDAO();
-        this.userDAO = new UserDAO();
+        this.userRepository = new UserRepository();
         this.scanner = new Scanner(System.in);
     }
     
@@ -602,7 +603,7 @@ public class ViewTransactionTest {
         try {
             // Get first few users from database
             for (int i = 1; i <= 5; i++) {
-                Optional<UserAuthentication> userOpt = userDAO.findById(i);
+                Optional<UserAuthentication> userOpt = userRepository.findById(i);
                 if (userOpt.isPresent()) {
                     UserAuthentication user = userOpt.get();
                     long transactionCount = transactionsService.getUserTransactionCount(i);
@@ -628,7 +629,8 @@ public class ViewTransactionTest {
         // Calculate totals
         BigDecimal totalAmount = transactions.stream()
             .map(Transactions::getTransactionAmount)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+            .reduce(Money.ZERO, Money::plus)
+            .toBigDecimal();
         
         BigDecimal averageAmount = totalAmount.divide(
             BigDecimal.valueOf(transactions.size()), 2, BigDecimal.ROUND_HALF_UP);
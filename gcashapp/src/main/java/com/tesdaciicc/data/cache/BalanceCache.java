@@ -0,0 +1,303 @@
+package com.tesdaciicc.data.cache;
+
+import com.tesdaciicc.data.util.Config;
+import com.tesdaciicc.data.util.TransactionTemplate;
+import com.tesdaciicc.metrics.MetricsRegistry;
+import com.tesdaciicc.model.Balance;
+import com.tesdaciicc.model.Money;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded in-memory cache of balance rows keyed by userId.
+ *
+ * Entries are spread over a fixed number of segments, each with its own lock,
+ * an int-keyed hash table (no boxing) and an LRU list; when a segment is full
+ * its least recently used entry is evicted. Balance objects are mutable, so
+ * the cache stores the column values and hands out a fresh Balance on every
+ * hit.
+ *
+ * Each segment keeps a version that every write bumps. A reader takes
+ * {@link #readStamp(int)} before going to the database and fills the cache
+ * with {@link #putIfUnchanged(Balance, long)}, which is ignored if a write
+ * happened in between, so a slow read can never overwrite a newer balance.
+ */
+public final class BalanceCache {
+
+  private static final BalanceCache instance = new BalanceCache(Config.BALANCE_CACHE_MAX_ENTRIES,
+      Config.BALANCE_CACHE_SEGMENTS);
+
+  static {
+    MetricsRegistry metrics = MetricsRegistry.getInstance();
+    metrics.gauge("cache.balance.size", instance::size);
+    metrics.gauge("cache.balance.hitRate", instance::getHitRate);
+  }
+
+  private final Segment[] segments;
+  private final int mask;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  BalanceCache(int maxEntries, int segmentCount) {
+    if (segmentCount <= 0 || Integer.bitCount(segmentCount) != 1) {
+      throw new IllegalArgumentException("Segment count must be a power of two: " + segmentCount);
+    }
+    int perSegment = Math.max(1, maxEntries / segmentCount);
+    this.segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment(perSegment);
+    }
+    this.mask = segmentCount - 1;
+  }
+
+  public static BalanceCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * @param userId The user ID
+   * @return Copy of the cached balance, empty on a miss
+   */
+  public Optional<Balance> get(int userId) {
+    Balance balance = segmentFor(userId).get(userId);
+    if (balance == null) {
+      misses.increment();
+      return Optional.empty();
+    }
+    hits.increment();
+    return Optional.of(balance);
+  }
+
+  /**
+   * Take before reading a balance from the database
+   *
+   * @param userId The user ID about to be read
+   * @return Stamp to pass to {@link #putIfUnchanged(Balance, long)}
+   */
+  public long readStamp(int userId) {
+    return segmentFor(userId).version();
+  }
+
+  /**
+   * Cache a balance read from the database unless it was written since the stamp was taken
+   */
+  public void putIfUnchanged(Balance balance, long stamp) {
+    segmentFor(balance.getUserId()).put(balance, stamp);
+  }
+
+  /**
+   * Cache a balance that has just been committed
+   */
+  public void put(Balance balance) {
+    segmentFor(balance.getUserId()).put(balance, -1);
+  }
+
+  public void invalidate(int userId) {
+    segmentFor(userId).remove(userId);
+  }
+
+  /**
+   * Write-through for a balance changed in the current transaction. The entry
+   * is dropped now and replaced with the new row once the change commits, so
+   * readers never see an uncommitted balance.
+   */
+  public void putAfterCommit(Balance balance) {
+    invalidate(balance.getUserId());
+    TransactionTemplate.afterCommit(() -> put(balance));
+  }
+
+  /**
+   * Drop a balance now and again once the current transaction commits
+   */
+  public void invalidateAfterCommit(int userId) {
+    invalidate(userId);
+    TransactionTemplate.afterCommit(() -> invalidate(userId));
+  }
+
+  public void clear() {
+    for (Segment segment : segments) {
+      segment.clear();
+    }
+  }
+
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  public double getHitRate() {
+    long h = hits.sum();
+    long total = h + misses.sum();
+    return total == 0 ? 0.0 : (double) h / total;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("BalanceCache{size=%d, hits=%d, misses=%d, hitRate=%.2f%%, evictions=%d}",
+        size(), getHitCount(), getMissCount(), getHitRate() * 100, getEvictionCount());
+  }
+
+  private Segment segmentFor(int userId) {
+    int h = userId * 0x9E3779B9;
+    return segments[(h ^ (h >>> 16)) & mask];
+  }
+
+  /**
+   * One lock's worth of entries: chained hash table plus an access-ordered list
+   */
+  private final class Segment {
+    private final Node[] table;
+    private final int capacity;
+    private final Node head = new Node(0); // sentinel; head.after is the least recently used
+    private int size;
+    private long version;
+
+    Segment(int capacity) {
+      this.capacity = capacity;
+      int buckets = Integer.highestOneBit(Math.max(2, capacity * 4 / 3) - 1) << 1;
+      this.table = new Node[buckets];
+      head.before = head;
+      head.after = head;
+    }
+
+    synchronized long version() {
+      return version;
+    }
+
+    synchronized Balance get(int userId) {
+      Node node = find(userId);
+      if (node == null) {
+        return null;
+      }
+      unlink(node);
+      linkLast(node);
+      return new Balance(node.balanceId, userId, node.amount, node.createdDate, node.updatedDate);
+    }
+
+    synchronized void put(Balance balance, long stamp) {
+      if (stamp >= 0 && stamp != version) {
+        return;
+      }
+      if (stamp < 0) {
+        version++;
+      }
+
+      int userId = balance.getUserId();
+      Node node = find(userId);
+      if (node == null) {
+        if (size >= capacity) {
+          Node eldest = head.after;
+          removeNode(eldest);
+          evictions.increment();
+        }
+        node = new Node(userId);
+        int index = indexFor(userId);
+        node.next = table[index];
+        table[index] = node;
+        size++;
+      } else {
+        unlink(node);
+      }
+      node.balanceId = balance.getId();
+      node.amount = balance.getAmount();
+      node.createdDate = balance.getCreatedDate();
+      node.updatedDate = balance.getUpdatedDate();
+      linkLast(node);
+    }
+
+    synchronized void remove(int userId) {
+      version++;
+      Node node = find(userId);
+      if (node != null) {
+        removeNode(node);
+      }
+    }
+
+    synchronized void clear() {
+      version++;
+      Arrays.fill(table, null);
+      head.before = head;
+      head.after = head;
+      size = 0;
+    }
+
+    synchronized int size() {
+      return size;
+    }
+
+    private Node find(int userId) {
+      for (Node node = table[indexFor(userId)]; node != null; node = node.next) {
+        if (node.userId == userId) {
+          return node;
+        }
+      }
+      return null;
+    }
+
+    private void removeNode(Node node) {
+      int index = indexFor(node.userId);
+      Node prev = null;
+      for (Node current = table[index]; current != null; prev = current, current = current.next) {
+        if (current == node) {
+          if (prev == null) {
+            table[index] = current.next;
+          } else {
+            prev.next = current.next;
+          }
+          break;
+        }
+      }
+      unlink(node);
+      size--;
+    }
+
+    private int indexFor(int userId) {
+      return (userId ^ (userId >>> 16)) & (table.length - 1);
+    }
+
+    private void unlink(Node node) {
+      node.before.after = node.after;
+      node.after.before = node.before;
+    }
+
+    private void linkLast(Node node) {
+      node.before = head.before;
+      node.after = head;
+      head.before.after = node;
+      head.before = node;
+    }
+  }
+
+  private static final class Node {
+    private final int userId;
+    private int balanceId;
+    private Money amount;
+    private String createdDate;
+    private String updatedDate;
+    private Node next;
+    private Node before;
+    private Node after;
+
+    Node(int userId) {
+      this.userId = userId;
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package com.tesdaciicc.data.cache;
+
+import com.tesdaciicc.data.repository.CashTransferDAO;
+import com.tesdaciicc.data.util.TransactionTemplate;
+import com.tesdaciicc.model.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Running count and amount of each user's outgoing transfers for the current
+ * local day, so daily limit checks need no query.
+ *
+ * The totals are loaded from the transactions table with one query the first
+ * time they are needed, and again whenever the date has moved on since the
+ * last load, which starts the new day from whatever is already stored for it.
+ * Transfers are added with {@link #record(int, Money, LocalDate)} inside
+ * the transaction that stores them; if it rolls back, the amount is taken
+ * off again.
+ */
+public final class DailyTransferCounters {
+
+  private static final Logger logger = LoggerFactory.getLogger(DailyTransferCounters.class);
+
+  private static final DailyTransferCounters instance = new DailyTransferCounters(new CashTransferDAO());
+
+  private final CashTransferDAO transferDAO;
+  private volatile Day current;
+
+  DailyTransferCounters(CashTransferDAO transferDAO) {
+    this.transferDAO = transferDAO;
+  }
+
+  public static DailyTransferCounters getInstance() {
+    return instance;
+  }
+
+  /**
+   * @param userId Sender's user ID
+   * @return Number of transfers the user has made today
+   */
+  public int getCount(int userId) {
+    Counter counter = today().counters.get(userId);
+    return counter == null ? 0 : counter.count();
+  }
+
+  /**
+   * @param userId Sender's user ID
+   * @return Total amount the user has transferred today
+   */
+  public Money getAmount(int userId) {
+    Counter counter = today().counters.get(userId);
+    return counter == null ? Money.ZERO : counter.amount();
+  }
+
+  /**
+   * Add a transfer to the sender's totals for the day it is dated
+   *
+   * @param userId Sender's user ID
+   * @param amount Transfer amount
+   * @param date Local date the transfer is stored under
+   */
+  public void record(int userId, Money amount, LocalDate date) {
+    Day day = today();
+    if (date.isBefore(day.date)) {
+      // Stamped just before midnight: it counts towards a day that is over
+      return;
+    }
+    if (!date.equals(day.date)) {
+      // Dated ahead of the clock; a day loaded before this commits would miss it
+      TransactionTemplate.afterCommit(this::reset);
+      return;
+    }
+    Counter counter = day.counters.computeIfAbsent(userId, id -> new Counter());
+    long centavos = amount.getCentavos();
+    counter.add(1, centavos);
+    TransactionTemplate.onRollback(() -> counter.add(-1, -centavos));
+  }
+
+  /**
+   * Forget the loaded totals; the next call reloads them from the database
+   */
+  public void reset() {
+    current = null;
+  }
+
+  private Day today() {
+    LocalDate date = LocalDate.now();
+    Day day = current;
+    if (day != null && day.date.equals(date)) {
+      return day;
+    }
+
+    synchronized (this) {
+      day = current;
+      if (day == null || !day.date.equals(date)) {
+        day = new Day(date);
+        for (Map.Entry<Integer, CashTransferDAO.DailyTotal> entry : transferDAO.getDailyTransferTotals(date).entrySet()) {
+          Counter counter = new Counter();
+          counter.add(entry.getValue().getCount(), entry.getValue().getAmount().getCentavos());
+          day.counters.put(entry.getKey(), counter);
+        }
+        current = day;
+        logger.info("Loaded daily transfer totals for {} ({} users)", date, day.counters.size());
+      }
+      return day;
+    }
+  }
+
+  private static final class Day {
+    private final LocalDate date;
+    private final Map<Integer, Counter> counters = new ConcurrentHashMap<>();
+
+    private Day(LocalDate date) {
+      this.date = date;
+    }
+  }
+
+  private static final class Counter {
+    private int count;
+    private long centavos;
+
+    synchronized void add(int transfers, long value) {
+      count += transfers;
+      centavos += value;
+    }
+
+    synchronized int count() {
+      return count;
+    }
+
+    synchronized Money amount() {
+      return Money.ofCentavos(centavos);
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package com.tesdaciicc.data.cache;
+
+import com.tesdaciicc.data.repository.SessionDAO;
+import com.tesdaciicc.data.util.Config;
+import com.tesdaciicc.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Background upkeep of the sessions table.
+ *
+ * Validating a token only notes the time in memory with {@link #touch(String)};
+ * {@link #flush()} writes every noted time in one transaction, so a busy
+ * session costs one lastSeen update per flush interval rather than one per
+ * request. {@link #sweep()} deletes sessions whose expiry has passed. Once
+ * {@link #start()}ed, both run on a daemon thread; {@link #stop()} flushes
+ * whatever is still pending.
+ *
+ * lastSeen is informational, so when too many sessions are waiting for a
+ * flush new ones are dropped rather than letting the map grow.
+ */
+public final class SessionActivity {
+
+  private static final Logger logger = LoggerFactory.getLogger(SessionActivity.class);
+
+  private static final SessionActivity instance = new SessionActivity(new SessionDAO(),
+      Config.SESSION_STORE_MAX_ENTRIES);
+
+  static {
+    MetricsRegistry.getInstance().gauge("session.lastSeen.pending", instance::getPendingCount);
+  }
+
+  private final SessionDAO sessionDAO;
+  private final int maxPending;
+  private final ConcurrentHashMap<String, Long> lastSeen = new ConcurrentHashMap<>();
+  private final LongAdder dropped = new LongAdder();
+  private ScheduledExecutorService scheduler;
+
+  SessionActivity(SessionDAO sessionDAO, int maxPending) {
+    if (maxPending <= 0) {
+      throw new IllegalArgumentException("Pending limit must be positive: " + maxPending);
+    }
+    this.sessionDAO = sessionDAO;
+    this.maxPending = maxPending;
+  }
+
+  public static SessionActivity getInstance() {
+    return instance;
+  }
+
+  /**
+   * Note that a session was used just now
+   *
+   * @param token Session token
+   */
+  public void touch(String token) {
+    if (lastSeen.size() >= maxPending && !lastSeen.containsKey(token)) {
+      dropped.increment();
+      return;
+    }
+    lastSeen.put(token, System.currentTimeMillis());
+  }
+
+  /**
+   * Write the noted last-seen times to the sessions table. If the write
+   * fails they are kept for the next flush.
+   */
+  public void flush() {
+    if (lastSeen.isEmpty()) {
+      return;
+    }
+    Map<String, Long> batch = new HashMap<>();
+    for (String token : lastSeen.keySet()) {
+      Long time = lastSeen.remove(token);
+      if (time != null) {
+        batch.put(token, time);
+      }
+    }
+    if (!sessionDAO.updateLastSeen(batch)) {
+      batch.forEach((token, time) -> lastSeen.merge(token, time, Math::max));
+      return;
+    }
+    logger.debug("Flushed last seen times for {} sessions", batch.size());
+  }
+
+  /**
+   * Delete expired sessions from the table and from {@link SessionStore}
+   */
+  public void sweep() {
+    int deleted = sessionDAO.deleteExpired(System.currentTimeMillis());
+    SessionStore.getInstance().purgeExpired();
+    if (deleted > 0) {
+      logger.info("Deleted {} expired sessions", deleted);
+    }
+  }
+
+  /**
+   * Flush and sweep on a daemon thread at the intervals in {@link Config}
+   */
+  public void start() {
+    start(TimeUnit.SECONDS.toMillis(Config.SESSION_LAST_SEEN_FLUSH_SECONDS),
+        TimeUnit.MINUTES.toMillis(Config.SESSION_SWEEP_INTERVAL_MINUTES));
+  }
+
+  public synchronized void start(long flushIntervalMillis, long sweepIntervalMillis) {
+    if (scheduler != null) {
+      return;
+    }
+    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "session-activity");
+      thread.setDaemon(true);
+      return thread;
+    });
+    // The first sweep runs straight away to clear sessions that expired while the app was down
+    scheduler.scheduleAtFixedRate(() -> runQuietly(this::sweep), 0, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+    scheduler.scheduleAtFixedRate(() -> runQuietly(this::flush), flushIntervalMillis, flushIntervalMillis,
+        TimeUnit.MILLISECONDS);
+    logger.info("Session upkeep started (flush every {} ms, sweep every {} ms)", flushIntervalMillis,
+        sweepIntervalMillis);
+  }
+
+  /**
+   * Stop the schedule and flush what is still pending
+   */
+  public synchronized void stop() {
+    if (scheduler == null) {
+      return;
+    }
+    scheduler.shutdownNow();
+    scheduler = null;
+    flush();
+  }
+
+  public int getPendingCount() {
+    return lastSeen.size();
+  }
+
+  public long getDroppedCount() {
+    return dropped.sum();
+  }
+
+  public void clear() {
+    lastSeen.clear();
+  }
+
+  // An exception escaping a scheduled task would cancel every later run
+  private static void runQuietly(Runnable task) {
+    try {
+      task.run();
+    } catch (RuntimeException e) {
+      logger.error("Session upkeep failed: {}", e.getMessage(), e);
+    }
+  }
+}
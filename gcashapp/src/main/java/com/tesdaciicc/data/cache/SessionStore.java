@@ -0,0 +1,243 @@
+package com.tesdaciicc.data.cache;
+
+import com.tesdaciicc.data.util.Config;
+import com.tesdaciicc.data.util.TransactionTemplate;
+import com.tesdaciicc.metrics.MetricsRegistry;
+import com.tesdaciicc.model.UserAuthentication;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory sessions keyed by token, in front of the token lookup in the
+ * sessions table. A hit is a map lookup and an expiry check; the database is
+ * only read on a miss.
+ *
+ * The database stays the source of truth: an entry only says "this token was
+ * valid for this user when it was stored", and is trusted for at most
+ * {@link Config#SESSION_TTL_MINUTES}, and never past the session's own expiry,
+ * before the token is checked again. Each user keeps at most
+ * {@link Config#MAX_SESSIONS_PER_USER} entries, the oldest going first.
+ *
+ * UserAuthentication is mutable, so the store keeps its own copy and hands out
+ * a fresh one on every hit. Like {@link BalanceCache}, a reader takes
+ * {@link #readStamp()} before going to the database and fills the store with
+ * {@link #putIfUnchanged(String, UserAuthentication, long, long)}, which backs
+ * out if anything was invalidated in between, so a token read just before a
+ * logout cannot be cached after it.
+ */
+public final class SessionStore {
+
+  private static final SessionStore instance = new SessionStore(Config.SESSION_TTL_MINUTES * 60_000L,
+      Config.MAX_SESSIONS_PER_USER, Config.SESSION_STORE_MAX_ENTRIES);
+
+  static {
+    MetricsRegistry metrics = MetricsRegistry.getInstance();
+    metrics.gauge("cache.session.size", instance::size);
+    metrics.gauge("cache.session.hitRate", instance::getHitRate);
+  }
+
+  private final long ttlMillis;
+  private final int maxSessionsPerUser;
+  private final int maxEntries;
+  private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+  // Tokens per user, oldest first; every change to a user's sessions happens inside compute() on this map
+  private final ConcurrentHashMap<Integer, Deque<String>> tokensByUser = new ConcurrentHashMap<>();
+  private final AtomicLong invalidations = new AtomicLong();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder expirations = new LongAdder();
+
+  SessionStore(long ttlMillis, int maxSessionsPerUser, int maxEntries) {
+    if (ttlMillis <= 0 || maxSessionsPerUser <= 0 || maxEntries <= 0) {
+      throw new IllegalArgumentException("Session TTL and limits must be positive");
+    }
+    this.ttlMillis = ttlMillis;
+    this.maxSessionsPerUser = maxSessionsPerUser;
+    this.maxEntries = maxEntries;
+  }
+
+  public static SessionStore getInstance() {
+    return instance;
+  }
+
+  /**
+   * @param token Session token
+   * @return Copy of the session's user, empty if the token is unknown or its entry expired
+   */
+  public Optional<UserAuthentication> get(String token) {
+    Session session = sessions.get(token);
+    if (session == null) {
+      misses.increment();
+      return Optional.empty();
+    }
+    if (System.currentTimeMillis() >= session.expiresAt) {
+      remove(token, session.user.getId());
+      expirations.increment();
+      misses.increment();
+      return Optional.empty();
+    }
+    hits.increment();
+    return Optional.of(copyOf(session.user, token));
+  }
+
+  /**
+   * Take before reading a token from the database
+   *
+   * @return Stamp to pass to {@link #putIfUnchanged(String, UserAuthentication, long, long)}
+   */
+  public long readStamp() {
+    return invalidations.get();
+  }
+
+  /**
+   * Store a session read from the database unless something was invalidated since the stamp was taken
+   */
+  public void putIfUnchanged(String token, UserAuthentication user, long sessionExpiresAt, long stamp) {
+    if (invalidations.get() != stamp) {
+      return;
+    }
+    put(token, user, sessionExpiresAt);
+    // An invalidation that ran between the check and the put may have missed this entry
+    if (invalidations.get() != stamp) {
+      remove(token, user.getId());
+    }
+  }
+
+  /**
+   * Store a session that has just been created
+   *
+   * @param sessionExpiresAt When the session itself expires, in epoch millis
+   */
+  public void put(String token, UserAuthentication user, long sessionExpiresAt) {
+    if (sessions.size() >= maxEntries) {
+      purgeExpired();
+      if (sessions.size() >= maxEntries) {
+        return;
+      }
+    }
+    long expiresAt = Math.min(System.currentTimeMillis() + ttlMillis, sessionExpiresAt);
+    Session session = new Session(copyOf(user, token), expiresAt);
+    tokensByUser.compute(user.getId(), (userId, tokens) -> {
+      if (tokens == null) {
+        tokens = new ArrayDeque<>(maxSessionsPerUser);
+      } else {
+        tokens.remove(token);
+      }
+      sessions.put(token, session);
+      tokens.addLast(token);
+      while (tokens.size() > maxSessionsPerUser) {
+        sessions.remove(tokens.pollFirst());
+      }
+      return tokens;
+    });
+  }
+
+  /**
+   * Forget one session, e.g. on logout
+   */
+  public void invalidate(String token) {
+    invalidations.incrementAndGet();
+    Session session = sessions.get(token);
+    if (session != null) {
+      remove(token, session.user.getId());
+    }
+  }
+
+  /**
+   * Forget every session of a user, e.g. on logout from all devices or when the user's row changes
+   */
+  public void invalidateUser(int userId) {
+    invalidations.incrementAndGet();
+    tokensByUser.computeIfPresent(userId, (id, tokens) -> {
+      for (String token : tokens) {
+        sessions.remove(token);
+      }
+      return null;
+    });
+  }
+
+  /**
+   * Forget a user's sessions now and again once the current transaction commits
+   */
+  public void invalidateUserAfterCommit(int userId) {
+    invalidateUser(userId);
+    TransactionTemplate.afterCommit(() -> invalidateUser(userId));
+  }
+
+  /**
+   * Drop every entry whose TTL has passed
+   */
+  public void purgeExpired() {
+    long now = System.currentTimeMillis();
+    sessions.forEach((token, session) -> {
+      if (now >= session.expiresAt) {
+        remove(token, session.user.getId());
+        expirations.increment();
+      }
+    });
+  }
+
+  public void clear() {
+    invalidations.incrementAndGet();
+    tokensByUser.clear();
+    sessions.clear();
+  }
+
+  public int size() {
+    return sessions.size();
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  public long getExpirationCount() {
+    return expirations.sum();
+  }
+
+  public double getHitRate() {
+    long h = hits.sum();
+    long total = h + misses.sum();
+    return total == 0 ? 0.0 : (double) h / total;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("SessionStore{size=%d, hits=%d, misses=%d, hitRate=%.2f%%, expirations=%d}",
+        size(), getHitCount(), getMissCount(), getHitRate() * 100, getExpirationCount());
+  }
+
+  private void remove(String token, int userId) {
+    tokensByUser.computeIfPresent(userId, (id, tokens) -> {
+      tokens.remove(token);
+      sessions.remove(token);
+      return tokens.isEmpty() ? null : tokens;
+    });
+  }
+
+  private static UserAuthentication copyOf(UserAuthentication user, String token) {
+    UserAuthentication copy = new UserAuthentication(user.getId(), user.getName(), user.getEmail(),
+        user.getNumber(), user.getPin(), user.getCreatedDate(), user.getUpdatedDate());
+    copy.setToken(token);
+    return copy;
+  }
+
+  private static final class Session {
+    final UserAuthentication user;
+    final long expiresAt;
+
+    Session(UserAuthentication user, long expiresAt) {
+      this.user = user;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
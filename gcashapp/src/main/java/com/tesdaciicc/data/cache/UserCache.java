@@ -0,0 +1,142 @@
+package com.tesdaciicc.data.cache;
+
+import com.tesdaciicc.data.util.Config;
+import com.tesdaciicc.data.util.TransactionTemplate;
+import com.tesdaciicc.metrics.MetricsRegistry;
+import com.tesdaciicc.model.UserAuthentication;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * User rows keyed by userId, filled by UserRepository on a read and dropped
+ * by its writes. Lookups by email or number go through {@link UserIdCache}
+ * to the userId first, so all three keys share these entries.
+ *
+ * UserAuthentication is mutable, so the cache keeps its own copy of each row
+ * and hands out a fresh one on every hit. The token is never cached. As with
+ * {@link UserIdCache}, a reader takes {@link #readStamp()} before querying
+ * and fills the cache with {@link #putIfUnchanged(UserAuthentication, long)}.
+ * Beyond {@link Config#USER_CACHE_MAX_ENTRIES} rows the least recently used
+ * one is dropped. Reads reorder the entries, so every access is synchronized.
+ */
+public final class UserCache {
+
+  private static final UserCache instance = new UserCache(Config.USER_CACHE_MAX_ENTRIES);
+
+  static {
+    MetricsRegistry metrics = MetricsRegistry.getInstance();
+    metrics.gauge("cache.user.size", instance::size);
+    metrics.gauge("cache.user.hitRate", instance::getHitRate);
+  }
+
+  private final int maxEntries;
+  private final LinkedHashMap<Integer, UserAuthentication> users = new LinkedHashMap<>(16, 0.75f, true);
+  private final AtomicLong invalidations = new AtomicLong();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  UserCache(int maxEntries) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("Cache size must be positive: " + maxEntries);
+    }
+    this.maxEntries = maxEntries;
+  }
+
+  public static UserCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * @param userId The user ID
+   * @return Copy of the cached user, empty on a miss
+   */
+  public synchronized Optional<UserAuthentication> get(int userId) {
+    UserAuthentication user = users.get(userId);
+    if (user == null) {
+      misses.increment();
+      return Optional.empty();
+    }
+    hits.increment();
+    return Optional.of(copyOf(user));
+  }
+
+  /**
+   * Take before reading a user from the database
+   *
+   * @return Stamp to pass to {@link #putIfUnchanged(UserAuthentication, long)}
+   */
+  public long readStamp() {
+    return invalidations.get();
+  }
+
+  /**
+   * Cache a user read from the database unless something was invalidated since the stamp was taken
+   */
+  public synchronized void putIfUnchanged(UserAuthentication user, long stamp) {
+    // Invalidations take the lock too, so none can slip in between the check and the put
+    if (invalidations.get() != stamp) {
+      return;
+    }
+    users.put(user.getId(), copyOf(user));
+    evictOverflow();
+  }
+
+  public synchronized void invalidate(int userId) {
+    invalidations.incrementAndGet();
+    users.remove(userId);
+  }
+
+  /**
+   * Drop a user now and again once the current transaction commits
+   */
+  public void invalidateAfterCommit(int userId) {
+    invalidate(userId);
+    TransactionTemplate.afterCommit(() -> invalidate(userId));
+  }
+
+  public synchronized void clear() {
+    invalidations.incrementAndGet();
+    users.clear();
+  }
+
+  public synchronized int size() {
+    return users.size();
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  public double getHitRate() {
+    long h = hits.sum();
+    long total = h + misses.sum();
+    return total == 0 ? 0.0 : (double) h / total;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("UserCache{size=%d, hits=%d, misses=%d, hitRate=%.2f%%}",
+        size(), getHitCount(), getMissCount(), getHitRate() * 100);
+  }
+
+  private void evictOverflow() {
+    Iterator<Integer> eldest = users.keySet().iterator();
+    while (users.size() > maxEntries && eldest.hasNext()) {
+      eldest.next();
+      eldest.remove();
+    }
+  }
+
+  private static UserAuthentication copyOf(UserAuthentication user) {
+    return new UserAuthentication(user.getId(), user.getName(), user.getEmail(), user.getNumber(),
+        user.getPin(), user.getCreatedDate(), user.getUpdatedDate());
+  }
+}
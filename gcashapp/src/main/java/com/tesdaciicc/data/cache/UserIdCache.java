@@ -0,0 +1,179 @@
+package com.tesdaciicc.data.cache;
+
+import com.tesdaciicc.data.util.Config;
+import com.tesdaciicc.data.util.TransactionTemplate;
+import com.tesdaciicc.metrics.MetricsRegistry;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Login identifier (email or mobile number) to userId, so a login can fetch
+ * the user by primary key instead of searching the email or number index.
+ *
+ * Only the mapping is cached; UserRepository loads the row by ID, from
+ * {@link UserCache} when it can, and checks that it still has the
+ * identifier, so a mismatch costs one extra query rather than a wrong login.
+ * Writes that can change identifiers drop the user's entries with
+ * {@link #invalidateUserAfterCommit(int)}. As with {@link SessionStore}, a
+ * reader takes {@link #readStamp()} before querying and fills the cache with
+ * {@link #putIfUnchanged(String, int, long)}. Beyond
+ * {@link Config#USER_ID_CACHE_MAX_ENTRIES} identifiers the least recently
+ * used one is dropped. Reads reorder the entries, so every access is
+ * synchronized.
+ */
+public final class UserIdCache {
+
+  private static final UserIdCache instance = new UserIdCache(Config.USER_ID_CACHE_MAX_ENTRIES);
+
+  static {
+    MetricsRegistry metrics = MetricsRegistry.getInstance();
+    metrics.gauge("cache.userId.size", instance::size);
+    metrics.gauge("cache.userId.hitRate", instance::getHitRate);
+  }
+
+  private final int maxEntries;
+  private final LinkedHashMap<String, Integer> userIds = new LinkedHashMap<>(16, 0.75f, true);
+  // Identifiers per user, kept in step with userIds
+  private final Map<Integer, Set<String>> identifiersByUser = new HashMap<>();
+  private final AtomicLong invalidations = new AtomicLong();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  UserIdCache(int maxEntries) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("Cache size must be positive: " + maxEntries);
+    }
+    this.maxEntries = maxEntries;
+  }
+
+  public static UserIdCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * @param identifier Email or mobile number
+   * @return Cached userId, or null if the identifier is not cached
+   */
+  public synchronized Integer get(String identifier) {
+    Integer userId = userIds.get(identifier);
+    if (userId == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return userId;
+  }
+
+  /**
+   * Take before looking an identifier up in the database
+   *
+   * @return Stamp to pass to {@link #putIfUnchanged(String, int, long)}
+   */
+  public long readStamp() {
+    return invalidations.get();
+  }
+
+  /**
+   * Cache a mapping read from the database unless something was invalidated since the stamp was taken
+   */
+  public synchronized void putIfUnchanged(String identifier, int userId, long stamp) {
+    // Invalidations take the lock too, so none can slip in between the check and the put
+    if (invalidations.get() != stamp) {
+      return;
+    }
+    Integer previous = userIds.put(identifier, userId);
+    if (previous != null && previous != userId) {
+      forget(identifier, previous);
+    }
+    identifiersByUser.computeIfAbsent(userId, id -> new HashSet<>(4)).add(identifier);
+    evictOverflow();
+  }
+
+  /**
+   * Forget one identifier, e.g. when the user it points to no longer has it
+   */
+  public synchronized void invalidate(String identifier) {
+    invalidations.incrementAndGet();
+    Integer userId = userIds.remove(identifier);
+    if (userId != null) {
+      forget(identifier, userId);
+    }
+  }
+
+  /**
+   * Forget every identifier of a user, e.g. when the user's email or number changes or the user is deleted
+   */
+  public synchronized void invalidateUser(int userId) {
+    invalidations.incrementAndGet();
+    Set<String> identifiers = identifiersByUser.remove(userId);
+    if (identifiers != null) {
+      for (String identifier : identifiers) {
+        userIds.remove(identifier);
+      }
+    }
+  }
+
+  /**
+   * Forget a user's identifiers now and again once the current transaction commits
+   */
+  public void invalidateUserAfterCommit(int userId) {
+    invalidateUser(userId);
+    TransactionTemplate.afterCommit(() -> invalidateUser(userId));
+  }
+
+  public synchronized void clear() {
+    invalidations.incrementAndGet();
+    identifiersByUser.clear();
+    userIds.clear();
+  }
+
+  public synchronized int size() {
+    return userIds.size();
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  public double getHitRate() {
+    long h = hits.sum();
+    long total = h + misses.sum();
+    return total == 0 ? 0.0 : (double) h / total;
+  }
+
+  private void evictOverflow() {
+    Iterator<Map.Entry<String, Integer>> eldest = userIds.entrySet().iterator();
+    while (userIds.size() > maxEntries && eldest.hasNext()) {
+      Map.Entry<String, Integer> entry = eldest.next();
+      eldest.remove();
+      forget(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Drop an identifier from its user's set once it is no longer in userIds
+   */
+  private void forget(String identifier, int userId) {
+    Set<String> identifiers = identifiersByUser.get(userId);
+    if (identifiers != null && identifiers.remove(identifier) && identifiers.isEmpty()) {
+      identifiersByUser.remove(userId);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("UserIdCache{size=%d, hits=%d, misses=%d, hitRate=%.2f%%}",
+        size(), getHitCount(), getMissCount(), getHitRate() * 100);
+  }
+}
@@ -1,7 +1,10 @@
 package com.tesdaciicc.data.repository;
 
 import com.tesdaciicc.model.Balance;
+import com.tesdaciicc.model.Money;
+import com.tesdaciicc.data.cache.BalanceCache;
 import com.tesdaciicc.data.util.ConnectionFactory;
+import com.tesdaciicc.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,6 +17,10 @@ import java.util.Optional;
 public class BalanceDAO {
 
   private static final Logger logger = LoggerFactory.getLogger(BalanceDAO.class);
+  private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+  // Shared write-through cache; every balance write in this DAO keeps it current
+  private final BalanceCache balanceCache = BalanceCache.getInstance();
 
   // SQL queries matching your existing Balance table schema
   private static final String SELECT_BALANCE_BY_USER_ID = "SELECT balanceId, userId, balanceAmount, createdDate, updatedDate FROM balance WHERE userId = ?";
@@ -22,7 +29,13 @@ public class BalanceDAO {
 
   private static final String INSERT_BALANCE = "INSERT INTO balance (balanceAmount, userId) VALUES (?, ?)";
 
-  private static final String UPDATE_BALANCE = "UPDATE balance SET balanceAmount = ?, updatedDate = datetime('now') WHERE userId = ?";
+  private static final String UPDATE_BALANCE = "UPDATE balance SET balanceAmount = ?, updatedDate = datetime('now') WHERE userId = ? RETURNING balanceId, userId, balanceAmount, createdDate, updatedDate";
+
+  // Delta updates: the new amount is computed by SQLite in the same statement, so
+  // concurrent writers cannot overwrite each other's change
+  private static final String DEBIT_BALANCE_IF_SUFFICIENT = "UPDATE balance SET balanceAmount = balanceAmount - ?, updatedDate = datetime('now') WHERE userId = ? AND balanceAmount >= ? RETURNING balanceId, userId, balanceAmount, createdDate, updatedDate";
+
+  private static final String CREDIT_BALANCE = "UPDATE balance SET balanceAmount = balanceAmount + ?, updatedDate = datetime('now') WHERE userId = ? RETURNING balanceId, userId, balanceAmount, createdDate, updatedDate";
 
   private static final String DELETE_BALANCE = "DELETE FROM balance WHERE userId = ?";
 
@@ -34,9 +47,29 @@ public class BalanceDAO {
    * @return Optional containing Balance if found, empty otherwise
    */
   public Optional<Balance> findByUserId(int userId) {
-    logger.debug("Finding balance for userId: {}", userId);
+    return metrics.timer("dao.balance.findByUserId").record(() -> {
+      logger.debug("Finding balance for userId: {}", userId);
+
+      // Inside a transaction the cache may be behind this thread's own changes
+      if (ConnectionFactory.isWriteConnectionHeld()) {
+        return loadByUserId(userId);
+      }
+
+      Optional<Balance> cached = balanceCache.get(userId);
+      if (cached.isPresent()) {
+        logger.debug("Balance cache hit for userId {}", userId);
+        return cached;
+      }
 
-    try (Connection connection = ConnectionFactory.getConnection();
+      long stamp = balanceCache.readStamp(userId);
+      Optional<Balance> balance = loadByUserId(userId);
+      balance.ifPresent(b -> balanceCache.putIfUnchanged(b, stamp));
+      return balance;
+    });
+  }
+
+  private Optional<Balance> loadByUserId(int userId) {
+    try (Connection connection = ConnectionFactory.getReadConnection();
         PreparedStatement stmt = connection.prepareStatement(SELECT_BALANCE_BY_USER_ID)) {
 
       stmt.setInt(1, userId);
@@ -63,23 +96,25 @@ public class BalanceDAO {
    * @return List of all balances
    */
   public List<Balance> findAll() {
-    logger.debug("Fetching all balances");
-    List<Balance> balances = new ArrayList<>();
+    return metrics.timer("dao.balance.findAll").record(() -> {
+      logger.debug("Fetching all balances");
+      List<Balance> balances = new ArrayList<>();
 
-    try (Connection connection = ConnectionFactory.getConnection();
-        PreparedStatement stmt = connection.prepareStatement(SELECT_ALL_BALANCES);
-        ResultSet rs = stmt.executeQuery()) {
+      try (Connection connection = ConnectionFactory.getReadConnection();
+          PreparedStatement stmt = connection.prepareStatement(SELECT_ALL_BALANCES);
+          ResultSet rs = stmt.executeQuery()) {
 
-      while (rs.next()) {
-        balances.add(mapResultSetToBalance(rs));
-      }
+        while (rs.next()) {
+          balances.add(mapResultSetToBalance(rs));
+        }
 
-      logger.debug("Found {} balances", balances.size());
-    } catch (SQLException e) {
-      logger.error("Error fetching all balances: {}", e.getMessage(), e);
-    }
+        logger.debug("Found {} balances", balances.size());
+      } catch (SQLException e) {
+        logger.error("Error fetching all balances: {}", e.getMessage(), e);
+      }
 
-    return balances;
+      return balances;
+    });
   }
 
   /**
@@ -89,30 +124,33 @@ public class BalanceDAO {
    * @return true if successful, false otherwise
    */
   public boolean create(Balance balance) {
-    logger.debug("Creating balance for userId: {}", balance.getUserId());
+    return metrics.timer("dao.balance.create").record(() -> {
+      logger.debug("Creating balance for userId: {}", balance.getUserId());
 
-    try (Connection connection = ConnectionFactory.getConnection();
-        PreparedStatement stmt = connection.prepareStatement(INSERT_BALANCE, Statement.RETURN_GENERATED_KEYS)) {
+      try (Connection connection = ConnectionFactory.getWriteConnection();
+          PreparedStatement stmt = connection.prepareStatement(INSERT_BALANCE, Statement.RETURN_GENERATED_KEYS)) {
 
-      stmt.setBigDecimal(1, balance.getAmount());
-      stmt.setInt(2, balance.getUserId());
+        stmt.setLong(1, balance.getAmount().getCentavos());
+        stmt.setInt(2, balance.getUserId());
 
-      int rowsAffected = stmt.executeUpdate();
+        int rowsAffected = stmt.executeUpdate();
 
-      if (rowsAffected > 0) {
-        try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-          if (generatedKeys.next()) {
-            balance.setId(generatedKeys.getInt(1));
+        if (rowsAffected > 0) {
+          try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+            if (generatedKeys.next()) {
+              balance.setId(generatedKeys.getInt(1));
+            }
           }
+          balanceCache.invalidateAfterCommit(balance.getUserId());
+          logger.info("Balance created successfully for userId: {}", balance.getUserId());
+          return true;
         }
-        logger.info("Balance created successfully for userId: {}", balance.getUserId());
-        return true;
+      } catch (SQLException e) {
+        logger.error("Error creating balance for userId {}: {}", balance.getUserId(), e.getMessage(), e);
       }
-    } catch (SQLException e) {
-      logger.error("Error creating balance for userId {}: {}", balance.getUserId(), e.getMessage(), e);
-    }
 
-    return false;
+      return false;
+    });
   }
 
   /**
@@ -122,26 +160,40 @@ public class BalanceDAO {
    * @param newAmount The new balance amount
    * @return true if successful, false otherwise
    */
-  public boolean updateBalance(int userId, BigDecimal newAmount) {
-    logger.debug("Updating balance for userId {} to amount: {}", userId, newAmount);
-
-    try (Connection connection = ConnectionFactory.getConnection();
-        PreparedStatement stmt = connection.prepareStatement(UPDATE_BALANCE)) {
+  public boolean updateBalance(int userId, Money newAmount) {
+    return metrics.timer("dao.balance.updateBalance").record(() -> {
+      logger.debug("Updating balance for userId {} to amount: {}", userId, newAmount);
 
-      stmt.setBigDecimal(1, newAmount);
-      stmt.setInt(2, userId);
+      try (Connection connection = ConnectionFactory.getWriteConnection();
+          PreparedStatement stmt = connection.prepareStatement(UPDATE_BALANCE)) {
 
-      int rowsAffected = stmt.executeUpdate();
+        stmt.setLong(1, newAmount.getCentavos());
+        stmt.setInt(2, userId);
 
-      if (rowsAffected > 0) {
-        logger.info("Balance updated successfully for userId: {}", userId);
-        return true;
+        try (ResultSet rs = stmt.executeQuery()) {
+          if (rs.next()) {
+            balanceCache.putAfterCommit(mapResultSetToBalance(rs));
+            logger.info("Balance updated successfully for userId: {}", userId);
+            return true;
+          }
+        }
+      } catch (SQLException e) {
+        logger.error("Error updating balance for userId {}: {}", userId, e.getMessage(), e);
       }
-    } catch (SQLException e) {
-      logger.error("Error updating balance for userId {}: {}", userId, e.getMessage(), e);
-    }
 
-    return false;
+      return false;
+    });
+  }
+
+  /**
+   * Update balance amount for a user (BigDecimal overload)
+   * 
+   * @param userId    The user ID
+   * @param newAmount The new balance amount in pesos
+   * @return true if successful, false otherwise
+   */
+  public boolean updateBalance(int userId, BigDecimal newAmount) {
+    return updateBalance(userId, Money.of(newAmount));
   }
 
   /**
@@ -152,7 +204,77 @@ public class BalanceDAO {
    * @return true if successful, false otherwise
    */
   public boolean updateBalance(int userId, double newAmount) {
-    return updateBalance(userId, BigDecimal.valueOf(newAmount));
+    return updateBalance(userId, Money.of(newAmount));
+  }
+
+  /**
+   * Subtract an amount from a user's balance, but only if the balance covers it.
+   * The check and the update are one statement, so no SELECT is needed first.
+   * 
+   * @param userId The user ID
+   * @param amount The amount to subtract
+   * @return Optional containing the new balance, empty if the balance is missing
+   *         or too low
+   */
+  public Optional<Money> debitIfSufficient(int userId, Money amount) {
+    return metrics.timer("dao.balance.debitIfSufficient").record(() -> {
+      logger.debug("Debiting {} from balance of userId {}", amount, userId);
+
+      try (Connection connection = ConnectionFactory.getWriteConnection();
+          PreparedStatement stmt = connection.prepareStatement(DEBIT_BALANCE_IF_SUFFICIENT)) {
+
+        stmt.setLong(1, amount.getCentavos());
+        stmt.setInt(2, userId);
+        stmt.setLong(3, amount.getCentavos());
+
+        try (ResultSet rs = stmt.executeQuery()) {
+          if (rs.next()) {
+            Balance updated = mapResultSetToBalance(rs);
+            balanceCache.putAfterCommit(updated);
+            logger.info("Balance debited successfully for userId: {}", userId);
+            return Optional.of(updated.getAmount());
+          }
+        }
+      } catch (SQLException e) {
+        logger.error("Error debiting balance for userId {}: {}", userId, e.getMessage(), e);
+      }
+
+      logger.debug("Debit of {} not applied for userId: {}", amount, userId);
+      return Optional.empty();
+    });
+  }
+
+  /**
+   * Add an amount to a user's balance in a single statement
+   * 
+   * @param userId The user ID
+   * @param amount The amount to add
+   * @return Optional containing the new balance, empty if the user has no balance
+   */
+  public Optional<Money> credit(int userId, Money amount) {
+    return metrics.timer("dao.balance.credit").record(() -> {
+      logger.debug("Crediting {} to balance of userId {}", amount, userId);
+
+      try (Connection connection = ConnectionFactory.getWriteConnection();
+          PreparedStatement stmt = connection.prepareStatement(CREDIT_BALANCE)) {
+
+        stmt.setLong(1, amount.getCentavos());
+        stmt.setInt(2, userId);
+
+        try (ResultSet rs = stmt.executeQuery()) {
+          if (rs.next()) {
+            Balance updated = mapResultSetToBalance(rs);
+            balanceCache.putAfterCommit(updated);
+            logger.info("Balance credited successfully for userId: {}", userId);
+            return Optional.of(updated.getAmount());
+          }
+        }
+      } catch (SQLException e) {
+        logger.error("Error crediting balance for userId {}: {}", userId, e.getMessage(), e);
+      }
+
+      return Optional.empty();
+    });
   }
 
   /**
@@ -162,24 +284,27 @@ public class BalanceDAO {
    * @return true if successful, false otherwise
    */
   public boolean delete(int userId) {
-    logger.debug("Deleting balance for userId: {}", userId);
+    return metrics.timer("dao.balance.delete").record(() -> {
+      logger.debug("Deleting balance for userId: {}", userId);
 
-    try (Connection connection = ConnectionFactory.getConnection();
-        PreparedStatement stmt = connection.prepareStatement(DELETE_BALANCE)) {
+      try (Connection connection = ConnectionFactory.getWriteConnection();
+          PreparedStatement stmt = connection.prepareStatement(DELETE_BALANCE)) {
 
-      stmt.setInt(1, userId);
+        stmt.setInt(1, userId);
 
-      int rowsAffected = stmt.executeUpdate();
+        int rowsAffected = stmt.executeUpdate();
 
-      if (rowsAffected > 0) {
-        logger.info("Balance deleted successfully for userId: {}", userId);
-        return true;
+        if (rowsAffected > 0) {
+          balanceCache.invalidateAfterCommit(userId);
+          logger.info("Balance deleted successfully for userId: {}", userId);
+          return true;
+        }
+      } catch (SQLException e) {
+        logger.error("Error deleting balance for userId {}: {}", userId, e.getMessage(), e);
       }
-    } catch (SQLException e) {
-      logger.error("Error deleting balance for userId {}: {}", userId, e.getMessage(), e);
-    }
 
-    return false;
+      return false;
+    });
   }
 
   /**
@@ -189,7 +314,7 @@ public class BalanceDAO {
     return new Balance(
         rs.getInt("balanceId"), // Your existing 'id' column
         rs.getInt("userId"), // Your existing 'userId' column
-        rs.getBigDecimal("balanceAmount"), // Your existing 'amount' column
+        Money.ofCentavos(rs.getLong("balanceAmount")), // Stored in centavos
         rs.getString("createdDate"), // Your existing 'createdDate' column
         rs.getString("updatedDate") // Your existing 'updatedDate' column
     );
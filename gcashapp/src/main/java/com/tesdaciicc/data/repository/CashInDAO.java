@@ -1,18 +1,19 @@
 package com.tesdaciicc.data.repository;
 
 import com.tesdaciicc.data.util.ConnectionFactory;
+import com.tesdaciicc.data.util.ResultSetStream;
 import com.tesdaciicc.model.CashIn;
+import com.tesdaciicc.model.Money;
 
+import com.tesdaciicc.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.math.BigDecimal;
 import java.sql.*;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object for CashIn transactions
@@ -21,10 +22,11 @@ import java.util.Optional;
 public class CashInDAO {
 
     private static final Logger logger = LoggerFactory.getLogger(CashInDAO.class);
+    private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
     
     // SQL queries matching your existing CashIn table schema
     private static final String INSERT_TRANSACTION = """
-        INSERT INTO transactions (transactionAmount, transactionName, userId, transferToAccountNo, transferFromAccountNo, accountNumber) VALUES (?, ?, ?, ?, ?, ?)""";
+        INSERT INTO transactions (transactionAmount, transactionName, userId, transferToAccountNo, transferFromAccountNo, accountNumber, transactionDate) VALUES (?, ?, ?, ?, ?, ?, ?)""";
 
     private static final String SELECT_BY_ID = "SELECT * FROM transactions WHERE transactionId = ?";
     private static final String SELECT_BY_USER_ID = "SELECT * FROM transactions WHERE userId = ? ORDER BY transactionDate DESC";
@@ -32,8 +34,6 @@ public class CashInDAO {
     private static final String SELECT_ALL = "SELECT * FROM transactions ORDER BY transactionDate DESC";
     private static final String SELECT_TOTAL_BY_USER_ID = "SELECT COALESCE(SUM(transactionAmount), 0) as total FROM transactions WHERE userId = ?";
     private static final String COUNT_BY_USER_ID = "SELECT COUNT(*) as count FROM transactions WHERE userId = ?";
-    private static final DateTimeFormatter DB_DATE_FORMAT = 
-        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     /**
      * Create a new cash-in transaction record
@@ -42,35 +42,38 @@ public class CashInDAO {
      * @return Optional containing the created transaction with generated ID
      */
     public Optional<CashIn> create(CashIn cashIn) {
-        logger.debug("Creating cash-in transaction for userId: {}", cashIn.getUserId());
-
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(INSERT_TRANSACTION, Statement.RETURN_GENERATED_KEYS)) {
-
-            stmt.setBigDecimal(1, cashIn.getTransactionAmount());
-            stmt.setString(2, cashIn.getName());
-            stmt.setInt(3, cashIn.getUserId());
-            stmt.setString(4, cashIn.getTransferToAccountNo());
-            stmt.setString(5, cashIn.getTransferFromAccountNo());
-            stmt.setString(6, cashIn.getAccountNumber());
-
-            int rowsAffected = stmt.executeUpdate();
-
-            if (rowsAffected > 0) {
-                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        cashIn.setTransactionId(generatedKeys.getInt(1));
-                        logger.info("Cash-in transaction created successfully with ID: {}", cashIn.getTransactionId());
-                        return Optional.of(cashIn);
+        return metrics.timer("dao.cashIn.create").record(() -> {
+            logger.debug("Creating cash-in transaction for userId: {}", cashIn.getUserId());
+
+            try (Connection connection = ConnectionFactory.getWriteConnection();
+                 PreparedStatement stmt = connection.prepareStatement(INSERT_TRANSACTION, Statement.RETURN_GENERATED_KEYS)) {
+
+                stmt.setLong(1, cashIn.getTransactionAmount().getCentavos());
+                stmt.setString(2, cashIn.getName());
+                stmt.setInt(3, cashIn.getUserId());
+                stmt.setString(4, cashIn.getTransferToAccountNo());
+                stmt.setString(5, cashIn.getTransferFromAccountNo());
+                stmt.setString(6, cashIn.getAccountNumber());
+                stmt.setLong(7, cashIn.getTransactionDateMillis());
+
+                int rowsAffected = stmt.executeUpdate();
+
+                if (rowsAffected > 0) {
+                    try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                        if (generatedKeys.next()) {
+                            cashIn.setTransactionId(generatedKeys.getInt(1));
+                            logger.info("Cash-in transaction created successfully with ID: {}", cashIn.getTransactionId());
+                            return Optional.of(cashIn);
+                        }
                     }
                 }
-            }
 
-        } catch (SQLException e) {
-            logger.error("Error creating cash-in transaction for userId {}: {}", cashIn.getUserId(), e.getMessage(), e);
-        }
+            } catch (SQLException e) {
+                logger.error("Error creating cash-in transaction for userId {}: {}", cashIn.getUserId(), e.getMessage(), e);
+            }
 
-        return Optional.empty();
+            return Optional.empty();
+        });
     }
 
     /**
@@ -80,27 +83,29 @@ public class CashInDAO {
      * @return Optional containing the transaction if found
      */
     public Optional<CashIn> findById(int transactionId) {
-        logger.debug("Finding transaction by ID: {}", transactionId);
+        return metrics.timer("dao.cashIn.findById").record(() -> {
+            logger.debug("Finding transaction by ID: {}", transactionId);
 
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(SELECT_BY_ID)) {
+            try (Connection connection = ConnectionFactory.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(SELECT_BY_ID)) {
 
-            stmt.setInt(1, transactionId);
+                stmt.setInt(1, transactionId);
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    CashIn transaction = mapResultSetToCashIn(rs);
-                    logger.debug("Transaction found with ID: {}", transactionId);
-                    return Optional.of(transaction);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        CashIn transaction = mapResultSetToCashIn(rs);
+                        logger.debug("Transaction found with ID: {}", transactionId);
+                        return Optional.of(transaction);
+                    }
                 }
-            }
 
-        } catch (SQLException e) {
-            logger.error("Error finding transaction by ID {}: {}", transactionId, e.getMessage(), e);
-        }
+            } catch (SQLException e) {
+                logger.error("Error finding transaction by ID {}: {}", transactionId, e.getMessage(), e);
+            }
 
-        logger.debug("Transaction not found with ID: {}", transactionId);
-        return Optional.empty();
+            logger.debug("Transaction not found with ID: {}", transactionId);
+            return Optional.empty();
+        });
     }
 
     /**
@@ -110,27 +115,29 @@ public class CashInDAO {
      * @return List of transactions
      */
     public List<CashIn> findByUserId(int userId) {
-        logger.debug("Finding transactions for userId: {}", userId);
-        List<CashIn> transactions = new ArrayList<>();
+        return metrics.timer("dao.cashIn.findByUserId").record(() -> {
+            logger.debug("Finding transactions for userId: {}", userId);
+            List<CashIn> transactions = new ArrayList<>();
 
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(SELECT_BY_USER_ID)) {
+            try (Connection connection = ConnectionFactory.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(SELECT_BY_USER_ID)) {
 
-            stmt.setInt(1, userId);
+                stmt.setInt(1, userId);
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    transactions.add(mapResultSetToCashIn(rs));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        transactions.add(mapResultSetToCashIn(rs));
+                    }
                 }
-            }
 
-            logger.debug("Found {} transactions for userId: {}", transactions.size(), userId);
+                logger.debug("Found {} transactions for userId: {}", transactions.size(), userId);
 
-        } catch (SQLException e) {
-            logger.error("Error finding transactions for userId {}: {}", userId, e.getMessage(), e);
-        }
+            } catch (SQLException e) {
+                logger.error("Error finding transactions for userId {}: {}", userId, e.getMessage(), e);
+            }
 
-        return transactions;
+            return transactions;
+        });
     }
 
     /**
@@ -140,27 +147,29 @@ public class CashInDAO {
      * @return List of transactions
      */
     public List<CashIn> findByAccountNumber(String accountNumber) {
-        logger.debug("Finding transactions for account number: {}", accountNumber);
-        List<CashIn> transactions = new ArrayList<>();
+        return metrics.timer("dao.cashIn.findByAccountNumber").record(() -> {
+            logger.debug("Finding transactions for account number: {}", accountNumber);
+            List<CashIn> transactions = new ArrayList<>();
 
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(SELECT_BY_ACCOUNT_NUMBER)) {
+            try (Connection connection = ConnectionFactory.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(SELECT_BY_ACCOUNT_NUMBER)) {
 
-            stmt.setString(1, accountNumber);
+                stmt.setString(1, accountNumber);
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    transactions.add(mapResultSetToCashIn(rs));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        transactions.add(mapResultSetToCashIn(rs));
+                    }
                 }
-            }
 
-            logger.debug("Found {} transactions for account number: {}", transactions.size(), accountNumber);
+                logger.debug("Found {} transactions for account number: {}", transactions.size(), accountNumber);
 
-        } catch (SQLException e) {
-            logger.error("Error finding transactions for account number {}: {}", accountNumber, e.getMessage(), e);
-        }
+            } catch (SQLException e) {
+                logger.error("Error finding transactions for account number {}: {}", accountNumber, e.getMessage(), e);
+            }
 
-        return transactions;
+            return transactions;
+        });
     }
 
     /**
@@ -169,24 +178,44 @@ public class CashInDAO {
      * @return List of all transactions
      */
     public List<CashIn> findAll() {
-        logger.debug("Finding all transactions");
-        List<CashIn> transactions = new ArrayList<>();
+        return metrics.timer("dao.cashIn.findAll").record(() -> {
+            logger.debug("Finding all transactions");
+            List<CashIn> transactions = new ArrayList<>();
+
+            try (Connection connection = ConnectionFactory.getReadConnection();
+                 Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery(SELECT_ALL)) {
+
+                while (rs.next()) {
+                    transactions.add(mapResultSetToCashIn(rs));
+                }
 
-        try (Connection connection = ConnectionFactory.getConnection();
-             Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(SELECT_ALL)) {
+                logger.debug("Found {} transactions", transactions.size());
 
-            while (rs.next()) {
-                transactions.add(mapResultSetToCashIn(rs));
+            } catch (SQLException e) {
+                logger.error("Error finding all transactions: {}", e.getMessage(), e);
             }
 
-            logger.debug("Found {} transactions", transactions.size());
+            return transactions;
+        });
+    }
+
+    /**
+     * Stream all transactions, newest first, without loading them into a List.
+     * The stream holds a pooled connection until it is closed
+     * 
+     * @return Stream of all transactions; empty if the query fails
+     */
+    public Stream<CashIn> streamAll() {
+        logger.debug("Streaming all transactions");
 
+        try {
+            return ResultSetStream.query(SELECT_ALL, stmt -> { }, this::mapResultSetToCashIn,
+                    metrics.timer("dao.cashIn.streamAll"));
         } catch (SQLException e) {
-            logger.error("Error finding all transactions: {}", e.getMessage(), e);
+            logger.error("Error streaming all transactions: {}", e.getMessage(), e);
+            return Stream.<CashIn>empty();
         }
-
-        return transactions;
     }
 
     /**
@@ -195,27 +224,29 @@ public class CashInDAO {
      * @param userId User ID
      * @return Total amount
      */
-    public BigDecimal getTotalByUserId(int userId) {
-        logger.debug("Calculating total cash-in for userId: {}", userId);
+    public Money getTotalByUserId(int userId) {
+        return metrics.timer("dao.cashIn.getTotalByUserId").record(() -> {
+            logger.debug("Calculating total cash-in for userId: {}", userId);
 
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(SELECT_TOTAL_BY_USER_ID)) {
+            try (Connection connection = ConnectionFactory.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(SELECT_TOTAL_BY_USER_ID)) {
 
-            stmt.setInt(1, userId);
+                stmt.setInt(1, userId);
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    BigDecimal total = rs.getBigDecimal("total");
-                    logger.debug("Total cash-in for userId {}: {}", userId, total);
-                    return total;
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        Money total = Money.ofCentavos(rs.getLong("total"));
+                        logger.debug("Total cash-in for userId {}: {}", userId, total);
+                        return total;
+                    }
                 }
-            }
 
-        } catch (SQLException e) {
-            logger.error("Error calculating total cash-in for userId {}: {}", userId, e.getMessage(), e);
-        }
+            } catch (SQLException e) {
+                logger.error("Error calculating total cash-in for userId {}: {}", userId, e.getMessage(), e);
+            }
 
-        return BigDecimal.ZERO;
+            return Money.ZERO;
+        });
     }
 
     /**
@@ -225,26 +256,28 @@ public class CashInDAO {
      * @return Transaction count
      */
     public int countByUserId(int userId) {
-        logger.debug("Counting transactions for userId: {}", userId);
+        return metrics.timer("dao.cashIn.countByUserId").record(() -> {
+            logger.debug("Counting transactions for userId: {}", userId);
 
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(COUNT_BY_USER_ID)) {
+            try (Connection connection = ConnectionFactory.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(COUNT_BY_USER_ID)) {
 
-            stmt.setInt(1, userId);
+                stmt.setInt(1, userId);
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    int count = rs.getInt("count");
-                    logger.debug("Transaction count for userId {}: {}", userId, count);
-                    return count;
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        int count = rs.getInt("count");
+                        logger.debug("Transaction count for userId {}: {}", userId, count);
+                        return count;
+                    }
                 }
-            }
 
-        } catch (SQLException e) {
-            logger.error("Error counting transactions for userId {}: {}", userId, e.getMessage(), e);
-        }
+            } catch (SQLException e) {
+                logger.error("Error counting transactions for userId {}: {}", userId, e.getMessage(), e);
+            }
 
-        return 0;
+            return 0;
+        });
     }
 
     /**
@@ -253,11 +286,10 @@ public class CashInDAO {
     private CashIn mapResultSetToCashIn(ResultSet rs) throws SQLException {
         return new CashIn(
             rs.getInt("transactionId"),
-            rs.getBigDecimal("transactionAmount"),
+            Money.ofCentavos(rs.getLong("transactionAmount")),
             rs.getString("transactionName"),
             rs.getInt("userId"),
-            //LocalDateTime.parse(rs.getString("transactionDate")),
-            LocalDateTime.parse(rs.getString("transactionDate"), DB_DATE_FORMAT),
+            rs.getLong("transactionDate"),
             rs.getString("transferToAccountNo"),
             rs.getString("transferFromAccountNo"),
             rs.getString("accountNumber")
@@ -1,21 +1,27 @@
 package com.tesdaciicc.data.repository;
 
 import com.tesdaciicc.model.CashTransfer;
+import com.tesdaciicc.model.EpochMillis;
+import com.tesdaciicc.model.Money;
 import com.tesdaciicc.data.util.ConnectionFactory;
+import com.tesdaciicc.data.util.ResultSetStream;
+import com.tesdaciicc.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.math.BigDecimal;
 import java.sql.*;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public class CashTransferDAO {
 
      private static final Logger logger = LoggerFactory.getLogger(CashTransferDAO.class);
+     private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
     
     // SQL queries for cash transfer operations
     private static final String INSERT_TRANSFER = 
@@ -31,18 +37,33 @@ public class CashTransferDAO {
         "transferToAccountNo, transferFromAccountNo, accountNumber FROM transactions WHERE userId = ? " +
         "ORDER BY transactionDate DESC";
     
-    private static final String SELECT_TRANSFERS_BY_ACCOUNT = 
+    // Two index seeks (idx_transactions_from_date, idx_transactions_to_date) merged
+    // by date instead of an OR that scans the table. The second branch skips rows
+    // the first already returned (transfers from the account to itself)
+    static final String SELECT_TRANSFERS_BY_ACCOUNT = 
         "SELECT transactionId, transactionAmount, transactionName, userId, transactionDate, " +
         "transferToAccountNo, transferFromAccountNo, accountNumber FROM transactions " +
-        "WHERE transferToAccountNo = ? OR transferFromAccountNo = ? ORDER BY transactionDate DESC";
+        "WHERE transferFromAccountNo = ? " +
+        "UNION ALL " +
+        "SELECT transactionId, transactionAmount, transactionName, userId, transactionDate, " +
+        "transferToAccountNo, transferFromAccountNo, accountNumber FROM transactions " +
+        "WHERE transferToAccountNo = ? AND transferFromAccountNo IS NOT ? " +
+        "ORDER BY transactionDate DESC, transactionId DESC";
     
-    private static final String SELECT_DAILY_TRANSFER_AMOUNT = 
+    // Daily queries compare transactionDate against the epoch millis of local
+    // midnight at each end of the day, so idx_transactions_from_date can be used
+    static final String SELECT_DAILY_TRANSFER_AMOUNT = 
         "SELECT COALESCE(SUM(transactionAmount), 0) FROM transactions " +
-        "WHERE userId = ? AND transferFromAccountNo = ? AND DATE(transactionDate) = DATE('now')";
+        "WHERE userId = ? AND transferFromAccountNo = ? AND transactionDate >= ? AND transactionDate < ?";
     
-    private static final String COUNT_DAILY_TRANSFERS = 
+    static final String COUNT_DAILY_TRANSFERS = 
         "SELECT COUNT(*) FROM transactions " +
-        "WHERE userId = ? AND transferFromAccountNo = ? AND DATE(transactionDate) = DATE('now')";
+        "WHERE userId = ? AND transferFromAccountNo = ? AND transactionDate >= ? AND transactionDate < ?";
+    
+    private static final String SELECT_DAILY_TRANSFER_TOTALS = 
+        "SELECT t.userId, COUNT(*), COALESCE(SUM(t.transactionAmount), 0) FROM transactions t " +
+        "JOIN users u ON u.userId = t.userId AND u.number = t.transferFromAccountNo " +
+        "WHERE t.transactionDate >= ? AND t.transactionDate < ? GROUP BY t.userId";
     
     private static final String UPDATE_TRANSFER_STATUS = 
         "UPDATE transactions SET transactionName = ? WHERE transactionId = ?";
@@ -53,37 +74,39 @@ public class CashTransferDAO {
      * @return Optional containing saved transfer with generated ID, or empty if failed
      */
     public Optional<CashTransfer> save(CashTransfer transfer) {
-        logger.debug("Saving cash transfer from {} to {}", 
-                    transfer.getTransferFromAccountNo(), transfer.getTransferToAccountNo());
+        return metrics.timer("dao.cashTransfer.save").record(() -> {
+            logger.debug("Saving cash transfer from {} to {}", 
+                        transfer.getTransferFromAccountNo(), transfer.getTransferToAccountNo());
         
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(INSERT_TRANSFER, Statement.RETURN_GENERATED_KEYS)) {
+            try (Connection connection = ConnectionFactory.getWriteConnection();
+                 PreparedStatement stmt = connection.prepareStatement(INSERT_TRANSFER, Statement.RETURN_GENERATED_KEYS)) {
             
-            stmt.setBigDecimal(1, transfer.getTransactionAmount());
-            stmt.setString(2, transfer.getTransactionName());
-            stmt.setInt(3, transfer.getUserId());
-            stmt.setString(4, transfer.getTransferToAccountNo());
-            stmt.setString(5, transfer.getTransferFromAccountNo());
-            stmt.setString(6, transfer.getAccountNumber());
-            stmt.setString(7, transfer.getTransactionDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+                stmt.setLong(1, transfer.getTransactionAmount().getCentavos());
+                stmt.setString(2, transfer.getTransactionName());
+                stmt.setInt(3, transfer.getUserId());
+                stmt.setString(4, transfer.getTransferToAccountNo());
+                stmt.setString(5, transfer.getTransferFromAccountNo());
+                stmt.setString(6, transfer.getAccountNumber());
+                stmt.setLong(7, transfer.getTransactionDateMillis());
             
-            int rowsAffected = stmt.executeUpdate();
+                int rowsAffected = stmt.executeUpdate();
             
-            if (rowsAffected > 0) {
-                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        transfer.setTransactionId(generatedKeys.getInt(1));
-                        logger.info("Cash transfer saved successfully with ID: {}", transfer.getTransactionId());
-                        return Optional.of(transfer);
+                if (rowsAffected > 0) {
+                    try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                        if (generatedKeys.next()) {
+                            transfer.setTransactionId(generatedKeys.getInt(1));
+                            logger.info("Cash transfer saved successfully with ID: {}", transfer.getTransactionId());
+                            return Optional.of(transfer);
+                        }
                     }
                 }
-            }
             
-        } catch (SQLException e) {
-            logger.error("Error saving cash transfer: {}", e.getMessage(), e);
-        }
+            } catch (SQLException e) {
+                logger.error("Error saving cash transfer: {}", e.getMessage(), e);
+            }
         
-        return Optional.empty();
+            return Optional.empty();
+        });
     }
     
     /**
@@ -92,27 +115,29 @@ public class CashTransferDAO {
      * @return Optional containing CashTransfer if found
      */
     public Optional<CashTransfer> findById(int transactionId) {
-        logger.debug("Finding transfer by ID: {}", transactionId);
+        return metrics.timer("dao.cashTransfer.findById").record(() -> {
+            logger.debug("Finding transfer by ID: {}", transactionId);
         
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(SELECT_TRANSFER_BY_ID)) {
+            try (Connection connection = ConnectionFactory.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(SELECT_TRANSFER_BY_ID)) {
             
-            stmt.setInt(1, transactionId);
+                stmt.setInt(1, transactionId);
             
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    CashTransfer transfer = mapResultSetToTransfer(rs);
-                    logger.debug("Transfer found: {}", transfer);
-                    return Optional.of(transfer);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        CashTransfer transfer = mapResultSetToTransfer(rs);
+                        logger.debug("Transfer found: {}", transfer);
+                        return Optional.of(transfer);
+                    }
                 }
-            }
             
-        } catch (SQLException e) {
-            logger.error("Error finding transfer by ID {}: {}", transactionId, e.getMessage(), e);
-        }
+            } catch (SQLException e) {
+                logger.error("Error finding transfer by ID {}: {}", transactionId, e.getMessage(), e);
+            }
         
-        logger.debug("Transfer not found with ID: {}", transactionId);
-        return Optional.empty();
+            logger.debug("Transfer not found with ID: {}", transactionId);
+            return Optional.empty();
+        });
     }
     
     /**
@@ -121,27 +146,29 @@ public class CashTransferDAO {
      * @return List of transfers for the user
      */
     public List<CashTransfer> findByUserId(int userId) {
-        logger.debug("Finding transfers for user ID: {}", userId);
-        List<CashTransfer> transfers = new ArrayList<>();
+        return metrics.timer("dao.cashTransfer.findByUserId").record(() -> {
+            logger.debug("Finding transfers for user ID: {}", userId);
+            List<CashTransfer> transfers = new ArrayList<>();
         
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(SELECT_TRANSFERS_BY_USER_ID)) {
+            try (Connection connection = ConnectionFactory.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(SELECT_TRANSFERS_BY_USER_ID)) {
             
-            stmt.setInt(1, userId);
+                stmt.setInt(1, userId);
             
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    transfers.add(mapResultSetToTransfer(rs));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        transfers.add(mapResultSetToTransfer(rs));
+                    }
                 }
-            }
             
-            logger.debug("Found {} transfers for user ID: {}", transfers.size(), userId);
+                logger.debug("Found {} transfers for user ID: {}", transfers.size(), userId);
             
-        } catch (SQLException e) {
-            logger.error("Error finding transfers for user ID {}: {}", userId, e.getMessage(), e);
-        }
+            } catch (SQLException e) {
+                logger.error("Error finding transfers for user ID {}: {}", userId, e.getMessage(), e);
+            }
         
-        return transfers;
+            return transfers;
+        });
     }
     
     /**
@@ -150,28 +177,52 @@ public class CashTransferDAO {
      * @return List of transfers involving the account
      */
     public List<CashTransfer> findByAccountNumber(String accountNumber) {
-        logger.debug("Finding transfers for account: {}", accountNumber);
-        List<CashTransfer> transfers = new ArrayList<>();
+        return metrics.timer("dao.cashTransfer.findByAccountNumber").record(() -> {
+            logger.debug("Finding transfers for account: {}", accountNumber);
+            List<CashTransfer> transfers = new ArrayList<>();
         
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(SELECT_TRANSFERS_BY_ACCOUNT)) {
+            try (Connection connection = ConnectionFactory.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(SELECT_TRANSFERS_BY_ACCOUNT)) {
             
-            stmt.setString(1, accountNumber);
-            stmt.setString(2, accountNumber);
+                stmt.setString(1, accountNumber);
+                stmt.setString(2, accountNumber);
+                stmt.setString(3, accountNumber);
             
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    transfers.add(mapResultSetToTransfer(rs));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        transfers.add(mapResultSetToTransfer(rs));
+                    }
                 }
-            }
             
-            logger.debug("Found {} transfers for account: {}", transfers.size(), accountNumber);
+                logger.debug("Found {} transfers for account: {}", transfers.size(), accountNumber);
             
+            } catch (SQLException e) {
+                logger.error("Error finding transfers for account {}: {}", accountNumber, e.getMessage(), e);
+            }
+        
+            return transfers;
+        });
+    }
+    
+    /**
+     * Stream all transfers involving a specific account number, newest first,
+     * without loading them into a List. The stream must be closed
+     * @param accountNumber Account number (mobile number)
+     * @return Stream of transfers involving the account; empty if the query fails
+     */
+    public Stream<CashTransfer> streamByAccountNumber(String accountNumber) {
+        logger.debug("Streaming transfers for account: {}", accountNumber);
+    
+        try {
+            return ResultSetStream.query(SELECT_TRANSFERS_BY_ACCOUNT, stmt -> {
+                stmt.setString(1, accountNumber);
+                stmt.setString(2, accountNumber);
+                stmt.setString(3, accountNumber);
+            }, this::mapResultSetToTransfer, metrics.timer("dao.cashTransfer.streamByAccountNumber"));
         } catch (SQLException e) {
-            logger.error("Error finding transfers for account {}: {}", accountNumber, e.getMessage(), e);
+            logger.error("Error streaming transfers for account {}: {}", accountNumber, e.getMessage(), e);
+            return Stream.<CashTransfer>empty();
         }
-        
-        return transfers;
     }
     
     /**
@@ -180,29 +231,34 @@ public class CashTransferDAO {
      * @param accountNumber User's account number
      * @return Total amount transferred today
      */
-    public BigDecimal getDailyTransferAmount(int userId, String accountNumber) {
-        logger.debug("Getting daily transfer amount for user {} with account {}", userId, accountNumber);
+    public Money getDailyTransferAmount(int userId, String accountNumber) {
+        return metrics.timer("dao.cashTransfer.getDailyTransferAmount").record(() -> {
+            logger.debug("Getting daily transfer amount for user {} with account {}", userId, accountNumber);
         
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(SELECT_DAILY_TRANSFER_AMOUNT)) {
+            try (Connection connection = ConnectionFactory.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(SELECT_DAILY_TRANSFER_AMOUNT)) {
             
-            stmt.setInt(1, userId);
-            stmt.setString(2, accountNumber);
+                LocalDate today = LocalDate.now();
+                stmt.setInt(1, userId);
+                stmt.setString(2, accountNumber);
+                stmt.setLong(3, EpochMillis.startOfDay(today));
+                stmt.setLong(4, EpochMillis.startOfDay(today.plusDays(1)));
             
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    BigDecimal amount = rs.getBigDecimal(1);
-                    logger.debug("Daily transfer amount: {}", amount);
-                    return amount != null ? amount : BigDecimal.ZERO;
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        Money amount = Money.ofCentavos(rs.getLong(1));
+                        logger.debug("Daily transfer amount: {}", amount);
+                        return amount;
+                    }
                 }
-            }
             
-        } catch (SQLException e) {
-            logger.error("Error getting daily transfer amount for user {} with account {}: {}", 
-                        userId, accountNumber, e.getMessage(), e);
-        }
+            } catch (SQLException e) {
+                logger.error("Error getting daily transfer amount for user {} with account {}: {}", 
+                            userId, accountNumber, e.getMessage(), e);
+            }
         
-        return BigDecimal.ZERO;
+            return Money.ZERO;
+        });
     }
     
     /**
@@ -212,28 +268,64 @@ public class CashTransferDAO {
      * @return Number of transfers made today
      */
     public int getDailyTransferCount(int userId, String accountNumber) {
-        logger.debug("Getting daily transfer count for user {} with account {}", userId, accountNumber);
+        return metrics.timer("dao.cashTransfer.getDailyTransferCount").record(() -> {
+            logger.debug("Getting daily transfer count for user {} with account {}", userId, accountNumber);
         
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(COUNT_DAILY_TRANSFERS)) {
+            try (Connection connection = ConnectionFactory.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(COUNT_DAILY_TRANSFERS)) {
             
-            stmt.setInt(1, userId);
-            stmt.setString(2, accountNumber);
+                LocalDate today = LocalDate.now();
+                stmt.setInt(1, userId);
+                stmt.setString(2, accountNumber);
+                stmt.setLong(3, EpochMillis.startOfDay(today));
+                stmt.setLong(4, EpochMillis.startOfDay(today.plusDays(1)));
             
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    int count = rs.getInt(1);
-                    logger.debug("Daily transfer count: {}", count);
-                    return count;
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        int count = rs.getInt(1);
+                        logger.debug("Daily transfer count: {}", count);
+                        return count;
+                    }
                 }
+            
+            } catch (SQLException e) {
+                logger.error("Error getting daily transfer count for user {} with account {}: {}", 
+                            userId, accountNumber, e.getMessage(), e);
             }
+        
+            return 0;
+        });
+    }
+    
+    /**
+     * Get every user's outgoing transfer count and amount for one day in a single query
+     * @param day Local date to total
+     * @return Totals keyed by user ID, users with no transfers that day are absent
+     */
+    public Map<Integer, DailyTotal> getDailyTransferTotals(LocalDate day) {
+        return metrics.timer("dao.cashTransfer.getDailyTransferTotals").record(() -> {
+            logger.debug("Getting daily transfer totals for {}", day);
+            Map<Integer, DailyTotal> totals = new HashMap<>();
+        
+            try (Connection connection = ConnectionFactory.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(SELECT_DAILY_TRANSFER_TOTALS)) {
             
-        } catch (SQLException e) {
-            logger.error("Error getting daily transfer count for user {} with account {}: {}", 
-                        userId, accountNumber, e.getMessage(), e);
-        }
+                stmt.setLong(1, EpochMillis.startOfDay(day));
+                stmt.setLong(2, EpochMillis.startOfDay(day.plusDays(1)));
+            
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        totals.put(rs.getInt(1), new DailyTotal(rs.getInt(2), Money.ofCentavos(rs.getLong(3))));
+                    }
+                }
+            
+                logger.debug("Found daily transfer totals for {} users", totals.size());
+            } catch (SQLException e) {
+                logger.error("Error getting daily transfer totals for {}: {}", day, e.getMessage(), e);
+            }
         
-        return 0;
+            return totals;
+        });
     }
     
     /**
@@ -243,26 +335,28 @@ public class CashTransferDAO {
      * @return true if successful
      */
     public boolean updateStatus(int transactionId, String status) {
-        logger.debug("Updating transfer {} status to: {}", transactionId, status);
+        return metrics.timer("dao.cashTransfer.updateStatus").record(() -> {
+            logger.debug("Updating transfer {} status to: {}", transactionId, status);
         
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(UPDATE_TRANSFER_STATUS)) {
+            try (Connection connection = ConnectionFactory.getWriteConnection();
+                 PreparedStatement stmt = connection.prepareStatement(UPDATE_TRANSFER_STATUS)) {
             
-            stmt.setString(1, status);
-            stmt.setInt(2, transactionId);
+                stmt.setString(1, status);
+                stmt.setInt(2, transactionId);
             
-            int rowsAffected = stmt.executeUpdate();
+                int rowsAffected = stmt.executeUpdate();
             
-            if (rowsAffected > 0) {
-                logger.info("Transfer status updated successfully for ID: {}", transactionId);
-                return true;
-            }
+                if (rowsAffected > 0) {
+                    logger.info("Transfer status updated successfully for ID: {}", transactionId);
+                    return true;
+                }
             
-        } catch (SQLException e) {
-            logger.error("Error updating transfer status for ID {}: {}", transactionId, e.getMessage(), e);
-        }
+            } catch (SQLException e) {
+                logger.error("Error updating transfer status for ID {}: {}", transactionId, e.getMessage(), e);
+            }
         
-        return false;
+            return false;
+        });
     }
     
     /**
@@ -275,25 +369,36 @@ public class CashTransferDAO {
         CashTransfer transfer = new CashTransfer();
         
         transfer.setTransactionId(rs.getInt("transactionId"));
-        transfer.setTransactionAmount(rs.getBigDecimal("transactionAmount"));
+        transfer.setTransactionAmount(Money.ofCentavos(rs.getLong("transactionAmount")));
         transfer.setTransactionName(rs.getString("transactionName"));
         transfer.setUserId(rs.getInt("userId"));
         transfer.setTransferToAccountNo(rs.getString("transferToAccountNo"));
         transfer.setTransferFromAccountNo(rs.getString("transferFromAccountNo"));
         transfer.setAccountNumber(rs.getString("accountNumber"));
+        transfer.setTransactionDateMillis(rs.getLong("transactionDate"));
         
-        // Parse transaction date
-        String dateStr = rs.getString("transactionDate");
-        if (dateStr != null) {
-            try {
-                transfer.setTransactionDate(LocalDateTime.parse(dateStr.replace(" ", "T")));
-            } catch (Exception e) {
-                logger.warn("Error parsing transaction date: {}", dateStr);
-                transfer.setTransactionDate(LocalDateTime.now());
-            }
+        return transfer;
+    }
+    
+    /**
+     * One user's transfer count and amount for a day
+     */
+    public static class DailyTotal {
+        private final int count;
+        private final Money amount;
+        
+        public DailyTotal(int count, Money amount) {
+            this.count = count;
+            this.amount = amount != null ? amount : Money.ZERO;
         }
         
-        return transfer;
+        public int getCount() {
+            return count;
+        }
+        
+        public Money getAmount() {
+            return amount;
+        }
     }
 
 }
@@ -0,0 +1,190 @@
+package com.tesdaciicc.data.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.tesdaciicc.data.cache.SessionStore;
+import com.tesdaciicc.data.util.Config;
+import com.tesdaciicc.data.util.ConnectionFactory;
+import com.tesdaciicc.data.util.TransactionTemplate;
+import com.tesdaciicc.metrics.MetricsRegistry;
+
+/**
+ * Rows of the sessions table. Tokens never reach the database: every method
+ * takes the token and stores or looks up its SHA-256 hash.
+ */
+public class SessionDAO {
+
+  private static final Logger logger = LoggerFactory.getLogger(SessionDAO.class);
+  private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+  private static final String INSERT_SESSION = "INSERT INTO sessions (tokenHash, userId, createdAt, expiresAt, lastSeen) "
+      + "VALUES (?, ?, ?, ?, ?)";
+
+  // Keeps the user's newest sessions; older ones beyond the cap are ended
+  private static final String DELETE_OLDEST_SESSIONS = "DELETE FROM sessions WHERE userId = ? AND tokenHash NOT IN "
+      + "(SELECT tokenHash FROM sessions WHERE userId = ? ORDER BY createdAt DESC LIMIT ?)";
+
+  private static final String DELETE_SESSION = "DELETE FROM sessions WHERE tokenHash = ?";
+
+  private static final String DELETE_USER_SESSIONS = "DELETE FROM sessions WHERE userId = ?";
+
+  private static final String DELETE_EXPIRED_SESSIONS = "DELETE FROM sessions WHERE expiresAt <= ?";
+
+  private static final String UPDATE_LAST_SEEN = "UPDATE sessions SET lastSeen = MAX(lastSeen, ?) WHERE tokenHash = ?";
+
+  /**
+   * @param token Session token
+   * @return SHA-256 of the token, the key of the sessions table
+   */
+  static byte[] hashToken(String token) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to provide SHA-256
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  /**
+   * Starts a session, ending the user's oldest ones beyond
+   * {@link Config#MAX_SESSIONS_PER_USER}
+   *
+   * @param userId    User ID
+   * @param token     New session token
+   * @param createdAt Login time in epoch millis
+   * @param expiresAt Expiry time in epoch millis
+   * @return true if the session was stored
+   */
+  public boolean create(int userId, String token, long createdAt, long expiresAt) {
+    return metrics.timer("dao.session.create").record(() -> {
+      logger.debug("Creating session for user: {}", userId);
+
+      try {
+        int ended = TransactionTemplate.execute(connection -> {
+          try (PreparedStatement insert = connection.prepareStatement(INSERT_SESSION);
+              PreparedStatement trim = connection.prepareStatement(DELETE_OLDEST_SESSIONS)) {
+            insert.setBytes(1, hashToken(token));
+            insert.setInt(2, userId);
+            insert.setLong(3, createdAt);
+            insert.setLong(4, expiresAt);
+            insert.setLong(5, createdAt);
+            insert.executeUpdate();
+
+            trim.setInt(1, userId);
+            trim.setInt(2, userId);
+            trim.setInt(3, Config.MAX_SESSIONS_PER_USER);
+            return trim.executeUpdate();
+          }
+        });
+        if (ended > 0) {
+          // Only hashes are known here, so drop whatever the store holds for the user
+          SessionStore.getInstance().invalidateUserAfterCommit(userId);
+          logger.info("Ended {} oldest sessions for user: {}", ended, userId);
+        }
+        return true;
+
+      } catch (SQLException e) {
+        logger.error("Error creating session for user {}: {}", userId, e.getMessage(), e);
+        return false;
+      }
+    });
+  }
+
+  /**
+   * @param token Session token
+   * @return true if the session existed and was deleted
+   */
+  public boolean delete(String token) {
+    return metrics.timer("dao.session.delete").record(() -> {
+      try (Connection connection = ConnectionFactory.getWriteConnection();
+          PreparedStatement statement = connection.prepareStatement(DELETE_SESSION)) {
+
+        statement.setBytes(1, hashToken(token));
+        return statement.executeUpdate() > 0;
+
+      } catch (SQLException e) {
+        logger.error("Error deleting session: {}", e.getMessage(), e);
+        return false;
+      }
+    });
+  }
+
+  /**
+   * @param userId User ID
+   * @return Number of the user's sessions deleted, or -1 on error
+   */
+  public int deleteByUserId(int userId) {
+    return metrics.timer("dao.session.deleteByUserId").record(() -> {
+      try (Connection connection = ConnectionFactory.getWriteConnection();
+          PreparedStatement statement = connection.prepareStatement(DELETE_USER_SESSIONS)) {
+
+        statement.setInt(1, userId);
+        return statement.executeUpdate();
+
+      } catch (SQLException e) {
+        logger.error("Error deleting sessions for user {}: {}", userId, e.getMessage(), e);
+        return -1;
+      }
+    });
+  }
+
+  /**
+   * @param now Current time in epoch millis
+   * @return Number of expired sessions deleted
+   */
+  public int deleteExpired(long now) {
+    return metrics.timer("dao.session.deleteExpired").record(() -> {
+      try (Connection connection = ConnectionFactory.getWriteConnection();
+          PreparedStatement statement = connection.prepareStatement(DELETE_EXPIRED_SESSIONS)) {
+
+        statement.setLong(1, now);
+        return statement.executeUpdate();
+
+      } catch (SQLException e) {
+        logger.error("Error deleting expired sessions: {}", e.getMessage(), e);
+        return 0;
+      }
+    });
+  }
+
+  /**
+   * Records when sessions were last used, in one transaction. A session that
+   * has since ended is skipped, and lastSeen never moves backwards.
+   *
+   * @param lastSeenByToken Last use in epoch millis, by token
+   * @return true if the batch was written
+   */
+  public boolean updateLastSeen(Map<String, Long> lastSeenByToken) {
+    if (lastSeenByToken.isEmpty()) {
+      return true;
+    }
+    return metrics.timer("dao.session.updateLastSeen").record(() -> {
+      try {
+        TransactionTemplate.execute(connection -> {
+          try (PreparedStatement statement = connection.prepareStatement(UPDATE_LAST_SEEN)) {
+            for (Map.Entry<String, Long> entry : lastSeenByToken.entrySet()) {
+              statement.setLong(1, entry.getValue());
+              statement.setBytes(2, hashToken(entry.getKey()));
+              statement.addBatch();
+            }
+            return statement.executeBatch();
+          }
+        });
+        return true;
+
+      } catch (SQLException e) {
+        logger.error("Error updating session last seen times: {}", e.getMessage(), e);
+        return false;
+      }
+    });
+  }
+}
@@ -1,17 +1,26 @@
 package com.tesdaciicc.data.repository;
 
+import com.tesdaciicc.model.EpochMillis;
+import com.tesdaciicc.model.Money;
+import com.tesdaciicc.model.TransactionPage;
+import com.tesdaciicc.model.TransactionSummary;
 import com.tesdaciicc.model.Transactions;
+import com.tesdaciicc.data.util.Config;
 import com.tesdaciicc.data.util.ConnectionFactory;
+import com.tesdaciicc.data.util.ResultSetStream;
+import com.tesdaciicc.data.util.TransactionTemplate;
+import com.tesdaciicc.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object for Transactions table operations
@@ -19,17 +28,69 @@ import java.util.Optional;
 public class TransactionsDAO {
     
     private static final Logger logger = LoggerFactory.getLogger(TransactionsDAO.class);
+    private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
     
     // SQL queries for transactions operations
     private static final String SELECT_ALL_TRANSACTIONS = 
         "SELECT transactionId, transactionAmount, transactionName, userId, transactionDate, " +
         "transferToAccountNo, transferFromAccountNo, accountNumber FROM transactions " +
-        "ORDER BY transactionDate DESC";
+        "ORDER BY transactionDate DESC, transactionId DESC";
     
-    private static final String SELECT_TRANSACTIONS_BY_USER_ID = 
+    static final String SELECT_TRANSACTIONS_BY_USER_ID = 
         "SELECT transactionId, transactionAmount, transactionName, userId, transactionDate, " +
         "transferToAccountNo, transferFromAccountNo, accountNumber FROM transactions " +
-        "WHERE userId = ? ORDER BY transactionDate DESC";
+        "WHERE userId = ? ORDER BY transactionDate DESC, transactionId DESC";
+    
+    // Same rules as TransactionsService.isValidTransaction and Transactions.getTransactionType()
+    // (and the stats triggers), so statistics never need the rows themselves. The unary +
+    // keeps SQLite from choosing a rowid range over the (userId, date) index
+    private static final String VALID_TRANSACTION = 
+        "+transactionId > 0 AND userId > 0 AND transactionAmount > 0 AND transactionDate IS NOT NULL " +
+        "AND TRIM(COALESCE(transactionName, '')) <> ''";
+    
+    // Keyset pagination: continue strictly after the last (transactionDate, transactionId)
+    // of the previous page, so every page is an index seek instead of an OFFSET scan.
+    // Only valid rows are paged, so every page but the last is full
+    private static final String SELECT_TRANSACTIONS_PAGE = 
+        "SELECT transactionId, transactionAmount, transactionName, userId, transactionDate, " +
+        "transferToAccountNo, transferFromAccountNo, accountNumber FROM transactions " +
+        "WHERE " + VALID_TRANSACTION + " ORDER BY transactionDate DESC, transactionId DESC LIMIT ?";
+    
+    static final String SELECT_TRANSACTIONS_PAGE_AFTER = 
+        "SELECT transactionId, transactionAmount, transactionName, userId, transactionDate, " +
+        "transferToAccountNo, transferFromAccountNo, accountNumber FROM transactions " +
+        "WHERE (transactionDate, transactionId) < (?, ?) AND " + VALID_TRANSACTION + " " +
+        "ORDER BY transactionDate DESC, transactionId DESC LIMIT ?";
+    
+    private static final String SELECT_USER_TRANSACTIONS_PAGE = 
+        "SELECT transactionId, transactionAmount, transactionName, userId, transactionDate, " +
+        "transferToAccountNo, transferFromAccountNo, accountNumber FROM transactions " +
+        "WHERE userId = ? AND " + VALID_TRANSACTION + " ORDER BY transactionDate DESC, transactionId DESC LIMIT ?";
+    
+    static final String SELECT_USER_TRANSACTIONS_PAGE_AFTER = 
+        "SELECT transactionId, transactionAmount, transactionName, userId, transactionDate, " +
+        "transferToAccountNo, transferFromAccountNo, accountNumber FROM transactions " +
+        "WHERE userId = ? AND (transactionDate, transactionId) < (?, ?) AND " + VALID_TRANSACTION + " " +
+        "ORDER BY transactionDate DESC, transactionId DESC LIMIT ?";
+    
+    // OFFSET paging; cost grows with the offset, prefer the keyset queries above
+    private static final String SELECT_TRANSACTIONS_WITH_OFFSET = 
+        SELECT_ALL_TRANSACTIONS + " LIMIT ? OFFSET ?";
+    
+    private static final String SELECT_USER_TRANSACTIONS_WITH_OFFSET = 
+        SELECT_TRANSACTIONS_BY_USER_ID + " LIMIT ? OFFSET ?";
+    
+    private static final String SEARCH_TRANSACTIONS_BY_NAME = 
+        "SELECT transactionId, transactionAmount, transactionName, userId, transactionDate, " +
+        "transferToAccountNo, transferFromAccountNo, accountNumber FROM transactions " +
+        "WHERE LOWER(transactionName) LIKE LOWER(?) " +
+        "ORDER BY transactionDate DESC, transactionId DESC";
+    
+    private static final String SELECT_TRANSACTIONS_BY_DATE_RANGE = 
+        "SELECT transactionId, transactionAmount, transactionName, userId, transactionDate, " +
+        "transferToAccountNo, transferFromAccountNo, accountNumber FROM transactions " +
+        "WHERE transactionDate BETWEEN ? AND ? " +
+        "ORDER BY transactionDate DESC, transactionId DESC";
     
     private static final String SELECT_TRANSACTION_BY_ID = 
         "SELECT transactionId, transactionAmount, transactionName, userId, transactionDate, " +
@@ -42,58 +103,134 @@ public class TransactionsDAO {
     private static final String COUNT_USER_TRANSACTIONS = 
         "SELECT COUNT(*) FROM transactions WHERE userId = ?";
     
+    // Full listings return only valid rows, so the service has nothing left to filter
+    private static final String SELECT_VALID_TRANSACTIONS = 
+        "SELECT transactionId, transactionAmount, transactionName, userId, transactionDate, " +
+        "transferToAccountNo, transferFromAccountNo, accountNumber FROM transactions " +
+        "WHERE " + VALID_TRANSACTION + " ORDER BY transactionDate DESC, transactionId DESC";
+    
+    static final String SELECT_VALID_TRANSACTIONS_BY_USER_ID = 
+        "SELECT transactionId, transactionAmount, transactionName, userId, transactionDate, " +
+        "transferToAccountNo, transferFromAccountNo, accountNumber FROM transactions " +
+        "WHERE userId = ? AND " + VALID_TRANSACTION + " ORDER BY transactionDate DESC, transactionId DESC";
+    
+    private static final String HAS_TO_ACCOUNT = "TRIM(COALESCE(transferToAccountNo, '')) <> ''";
+    
+    private static final String HAS_FROM_ACCOUNT = "TRIM(COALESCE(transferFromAccountNo, '')) <> ''";
+    
+    // Per-user totals, amounts in centavos, kept current by triggers on transactions
+    private static final String SELECT_TRANSACTION_STATS_TOTALS = 
+        "SELECT COALESCE(SUM(transactionCount), 0), COALESCE(SUM(totalCentavos), 0), MAX(maxCentavos), MIN(minCentavos), " +
+        "COALESCE(SUM(transferCount), 0), COALESCE(SUM(cashInCount), 0), COALESCE(SUM(cashOutCount), 0) " +
+        "FROM user_transaction_stats";
+    
+    private static final String SELECT_USER_TRANSACTION_STATS = 
+        "SELECT transactionCount, totalCentavos, maxCentavos, minCentavos, " +
+        "transferCount, cashInCount, cashOutCount FROM user_transaction_stats WHERE userId = ?";
+    
+    private static final String DELETE_USER_TRANSACTION_STATS = 
+        "DELETE FROM user_transaction_stats";
+    
+    private static final String REBUILD_USER_TRANSACTION_STATS = 
+        "INSERT INTO user_transaction_stats (userId, transactionCount, totalCentavos, maxCentavos, minCentavos, " +
+        "transferCount, cashInCount, cashOutCount) " +
+        "SELECT userId, COUNT(*), SUM(transactionAmount), " +
+        "MAX(transactionAmount), MIN(transactionAmount), " +
+        "SUM(CASE WHEN " + HAS_TO_ACCOUNT + " AND " + HAS_FROM_ACCOUNT + " THEN 1 ELSE 0 END), " +
+        "SUM(CASE WHEN " + HAS_TO_ACCOUNT + " AND NOT " + HAS_FROM_ACCOUNT + " THEN 1 ELSE 0 END), " +
+        "SUM(CASE WHEN " + HAS_FROM_ACCOUNT + " AND NOT " + HAS_TO_ACCOUNT + " THEN 1 ELSE 0 END) " +
+        "FROM transactions WHERE " + VALID_TRANSACTION + " GROUP BY userId";
+    
     /**
-     * View all transactions from the database
-     * @return List of all transactions ordered by date (newest first)
+     * View all valid transactions from the database
+     * @return List of all valid transactions ordered by date (newest first)
      */
     public List<Transactions> viewAll() {
-        logger.debug("Retrieving all transactions from database");
-        List<Transactions> transactions = new ArrayList<>();
+        return metrics.timer("dao.transactions.viewAll").record(() -> {
+            logger.debug("Retrieving all transactions from database");
+            List<Transactions> transactions = new ArrayList<>();
         
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(SELECT_ALL_TRANSACTIONS);
-             ResultSet rs = stmt.executeQuery()) {
+            try (Connection connection = ConnectionFactory.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(SELECT_VALID_TRANSACTIONS);
+                 ResultSet rs = stmt.executeQuery()) {
             
-            while (rs.next()) {
-                transactions.add(mapResultSetToTransaction(rs));
-            }
+                while (rs.next()) {
+                    transactions.add(mapResultSetToTransaction(rs));
+                }
             
-            logger.info("Retrieved {} transactions from database", transactions.size());
+                logger.info("Retrieved {} transactions from database", transactions.size());
             
-        } catch (SQLException e) {
-            logger.error("Error retrieving all transactions: {}", e.getMessage(), e);
-        }
+            } catch (SQLException e) {
+                logger.error("Error retrieving all transactions: {}", e.getMessage(), e);
+            }
         
-        return transactions;
+            return transactions;
+        });
     }
     
     /**
-     * View all transactions for a specific user
+     * View all valid transactions for a specific user
      * @param userId User ID to filter transactions
-     * @return List of transactions for the specified user ordered by date (newest first)
+     * @return List of valid transactions for the specified user ordered by date (newest first)
      */
     public List<Transactions> viewUserAll(int userId) {
-        logger.debug("Retrieving all transactions for user ID: {}", userId);
-        List<Transactions> transactions = new ArrayList<>();
+        return metrics.timer("dao.transactions.viewUserAll").record(() -> {
+            logger.debug("Retrieving all transactions for user ID: {}", userId);
+            List<Transactions> transactions = new ArrayList<>();
         
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(SELECT_TRANSACTIONS_BY_USER_ID)) {
+            try (Connection connection = ConnectionFactory.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(SELECT_VALID_TRANSACTIONS_BY_USER_ID)) {
             
-            stmt.setInt(1, userId);
+                stmt.setInt(1, userId);
             
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    transactions.add(mapResultSetToTransaction(rs));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        transactions.add(mapResultSetToTransaction(rs));
+                    }
                 }
-            }
             
-            logger.info("Retrieved {} transactions for user ID: {}", transactions.size(), userId);
+                logger.info("Retrieved {} transactions for user ID: {}", transactions.size(), userId);
             
+            } catch (SQLException e) {
+                logger.error("Error retrieving transactions for user ID {}: {}", userId, e.getMessage(), e);
+            }
+        
+            return transactions;
+        });
+    }
+    
+    /**
+     * Stream all transactions, newest first, reading rows as the stream is consumed
+     * instead of loading them into a List. The stream must be closed
+     * @return Stream of all transactions; empty if the query fails
+     */
+    public Stream<Transactions> streamAll() {
+        logger.debug("Streaming all transactions from database");
+    
+        try {
+            return ResultSetStream.query(SELECT_ALL_TRANSACTIONS, stmt -> { }, this::mapResultSetToTransaction,
+                    metrics.timer("dao.transactions.streamAll"));
         } catch (SQLException e) {
-            logger.error("Error retrieving transactions for user ID {}: {}", userId, e.getMessage(), e);
+            logger.error("Error streaming all transactions: {}", e.getMessage(), e);
+            return Stream.<Transactions>empty();
+        }
+    }
+    
+    /**
+     * Stream all transactions for a specific user, newest first. The stream must be closed
+     * @param userId User ID to filter transactions
+     * @return Stream of the user's transactions; empty if the query fails
+     */
+    public Stream<Transactions> streamUserAll(int userId) {
+        logger.debug("Streaming all transactions for user ID: {}", userId);
+    
+        try {
+            return ResultSetStream.query(SELECT_TRANSACTIONS_BY_USER_ID, stmt -> stmt.setInt(1, userId),
+                    this::mapResultSetToTransaction, metrics.timer("dao.transactions.streamUserAll"));
+        } catch (SQLException e) {
+            logger.error("Error streaming transactions for user ID {}: {}", userId, e.getMessage(), e);
+            return Stream.<Transactions>empty();
         }
-        
-        return transactions;
     }
     
     /**
@@ -102,27 +239,29 @@ public class TransactionsDAO {
      * @return Optional containing the transaction if found, empty otherwise
      */
     public Optional<Transactions> viewTransaction(int transactionId) {
-        logger.debug("Retrieving transaction by ID: {}", transactionId);
+        return metrics.timer("dao.transactions.viewTransaction").record(() -> {
+            logger.debug("Retrieving transaction by ID: {}", transactionId);
         
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(SELECT_TRANSACTION_BY_ID)) {
+            try (Connection connection = ConnectionFactory.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(SELECT_TRANSACTION_BY_ID)) {
             
-            stmt.setInt(1, transactionId);
+                stmt.setInt(1, transactionId);
             
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    Transactions transaction = mapResultSetToTransaction(rs);
-                    logger.debug("Transaction found: {}", transaction);
-                    return Optional.of(transaction);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        Transactions transaction = mapResultSetToTransaction(rs);
+                        logger.debug("Transaction found: {}", transaction);
+                        return Optional.of(transaction);
+                    }
                 }
-            }
             
-        } catch (SQLException e) {
-            logger.error("Error retrieving transaction by ID {}: {}", transactionId, e.getMessage(), e);
-        }
+            } catch (SQLException e) {
+                logger.error("Error retrieving transaction by ID {}: {}", transactionId, e.getMessage(), e);
+            }
         
-        logger.debug("Transaction not found with ID: {}", transactionId);
-        return Optional.empty();
+            logger.debug("Transaction not found with ID: {}", transactionId);
+            return Optional.empty();
+        });
     }
     
     /**
@@ -130,23 +269,25 @@ public class TransactionsDAO {
      * @return Total number of transactions in the database
      */
     public long getTotalTransactionCount() {
-        logger.debug("Getting total transaction count");
+        return metrics.timer("dao.transactions.getTotalTransactionCount").record(() -> {
+            logger.debug("Getting total transaction count");
         
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(COUNT_ALL_TRANSACTIONS);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            if (rs.next()) {
-                long count = rs.getLong(1);
-                logger.debug("Total transaction count: {}", count);
-                return count;
-            }
+            try (Connection connection = ConnectionFactory.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(COUNT_ALL_TRANSACTIONS);
+                 ResultSet rs = stmt.executeQuery()) {
             
-        } catch (SQLException e) {
-            logger.error("Error getting total transaction count: {}", e.getMessage(), e);
-        }
+                if (rs.next()) {
+                    long count = rs.getLong(1);
+                    logger.debug("Total transaction count: {}", count);
+                    return count;
+                }
+            
+            } catch (SQLException e) {
+                logger.error("Error getting total transaction count: {}", e.getMessage(), e);
+            }
         
-        return 0;
+            return 0L;
+        });
     }
     
     /**
@@ -155,97 +296,305 @@ public class TransactionsDAO {
      * @return Total number of transactions for the user
      */
     public long getUserTransactionCount(int userId) {
-        logger.debug("Getting transaction count for user ID: {}", userId);
+        return metrics.timer("dao.transactions.getUserTransactionCount").record(() -> {
+            logger.debug("Getting transaction count for user ID: {}", userId);
         
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(COUNT_USER_TRANSACTIONS)) {
+            try (Connection connection = ConnectionFactory.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(COUNT_USER_TRANSACTIONS)) {
+            
+                stmt.setInt(1, userId);
+            
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        long count = rs.getLong(1);
+                        logger.debug("Transaction count for user {}: {}", userId, count);
+                        return count;
+                    }
+                }
             
-            stmt.setInt(1, userId);
+            } catch (SQLException e) {
+                logger.error("Error getting transaction count for user ID {}: {}", userId, e.getMessage(), e);
+            }
+        
+            return 0L;
+        });
+    }
+    
+    /**
+     * Compute count, amount totals and type counts of all valid transactions by
+     * adding up user_transaction_stats, one row per user instead of per transaction
+     * @return Summary of all transactions, empty if the query fails
+     */
+    public Optional<TransactionSummary> getTransactionSummary() {
+        return metrics.timer("dao.transactions.getTransactionSummary").record(() -> {
+            logger.debug("Summarizing all transactions");
+        
+            try (Connection connection = ConnectionFactory.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(SELECT_TRANSACTION_STATS_TOTALS);
+                 ResultSet rs = stmt.executeQuery()) {
             
-            try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    long count = rs.getLong(1);
-                    logger.debug("Transaction count for user {}: {}", userId, count);
-                    return count;
+                    return Optional.of(mapResultSetToSummary(rs));
                 }
+            
+            } catch (SQLException e) {
+                logger.error("Error summarizing all transactions: {}", e.getMessage(), e);
             }
+        
+            return Optional.<TransactionSummary>empty();
+        });
+    }
+    
+    /**
+     * Read the count, amount totals and type counts of a user's valid transactions
+     * from user_transaction_stats, a single primary key lookup
+     * @param userId User ID
+     * @return Summary of the user's transactions (all zero if the user has none),
+     *         empty if the query fails
+     */
+    public Optional<TransactionSummary> getUserTransactionSummary(int userId) {
+        return metrics.timer("dao.transactions.getUserTransactionSummary").record(() -> {
+            logger.debug("Reading transaction stats for user ID: {}", userId);
+        
+            try (Connection connection = ConnectionFactory.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(SELECT_USER_TRANSACTION_STATS)) {
             
-        } catch (SQLException e) {
-            logger.error("Error getting transaction count for user ID {}: {}", userId, e.getMessage(), e);
-        }
+                stmt.setInt(1, userId);
+            
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return Optional.of(mapResultSetToSummary(rs));
+                    }
+                }
+                return Optional.of(new TransactionSummary(0, Money.ZERO, null, null, 0, 0, 0));
+            
+            } catch (SQLException e) {
+                logger.error("Error reading transaction stats for user ID {}: {}", userId, e.getMessage(), e);
+            }
         
-        return 0;
+            return Optional.<TransactionSummary>empty();
+        });
+    }
+    
+    /**
+     * Recompute user_transaction_stats from the transactions table, e.g. after
+     * rows were loaded with the triggers disabled
+     * @return true if the stats were rebuilt
+     */
+    public boolean rebuildUserTransactionStats() {
+        return metrics.timer("dao.transactions.rebuildUserTransactionStats").record(() -> {
+            logger.info("Rebuilding user transaction stats");
+        
+            try {
+                int users = TransactionTemplate.execute(connection -> {
+                    try (Statement stmt = connection.createStatement()) {
+                        stmt.executeUpdate(DELETE_USER_TRANSACTION_STATS);
+                        return stmt.executeUpdate(REBUILD_USER_TRANSACTION_STATS);
+                    }
+                });
+                logger.info("Rebuilt transaction stats for {} users", users);
+                return true;
+            
+            } catch (SQLException e) {
+                logger.error("Error rebuilding user transaction stats: {}", e.getMessage(), e);
+                return false;
+            }
+        });
     }
     
     /**
-     * Get transactions with pagination support
+     * Get transactions with pagination support. SQLite still reads and skips the
+     * first offset rows, so deep pages get slower; prefer {@link #viewAllPage(String, int)}
      * @param offset Starting position
      * @param limit Number of transactions to retrieve
      * @return List of transactions with pagination
      */
     public List<Transactions> viewAllWithPagination(int offset, int limit) {
-        logger.debug("Retrieving transactions with pagination: offset={}, limit={}", offset, limit);
-        List<Transactions> transactions = new ArrayList<>();
+        return metrics.timer("dao.transactions.viewAllWithPagination").record(() -> {
+            logger.debug("Retrieving transactions with pagination: offset={}, limit={}", offset, limit);
+            List<Transactions> transactions = new ArrayList<>();
         
-        String sql = SELECT_ALL_TRANSACTIONS + " LIMIT ? OFFSET ?";
-        
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            try (Connection connection = ConnectionFactory.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(SELECT_TRANSACTIONS_WITH_OFFSET)) {
             
-            stmt.setInt(1, limit);
-            stmt.setInt(2, offset);
+                stmt.setInt(1, limit);
+                stmt.setInt(2, offset);
             
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    transactions.add(mapResultSetToTransaction(rs));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        transactions.add(mapResultSetToTransaction(rs));
+                    }
                 }
-            }
             
-            logger.info("Retrieved {} transactions with pagination (offset: {}, limit: {})", 
-                       transactions.size(), offset, limit);
+                logger.info("Retrieved {} transactions with pagination (offset: {}, limit: {})", 
+                           transactions.size(), offset, limit);
             
-        } catch (SQLException e) {
-            logger.error("Error retrieving transactions with pagination: {}", e.getMessage(), e);
-        }
+            } catch (SQLException e) {
+                logger.error("Error retrieving transactions with pagination: {}", e.getMessage(), e);
+            }
         
-        return transactions;
+            return transactions;
+        });
     }
     
     /**
-     * Get user transactions with pagination support
+     * Get user transactions with pagination support. Cost grows with offset;
+     * prefer {@link #viewUserPage(int, String, int)}
      * @param userId User ID
      * @param offset Starting position
      * @param limit Number of transactions to retrieve
      * @return List of user transactions with pagination
      */
     public List<Transactions> viewUserAllWithPagination(int userId, int offset, int limit) {
-        logger.debug("Retrieving user transactions with pagination: userId={}, offset={}, limit={}", 
-                    userId, offset, limit);
-        List<Transactions> transactions = new ArrayList<>();
-        
-        String sql = SELECT_TRANSACTIONS_BY_USER_ID + " LIMIT ? OFFSET ?";
+        return metrics.timer("dao.transactions.viewUserAllWithPagination").record(() -> {
+            logger.debug("Retrieving user transactions with pagination: userId={}, offset={}, limit={}", 
+                        userId, offset, limit);
+            List<Transactions> transactions = new ArrayList<>();
         
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            try (Connection connection = ConnectionFactory.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(SELECT_USER_TRANSACTIONS_WITH_OFFSET)) {
             
-            stmt.setInt(1, userId);
-            stmt.setInt(2, limit);
-            stmt.setInt(3, offset);
+                stmt.setInt(1, userId);
+                stmt.setInt(2, limit);
+                stmt.setInt(3, offset);
             
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    transactions.add(mapResultSetToTransaction(rs));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        transactions.add(mapResultSetToTransaction(rs));
+                    }
                 }
+            
+                logger.info("Retrieved {} user transactions with pagination (userId: {}, offset: {}, limit: {})", 
+                           transactions.size(), userId, offset, limit);
+            
+            } catch (SQLException e) {
+                logger.error("Error retrieving user transactions with pagination: {}", e.getMessage(), e);
             }
+        
+            return transactions;
+        });
+    }
+    
+    /**
+     * Get one page of all transactions, newest first
+     * @param cursor Token from the previous page, or null for the first page
+     * @param limit Number of transactions per page
+     * @return Page of transactions with the token for the next page
+     * @throws IllegalArgumentException if the cursor is not a token returned by this DAO,
+     *         or limit is outside 1..{@link Config#TRANSACTION_PAGE_MAX_SIZE}
+     */
+    public TransactionPage viewAllPage(String cursor, int limit) {
+        checkPageLimit(limit);
+        return metrics.timer("dao.transactions.viewAllPage").record(() -> {
+            logger.debug("Retrieving transactions page: cursor={}, limit={}", cursor, limit);
+        
+            try (Connection connection = ConnectionFactory.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(
+                         cursor == null ? SELECT_TRANSACTIONS_PAGE : SELECT_TRANSACTIONS_PAGE_AFTER)) {
             
-            logger.info("Retrieved {} user transactions with pagination (userId: {}, offset: {}, limit: {})", 
-                       transactions.size(), userId, offset, limit);
+                int index = 1;
+                if (cursor != null) {
+                    index = bindCursor(stmt, index, cursor);
+                }
+                stmt.setInt(index, limit + 1);
             
-        } catch (SQLException e) {
-            logger.error("Error retrieving user transactions with pagination: {}", e.getMessage(), e);
+                TransactionPage page = readPage(stmt, limit);
+                logger.info("Retrieved {} transactions (hasNext: {})", page.getTransactions().size(), page.hasNext());
+                return page;
+            
+            } catch (SQLException e) {
+                logger.error("Error retrieving transactions page: {}", e.getMessage(), e);
+            }
+        
+            return new TransactionPage(new ArrayList<>(), null);
+        });
+    }
+    
+    /**
+     * Get one page of a user's transactions, newest first
+     * @param userId User ID
+     * @param cursor Token from the previous page, or null for the first page
+     * @param limit Number of transactions per page
+     * @return Page of transactions with the token for the next page
+     * @throws IllegalArgumentException if the cursor is not a token returned by this DAO,
+     *         or limit is outside 1..{@link Config#TRANSACTION_PAGE_MAX_SIZE}
+     */
+    public TransactionPage viewUserPage(int userId, String cursor, int limit) {
+        checkPageLimit(limit);
+        return metrics.timer("dao.transactions.viewUserPage").record(() -> {
+            logger.debug("Retrieving user transactions page: userId={}, cursor={}, limit={}", userId, cursor, limit);
+        
+            try (Connection connection = ConnectionFactory.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(
+                         cursor == null ? SELECT_USER_TRANSACTIONS_PAGE : SELECT_USER_TRANSACTIONS_PAGE_AFTER)) {
+            
+                stmt.setInt(1, userId);
+                int index = 2;
+                if (cursor != null) {
+                    index = bindCursor(stmt, index, cursor);
+                }
+                stmt.setInt(index, limit + 1);
+            
+                TransactionPage page = readPage(stmt, limit);
+                logger.info("Retrieved {} user transactions (userId: {}, hasNext: {})", 
+                           page.getTransactions().size(), userId, page.hasNext());
+                return page;
+            
+            } catch (SQLException e) {
+                logger.error("Error retrieving user transactions page: {}", e.getMessage(), e);
+            }
+        
+            return new TransactionPage(new ArrayList<>(), null);
+        });
+    }
+    
+    private static void checkPageLimit(int limit) {
+        if (limit <= 0 || limit > Config.TRANSACTION_PAGE_MAX_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and "
+                    + Config.TRANSACTION_PAGE_MAX_SIZE + ": " + limit);
+        }
+    }
+    
+    /**
+     * Read up to limit rows; the extra row fetched beyond that only tells us another page exists
+     */
+    private TransactionPage readPage(PreparedStatement stmt, int limit) throws SQLException {
+        List<Transactions> transactions = new ArrayList<>();
+        long lastDate = 0;
+        int lastId = 0;
+        boolean hasNext = false;
+        
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                if (transactions.size() == limit) {
+                    hasNext = true;
+                    break;
+                }
+                Transactions transaction = mapResultSetToTransaction(rs);
+                transactions.add(transaction);
+                lastDate = transaction.getTransactionDateMillis();
+                lastId = transaction.getTransactionId();
+            }
         }
         
-        return transactions;
+        return new TransactionPage(transactions, hasNext ? encodeCursor(lastDate, lastId) : null);
+    }
+    
+    private static String encodeCursor(long transactionDate, int transactionId) {
+        String raw = transactionDate + "|" + transactionId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static int bindCursor(PreparedStatement stmt, int index, String cursor) throws SQLException {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            stmt.setLong(index, Long.parseLong(raw.substring(0, separator)));
+            stmt.setInt(index + 1, Integer.parseInt(raw.substring(separator + 1)));
+            return index + 2;
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor, e);
+        }
     }
     
     /**
@@ -254,30 +603,29 @@ public class TransactionsDAO {
      * @return List of transactions matching the search term
      */
     public List<Transactions> searchTransactionsByName(String searchTerm) {
-        logger.debug("Searching transactions by name: {}", searchTerm);
-        List<Transactions> transactions = new ArrayList<>();
+        return metrics.timer("dao.transactions.searchTransactionsByName").record(() -> {
+            logger.debug("Searching transactions by name: {}", searchTerm);
+            List<Transactions> transactions = new ArrayList<>();
         
-        String sql = SELECT_ALL_TRANSACTIONS.replace("ORDER BY", 
-                    "WHERE LOWER(transactionName) LIKE LOWER(?) ORDER BY");
-        
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            try (Connection connection = ConnectionFactory.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(SEARCH_TRANSACTIONS_BY_NAME)) {
             
-            stmt.setString(1, "%" + searchTerm + "%");
+                stmt.setString(1, "%" + searchTerm + "%");
             
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    transactions.add(mapResultSetToTransaction(rs));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        transactions.add(mapResultSetToTransaction(rs));
+                    }
                 }
-            }
             
-            logger.info("Found {} transactions matching search term: {}", transactions.size(), searchTerm);
+                logger.info("Found {} transactions matching search term: {}", transactions.size(), searchTerm);
             
-        } catch (SQLException e) {
-            logger.error("Error searching transactions by name: {}", e.getMessage(), e);
-        }
+            } catch (SQLException e) {
+                logger.error("Error searching transactions by name: {}", e.getMessage(), e);
+            }
         
-        return transactions;
+            return transactions;
+        });
     }
     
     /**
@@ -287,32 +635,54 @@ public class TransactionsDAO {
      * @return List of transactions within the date range
      */
     public List<Transactions> getTransactionsByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
-        logger.debug("Retrieving transactions between {} and {}", startDate, endDate);
-        List<Transactions> transactions = new ArrayList<>();
-        
-        String sql = SELECT_ALL_TRANSACTIONS.replace("ORDER BY", 
-                    "WHERE transactionDate BETWEEN ? AND ? ORDER BY");
+        return metrics.timer("dao.transactions.getTransactionsByDateRange").record(() -> {
+            logger.debug("Retrieving transactions between {} and {}", startDate, endDate);
+            List<Transactions> transactions = new ArrayList<>();
         
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            try (Connection connection = ConnectionFactory.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(SELECT_TRANSACTIONS_BY_DATE_RANGE)) {
             
-            stmt.setString(1, startDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-            stmt.setString(2, endDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+                stmt.setLong(1, EpochMillis.of(startDate));
+                stmt.setLong(2, EpochMillis.of(endDate));
             
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    transactions.add(mapResultSetToTransaction(rs));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        transactions.add(mapResultSetToTransaction(rs));
+                    }
                 }
-            }
             
-            logger.info("Retrieved {} transactions between {} and {}", 
-                       transactions.size(), startDate, endDate);
+                logger.info("Retrieved {} transactions between {} and {}", 
+                           transactions.size(), startDate, endDate);
             
-        } catch (SQLException e) {
-            logger.error("Error retrieving transactions by date range: {}", e.getMessage(), e);
-        }
+            } catch (SQLException e) {
+                logger.error("Error retrieving transactions by date range: {}", e.getMessage(), e);
+            }
         
-        return transactions;
+            return transactions;
+        });
+    }
+    
+    /**
+     * Map a row of the summary queries to a TransactionSummary
+     * @param rs ResultSet positioned on a summary row
+     * @return TransactionSummary object
+     * @throws SQLException if mapping fails
+     */
+    private TransactionSummary mapResultSetToSummary(ResultSet rs) throws SQLException {
+        return new TransactionSummary(
+            rs.getLong(1),
+            Money.ofCentavos(rs.getLong(2)),
+            getMoneyOrNull(rs, 3),
+            getMoneyOrNull(rs, 4),
+            rs.getLong(5),
+            rs.getLong(6),
+            rs.getLong(7)
+        );
+    }
+    
+    private static Money getMoneyOrNull(ResultSet rs, int column) throws SQLException {
+        long centavos = rs.getLong(column);
+        return rs.wasNull() ? null : Money.ofCentavos(centavos);
     }
     
     /**
@@ -325,28 +695,13 @@ public class TransactionsDAO {
         Transactions transaction = new Transactions();
         
         transaction.setTransactionId(rs.getInt("transactionId"));
-        transaction.setTransactionAmount(rs.getBigDecimal("transactionAmount"));
+        transaction.setTransactionAmount(Money.ofCentavos(rs.getLong("transactionAmount")));
         transaction.setTransactionName(rs.getString("transactionName"));
         transaction.setUserId(rs.getInt("userId"));
         transaction.setTransferToAccountNo(rs.getString("transferToAccountNo"));
         transaction.setTransferFromAccountNo(rs.getString("transferFromAccountNo"));
         transaction.setAccountNumber(rs.getString("accountNumber"));
-        
-        // Parse transaction date
-        String dateStr = rs.getString("transactionDate");
-        if (dateStr != null) {
-            try {
-                // Handle different date formats
-                if (dateStr.contains("T")) {
-                    transaction.setTransactionDate(LocalDateTime.parse(dateStr));
-                } else {
-                    transaction.setTransactionDate(LocalDateTime.parse(dateStr.replace(" ", "T")));
-                }
-            } catch (Exception e) {
-                logger.warn("Error parsing transaction date: {}", dateStr);
-                transaction.setTransactionDate(LocalDateTime.now());
-            }
-        }
+        transaction.setTransactionDateMillis(rs.getLong("transactionDate"));
         
         return transaction;
     }
@@ -4,135 +4,85 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
 //import java.util.UUID;
 import java.security.SecureRandom;
-import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
 
+import com.tesdaciicc.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.tesdaciicc.data.cache.SessionActivity;
+import com.tesdaciicc.data.cache.SessionStore;
+import com.tesdaciicc.data.util.Config;
 import com.tesdaciicc.data.util.ConnectionFactory;
+import com.tesdaciicc.data.util.TransactionTemplate;
 import com.tesdaciicc.model.UserAuthentication;
+import com.tesdaciicc.security.PinVerifier;
+import com.tesdaciicc.security.PinVerifierBusyException;
 
 public class UserAuthenticationDAO {
 
   private static final Logger logger = LoggerFactory.getLogger(UserAuthenticationDAO.class);
+  private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
   private static final SecureRandom secureRandom = new SecureRandom();
 
-  // SQL Queries for users table - Updated with new column names
-  private static final String INSERT_USER = "INSERT INTO users (name, email, number, pin) VALUES (?, ?, ?, ?)";
+  private final SessionDAO sessionDAO = new SessionDAO();
+  private final SessionStore sessionStore = SessionStore.getInstance();
+  private final SessionActivity sessionActivity = SessionActivity.getInstance();
+  private final UserRepository userRepository = new UserRepository();
+  private final PinVerifier pinVerifier = PinVerifier.getInstance();
 
-  private static final String SELECT_USER_BY_ID = "SELECT userId, name, email, number, pin, token, createdDate, updatedDate FROM users WHERE userId = ?";
-
-  private static final String SELECT_USER_BY_EMAIL = "SELECT userId, name, email, number, pin, token, createdDate, updatedDate FROM users WHERE email = ?";
-
-  private static final String SELECT_USER_BY_NUMBER = "SELECT userId, name, email, number, pin, token, createdDate, updatedDate FROM users WHERE number = ?";
-
-  private static final String SELECT_USER_BY_EMAIL_OR_NUMBER = "SELECT userId, name, email, number, pin, token, createdDate, updatedDate FROM users WHERE email = ? OR number = ?";
-
-  private static final String UPDATE_USER = "UPDATE users SET name = ?, email = ?, number = ?, updatedDate = datetime('now') WHERE userId = ?";
-
-  private static final String UPDATE_PIN = "UPDATE users SET pin = ?, updatedDate = datetime('now') WHERE userId = ?";
-
-  private static final String DELETE_USER = "DELETE FROM users WHERE userId = ?";
-
-  private static final String SELECT_ALL_USERS = "SELECT userId, name, email, number, pin, createdDate, updatedDate FROM users ORDER BY createdDate DESC";
-
-  private static final String COUNT_USERS = "SELECT COUNT(*) FROM users";
-
-  // SQL Queries for users table
-  private static final String INSERT_AUTH = "UPDATE users SET token = ?, updatedDate = datetime('now') WHERE userId = ?";
-
-  private static final String SELECT_AUTH_BY_TOKEN = "SELECT userId, name, email, number, pin, token, createdDate, updatedDate "
-      + "FROM users WHERE token = ?";
-
-  private static final String DELETE_AUTH_BY_TOKEN = "DELETE FROM users WHERE token = ?";
-
-  private static final String DELETE_AUTH_BY_USER_ID = "DELETE FROM users WHERE userId = ?";
-
-  /**
-   * Saves a new user to the database (Registration)
-   * 
-   * @param userAuth UserAuthentication object to save
-   * @return Optional containing the saved user with generated ID, or empty if
-   *         failed
-   */
-  public Optional<UserAuthentication> save(UserAuthentication userAuth) {
-    logger.debug("Saving user: {}", userAuth.getEmail());
-
-    try (Connection connection = ConnectionFactory.getConnection();
-        PreparedStatement statement = connection.prepareStatement(INSERT_USER, Statement.RETURN_GENERATED_KEYS)) {
-
-      statement.setString(1, userAuth.getName());
-      statement.setString(2, userAuth.getEmail());
-      statement.setString(3, userAuth.getNumber());
-      statement.setString(4, userAuth.getPin());
-
-      int affectedRows = statement.executeUpdate();
-
-      if (affectedRows > 0) {
-        try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
-          if (generatedKeys.next()) {
-            userAuth.setId(generatedKeys.getInt(1));
-
-            // Retrieve the auto-generated dates
-            Optional<UserAuthentication> savedUser = findById(userAuth.getId());
-            if (savedUser.isPresent()) {
-              userAuth.setCreatedDate(savedUser.get().getCreatedDate());
-              userAuth.setUpdatedDate(savedUser.get().getUpdatedDate());
-            }
-
-            logger.info("User saved successfully with ID: {}", userAuth.getId());
-            return Optional.of(userAuth);
-          }
-        }
-      }
-
-    } catch (SQLException e) {
-      logger.error("Error saving user: {}", userAuth.getEmail(), e);
-    }
-
-    return Optional.empty();
-  }
+  // Session lookup: one seek on the sessions primary key, then the user's row by its primary key
+  private static final String SELECT_USER_BY_SESSION = "SELECT u.userId, u.name, u.email, u.number, u.pin, u.token, "
+      + "u.createdDate, u.updatedDate, s.expiresAt "
+      + "FROM sessions s JOIN users u ON u.userId = s.userId WHERE s.tokenHash = ? AND s.expiresAt > ?";
 
   /**
-   * Authenticates user and generates token
+   * Authenticates user and starts a new session
    * 
    * @param emailOrNumber Email or phone number
    * @param pin           User PIN
    * @return Optional containing UserAuthentication with token, or empty if
    *         authentication failed
+   * @throws PinVerifierBusyException if the PIN could not be checked because
+   *         the PIN verifier is saturated
    */
   public Optional<UserAuthentication> authenticate(String emailOrNumber, String pin) {
-    logger.debug("Authenticating user: {}", emailOrNumber);
+    return metrics.timer("dao.userAuthentication.authenticate").record(() -> {
+      logger.debug("Authenticating user: {}", emailOrNumber);
 
-    Optional<UserAuthentication> userOpt = findByEmailOrNumber(emailOrNumber);
+      Optional<UserAuthentication> userOpt = userRepository.findByEmailOrNumber(emailOrNumber);
 
-    if (userOpt.isPresent()) {
-      UserAuthentication user = userOpt.get();
+      if (userOpt.isPresent()) {
+        UserAuthentication user = userOpt.get();
 
-      // Verify PIN
-      if (pin.equals(user.getPin())) {
+        // Verify PIN
+        if (pinMatches(pin, user)) {
+          upgradePinHash(user, pin);
 
-        // Generate and save authentication token
-        String token = generateToken();
+          // Generate and save authentication token
+          String token = generateToken();
+          long now = System.currentTimeMillis();
+          long expiresAt = now + TimeUnit.HOURS.toMillis(Config.SESSION_LIFETIME_HOURS);
 
-        if (saveAuthenticationToken(user.getId(), token)) {
-          user.setToken(token);
-          logger.info("User authenticated successfully: {}", user.getId());
-          return Optional.of(user);
+          if (sessionDAO.create(user.getId(), token, now, expiresAt)) {
+            user.setToken(token);
+            // The user's other sessions stay valid
+            TransactionTemplate.afterCommit(() -> sessionStore.put(token, user, expiresAt));
+            logger.info("User authenticated successfully: {}", user.getId());
+            return Optional.of(user);
+          }
+        } else {
+          logger.warn("Invalid PIN for user: {}", emailOrNumber);
         }
       } else {
-        logger.warn("Invalid PIN for user: {}", emailOrNumber);
+        logger.warn("User not found: {}", emailOrNumber);
       }
-    } else {
-      logger.warn("User not found: {}", emailOrNumber);
-    }
 
-    return Optional.empty();
+      return Optional.empty();
+    });
   }
 
   /**
@@ -142,73 +92,74 @@ public class UserAuthenticationDAO {
    * @return Optional containing UserAuthentication if token is valid
    */
   public Optional<UserAuthentication> validateToken(String token) {
-    logger.debug("Validating token");
+    return metrics.timer("dao.userAuthentication.validateToken").record(() -> {
+      logger.debug("Validating token");
 
-    if (token == null || token.trim().isEmpty()) {
-      logger.warn("Empty token provided for validation");
-      return Optional.empty();
-    }
-
-    try (Connection connection = ConnectionFactory.getConnection();
-        PreparedStatement statement = connection.prepareStatement(SELECT_AUTH_BY_TOKEN)) {
-
-      logger.debug("Validating token: {}", token);
-      statement.setString(1, token.trim());
-
-      try (ResultSet resultSet = statement.executeQuery()) {
-        if (resultSet.next()) {
-          UserAuthentication user = mapResultSetToUser(resultSet);
-          logger.debug("Token validated for user: {}", user.getId());
-          return Optional.of(user);
+      if (token == null || token.trim().isEmpty()) {
+        logger.warn("Empty token provided for validation");
+        return Optional.empty();
+      }
 
-          // int userId = resultSet.getInt("user_id");
+      String key = token.trim();
+      Optional<UserAuthentication> cached = sessionStore.get(key);
+      if (cached.isPresent()) {
+        logger.debug("Session store hit for user: {}", cached.get().getId());
+        sessionActivity.touch(key);
+        return cached;
+      }
 
-          // // Get user details
-          // Optional<UserAuthentication> userOpt = findById(userId);
-          // if (userOpt.isPresent()) {
-          // UserAuthentication user = userOpt.get();
-          // user.setToken(token);
-          // logger.debug("Token validated for user: {}", userId);
-          // return Optional.of(user);
-          // }
-        } else {
-          logger.warn("Token not found in database: {}", token);
-          return Optional.empty();
+      long stamp = sessionStore.readStamp();
+      try (Connection connection = ConnectionFactory.getReadConnection();
+          PreparedStatement statement = connection.prepareStatement(SELECT_USER_BY_SESSION)) {
+
+        statement.setBytes(1, SessionDAO.hashToken(key));
+        statement.setLong(2, System.currentTimeMillis());
+
+        try (ResultSet resultSet = statement.executeQuery()) {
+          if (resultSet.next()) {
+            UserAuthentication user = mapResultSetToUser(resultSet);
+            user.setToken(key);
+            logger.debug("Token validated for user: {}", user.getId());
+            sessionStore.putIfUnchanged(key, user, resultSet.getLong("expiresAt"), stamp);
+            sessionActivity.touch(key);
+            return Optional.of(user);
+          } else {
+            logger.warn("Session not found or expired");
+            return Optional.empty();
+          }
         }
+      } catch (SQLException e) {
+        logger.error("Error validating token", e);
       }
-    } catch (SQLException e) {
-      logger.error("Error validating token", e);
-    }
-    logger.debug("Invalid token");
-    return Optional.empty();
+      logger.debug("Invalid token");
+      return Optional.empty();
+    });
   }
 
   /**
-   * Logs out user by invalidating token
+   * Logs out one session by deleting it
    * 
    * @param token Authentication token to invalidate
    * @return true if logout was successful
    */
   public boolean logout(String token) {
-    logger.debug("Logging out user with token");
+    return metrics.timer("dao.userAuthentication.logout").record(() -> {
+      logger.debug("Logging out user with token");
 
-    try (Connection connection = ConnectionFactory.getConnection();
-        PreparedStatement statement = connection.prepareStatement(DELETE_AUTH_BY_TOKEN)) {
-
-      statement.setString(1, token);
-
-      int affectedRows = statement.executeUpdate();
+      if (token == null || token.trim().isEmpty()) {
+        return false;
+      }
 
-      if (affectedRows > 0) {
+      String key = token.trim();
+      if (sessionDAO.delete(key)) {
+        sessionStore.invalidate(key);
+        TransactionTemplate.afterCommit(() -> sessionStore.invalidate(key));
         logger.info("User logged out successfully");
         return true;
       }
 
-    } catch (SQLException e) {
-      logger.error("Error logging out user", e);
-    }
-
-    return false;
+      return false;
+    });
   }
 
   /**
@@ -218,23 +169,18 @@ public class UserAuthenticationDAO {
    * @return true if logout was successful
    */
   public boolean logoutAll(int userId) {
-    logger.debug("Logging out all sessions for user: {}", userId);
-
-    try (Connection connection = ConnectionFactory.getConnection();
-        PreparedStatement statement = connection.prepareStatement(DELETE_AUTH_BY_USER_ID)) {
-
-      statement.setInt(1, userId);
+    return metrics.timer("dao.userAuthentication.logoutAll").record(() -> {
+      logger.debug("Logging out all sessions for user: {}", userId);
 
-      int affectedRows = statement.executeUpdate();
+      int deleted = sessionDAO.deleteByUserId(userId);
+      if (deleted < 0) {
+        return false;
+      }
+      sessionStore.invalidateUserAfterCommit(userId);
 
-      logger.info("Logged out {} sessions for user: {}", affectedRows, userId);
+      logger.info("Logged out {} sessions for user: {}", deleted, userId);
       return true;
-
-    } catch (SQLException e) {
-      logger.error("Error logging out all sessions for user: {}", userId, e);
-    }
-
-    return false;
+    });
   }
 
   /**
@@ -259,345 +205,43 @@ public class UserAuthenticationDAO {
   }
 
   /**
-   * Saves authentication token to database
+   * Checks a PIN on the PIN verifier's pool
    * 
-   * @param userId User ID
-   * @param token  Authentication token
-   * @return true if save was successful
+   * @param pin  PIN as entered
+   * @param user User whose stored PIN to check against
+   * @return true if the PIN matches
+   * @throws PinVerifierBusyException if the pool is full
    */
-  private boolean saveAuthenticationToken(int userId, String token) {
-    // try (Connection connection = ConnectionFactory.getConnection();
-    // PreparedStatement statement = connection.prepareStatement(INSERT_AUTH)) {
-
-    // statement.setString(2, token);
-    // statement.setInt(1, userId);
-
-    // int affectedRows = statement.executeUpdate();
-    // return affectedRows > 0;
-
-    // } catch (SQLException e) {
-    // logger.error("Error saving authentication token for user: {}", userId, e);
-    // return false;
-    // }
-
-    // Connection connection = null;
-    // try {
-    // connection = ConnectionFactory.getConnection();
-    // connection.setAutoCommit(false);
-
-    // try (PreparedStatement statement = connection.prepareStatement(INSERT_AUTH))
-    // {
-    // statement.setString(1, token);
-    // statement.setInt(2, userId);
-
-    // int affectedRows = statement.executeUpdate();
-    // if (affectedRows > 0) {
-    // connection.commit();
-    // return true;
-    // }
-    // connection.rollback();
-    // return false;
-    // }
-    // } catch (SQLException e) {
-    // if (connection != null) {
-    // try {
-    // connection.rollback();
-    // } catch (SQLException ex) {
-    // }
-    // }
-    // logger.error("Error saving token", e);
-    // return false;
-    // } finally {
-    // if (connection != null) {
-    // try {
-    // connection.close();
-    // } catch (SQLException e) {
-    // }
-    // }
-    // }
-
-    try (Connection connection = ConnectionFactory.getConnection();
-        PreparedStatement statement = connection.prepareStatement(INSERT_AUTH)) {
-
-      // Add debug logging
-      logger.debug("Saving token for user {}: {}", userId, token);
-
-      // Ensure parameters are in correct order
-      statement.setString(1, token); // First parameter is token
-      statement.setInt(2, userId); // Second parameter is userId
-
-      int affectedRows = statement.executeUpdate();
-
-      // Verify the update worked
-      if (affectedRows > 0) {
-        logger.debug("Token saved successfully for user {}", userId);
-        return true;
-      } else {
-        logger.error("No rows affected when saving token for user {}", userId);
-        return false;
-      }
-
-    } catch (SQLException e) {
-      logger.error("Error saving token for user {}: {}", userId, e.getMessage());
-      return false;
+  private boolean pinMatches(String pin, UserAuthentication user) {
+    try {
+      return PinVerifier.await(pinVerifier.verify(pin, user.getPin()));
+    } catch (PinVerifierBusyException e) {
+      logger.warn("PIN check refused for user {}: {}", user.getId(), e.getMessage());
+      throw e;
     }
   }
 
   /**
-   * Finds a user by ID
+   * Replaces a plain-text PIN, or a hash made with older settings, once the
+   * PIN has been verified. Failing to do so does not fail the login.
    * 
-   * @param id User ID
-   * @return Optional containing the user, or empty if not found
+   * @param user User who just logged in
+   * @param pin  Verified PIN
    */
-  public Optional<UserAuthentication> findById(int id) {
-    logger.debug("Finding user by ID: {}", id);
-
-    try (Connection connection = ConnectionFactory.getConnection();
-        PreparedStatement statement = connection.prepareStatement(SELECT_USER_BY_ID)) {
-
-      statement.setInt(1, id);
-
-      try (ResultSet resultSet = statement.executeQuery()) {
-        if (resultSet.next()) {
-          UserAuthentication user = mapResultSetToUser(resultSet);
-          logger.debug("User found: {}", user.getEmail());
-          return Optional.of(user);
-        }
-      }
-
-    } catch (SQLException e) {
-      logger.error("Error finding user by ID: {}", id, e);
+  private void upgradePinHash(UserAuthentication user, String pin) {
+    String stored = user.getPin();
+    if (!pinVerifier.getHasher().needsRehash(stored)) {
+      return;
     }
-
-    logger.debug("User not found with ID: {}", id);
-    return Optional.empty();
-  }
-
-  /**
-   * Finds a user by email
-   * 
-   * @param email User email
-   * @return Optional containing the user, or empty if not found
-   */
-  public Optional<UserAuthentication> findByEmail(String email) {
-    logger.debug("Finding user by email: {}", email);
-
-    try (Connection connection = ConnectionFactory.getConnection();
-        PreparedStatement statement = connection.prepareStatement(SELECT_USER_BY_EMAIL)) {
-
-      statement.setString(1, email);
-
-      try (ResultSet resultSet = statement.executeQuery()) {
-        if (resultSet.next()) {
-          UserAuthentication user = mapResultSetToUser(resultSet);
-          logger.debug("User found: {}", user.getEmail());
-          return Optional.of(user);
-        }
+    try {
+      String hash = PinVerifier.await(pinVerifier.hash(pin));
+      if (userRepository.replacePinHash(user.getId(), stored, hash)) {
+        user.setPin(hash);
+        logger.info("PIN hash upgraded for user: {}", user.getId());
       }
-
-    } catch (SQLException e) {
-      logger.error("Error finding user by email: {}", email, e);
+    } catch (RuntimeException e) {
+      logger.error("Error upgrading PIN hash for user {}: {}", user.getId(), e.getMessage(), e);
     }
-
-    logger.debug("User not found with email: {}", email);
-    return Optional.empty();
-  }
-
-  /**
-   * Finds a user by phone number
-   * 
-   * @param number User phone number
-   * @return Optional containing the user, or empty if not found
-   */
-  public Optional<UserAuthentication> findByNumber(String number) {
-    logger.debug("Finding user by number: {}", number);
-
-    try (Connection connection = ConnectionFactory.getConnection();
-        PreparedStatement statement = connection.prepareStatement(SELECT_USER_BY_NUMBER)) {
-
-      statement.setString(1, number);
-
-      try (ResultSet resultSet = statement.executeQuery()) {
-        if (resultSet.next()) {
-          UserAuthentication user = mapResultSetToUser(resultSet);
-          logger.debug("User found: {}", user.getEmail());
-          return Optional.of(user);
-        }
-      }
-
-    } catch (SQLException e) {
-      logger.error("Error finding user by number: {}", number, e);
-    }
-
-    logger.debug("User not found with number: {}", number);
-    return Optional.empty();
-  }
-
-  /**
-   * Finds a user by email or phone number (for login)
-   * 
-   * @param emailOrNumber Email or phone number
-   * @return Optional containing the user, or empty if not found
-   */
-  public Optional<UserAuthentication> findByEmailOrNumber(String emailOrNumber) {
-    logger.debug("Finding user by email or number: {}", emailOrNumber);
-
-    try (Connection connection = ConnectionFactory.getConnection();
-        PreparedStatement statement = connection.prepareStatement(SELECT_USER_BY_EMAIL_OR_NUMBER)) {
-
-      statement.setString(1, emailOrNumber);
-      statement.setString(2, emailOrNumber);
-
-      try (ResultSet resultSet = statement.executeQuery()) {
-        if (resultSet.next()) {
-          UserAuthentication user = mapResultSetToUser(resultSet);
-          logger.debug("User found: {}", user.getEmail());
-          return Optional.of(user);
-        }
-      }
-
-    } catch (SQLException e) {
-      logger.error("Error finding user by email or number: {}", emailOrNumber, e);
-    }
-
-    logger.debug("User not found with email or number: {}", emailOrNumber);
-    return Optional.empty();
-  }
-
-  /**
-   * Updates user information
-   * 
-   * @param user User with updated information
-   * @return true if update was successful
-   */
-  public boolean update(UserAuthentication user) {
-    logger.debug("Updating user: {}", user.getId());
-
-    try (Connection connection = ConnectionFactory.getConnection();
-        PreparedStatement statement = connection.prepareStatement(UPDATE_USER)) {
-
-      statement.setString(1, user.getName());
-      statement.setString(2, user.getEmail());
-      statement.setString(3, user.getNumber());
-      statement.setInt(4, user.getId());
-
-      int affectedRows = statement.executeUpdate();
-
-      if (affectedRows > 0) {
-        logger.info("User updated successfully: {}", user.getId());
-        return true;
-      }
-
-    } catch (SQLException e) {
-      logger.error("Error updating user: {}", user.getId(), e);
-    }
-
-    return false;
-  }
-
-  /**
-   * Updates user PIN
-   * 
-   * @param userId User ID
-   * @param newPin New PIN
-   * @return true if update was successful
-   */
-  public boolean updatePin(int userId, String newPin) {
-    logger.debug("Updating PIN for user: {}", userId);
-
-    try (Connection connection = ConnectionFactory.getConnection();
-        PreparedStatement statement = connection.prepareStatement(UPDATE_PIN)) {
-
-      statement.setString(1, newPin);
-      statement.setInt(2, userId);
-
-      int affectedRows = statement.executeUpdate();
-
-      if (affectedRows > 0) {
-        logger.info("PIN updated successfully for user: {}", userId);
-        return true;
-      }
-
-    } catch (SQLException e) {
-      logger.error("Error updating PIN for user: {}", userId, e);
-    }
-
-    return false;
-  }
-
-  /**
-   * Deletes a user
-   * 
-   * @param id User ID
-   * @return true if deletion was successful
-   */
-  public boolean delete(int id) {
-    logger.debug("Deleting user: {}", id);
-
-    try (Connection connection = ConnectionFactory.getConnection();
-        PreparedStatement statement = connection.prepareStatement(DELETE_USER)) {
-
-      statement.setInt(1, id);
-
-      int affectedRows = statement.executeUpdate();
-
-      if (affectedRows > 0) {
-        logger.info("User deleted successfully: {}", id);
-        return true;
-      }
-
-    } catch (SQLException e) {
-      logger.error("Error deleting user: {}", id, e);
-    }
-
-    return false;
-  }
-
-  /**
-   * Retrieves all users
-   * 
-   * @return List of all users
-   */
-  public List<UserAuthentication> findAll() {
-    logger.debug("Finding all users");
-    List<UserAuthentication> users = new ArrayList<>();
-
-    try (Connection connection = ConnectionFactory.getConnection();
-        Statement statement = connection.createStatement();
-        ResultSet resultSet = statement.executeQuery(SELECT_ALL_USERS)) {
-
-      while (resultSet.next()) {
-        users.add(mapResultSetToUser(resultSet));
-      }
-
-      logger.debug("Found {} users", users.size());
-
-    } catch (SQLException e) {
-      logger.error("Error finding all users", e);
-    }
-
-    return users;
-  }
-
-  /**
-   * Counts total number of users
-   * 
-   * @return User count
-   */
-  public int count() {
-    try (Connection connection = ConnectionFactory.getConnection();
-        Statement statement = connection.createStatement();
-        ResultSet resultSet = statement.executeQuery(COUNT_USERS)) {
-
-      if (resultSet.next()) {
-        return resultSet.getInt(1);
-      }
-
-    } catch (SQLException e) {
-      logger.error("Error counting users", e);
-    }
-
-    return 0;
   }
 
   /**
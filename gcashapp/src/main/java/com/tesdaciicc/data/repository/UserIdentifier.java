@@ -0,0 +1,34 @@
+package com.tesdaciicc.data.repository;
+
+import java.util.regex.Pattern;
+
+import com.tesdaciicc.data.util.Config;
+
+/**
+ * Tells the two kinds of login identifier apart, so the DAOs can search the
+ * email or the number column alone instead of "email = ? OR number = ?".
+ */
+final class UserIdentifier {
+
+  private static final Pattern PHONE_PATTERN = Pattern.compile(Config.PHONE_PATTERN);
+  private static final Pattern EMAIL_PATTERN = Pattern.compile(Config.EMAIL_PATTERN);
+
+  private UserIdentifier() {
+  }
+
+  /**
+   * Identifiers matching Config.PHONE_PATTERN or Config.EMAIL_PATTERN are
+   * classified by the pattern. Anything else is an email if it contains '@':
+   * registration accepts looser emails than EMAIL_PATTERN, and every number
+   * it accepts is 11 digits.
+   *
+   * @param identifier Email or mobile number
+   * @return true if the identifier should be looked up by email
+   */
+  static boolean isEmail(String identifier) {
+    if (PHONE_PATTERN.matcher(identifier).matches()) {
+      return false;
+    }
+    return EMAIL_PATTERN.matcher(identifier).matches() || identifier.indexOf('@') >= 0;
+  }
+}
@@ -0,0 +1,475 @@
+package com.tesdaciicc.data.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.sql.Statement;
+
+import com.tesdaciicc.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.tesdaciicc.data.cache.BalanceCache;
+import com.tesdaciicc.data.cache.SessionStore;
+import com.tesdaciicc.data.cache.UserCache;
+import com.tesdaciicc.data.cache.UserIdCache;
+import com.tesdaciicc.data.util.ConnectionFactory;
+import com.tesdaciicc.model.UserAuthentication;
+import com.tesdaciicc.security.PinVerifier;
+
+/**
+ * The one mapper for the users table, used by the services and by
+ * UserAuthenticationDAO for logins.
+ *
+ * Lookups by ID, email and number read through {@link UserCache}; email and
+ * number are first resolved to the userId with {@link UserIdCache}, so the
+ * same cached row serves all three. Every write here drops the user from both
+ * caches once it commits. Inside a transaction the caches are bypassed, as in
+ * BalanceDAO, because they may be behind this thread's own changes.
+ */
+public class UserRepository {
+
+  private static final Logger logger = LoggerFactory.getLogger(UserRepository.class);
+  private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+  private final UserCache userCache = UserCache.getInstance();
+  private final UserIdCache userIdCache = UserIdCache.getInstance();
+  private final SessionStore sessionStore = SessionStore.getInstance();
+
+  private static final String INSERT_USER = "INSERT INTO users (name, email, number, pin) VALUES (?, ?, ?, ?)";
+
+  private static final String SELECT_USER_BY_ID = "SELECT userId, name, email, number, pin, createdDate, updatedDate FROM users WHERE userId = ?";
+
+  private static final String SELECT_USER_BY_EMAIL = "SELECT userId, name, email, number, pin, createdDate, updatedDate FROM users WHERE email = ?";
+
+  private static final String SELECT_USER_BY_NUMBER = "SELECT userId, name, email, number, pin, createdDate, updatedDate FROM users WHERE number = ?";
+
+  private static final String UPDATE_USER = "UPDATE users SET name = ?, email = ?, number = ?, updatedDate = datetime('now') WHERE userId = ?";
+
+  private static final String UPDATE_PIN = "UPDATE users SET pin = ?, updatedDate = datetime('now') WHERE userId = ?";
+
+  // Only replaces the value that was just verified, so a concurrent PIN change wins
+  private static final String REHASH_PIN = "UPDATE users SET pin = ? WHERE userId = ? AND pin = ?";
+
+  private static final String DELETE_USER = "DELETE FROM users WHERE userId = ?";
+
+  private static final String SELECT_ALL_USERS = "SELECT userId, name, email, number, pin, createdDate, updatedDate FROM users ORDER BY createdDate DESC";
+
+  private static final String COUNT_USERS = "SELECT COUNT(*) FROM users";
+
+  /**
+   * Saves a new user to the database (Registration). The user's PIN is
+   * replaced with the stored hash.
+   *
+   * @param user    User object to save
+   * @param pinHash Hash of the user's PIN, from {@link PinVerifier#hash}
+   * @return Optional containing the saved user with generated ID, or empty if
+   *         failed
+   */
+  public Optional<UserAuthentication> save(UserAuthentication user, String pinHash) {
+    return metrics.timer("dao.user.save").record(() -> {
+      logger.debug("Saving user: {}", user.getEmail());
+
+      try (Connection connection = ConnectionFactory.getWriteConnection();
+          PreparedStatement statement = connection.prepareStatement(INSERT_USER, Statement.RETURN_GENERATED_KEYS)) {
+
+        statement.setString(1, user.getName());
+        statement.setString(2, user.getEmail());
+        statement.setString(3, user.getNumber());
+        statement.setString(4, pinHash);
+
+        int affectedRows = statement.executeUpdate();
+
+        if (affectedRows > 0) {
+          try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+            if (generatedKeys.next()) {
+              user.setId(generatedKeys.getInt(1));
+              user.setPin(pinHash);
+
+              // Retrieve the auto-generated dates
+              Optional<UserAuthentication> savedUser = loadById(user.getId());
+              if (savedUser.isPresent()) {
+                user.setCreatedDate(savedUser.get().getCreatedDate());
+                user.setUpdatedDate(savedUser.get().getUpdatedDate());
+              }
+
+              logger.info("User saved successfully with ID: {}", user.getId());
+              return Optional.of(user);
+            }
+          }
+        }
+
+      } catch (SQLException e) {
+        logger.error("Error saving user: {}", user.getEmail(), e);
+      }
+
+      return Optional.empty();
+    });
+  }
+
+  /**
+   * Finds a user by ID
+   *
+   * @param id User ID
+   * @return Optional containing the user, or empty if not found
+   */
+  public Optional<UserAuthentication> findById(int id) {
+    return metrics.timer("dao.user.findById").record(() -> {
+      logger.debug("Finding user by ID: {}", id);
+
+      if (ConnectionFactory.isWriteConnectionHeld()) {
+        return loadById(id);
+      }
+
+      Optional<UserAuthentication> cached = userCache.get(id);
+      if (cached.isPresent()) {
+        logger.debug("User cache hit for ID: {}", id);
+        return cached;
+      }
+
+      long stamp = userCache.readStamp();
+      Optional<UserAuthentication> user = loadById(id);
+      user.ifPresent(found -> userCache.putIfUnchanged(found, stamp));
+      return user;
+    });
+  }
+
+  /**
+   * Finds a user by email
+   *
+   * @param email User email
+   * @return Optional containing the user, or empty if not found
+   */
+  public Optional<UserAuthentication> findByEmail(String email) {
+    return metrics.timer("dao.user.findByEmail").record(() -> {
+      logger.debug("Finding user by email: {}", email);
+      return findByIdentifier(email, true);
+    });
+  }
+
+  /**
+   * Finds a user by phone number
+   *
+   * @param number User phone number
+   * @return Optional containing the user, or empty if not found
+   */
+  public Optional<UserAuthentication> findByNumber(String number) {
+    return metrics.timer("dao.user.findByNumber").record(() -> {
+      logger.debug("Finding user by number: {}", number);
+      return findByIdentifier(number, false);
+    });
+  }
+
+  /**
+   * Finds a user by email or phone number (for login)
+   *
+   * @param emailOrNumber Email or phone number
+   * @return Optional containing the user, or empty if not found
+   */
+  public Optional<UserAuthentication> findByEmailOrNumber(String emailOrNumber) {
+    return metrics.timer("dao.user.findByEmailOrNumber").record(() -> {
+      logger.debug("Finding user by email or number: {}", emailOrNumber);
+
+      if (emailOrNumber == null) {
+        return Optional.<UserAuthentication>empty();
+      }
+
+      // One column, one unique index; "email = ? OR number = ?" needs both indexes or a scan
+      return findByIdentifier(emailOrNumber, UserIdentifier.isEmail(emailOrNumber));
+    });
+  }
+
+  /**
+   * Updates user information
+   *
+   * @param user User with updated information
+   * @return true if update was successful
+   */
+  public boolean update(UserAuthentication user) {
+    return metrics.timer("dao.user.update").record(() -> {
+      logger.debug("Updating user: {}", user.getId());
+
+      try (Connection connection = ConnectionFactory.getWriteConnection();
+          PreparedStatement statement = connection.prepareStatement(UPDATE_USER)) {
+
+        statement.setString(1, user.getName());
+        statement.setString(2, user.getEmail());
+        statement.setString(3, user.getNumber());
+        statement.setInt(4, user.getId());
+
+        int affectedRows = statement.executeUpdate();
+
+        if (affectedRows > 0) {
+          userCache.invalidateAfterCommit(user.getId());
+          userIdCache.invalidateUserAfterCommit(user.getId());
+          sessionStore.invalidateUserAfterCommit(user.getId());
+          logger.info("User updated successfully: {}", user.getId());
+          return true;
+        }
+
+      } catch (SQLException e) {
+        logger.error("Error updating user: {}", user.getId(), e);
+      }
+
+      return false;
+    });
+  }
+
+  /**
+   * Updates user PIN
+   *
+   * @param userId  User ID
+   * @param pinHash Hash of the new PIN, from {@link PinVerifier#hash}
+   * @return true if update was successful
+   */
+  public boolean updatePin(int userId, String pinHash) {
+    return metrics.timer("dao.user.updatePin").record(() -> {
+      logger.debug("Updating PIN for user: {}", userId);
+
+      try (Connection connection = ConnectionFactory.getWriteConnection();
+          PreparedStatement statement = connection.prepareStatement(UPDATE_PIN)) {
+
+        statement.setString(1, pinHash);
+        statement.setInt(2, userId);
+
+        int affectedRows = statement.executeUpdate();
+
+        if (affectedRows > 0) {
+          userCache.invalidateAfterCommit(userId);
+          sessionStore.invalidateUserAfterCommit(userId);
+          logger.info("PIN updated successfully for user: {}", userId);
+          return true;
+        }
+
+      } catch (SQLException e) {
+        logger.error("Error updating PIN for user: {}", userId, e);
+      }
+
+      return false;
+    });
+  }
+
+  /**
+   * Replaces a stored PIN value with a new hash of the same PIN, unless it
+   * has changed since it was read
+   *
+   * @param userId   User ID
+   * @param expected Value of users.pin the PIN was verified against
+   * @param pinHash  New hash to store
+   * @return true if the hash was replaced
+   */
+  boolean replacePinHash(int userId, String expected, String pinHash) {
+    return metrics.timer("dao.user.replacePinHash").record(() -> {
+      try (Connection connection = ConnectionFactory.getWriteConnection();
+          PreparedStatement statement = connection.prepareStatement(REHASH_PIN)) {
+
+        statement.setString(1, pinHash);
+        statement.setInt(2, userId);
+        statement.setString(3, expected);
+
+        if (statement.executeUpdate() > 0) {
+          userCache.invalidateAfterCommit(userId);
+          return true;
+        }
+
+      } catch (SQLException e) {
+        logger.error("Error replacing PIN hash for user {}: {}", userId, e.getMessage(), e);
+      }
+
+      return false;
+    });
+  }
+
+  /**
+   * Deletes a user
+   *
+   * @param id User ID
+   * @return true if deletion was successful
+   */
+  public boolean delete(int id) {
+    return metrics.timer("dao.user.delete").record(() -> {
+      logger.debug("Deleting user: {}", id);
+
+      try (Connection connection = ConnectionFactory.getWriteConnection();
+          PreparedStatement statement = connection.prepareStatement(DELETE_USER)) {
+
+        statement.setInt(1, id);
+
+        int affectedRows = statement.executeUpdate();
+
+        if (affectedRows > 0) {
+          // The balance row goes with the user (ON DELETE CASCADE)
+          BalanceCache.getInstance().invalidateAfterCommit(id);
+          userCache.invalidateAfterCommit(id);
+          userIdCache.invalidateUserAfterCommit(id);
+          sessionStore.invalidateUserAfterCommit(id);
+          logger.info("User deleted successfully: {}", id);
+          return true;
+        }
+
+      } catch (SQLException e) {
+        logger.error("Error deleting user: {}", id, e);
+      }
+
+      return false;
+    });
+  }
+
+  /**
+   * Retrieves all users, straight from the database
+   *
+   * @return List of all users
+   */
+  public List<UserAuthentication> findAll() {
+    return metrics.timer("dao.user.findAll").record(() -> {
+      logger.debug("Finding all users");
+      List<UserAuthentication> users = new ArrayList<>();
+
+      try (Connection connection = ConnectionFactory.getReadConnection();
+          Statement statement = connection.createStatement();
+          ResultSet resultSet = statement.executeQuery(SELECT_ALL_USERS)) {
+
+        while (resultSet.next()) {
+          users.add(mapResultSetToUser(resultSet));
+        }
+
+        logger.debug("Found {} users", users.size());
+
+      } catch (SQLException e) {
+        logger.error("Error finding all users", e);
+      }
+
+      return users;
+    });
+  }
+
+  /**
+   * Counts total number of users
+   *
+   * @return User count
+   */
+  public int count() {
+    return metrics.timer("dao.user.count").record(() -> {
+      try (Connection connection = ConnectionFactory.getReadConnection();
+          Statement statement = connection.createStatement();
+          ResultSet resultSet = statement.executeQuery(COUNT_USERS)) {
+
+        if (resultSet.next()) {
+          return resultSet.getInt(1);
+        }
+
+      } catch (SQLException e) {
+        logger.error("Error counting users", e);
+      }
+
+      return 0;
+    });
+  }
+
+  /**
+   * Email or number lookup: the userId from UserIdCache, then the row by ID;
+   * on a miss, the row by its unique index, which fills both caches
+   *
+   * @param identifier Email or phone number
+   * @param byEmail    true to match the email column, false for number
+   * @return Optional containing the user, or empty if not found
+   */
+  private Optional<UserAuthentication> findByIdentifier(String identifier, boolean byEmail) {
+    if (identifier == null) {
+      return Optional.empty();
+    }
+    String sql = byEmail ? SELECT_USER_BY_EMAIL : SELECT_USER_BY_NUMBER;
+    if (ConnectionFactory.isWriteConnectionHeld()) {
+      return loadOne(sql, identifier);
+    }
+
+    Integer cachedId = userIdCache.get(identifier);
+    if (cachedId != null) {
+      Optional<UserAuthentication> user = findById(cachedId);
+      if (user.isPresent() && identifier.equals(byEmail ? user.get().getEmail() : user.get().getNumber())) {
+        return user;
+      }
+      // Stale mapping, e.g. after a script changed users and cleared the caches
+      userIdCache.invalidate(identifier);
+    }
+
+    long idStamp = userIdCache.readStamp();
+    long userStamp = userCache.readStamp();
+    Optional<UserAuthentication> user = loadOne(sql, identifier);
+    user.ifPresent(found -> {
+      userIdCache.putIfUnchanged(identifier, found.getId(), idStamp);
+      userCache.putIfUnchanged(found, userStamp);
+    });
+    return user;
+  }
+
+  private Optional<UserAuthentication> loadById(int id) {
+    try (Connection connection = ConnectionFactory.getReadConnection();
+        PreparedStatement statement = connection.prepareStatement(SELECT_USER_BY_ID)) {
+
+      statement.setInt(1, id);
+
+      try (ResultSet resultSet = statement.executeQuery()) {
+        if (resultSet.next()) {
+          UserAuthentication user = mapResultSetToUser(resultSet);
+          logger.debug("User found: {}", user.getEmail());
+          return Optional.of(user);
+        }
+      }
+
+    } catch (SQLException e) {
+      logger.error("Error finding user by ID: {}", id, e);
+    }
+
+    logger.debug("User not found with ID: {}", id);
+    return Optional.empty();
+  }
+
+  private Optional<UserAuthentication> loadOne(String sql, String value) {
+    try (Connection connection = ConnectionFactory.getReadConnection();
+        PreparedStatement statement = connection.prepareStatement(sql)) {
+
+      statement.setString(1, value);
+
+      try (ResultSet resultSet = statement.executeQuery()) {
+        if (resultSet.next()) {
+          UserAuthentication user = mapResultSetToUser(resultSet);
+          logger.debug("User found: {}", user.getEmail());
+          return Optional.of(user);
+        }
+      }
+
+    } catch (SQLException e) {
+      logger.error("Error finding user: {}", value, e);
+    }
+
+    logger.debug("User not found: {}", value);
+    return Optional.empty();
+  }
+
+  /**
+   * Maps a ResultSet row to User object
+   *
+   * @param resultSet ResultSet containing user data
+   * @return User object
+   * @throws SQLException if mapping fails
+   */
+  private UserAuthentication mapResultSetToUser(ResultSet resultSet) throws SQLException {
+    UserAuthentication user = new UserAuthentication();
+
+    user.setId(resultSet.getInt("userId"));
+    user.setName(resultSet.getString("name"));
+    user.setEmail(resultSet.getString("email"));
+    user.setNumber(resultSet.getString("number"));
+    user.setPin(resultSet.getString("pin"));
+    user.setCreatedDate(resultSet.getString("createdDate"));
+    user.setUpdatedDate(resultSet.getString("updatedDate"));
+
+    return user;
+  }
+
+}
@@ -2,6 +2,7 @@ package com.tesdaciicc.data.util;
 
 // import java.io.IOException;
 // import java.io.InputStream;
+import java.util.List;
 import java.util.Properties;
 
 public class Config {
@@ -27,6 +28,58 @@ public class Config {
   public static final String INDEX_SQL_FILE = "/sql/002_indexes.sql";
   public static final String DATA_SQL_FILE = "/sql/003_data.sql";
 
+  // Schema migrations, applied in order; entry N brings PRAGMA user_version to N + 1.
+  // Only append to this list - never reorder or edit a migration that has shipped
+  public static final List<String> MIGRATION_SQL_FILES = List.of(
+      "/sql/004_transactions_composite_indexes.sql",
+      "/sql/005_user_transaction_stats.sql",
+      "/sql/006_integer_centavos.sql",
+      "/sql/007_epoch_millis_dates.sql",
+      "/sql/008_sessions.sql",
+      "/sql/009_hashed_pins.sql");
+
+  // Connection pool settings - one writer connection, a pool of read-only connections
+  public static final int POOL_MIN_SIZE = 1;
+  public static final int POOL_MAX_SIZE = 8;
+  public static final int WRITER_POOL_SIZE = 1;
+  public static final long POOL_IDLE_TIMEOUT_MS = 5 * 60 * 1000L; // close idle connections after 5 minutes
+  public static final long POOL_BORROW_TIMEOUT_MS = 30 * 1000L;
+  public static final long POOL_LEAK_DETECTION_THRESHOLD_MS = 60 * 1000L; // 0 disables leak detection
+  public static final int POOL_VALIDATION_TIMEOUT_SECONDS = 5;
+  public static final int STATEMENT_CACHE_SIZE = 64; // prepared statements kept per connection
+  public static final int STREAM_FETCH_SIZE = 500; // row hint for streamed (unbuffered) queries
+  public static final int TRANSACTION_PAGE_MAX_SIZE = 500; // largest page the keyset queries return
+
+  // SQLite tuning applied to every pooled connection
+  public static final String SQLITE_JOURNAL_MODE = "WAL";
+  public static final String SQLITE_SYNCHRONOUS = "NORMAL"; // safe with WAL, one fsync per checkpoint
+  public static final int SQLITE_BUSY_TIMEOUT_MS = 5000;
+  public static final long SQLITE_MMAP_SIZE_BYTES = 256L * 1024 * 1024;
+  public static final int SQLITE_CACHE_SIZE_KB = 16 * 1024; // per connection
+
+  // In-memory caches
+  public static final int BALANCE_CACHE_MAX_ENTRIES = 10_000;
+  public static final int BALANCE_CACHE_SEGMENTS = 16; // power of two
+  public static final long SESSION_TTL_MINUTES = 30; // how long a validated token is trusted before the database is asked again
+  public static final int SESSION_STORE_MAX_ENTRIES = 50_000;
+  public static final int USER_ID_CACHE_MAX_ENTRIES = 20_000; // login identifiers, two per user
+  public static final int USER_CACHE_MAX_ENTRIES = 10_000; // user rows, shared by lookups by ID, email and number
+
+  // Sessions table - SessionActivity writes lastSeen in batches and deletes expired rows
+  public static final long SESSION_LIFETIME_HOURS = 12;
+  public static final int MAX_SESSIONS_PER_USER = 5; // a new login ends the oldest session beyond this
+  public static final long SESSION_LAST_SEEN_FLUSH_SECONDS = 30;
+  public static final long SESSION_SWEEP_INTERVAL_MINUTES = 10;
+
+  // Transfer concurrency - accounts hash onto this many locks (power of two)
+  public static final int ACCOUNT_LOCK_STRIPES = 64;
+  public static final int TRANSFER_BATCH_MAX_SIZE = 64; // transfers per group commit
+  public static final long TRANSFER_BATCH_MAX_DELAY_MICROS = 2000; // how long the first transfer waits for company
+
+  // Metrics - MetricsReporter appends a snapshot of every metric to this file
+  public static final String METRICS_REPORT_FILE = "metrics.log";
+  public static final long METRICS_REPORT_INTERVAL_SECONDS = 60;
+
   // Application settings
   public static final String APP_NAME = "GCash App";
   public static final String APP_VERSION = "1.0.0";
@@ -35,7 +88,22 @@ public class Config {
   public static final int MIN_PIN_LENGTH = 4;
   public static final int MAX_PIN_LENGTH = 6;
   public static final int MIN_NAME_LENGTH = 2;
-  public static final int MAX_LOGIN_ATTEMPTS = 3;
+  public static final int MAX_LOGIN_ATTEMPTS = 3; // failed logins per identifier within the login window
+  public static final int MAX_LOGIN_ATTEMPTS_PER_SOURCE = 20;
+  public static final long LOGIN_WINDOW_SECONDS = 5 * 60;
+  public static final int LOGIN_WINDOW_BUCKETS = 10; // the window slides one bucket (30s) at a time
+  public static final int LOGIN_LIMITER_MAX_KEYS = 10_000; // per dimension; further keys share one window
+
+  // PIN hashing - PBKDF2 from the JDK. Stored hashes made with other settings are
+  // rehashed on the next login; PinHashBenchmarks measures the cost of each setting
+  public static final String PIN_HASH_ALGORITHM = "PBKDF2WithHmacSHA512";
+  public static final int PIN_HASH_ITERATIONS = 210_000;
+  public static final int PIN_HASH_SALT_BYTES = 16;
+  public static final int PIN_HASH_KEY_BYTES = 32;
+  public static final int PIN_VERIFY_THREADS = 2; // hashes computed at once
+  public static final int PIN_VERIFY_QUEUE_CAPACITY = 32; // checks waiting beyond this are refused
+  public static final int PIN_VERIFY_CACHE_MAX_ENTRIES = 10_000;
+  public static final long PIN_VERIFY_CACHE_TTL_MINUTES = 15;
 
   // Phone number validation
   public static final String PHONE_PATTERN = "^09\\d{9}$"; // Philippine mobile format
@@ -51,8 +119,12 @@ public class Config {
     return properties.getProperty(key);
   }
 
+  /**
+   * The -Dgcashapp.db.url system property, when set, points the app at another
+   * database file (benchmarks use it to run against seeded copies)
+   */
   public static String getDbUrl() {
-        return properties.getProperty("DATABASE_URL", "jdbc:sqlite:./gcashapp.db");
+        return System.getProperty("gcashapp.db.url", properties.getProperty("DATABASE_URL", DATABASE_URL));
     }
     
   public static String getDbDriver() {
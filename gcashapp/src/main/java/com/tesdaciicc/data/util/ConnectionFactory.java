@@ -1,18 +1,22 @@
 package com.tesdaciicc.data.util;
 
+import com.tesdaciicc.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 
 public class ConnectionFactory {
   private static final Logger logger = LoggerFactory.getLogger(ConnectionFactory.class.getName());
   private static ConnectionFactory instance = null;
   private static final String DB_URL;
+  private static volatile ConnectionPool writerPool;
+  private static volatile ConnectionPool readerPool;
 
   static {
     String rawUrl = Config.getDbUrl();
@@ -32,17 +36,20 @@ public class ConnectionFactory {
       DB_URL = rawUrl;
     }
 
-    System.out.println("Resolved DB Path: " + DB_URL); // Debug
+    logger.debug("Resolved DB path: {}", DB_URL);
+
+    // Pools are replaced after shutdown(), so the gauges read whichever is current
+    MetricsRegistry metrics = MetricsRegistry.getInstance();
+    metrics.gauge("pool.writer.active", () -> activeConnections(writerPool));
+    metrics.gauge("pool.reader.active", () -> activeConnections(readerPool));
+    metrics.gauge("pool.reader.idle", () -> {
+      ConnectionPool pool = readerPool;
+      return pool == null ? 0 : pool.getIdleConnections();
+    });
   }
 
+  // The driver is loaded once, when the writer pool is created
   private ConnectionFactory() {
-    try {
-      // Load the SQLite JDBC driver
-      Class.forName(Config.getDbDriver());
-    } catch (ClassNotFoundException e) {
-      logger.error("SQLite JDBC driver not found", e);
-      throw new RuntimeException("Database driver not found", e);
-    }
   }
 
   // Singleton pattern to ensure only one instance exists
@@ -54,41 +61,182 @@ public class ConnectionFactory {
     }
 
   /**
-   * Creates a new database connection
+   * Borrows the writer connection. Kept for callers that do not say whether
+   * they read or write; closing the connection hands it back to the pool.
    * 
    * @return Connection object
    * @throws SQLException if connection fails
    */
   public static Connection getConnection() throws SQLException {
+    return getWriteConnection();
+  }
+
+  /**
+   * Borrows the single writer connection. SQLite allows one writer at a time,
+   * so writes queue here instead of failing with SQLITE_BUSY. A thread that
+   * already holds the writer gets the same connection back, so DAO calls made
+   * inside a service transaction take part in that transaction.
+   * 
+   * @return Connection for INSERT/UPDATE/DELETE and DDL
+   * @throws SQLException if connection fails
+   */
+  public static Connection getWriteConnection() throws SQLException {
     try {
-        // Load SQLite JDBC driver
-        Class.forName(Config.getDbDriver());
+        Connection connection = getWriterPool().getConnection();
+        logger.debug("Writer connection borrowed: {}", DB_URL);
+        return connection;
 
-        // Create connection using resolved path
-        Connection connection = DriverManager.getConnection(DB_URL);
+    } catch (SQLException e) {
+      logger.error("Failed to obtain writer connection", e);
+      throw e;
+    }
+  }
 
-        // Enable foreign key constraints
-        connection.createStatement().execute("PRAGMA foreign_keys = ON");
+  /**
+   * Borrows a read-only connection. With WAL enabled readers never wait for the
+   * writer. If the current thread holds the writer (open transaction), the
+   * writer is returned instead so the caller sees its own uncommitted changes.
+   * 
+   * @return Connection for SELECT statements
+   * @throws SQLException if connection fails
+   */
+  public static Connection getReadConnection() throws SQLException {
+    try {
+      ConnectionPool writer = getWriterPool();
+      if (writer.isHeldByCurrentThread()) {
+        return writer.getConnection();
+      }
 
-        logger.debug("Database connection established: {}", DB_URL);
-        return connection;
+      Connection connection = getReaderPool().getConnection();
+      logger.debug("Reader connection borrowed: {}", DB_URL);
+      return connection;
 
-    } catch (ClassNotFoundException e) {
-      logger.error("SQLite JDBC driver not found", e);
-      throw new SQLException("Database driver not found", e);
     } catch (SQLException e) {
-      logger.error("Failed to create database connection", e);
+      logger.error("Failed to obtain reader connection", e);
       throw e;
     }
   }
 
+  /**
+   * @return true if the current thread holds the writer, i.e. is inside a
+   *         transaction whose changes other connections cannot see yet
+   */
+  public static boolean isWriteConnectionHeld() {
+    ConnectionPool current = writerPool;
+    return current != null && current.isHeldByCurrentThread();
+  }
+
+  /**
+   * Lazily creates the writer pool. The driver is loaded, WAL is switched on
+   * (persisted in the database file) and the per-connection PRAGMAs are
+   * configured here, once, instead of on every getConnection() call.
+   */
+  private static ConnectionPool getWriterPool() throws SQLException {
+    ConnectionPool current = writerPool;
+    if (current != null) {
+      return current;
+    }
+
+    synchronized (ConnectionFactory.class) {
+      if (writerPool == null) {
+        try {
+          // Load SQLite JDBC driver
+          Class.forName(Config.getDbDriver());
+        } catch (ClassNotFoundException e) {
+          logger.error("SQLite JDBC driver not found", e);
+          throw new SQLException("Database driver not found", e);
+        }
+
+        List<String> pragmas = new ArrayList<>();
+        pragmas.add("PRAGMA journal_mode = " + Config.SQLITE_JOURNAL_MODE);
+        pragmas.addAll(connectionPragmas());
+
+        writerPool = new ConnectionPool(
+            "gcashapp-writer",
+            DB_URL,
+            pragmas,
+            Config.WRITER_POOL_SIZE,
+            Config.WRITER_POOL_SIZE,
+            Config.POOL_IDLE_TIMEOUT_MS,
+            Config.POOL_BORROW_TIMEOUT_MS,
+            Config.POOL_LEAK_DETECTION_THRESHOLD_MS,
+            Config.POOL_VALIDATION_TIMEOUT_SECONDS,
+            true);
+      }
+      return writerPool;
+    }
+  }
+
+  /**
+   * Lazily creates the pool of read-only connections. Created after the writer
+   * so that the database is already in WAL mode when the readers open it.
+   * Package-private so tests can check that borrowed readers come back.
+   */
+  static ConnectionPool getReaderPool() throws SQLException {
+    ConnectionPool current = readerPool;
+    if (current != null) {
+      return current;
+    }
+
+    getWriterPool();
+    synchronized (ConnectionFactory.class) {
+      if (readerPool == null) {
+        List<String> pragmas = new ArrayList<>(connectionPragmas());
+        pragmas.add("PRAGMA query_only = ON");
+
+        readerPool = new ConnectionPool(
+            "gcashapp-reader",
+            DB_URL,
+            pragmas,
+            Config.POOL_MIN_SIZE,
+            Config.POOL_MAX_SIZE,
+            Config.POOL_IDLE_TIMEOUT_MS,
+            Config.POOL_BORROW_TIMEOUT_MS,
+            Config.POOL_LEAK_DETECTION_THRESHOLD_MS,
+            Config.POOL_VALIDATION_TIMEOUT_SECONDS,
+            false);
+      }
+      return readerPool;
+    }
+  }
+
+  private static int activeConnections(ConnectionPool pool) {
+    return pool == null ? 0 : pool.getActiveConnections();
+  }
+
+  /**
+   * PRAGMAs that are per connection in SQLite and must be set on every new connection
+   */
+  private static List<String> connectionPragmas() {
+    return List.of(
+        "PRAGMA foreign_keys = ON", // Enable foreign key constraints
+        "PRAGMA synchronous = " + Config.SQLITE_SYNCHRONOUS,
+        "PRAGMA busy_timeout = " + Config.SQLITE_BUSY_TIMEOUT_MS,
+        "PRAGMA mmap_size = " + Config.SQLITE_MMAP_SIZE_BYTES,
+        "PRAGMA cache_size = -" + Config.SQLITE_CACHE_SIZE_KB);
+  }
+
+  /**
+   * Closes all pooled connections. The next getConnection() call starts new pools.
+   */
+  public static synchronized void shutdown() {
+    if (readerPool != null) {
+      readerPool.shutdown();
+      readerPool = null;
+    }
+    if (writerPool != null) {
+      writerPool.shutdown();
+      writerPool = null;
+    }
+  }
+
   /**
    * Tests database connectivity
    * 
    * @return true if connection is successful
    */
   public static boolean testConnection() {
-    try (Connection connection = getConnection()) {
+    try (Connection connection = getReadConnection()) {
       return connection != null && !connection.isClosed() && connection.isValid(5); // 5 second timeout
     } catch (SQLException e) {
       logger.error("Database connection test failed", e);
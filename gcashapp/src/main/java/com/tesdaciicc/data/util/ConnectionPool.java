@@ -0,0 +1,504 @@
+package com.tesdaciicc.data.util;
+
+import com.tesdaciicc.metrics.MetricsRegistry;
+import com.tesdaciicc.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded JDBC connection pool for the SQLite database.
+ *
+ * Physical connections are opened once, get their PRAGMAs applied at creation
+ * and are then handed out as proxies whose close() returns them to the pool.
+ * A background housekeeper evicts idle connections above the minimum size and
+ * reports connections that have been borrowed for too long (leak detection).
+ * Each physical connection keeps a {@link StatementCache}, so prepareStatement
+ * with the same SQL reuses the already compiled statement.
+ *
+ * A reentrant pool hands a thread that already holds a connection that same
+ * connection again, so nested DAO calls join the caller's transaction instead
+ * of waiting for a second connection (used for the single writer connection).
+ */
+public class ConnectionPool {
+
+  private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+
+  // Tracked statements per borrow before closed ones are dropped
+  private static final int MIN_PRUNE_SIZE = 16;
+
+  private final String name;
+  private final String url;
+  private final List<String> initStatements;
+  private final int minSize;
+  private final int maxSize;
+  private final long idleTimeoutMs;
+  private final long borrowTimeoutMs;
+  private final long leakThresholdMs;
+  private final int validationTimeoutSeconds;
+  private final boolean reentrant;
+
+  private final Semaphore permits;
+  private final LinkedBlockingDeque<PhysicalConnection> idle = new LinkedBlockingDeque<>();
+  private final Set<Lease> borrowed = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger totalConnections = new AtomicInteger();
+  private final ThreadLocal<Lease> heldByThread = new ThreadLocal<>();
+  private final ScheduledExecutorService housekeeper;
+  private final Timer waitTimer; // time spent waiting for a free connection
+  private volatile boolean closed;
+
+  /**
+   * Creates a pool and pre-opens the minimum number of connections
+   *
+   * @param name           Pool name used in logs and thread names
+   * @param url            JDBC URL of the database
+   * @param initStatements Statements run once on every new physical connection
+   * @param minSize        Connections kept open even when idle
+   * @param maxSize        Upper bound of open connections
+   * @param idleTimeoutMs  Idle time after which connections above minSize are closed
+   * @param borrowTimeoutMs How long getConnection() waits for a free connection
+   * @param leakThresholdMs Borrow time after which a connection is reported as leaked (0 disables)
+   * @param validationTimeoutSeconds Timeout passed to Connection.isValid on borrow
+   * @param reentrant      Whether a thread borrowing twice gets its current connection back
+   */
+  public ConnectionPool(String name, String url, List<String> initStatements, int minSize, int maxSize,
+      long idleTimeoutMs, long borrowTimeoutMs, long leakThresholdMs, int validationTimeoutSeconds,
+      boolean reentrant) {
+    if (maxSize <= 0 || minSize < 0 || minSize > maxSize) {
+      throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+    }
+
+    this.name = name;
+    this.url = url;
+    this.initStatements = List.copyOf(initStatements);
+    this.minSize = minSize;
+    this.maxSize = maxSize;
+    this.idleTimeoutMs = idleTimeoutMs;
+    this.borrowTimeoutMs = borrowTimeoutMs;
+    this.leakThresholdMs = leakThresholdMs;
+    this.validationTimeoutSeconds = validationTimeoutSeconds;
+    this.reentrant = reentrant;
+    this.permits = new Semaphore(maxSize, true);
+    this.waitTimer = MetricsRegistry.getInstance().timer("pool." + name + ".wait");
+
+    this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "connection-pool-" + name + "-housekeeper");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long period = Math.max(1000L, Math.min(idleTimeoutMs, leakThresholdMs > 0 ? leakThresholdMs : idleTimeoutMs) / 2);
+    housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+
+    fillToMinimum();
+    logger.info("Connection pool '{}' started (min={}, max={}) for {}", name, minSize, maxSize, url);
+  }
+
+  /**
+   * Borrows a connection from the pool, opening a new one if none is idle
+   *
+   * @return Connection proxy; closing it returns the connection to the pool
+   * @throws SQLException if the pool is exhausted or the connection cannot be opened
+   */
+  public Connection getConnection() throws SQLException {
+    if (closed) {
+      throw new SQLException("Connection pool '" + name + "' is closed");
+    }
+
+    if (reentrant) {
+      Lease held = heldByThread.get();
+      if (held != null && !held.released) {
+        return held.nestedHandle();
+      }
+    }
+
+    long waitStart = System.nanoTime();
+    try {
+      if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+        throw new SQLException("Timed out after " + borrowTimeoutMs + " ms waiting for a connection from pool '"
+            + name + "' (max=" + maxSize + ", borrowed=" + borrowed.size() + ")");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for a database connection", e);
+    }
+    waitTimer.record(System.nanoTime() - waitStart);
+
+    try {
+      PhysicalConnection physical = takeValidConnection();
+      Lease lease = new Lease(physical);
+      borrowed.add(lease);
+      if (reentrant) {
+        heldByThread.set(lease);
+      }
+      return lease.proxy;
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Closes all idle connections and stops the housekeeper. Borrowed connections
+   * are closed when they are returned.
+   */
+  public void shutdown() {
+    closed = true;
+    housekeeper.shutdownNow();
+
+    PhysicalConnection physical;
+    while ((physical = idle.pollFirst()) != null) {
+      destroy(physical);
+    }
+    logger.info("Connection pool '{}' shut down", name);
+  }
+
+  /**
+   * Checks whether the current thread holds a connection of this (reentrant) pool
+   *
+   * @return true if the next getConnection() on this thread returns the held connection
+   */
+  public boolean isHeldByCurrentThread() {
+    Lease held = heldByThread.get();
+    return held != null && !held.released;
+  }
+
+  public int getTotalConnections() {
+    return totalConnections.get();
+  }
+
+  public int getIdleConnections() {
+    return idle.size();
+  }
+
+  public int getActiveConnections() {
+    return borrowed.size();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return Statements tracked by the current borrows, for tests
+   */
+  int getTrackedStatements() {
+    int count = 0;
+    for (Lease lease : borrowed) {
+      count += lease.statements.size();
+    }
+    return count;
+  }
+
+  private PhysicalConnection takeValidConnection() throws SQLException {
+    PhysicalConnection physical;
+    while ((physical = idle.pollFirst()) != null) {
+      if (isUsable(physical)) {
+        return physical;
+      }
+      logger.warn("Discarding invalid connection from pool '{}'", name);
+      destroy(physical);
+    }
+    return open();
+  }
+
+  private boolean isUsable(PhysicalConnection physical) {
+    try {
+      return !physical.connection.isClosed() && physical.connection.isValid(validationTimeoutSeconds);
+    } catch (SQLException e) {
+      return false;
+    }
+  }
+
+  private PhysicalConnection open() throws SQLException {
+    Connection connection = DriverManager.getConnection(url);
+    try (Statement statement = connection.createStatement()) {
+      for (String sql : initStatements) {
+        statement.execute(sql);
+      }
+    } catch (SQLException e) {
+      connection.close();
+      throw e;
+    }
+
+    totalConnections.incrementAndGet();
+    logger.debug("Opened new connection for pool '{}' (total: {})", name, totalConnections.get());
+    return new PhysicalConnection(connection);
+  }
+
+  private void destroy(PhysicalConnection physical) {
+    totalConnections.decrementAndGet();
+    physical.statementCache.closeAll();
+    try {
+      physical.connection.close();
+    } catch (SQLException e) {
+      logger.warn("Error closing pooled connection: {}", e.getMessage());
+    }
+  }
+
+  private void release(Lease lease) {
+    borrowed.remove(lease);
+    if (reentrant && heldByThread.get() == lease) {
+      heldByThread.remove();
+    }
+    PhysicalConnection physical = lease.physical;
+
+    boolean reusable = resetForReuse(lease);
+    if (reusable && !closed) {
+      physical.lastUsed = System.currentTimeMillis();
+      idle.offerFirst(physical);
+    } else {
+      destroy(physical);
+    }
+    permits.release();
+  }
+
+  /**
+   * Restores a returned connection to its default state. Open statements are
+   * closed (cached ones go back to the statement cache) and any unfinished
+   * transaction is rolled back.
+   */
+  private boolean resetForReuse(Lease lease) {
+    Connection connection = lease.physical.connection;
+    try {
+      for (Statement statement : lease.statements) {
+        if (!statement.isClosed()) {
+          statement.close();
+        }
+      }
+      if (connection.isClosed()) {
+        return false;
+      }
+      if (!connection.getAutoCommit()) {
+        // Callers that forgot to restore auto-commit may still hold uncommitted work
+        logger.debug("Connection returned to pool '{}' with auto-commit disabled - rolling back", name);
+        connection.rollback();
+        connection.setAutoCommit(true);
+      }
+      if (connection.isReadOnly() != lease.physical.defaultReadOnly) {
+        connection.setReadOnly(lease.physical.defaultReadOnly);
+      }
+      connection.clearWarnings();
+      return true;
+    } catch (SQLException e) {
+      logger.warn("Could not reset connection for pool '{}': {}", name, e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * prepareStatement(String) and prepareStatement(String, int autoGeneratedKeys)
+   * go through the connection's statement cache
+   */
+  private static boolean isCacheablePrepare(Method method) {
+    if (!method.getName().equals("prepareStatement")) {
+      return false;
+    }
+    Class<?>[] types = method.getParameterTypes();
+    return types.length == 1 || (types.length == 2 && types[1] == int.class);
+  }
+
+  private void fillToMinimum() {
+    while (!closed && totalConnections.get() < minSize) {
+      try {
+        idle.offerLast(open());
+      } catch (SQLException e) {
+        logger.error("Failed to open connection for pool '{}': {}", name, e.getMessage());
+        return;
+      }
+    }
+  }
+
+  private void housekeep() {
+    try {
+      long now = System.currentTimeMillis();
+
+      // Evict connections idle for too long, oldest first, but keep the minimum
+      Iterator<PhysicalConnection> iterator = idle.descendingIterator();
+      while (iterator.hasNext() && totalConnections.get() > minSize) {
+        PhysicalConnection physical = iterator.next();
+        if (now - physical.lastUsed > idleTimeoutMs && idle.remove(physical)) {
+          logger.debug("Evicting idle connection from pool '{}'", name);
+          destroy(physical);
+        }
+      }
+      fillToMinimum();
+
+      if (leakThresholdMs > 0) {
+        for (Lease lease : borrowed) {
+          if (!lease.leakReported && now - lease.borrowedAt > leakThresholdMs) {
+            lease.leakReported = true;
+            logger.warn("Possible connection leak in pool '{}': connection borrowed by thread '{}' {} ms ago",
+                name, lease.threadName, now - lease.borrowedAt, lease.borrowStack);
+          }
+        }
+      }
+    } catch (RuntimeException e) {
+      logger.error("Connection pool housekeeping failed: {}", e.getMessage(), e);
+    }
+  }
+
+  /**
+   * An open JDBC connection owned by the pool
+   */
+  private static final class PhysicalConnection {
+    private final Connection connection;
+    private final boolean defaultReadOnly;
+    private final StatementCache statementCache;
+    private volatile long lastUsed = System.currentTimeMillis();
+
+    private PhysicalConnection(Connection connection) throws SQLException {
+      this.connection = connection;
+      this.defaultReadOnly = connection.isReadOnly();
+      this.statementCache = new StatementCache(connection, Config.STATEMENT_CACHE_SIZE);
+    }
+  }
+
+  /**
+   * A single borrow of a physical connection. The proxy handed to callers stays
+   * closed once released, even though the physical connection is reused.
+   */
+  private final class Lease implements InvocationHandler {
+    private final PhysicalConnection physical;
+    private final Connection proxy;
+    private final long borrowedAt = System.currentTimeMillis();
+    private final String threadName = Thread.currentThread().getName();
+    private final Throwable borrowStack;
+    // Statements handed out during this borrow, closed on release if the caller did not
+    private final List<Statement> statements = new ArrayList<>();
+    private int pruneAt = MIN_PRUNE_SIZE;
+    private volatile boolean leakReported;
+    private volatile boolean released;
+
+    private Lease(PhysicalConnection physical) {
+      this.physical = physical;
+      this.borrowStack = leakThresholdMs > 0 ? new Throwable("Connection borrowed here") : null;
+      this.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+          new Class<?>[] { Connection.class }, this);
+    }
+
+    /**
+     * Handle for a nested borrow on the owning thread. Closing it leaves the
+     * connection (and any transaction on it) with the outer borrower.
+     */
+    private Connection nestedHandle() {
+      InvocationHandler handler = new InvocationHandler() {
+        private boolean handleClosed;
+
+        @Override
+        public Object invoke(Object handle, Method method, Object[] args) throws Throwable {
+          switch (method.getName()) {
+            case "close":
+              handleClosed = true;
+              return null;
+            case "isClosed":
+              return handleClosed || released;
+            case "equals":
+              return handle == args[0];
+            case "hashCode":
+              return System.identityHashCode(handle);
+            case "toString":
+              return "NestedPooledConnection[" + name + "]";
+            default:
+              if (handleClosed) {
+                throw new SQLException("Connection has already been closed");
+              }
+              return Lease.this.invoke(proxy, method, args);
+          }
+        }
+      };
+      return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+          new Class<?>[] { Connection.class }, handler);
+    }
+
+    @Override
+    public Object invoke(Object proxyInstance, Method method, Object[] args) throws Throwable {
+      String methodName = method.getName();
+
+      switch (methodName) {
+        case "close":
+          synchronized (this) {
+            if (!released) {
+              released = true;
+              release(this);
+            }
+          }
+          return null;
+        case "isClosed":
+          return released || physical.connection.isClosed();
+        case "equals":
+          return proxyInstance == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxyInstance);
+        case "toString":
+          return "PooledConnection[" + name + "]";
+        case "unwrap":
+          if (((Class<?>) args[0]).isInstance(proxyInstance)) {
+            return proxyInstance;
+          }
+          break;
+        case "isWrapperFor":
+          if (((Class<?>) args[0]).isInstance(proxyInstance)) {
+            return true;
+          }
+          break;
+        default:
+          break;
+      }
+
+      if (released) {
+        throw new SQLException("Connection has already been returned to the pool");
+      }
+
+      try {
+        Object result = isCacheablePrepare(method)
+            ? physical.statementCache.prepare((String) args[0],
+                args.length > 1 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS)
+            : method.invoke(physical.connection, args);
+        if (result instanceof Statement statement) {
+          track(statement);
+        }
+        return result;
+      } catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+    }
+
+    /**
+     * Adds a statement, first dropping the ones the caller already closed so
+     * long borrows (batches, data generators) do not keep every statement
+     * they ever prepared. Pruning runs when the list doubles, so adding stays
+     * cheap on average.
+     */
+    private void track(Statement statement) throws SQLException {
+      if (statements.size() >= pruneAt) {
+        Iterator<Statement> iterator = statements.iterator();
+        while (iterator.hasNext()) {
+          if (iterator.next().isClosed()) {
+            iterator.remove();
+          }
+        }
+        pruneAt = Math.max(MIN_PRUNE_SIZE, statements.size() * 2);
+      }
+      statements.add(statement);
+    }
+  }
+}
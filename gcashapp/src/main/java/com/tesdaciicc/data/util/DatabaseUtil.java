@@ -14,6 +14,12 @@ import java.util.stream.Collectors;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import com.tesdaciicc.data.cache.BalanceCache;
+import com.tesdaciicc.data.cache.DailyTransferCounters;
+import com.tesdaciicc.data.cache.SessionActivity;
+import com.tesdaciicc.data.cache.SessionStore;
+import com.tesdaciicc.data.cache.UserCache;
+import com.tesdaciicc.data.cache.UserIdCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,6 +46,7 @@ public class DatabaseUtil {
             // Execute in strict order
             if (!executeTableCreation()) return false;
             if (!executeIndexCreation()) return false;
+            if (!executeMigrations()) return false;
             if (!executeDataInsertion()) return false;
 
             logger.info("Database initialized successfully");
@@ -66,6 +73,59 @@ public class DatabaseUtil {
         return runSqlFromResource(Config.INDEX_SQL_FILE);
     }
 
+    /**
+     * Applies the migrations in Config.MIGRATION_SQL_FILES that this database has
+     * not seen yet. PRAGMA user_version records how many have run; each migration
+     * and its version bump commit together, so a failed migration is retried on
+     * the next start.
+     */
+    private static boolean executeMigrations() {
+        int currentVersion = getSchemaVersion();
+        if (currentVersion < 0) {
+            return false;
+        }
+
+        List<String> migrations = Config.MIGRATION_SQL_FILES;
+        if (currentVersion > migrations.size()) {
+            logger.warn("Database schema version {} is newer than this application ({})",
+                       currentVersion, migrations.size());
+            return true;
+        }
+
+        for (int version = currentVersion + 1; version <= migrations.size(); version++) {
+            String resourcePath = migrations.get(version - 1);
+            logger.info("Applying migration {}: {}", version, resourcePath);
+
+            String sql = readSqlResource(resourcePath);
+            if (sql == null) {
+                return false;
+            }
+            if (!executeMultipleStatements(sql + "\nPRAGMA user_version = " + version + ";")) {
+                logger.error("Migration {} failed: {}", version, resourcePath);
+                return false;
+            }
+        }
+
+        logger.debug("Database schema is at version {}", migrations.size());
+        return true;
+    }
+
+    /**
+     * Returns the number of migrations applied to the database
+     * 
+     * @return schema version from PRAGMA user_version, or -1 if it cannot be read
+     */
+    public static int getSchemaVersion() {
+        try (Connection connection = ConnectionFactory.getReadConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            logger.error("Failed to read schema version", e);
+            return -1;
+        }
+    }
+
     private static boolean executeDataInsertion() {
         logger.debug("Inserting initial data");
         
@@ -86,7 +146,7 @@ public class DatabaseUtil {
         }
         
         // Check if data already exists
-        try (Connection conn = ConnectionFactory.getConnection();
+        try (Connection conn = ConnectionFactory.getReadConnection();
              Statement stmt = conn.createStatement()) {
             
             ResultSet rsUsers = stmt.executeQuery("SELECT COUNT(*) FROM users");
@@ -123,7 +183,7 @@ public class DatabaseUtil {
         
         if (sqlFileResult) {
             // Verify data was actually inserted
-            try (Connection conn = ConnectionFactory.getConnection();
+            try (Connection conn = ConnectionFactory.getReadConnection();
                  Statement stmt = conn.createStatement()) {
                 
                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM users");
@@ -205,15 +265,16 @@ public class DatabaseUtil {
             String balanceSql = "INSERT INTO balance (userId, balanceAmount) VALUES (?, ?)";
             try (PreparedStatement balanceStmt = conn.prepareStatement(balanceSql)) {
                 
+                // Amounts in centavos
                 Object[][] balances = {
-                    {1, 15000.50}, {2, 8750.25}, {3, 25000.00}, {4, 500.75}, {5, 12345.60},
-                    {6, 0.00}, {7, 99999.99}, {8, 3250.40}, {9, 7800.80}, {10, 18500.30}
+                    {1, 1500050L}, {2, 875025L}, {3, 2500000L}, {4, 50075L}, {5, 1234560L},
+                    {6, 0L}, {7, 9999999L}, {8, 325040L}, {9, 780080L}, {10, 1850030L}
                 };
                 
                 int balanceCount = 0;
                 for (Object[] balance : balances) {
                     balanceStmt.setInt(1, (Integer) balance[0]);
-                    balanceStmt.setDouble(2, (Double) balance[1]);
+                    balanceStmt.setLong(2, (Long) balance[1]);
                     int result = balanceStmt.executeUpdate();
                     if (result > 0) balanceCount++;
                 }
@@ -222,6 +283,8 @@ public class DatabaseUtil {
             }
             
             conn.commit();
+            BalanceCache.getInstance().clear();
+            DailyTransferCounters.getInstance().reset();
             logger.info("Test data insertion completed successfully");
             return true;
             
@@ -232,7 +295,7 @@ public class DatabaseUtil {
     }
 
     public static void verifyInitialization() throws SQLException {
-        try (Connection conn = ConnectionFactory.getConnection()) {
+        try (Connection conn = ConnectionFactory.getReadConnection()) {
             // Verify tables
             String[] requiredTables = {"users", "balance", "transactions"};
             for (String table : requiredTables) {
@@ -249,7 +312,10 @@ public class DatabaseUtil {
                 "idx_balance_userId",
                 "idx_transactions_userId",
                 "idx_transactions_accountNumber",
-                "idx_transactions_date"
+                "idx_transactions_date",
+                "idx_transactions_userId_date",
+                "idx_transactions_from_date",
+                "idx_transactions_to_date"
             };
             
             try (Statement stmt = conn.createStatement();
@@ -274,7 +340,7 @@ public class DatabaseUtil {
      * If db.url points to ./database/gcashapp.db, make sure ./database exists
      */
     private static void ensureDatabaseFolderExists() {
-        String url = Config.DATABASE_URL;
+        String url = Config.getDbUrl();
         if (url == null) {
             logger.warn("Database URL is null");
             return;
@@ -309,21 +375,30 @@ public class DatabaseUtil {
     public static boolean runSqlFromResource(String resourcePath) {
         logger.debug("Running SQL from resource: {}", resourcePath);
 
+        String sql = readSqlResource(resourcePath);
+        return sql != null && executeMultipleStatements(sql);
+    }
+
+    /**
+     * Reads a SQL file from resources (classpath)
+     * 
+     * @param resourcePath Path to SQL resource file
+     * @return file contents, or null if it cannot be read
+     */
+    private static String readSqlResource(String resourcePath) {
         try (InputStream in = DatabaseUtil.class.getResourceAsStream(resourcePath)) {
             if (in == null) {
                 logger.error("SQL resource not found: {}", resourcePath);
-                return false;
+                return null;
             }
 
-            String sql = new BufferedReader(new InputStreamReader(in))
+            return new BufferedReader(new InputStreamReader(in))
                 .lines()
                 .collect(Collectors.joining("\n"));
 
-            return executeMultipleStatements(sql);
-
         } catch (Exception e) {
-            logger.error("Failed to run SQL resource: {}", resourcePath, e);
-            return false;
+            logger.error("Failed to read SQL resource: {}", resourcePath, e);
+            return null;
         }
     }
 
@@ -339,7 +414,7 @@ public class DatabaseUtil {
         logger.debug("Executing cleaned SQL content (length: {})", cleanedSql.length());
         
         // Split by semicolon more carefully
-        String[] statements = cleanedSql.split(";\\s*(?=\\n|$)");
+        String[] statements = splitStatements(cleanedSql);
         
         try (Connection connection = ConnectionFactory.getConnection()) {
             connection.setAutoCommit(false);
@@ -376,6 +451,12 @@ public class DatabaseUtil {
                 }
                 
                 connection.commit();
+                // Scripts write balances and transfers behind the DAOs' back
+                BalanceCache.getInstance().clear();
+                DailyTransferCounters.getInstance().reset();
+                SessionStore.getInstance().clear();
+                UserIdCache.getInstance().clear();
+                UserCache.getInstance().clear();
                 logger.info("Successfully executed {} SQL statements", executedCount);
                 return executedCount > 0;
                 
@@ -386,6 +467,33 @@ public class DatabaseUtil {
         }
     }
 
+    /**
+     * Splits a script on semicolons at the end of a line. The statements inside a
+     * CREATE TRIGGER ... BEGIN ... END body are kept together with the trigger.
+     */
+    private static String[] splitStatements(String sql) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder trigger = null;
+        
+        for (String part : sql.split(";\\s*(?=\\n|$)")) {
+            if (trigger == null && !part.trim().toUpperCase().startsWith("CREATE TRIGGER")) {
+                statements.add(part);
+                continue;
+            }
+            
+            trigger = trigger == null ? new StringBuilder(part) : trigger.append(";\n").append(part);
+            if (part.trim().toUpperCase().endsWith("END")) {
+                statements.add(trigger.toString());
+                trigger = null;
+            }
+        }
+        if (trigger != null) {
+            statements.add(trigger.toString());
+        }
+        
+        return statements.toArray(new String[0]);
+    }
+
     /**
      * Clean SQL content by removing comments and empty lines
      */
@@ -415,7 +523,7 @@ public class DatabaseUtil {
      * @return true if database is ready
      */
     public static boolean isDatabaseReady() {
-        try (Connection connection = ConnectionFactory.getConnection()) {
+        try (Connection connection = ConnectionFactory.getReadConnection()) {
             connection.createStatement().executeQuery("SELECT COUNT(*) FROM users").close();
             connection.createStatement().executeQuery("SELECT COUNT(*) FROM balance").close();
             connection.createStatement().executeQuery("SELECT COUNT(*) FROM transactions").close();
@@ -436,7 +544,7 @@ public class DatabaseUtil {
     public static boolean tableExists(String tableName) {
         String sql = "SELECT 1 FROM sqlite_master WHERE type='table' AND name=?";
         
-        try (Connection connection = ConnectionFactory.getConnection();
+        try (Connection connection = ConnectionFactory.getReadConnection();
              PreparedStatement statement = connection.prepareStatement(sql)) {
             
             statement.setString(1, tableName.toLowerCase());
@@ -453,7 +561,7 @@ public class DatabaseUtil {
      * Verify tables before creating indexes
      */
     public static void verifyTablesExist() throws SQLException {
-        try (Connection conn = ConnectionFactory.getConnection()) {
+        try (Connection conn = ConnectionFactory.getReadConnection()) {
             String[] requiredTables = {"users", "balance", "transactions"};
 
             for (String table : requiredTables) {
@@ -475,10 +583,19 @@ public class DatabaseUtil {
         try (Connection connection = ConnectionFactory.getConnection();
              Statement statement = connection.createStatement()) {
             
+            statement.execute("DROP TABLE IF EXISTS sessions");
+            statement.execute("DROP TABLE IF EXISTS user_transaction_stats");
             statement.execute("DROP TABLE IF EXISTS transactions");
             statement.execute("DROP TABLE IF EXISTS balance");
             statement.execute("DROP TABLE IF EXISTS users");
-
+            // Migrations have to run again on the recreated tables
+            statement.execute("PRAGMA user_version = 0");
+            BalanceCache.getInstance().clear();
+            DailyTransferCounters.getInstance().reset();
+            SessionStore.getInstance().clear();
+            SessionActivity.getInstance().clear();
+            UserIdCache.getInstance().clear();
+            UserCache.getInstance().clear();
 
             logger.info("All tables dropped successfully");
             return true;
@@ -0,0 +1,167 @@
+package com.tesdaciicc.data.util;
+
+import com.tesdaciicc.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Runs a query and returns its rows as a lazy {@link Stream}, mapping one row
+ * at a time so large results are never held in memory as a List.
+ *
+ * The stream owns the connection, statement and result set and releases them
+ * when the last row has been read or when the stream is closed, whichever
+ * comes first. Callers that may stop early (findFirst, limit, an exception)
+ * must close the stream, normally with try-with-resources:
+ *
+ * <pre>
+ * try (Stream&lt;Transactions&gt; rows = dao.streamUserAll(userId)) {
+ *   rows.forEach(...);
+ * }
+ * </pre>
+ *
+ * The pooled read connection stays borrowed for as long as the stream is open,
+ * so consume it promptly. The timer passed to {@link #query} covers that whole
+ * span, from borrowing the connection until it is released.
+ */
+public final class ResultSetStream {
+
+  private static final Logger logger = LoggerFactory.getLogger(ResultSetStream.class);
+
+  /**
+   * Sets the parameters of a prepared statement
+   */
+  @FunctionalInterface
+  public interface ParameterBinder {
+    void bind(PreparedStatement stmt) throws SQLException;
+  }
+
+  /**
+   * Maps the current row of a result set
+   */
+  @FunctionalInterface
+  public interface RowMapper<T> {
+    T map(ResultSet rs) throws SQLException;
+  }
+
+  private ResultSetStream() {
+  }
+
+  /**
+   * Borrows a read connection, runs the query and streams its rows. If anything
+   * fails before the stream is returned, the statement and connection are
+   * released before the exception is thrown.
+   *
+   * @param sql    SELECT statement
+   * @param binder Sets the statement parameters
+   * @param mapper Row mapper
+   * @param timer  Records the time until the stream releases its connection
+   * @return Lazy stream of mapped rows; close it when done
+   * @throws SQLException if the query cannot be executed
+   */
+  public static <T> Stream<T> query(String sql, ParameterBinder binder, RowMapper<T> mapper, Timer timer)
+      throws SQLException {
+    Timer.Context timing = timer.time();
+    Connection connection = null;
+    PreparedStatement statement = null;
+    ResultSet resultSet;
+    try {
+      connection = ConnectionFactory.getReadConnection();
+      statement = connection.prepareStatement(sql);
+      statement.setFetchSize(Config.STREAM_FETCH_SIZE);
+      binder.bind(statement);
+      resultSet = statement.executeQuery();
+    } catch (SQLException | RuntimeException e) {
+      closeQuietly(statement, connection);
+      timing.close();
+      throw e;
+    }
+
+    Rows<T> rows = new Rows<>(connection, statement, resultSet, mapper, timing);
+    return StreamSupport.stream(rows, false).onClose(rows::close);
+  }
+
+  private static void closeQuietly(PreparedStatement statement, Connection connection) {
+    try {
+      if (statement != null) {
+        statement.close();
+      }
+    } catch (SQLException e) {
+      logger.warn("Error closing streamed statement: {}", e.getMessage());
+    }
+    try {
+      if (connection != null) {
+        connection.close();
+      }
+    } catch (SQLException e) {
+      logger.warn("Error returning streamed connection: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Reads the cursor one row per tryAdvance() and closes it at the end
+   */
+  private static final class Rows<T> extends Spliterators.AbstractSpliterator<T> {
+    private final Connection connection;
+    private final PreparedStatement statement;
+    private final ResultSet resultSet;
+    private final RowMapper<T> mapper;
+    private final Timer.Context timing;
+    private boolean closed;
+
+    private Rows(Connection connection, PreparedStatement statement, ResultSet resultSet, RowMapper<T> mapper,
+        Timer.Context timing) {
+      super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+      this.connection = connection;
+      this.statement = statement;
+      this.resultSet = resultSet;
+      this.mapper = mapper;
+      this.timing = timing;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+      if (closed) {
+        return false;
+      }
+
+      try {
+        if (!resultSet.next()) {
+          close();
+          return false;
+        }
+        action.accept(mapper.map(resultSet));
+        return true;
+
+      } catch (SQLException e) {
+        close();
+        logger.error("Error reading streamed rows: {}", e.getMessage(), e);
+        throw new RuntimeException("Failed to read streamed rows", e);
+      }
+    }
+
+    private void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+
+      try {
+        resultSet.close();
+      } catch (SQLException e) {
+        logger.warn("Error closing streamed result set: {}", e.getMessage());
+      }
+      closeQuietly(statement, connection);
+      timing.close();
+    }
+  }
+}
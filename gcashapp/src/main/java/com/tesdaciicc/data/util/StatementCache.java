@@ -0,0 +1,250 @@
+package com.tesdaciicc.data.util;
+
+import com.tesdaciicc.metrics.Counter;
+import com.tesdaciicc.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bounded LRU of prepared statements for one physical connection, keyed by
+ * SQL text (and whether generated keys were requested).
+ *
+ * {@link #prepare(String, int)} hands out a proxy; closing it resets the
+ * statement (open result sets closed, parameters and batch cleared) and keeps
+ * it for the next caller instead of finalizing it, so hot queries are parsed
+ * once per connection. If the same SQL is asked for again while the cached
+ * statement is still open, the second caller gets a plain uncached statement.
+ * The fetch size is put back on return; statements whose max rows or other
+ * statement-level settings were changed are closed rather than reused. When
+ * the cache is full the least recently used statement is closed.
+ *
+ * A pooled connection is only used by one thread at a time, but the methods
+ * are synchronized anyway so a connection being destroyed by the housekeeper
+ * cannot race with a late close.
+ */
+final class StatementCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(StatementCache.class);
+
+  // Statement-level setters; a statement changed with one of these is not reused
+  private static final Set<String> STATEMENT_SETTINGS = Set.of("setFetchDirection",
+      "setMaxRows", "setLargeMaxRows", "setMaxFieldSize", "setQueryTimeout", "setEscapeProcessing",
+      "setCursorName", "setPoolable", "closeOnCompletion");
+
+  private static final Counter hits = MetricsRegistry.getInstance().counter("pool.statementCache.hit");
+  private static final Counter misses = MetricsRegistry.getInstance().counter("pool.statementCache.miss");
+
+  private final Connection connection;
+  private final int capacity;
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private boolean closed;
+
+  StatementCache(Connection connection, int capacity) {
+    this.connection = connection;
+    this.capacity = capacity;
+  }
+
+  /**
+   * @param sql               SQL text
+   * @param autoGeneratedKeys {@link Statement#RETURN_GENERATED_KEYS} or
+   *                          {@link Statement#NO_GENERATED_KEYS}
+   * @return Statement whose close() returns it to the cache
+   */
+  synchronized PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+    Key key = new Key(sql, autoGeneratedKeys);
+    if (closed || capacity <= 0) {
+      return open(key);
+    }
+
+    Entry entry = entries.get(key);
+    if (entry != null) {
+      if (entry.inUse) {
+        // Same query already open on this connection (e.g. a nested call); don't share it
+        misses.increment();
+        return open(key);
+      }
+      hits.increment();
+      return entry.checkOut();
+    }
+
+    misses.increment();
+    entry = new Entry(key, open(key));
+    entries.put(key, entry);
+    evictOverflow();
+    return entry.checkOut();
+  }
+
+  /**
+   * Close every cached statement; later prepare() calls are not cached
+   */
+  synchronized void closeAll() {
+    closed = true;
+    for (Entry entry : entries.values()) {
+      entry.evicted = true;
+      if (!entry.inUse) {
+        closeQuietly(entry.statement);
+      }
+    }
+    entries.clear();
+  }
+
+  synchronized int size() {
+    return entries.size();
+  }
+
+  private PreparedStatement open(Key key) throws SQLException {
+    return key.autoGeneratedKeys() == Statement.NO_GENERATED_KEYS
+        ? connection.prepareStatement(key.sql())
+        : connection.prepareStatement(key.sql(), key.autoGeneratedKeys());
+  }
+
+  private void evictOverflow() {
+    Iterator<Entry> iterator = entries.values().iterator();
+    while (entries.size() > capacity && iterator.hasNext()) {
+      Entry eldest = iterator.next();
+      iterator.remove();
+      eldest.evicted = true;
+      if (!eldest.inUse) {
+        closeQuietly(eldest.statement);
+      }
+    }
+  }
+
+  private synchronized void checkIn(Entry entry, boolean reusable) {
+    entry.inUse = false;
+    if (!reusable && !entry.evicted) {
+      entries.remove(entry.key);
+      entry.evicted = true;
+    }
+    if (entry.evicted) {
+      closeQuietly(entry.statement);
+    }
+  }
+
+  private static void closeQuietly(Statement statement) {
+    try {
+      statement.close();
+    } catch (SQLException e) {
+      logger.warn("Error closing cached statement: {}", e.getMessage());
+    }
+  }
+
+  private record Key(String sql, int autoGeneratedKeys) {
+  }
+
+  /**
+   * One cached statement, checked out to at most one caller at a time
+   */
+  private final class Entry {
+    private final Key key;
+    private final PreparedStatement statement;
+    private final int defaultFetchSize;
+    private boolean inUse;
+    private boolean evicted;
+
+    private Entry(Key key, PreparedStatement statement) throws SQLException {
+      this.key = key;
+      this.statement = statement;
+      this.defaultFetchSize = statement.getFetchSize();
+    }
+
+    private PreparedStatement checkOut() {
+      inUse = true;
+      return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+          new Class<?>[] { PreparedStatement.class }, new Handle(this));
+    }
+  }
+
+  /**
+   * A single checkout of a cached statement. Stays closed once returned.
+   */
+  private final class Handle implements InvocationHandler {
+    private final Entry entry;
+    private final List<ResultSet> resultSets = new ArrayList<>(1);
+    private boolean modified;
+    private boolean handleClosed;
+
+    private Handle(Entry entry) {
+      this.entry = entry;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "close":
+          if (!handleClosed) {
+            handleClosed = true;
+            checkIn(entry, reset());
+          }
+          return null;
+        case "isClosed":
+          return handleClosed || entry.statement.isClosed();
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "toString":
+          return "CachedPreparedStatement[" + entry.key.sql() + "]";
+        default:
+          break;
+      }
+
+      if (handleClosed) {
+        throw new SQLException("Statement has already been closed");
+      }
+      if (STATEMENT_SETTINGS.contains(method.getName())) {
+        modified = true;
+      }
+
+      try {
+        Object result = method.invoke(entry.statement, args);
+        if (result instanceof ResultSet resultSet) {
+          resultSets.add(resultSet);
+        }
+        return result;
+      } catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+    }
+
+    /**
+     * @return true if the statement is back in its initial state and can be reused
+     */
+    private boolean reset() {
+      try {
+        for (ResultSet resultSet : resultSets) {
+          if (!resultSet.isClosed()) {
+            resultSet.close();
+          }
+        }
+        if (modified || entry.statement.isClosed()) {
+          return false;
+        }
+        if (entry.statement.getFetchSize() != entry.defaultFetchSize) {
+          entry.statement.setFetchSize(entry.defaultFetchSize);
+        }
+        entry.statement.clearParameters();
+        entry.statement.clearBatch();
+        return true;
+      } catch (SQLException e) {
+        logger.warn("Could not reset cached statement: {}", e.getMessage());
+        return false;
+      }
+    }
+  }
+}
@@ -0,0 +1,197 @@
+package com.tesdaciicc.data.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a unit of work on the writer connection as one database transaction.
+ *
+ * The writer is bound to the calling thread for the duration of the callback,
+ * so every DAO call made from inside it (through
+ * {@link ConnectionFactory#getWriteConnection()} or
+ * {@link ConnectionFactory#getReadConnection()}) uses the same connection and
+ * lands in the same commit. Calling {@link #execute(TransactionCallback)} again
+ * from inside a callback runs the inner work under a savepoint: if it fails,
+ * only the inner work is undone and the outer transaction carries on.
+ * {@link #afterCommit(Runnable)} and {@link #onRollback(Runnable)} let callers
+ * keep in-memory state in step with what was actually committed.
+ */
+public final class TransactionTemplate {
+  private static final Logger logger = LoggerFactory.getLogger(TransactionTemplate.class);
+
+  private static final ThreadLocal<TransactionContext> CONTEXT = new ThreadLocal<>();
+
+  /**
+   * Work to run inside a transaction.
+   */
+  @FunctionalInterface
+  public interface TransactionCallback<T> {
+    T doInTransaction(Connection connection) throws SQLException;
+  }
+
+  private TransactionTemplate() {
+  }
+
+  /**
+   * Runs the callback in a transaction and commits it. Any exception thrown by
+   * the callback rolls the transaction (or, when nested, the savepoint) back
+   * and is rethrown to the caller.
+   *
+   * @param callback work to run
+   * @return whatever the callback returns
+   * @throws SQLException if the callback or the commit fails
+   */
+  public static <T> T execute(TransactionCallback<T> callback) throws SQLException {
+    TransactionContext context = CONTEXT.get();
+    if (context != null) {
+      return executeNested(context, callback);
+    }
+
+    try (Connection connection = ConnectionFactory.getWriteConnection()) {
+      if (!connection.getAutoCommit()) {
+        // The thread already opened a transaction by hand; join it and leave
+        // commit and rollback to whoever started it
+        return callback.doInTransaction(connection);
+      }
+
+      context = new TransactionContext(connection);
+      CONTEXT.set(context);
+      T result;
+      try {
+        connection.setAutoCommit(false);
+        result = callback.doInTransaction(connection);
+        connection.commit();
+      } catch (SQLException | RuntimeException | Error e) {
+        rollbackQuietly(connection);
+        context.runOnRollback(0);
+        throw e;
+      } finally {
+        CONTEXT.remove();
+        restoreAutoCommit(connection);
+      }
+
+      // Run while the writer is still held so no other write can slip in
+      // between the commit and the callbacks that publish it
+      context.runAfterCommit();
+      return result;
+    }
+  }
+
+  /**
+   * Registers an action to run once the current transaction has committed. It
+   * is dropped if the transaction, or the savepoint it was registered under,
+   * rolls back. Outside a transaction the action runs straight away.
+   *
+   * @param action action to run after commit
+   */
+  public static void afterCommit(Runnable action) {
+    TransactionContext context = CONTEXT.get();
+    if (context == null) {
+      action.run();
+    } else {
+      context.afterCommit.add(action);
+    }
+  }
+
+  /**
+   * Registers an action that undoes in-memory bookkeeping if the current
+   * transaction, or the savepoint it was registered under, rolls back.
+   * Outside a transaction there is nothing to roll back and the action is
+   * ignored.
+   *
+   * @param action action to run on rollback
+   */
+  public static void onRollback(Runnable action) {
+    TransactionContext context = CONTEXT.get();
+    if (context != null) {
+      context.onRollback.add(action);
+    }
+  }
+
+  /**
+   * @return true if the calling thread is inside {@link #execute(TransactionCallback)}
+   */
+  public static boolean isActive() {
+    return CONTEXT.get() != null;
+  }
+
+  private static <T> T executeNested(TransactionContext context, TransactionCallback<T> callback)
+      throws SQLException {
+    Connection connection = context.connection;
+    int pendingActions = context.afterCommit.size();
+    int pendingUndos = context.onRollback.size();
+    Savepoint savepoint = connection.setSavepoint();
+    try {
+      T result = callback.doInTransaction(connection);
+      connection.releaseSavepoint(savepoint);
+      return result;
+    } catch (SQLException | RuntimeException | Error e) {
+      try {
+        // ROLLBACK TO leaves the savepoint open in SQLite, so release it too
+        connection.rollback(savepoint);
+        connection.releaseSavepoint(savepoint);
+      } catch (SQLException rollbackEx) {
+        logger.error("Error rolling back to savepoint: {}", rollbackEx.getMessage(), rollbackEx);
+      }
+      context.afterCommit.subList(pendingActions, context.afterCommit.size()).clear();
+      context.runOnRollback(pendingUndos);
+      throw e;
+    }
+  }
+
+  private static void rollbackQuietly(Connection connection) {
+    try {
+      connection.rollback();
+    } catch (SQLException e) {
+      logger.error("Error rolling back transaction: {}", e.getMessage(), e);
+    }
+  }
+
+  private static void restoreAutoCommit(Connection connection) {
+    try {
+      connection.setAutoCommit(true);
+    } catch (SQLException e) {
+      logger.error("Error restoring auto-commit: {}", e.getMessage(), e);
+    }
+  }
+
+  private static final class TransactionContext {
+    private final Connection connection;
+    private final List<Runnable> afterCommit = new ArrayList<>();
+    private final List<Runnable> onRollback = new ArrayList<>();
+
+    private TransactionContext(Connection connection) {
+      this.connection = connection;
+    }
+
+    /**
+     * Runs, newest first, and drops the rollback actions registered from the given position on
+     */
+    private void runOnRollback(int from) {
+      for (int i = onRollback.size() - 1; i >= from; i--) {
+        try {
+          onRollback.get(i).run();
+        } catch (RuntimeException e) {
+          logger.error("Rollback action failed: {}", e.getMessage(), e);
+        }
+      }
+      onRollback.subList(from, onRollback.size()).clear();
+    }
+
+    private void runAfterCommit() {
+      for (Runnable action : afterCommit) {
+        try {
+          action.run();
+        } catch (RuntimeException e) {
+          logger.error("After-commit action failed: {}", e.getMessage(), e);
+        }
+      }
+    }
+  }
+}
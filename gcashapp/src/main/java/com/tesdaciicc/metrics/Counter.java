@@ -0,0 +1,32 @@
+package com.tesdaciicc.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic count of events
+ */
+public final class Counter {
+
+  private final String name;
+  private final LongAdder count = new LongAdder();
+
+  Counter(String name) {
+    this.name = name;
+  }
+
+  public void increment() {
+    count.increment();
+  }
+
+  public void increment(long amount) {
+    count.add(amount);
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public String getName() {
+    return name;
+  }
+}
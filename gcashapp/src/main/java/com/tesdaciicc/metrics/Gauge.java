@@ -0,0 +1,25 @@
+package com.tesdaciicc.metrics;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Current value read from its owner each time it is reported
+ */
+public final class Gauge {
+
+  private final String name;
+  private final DoubleSupplier value;
+
+  Gauge(String name, DoubleSupplier value) {
+    this.name = name;
+    this.value = value;
+  }
+
+  public double getValue() {
+    return value.getAsDouble();
+  }
+
+  public String getName() {
+    return name;
+  }
+}
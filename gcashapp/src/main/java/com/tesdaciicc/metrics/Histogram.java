@@ -0,0 +1,116 @@
+package com.tesdaciicc.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative long values with bounded relative error,
+ * laid out like HdrHistogram: values below 128 get a bucket each, and every
+ * power of two above that is split into 64 linear sub-buckets, so any
+ * recorded value is reported within about 1.6% of its true value. The whole
+ * long range fits in a fixed array of counts, so recording never allocates.
+ */
+public final class Histogram {
+
+  private static final int SUB_BUCKET_BITS = 6;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS; // per power of two
+  private static final int LINEAR_LIMIT = SUB_BUCKETS * 2; // values below this are exact
+  private static final int BUCKET_COUNT = LINEAR_LIMIT + (63 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * @param value Value to record; negative values are recorded as zero
+   */
+  public void record(long value) {
+    long v = Math.max(0, value);
+    counts.incrementAndGet(indexFor(v));
+    count.increment();
+    sum.add(v);
+    max.accumulate(v);
+  }
+
+  public Snapshot snapshot() {
+    long[] copy = new long[BUCKET_COUNT];
+    long total = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      copy[i] = counts.get(i);
+      total += copy[i];
+    }
+    return new Snapshot(copy, total, sum.sum(), max.get());
+  }
+
+  static int indexFor(long value) {
+    if (value < LINEAR_LIMIT) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    int top = (int) (value >>> shift); // in [SUB_BUCKETS, 2 * SUB_BUCKETS)
+    return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (top - SUB_BUCKETS);
+  }
+
+  /**
+   * @return Largest value that falls into the given bucket
+   */
+  static long highestValueAt(int index) {
+    if (index < LINEAR_LIMIT) {
+      return index;
+    }
+    int shift = (index - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+    long top = (index - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+    return ((top + 1) << shift) - 1;
+  }
+
+  /**
+   * Point-in-time copy of a histogram. Counts recorded while the copy was
+   * being taken may or may not be included.
+   */
+  public static final class Snapshot {
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    private Snapshot(long[] counts, long count, long sum, long max) {
+      this.counts = counts;
+      this.count = count;
+      this.sum = sum;
+      this.max = max;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public long getMax() {
+      return max;
+    }
+
+    public double getMean() {
+      return count == 0 ? 0.0 : (double) sum / count;
+    }
+
+    /**
+     * @param percentile Percentile between 0 and 100, e.g. 99.9
+     * @return Value that the given share of recorded values is at or below
+     */
+    public long getValueAtPercentile(double percentile) {
+      if (count == 0) {
+        return 0;
+      }
+      long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= target) {
+          return Math.min(highestValueAt(i), max);
+        }
+      }
+      return max;
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package com.tesdaciicc.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Process-wide set of named counters, timers and gauges.
+ *
+ * Metrics are created on first use and live for the rest of the process, so
+ * callers simply ask for them by name every time. Names are dotted paths such
+ * as "dao.balance.findByUserId" or "service.cashTransfer.failure".
+ */
+public final class MetricsRegistry {
+
+  private static final MetricsRegistry instance = new MetricsRegistry();
+
+  private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+  private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+  private final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+
+  private MetricsRegistry() {
+  }
+
+  public static MetricsRegistry getInstance() {
+    return instance;
+  }
+
+  public Counter counter(String name) {
+    Counter counter = counters.get(name);
+    return counter != null ? counter : counters.computeIfAbsent(name, Counter::new);
+  }
+
+  public Timer timer(String name) {
+    Timer timer = timers.get(name);
+    return timer != null ? timer : timers.computeIfAbsent(name, Timer::new);
+  }
+
+  /**
+   * Register a gauge, replacing any earlier one with the same name
+   *
+   * @param name  Gauge name
+   * @param value Reads the current value; must be cheap and thread-safe
+   */
+  public Gauge gauge(String name, DoubleSupplier value) {
+    Gauge gauge = new Gauge(name, value);
+    gauges.put(name, gauge);
+    return gauge;
+  }
+
+  /**
+   * @return Every metric with its current value, one per line, sorted by name.
+   *         Timers show count, mean, p50, p99, p99.9 and max in milliseconds.
+   */
+  public String dump() {
+    StringBuilder out = new StringBuilder();
+    for (Map.Entry<String, Counter> entry : new ConcurrentSkipListMap<>(counters).entrySet()) {
+      out.append(String.format("counter %-45s count=%d%n", entry.getKey(), entry.getValue().getCount()));
+    }
+    for (Map.Entry<String, Gauge> entry : new ConcurrentSkipListMap<>(gauges).entrySet()) {
+      out.append(String.format("gauge   %-45s value=%s%n", entry.getKey(), formatGauge(entry.getValue())));
+    }
+    for (Map.Entry<String, Timer> entry : new ConcurrentSkipListMap<>(timers).entrySet()) {
+      Histogram.Snapshot s = entry.getValue().snapshot();
+      if (s.getCount() == 0) {
+        continue;
+      }
+      out.append(String.format("timer   %-45s count=%d mean=%.3f p50=%.3f p99=%.3f p999=%.3f max=%.3f ms%n",
+          entry.getKey(), s.getCount(), s.getMean() / 1e6,
+          s.getValueAtPercentile(50) / 1e6, s.getValueAtPercentile(99) / 1e6,
+          s.getValueAtPercentile(99.9) / 1e6, s.getMax() / 1e6));
+    }
+    return out.toString();
+  }
+
+  private static String formatGauge(Gauge gauge) {
+    try {
+      return String.format("%.4f", gauge.getValue());
+    } catch (RuntimeException e) {
+      return "error: " + e.getMessage();
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package com.tesdaciicc.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends {@link MetricsRegistry#dump()} to a file on a fixed schedule, and
+ * once more when stopped. {@link #report()} writes a report immediately.
+ */
+public final class MetricsReporter {
+
+  private static final Logger logger = LoggerFactory.getLogger(MetricsReporter.class);
+
+  private final MetricsRegistry registry;
+  private final Path file;
+  private ScheduledExecutorService scheduler;
+
+  public MetricsReporter(MetricsRegistry registry, Path file) {
+    this.registry = registry;
+    this.file = file;
+  }
+
+  /**
+   * Start reporting every interval on a daemon thread
+   */
+  public synchronized void start(long interval, TimeUnit unit) {
+    if (scheduler != null) {
+      return;
+    }
+    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "metrics-reporter");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.scheduleAtFixedRate(this::report, interval, interval, unit);
+    logger.info("Reporting metrics to {} every {} {}", file, interval, unit);
+  }
+
+  /**
+   * Stop the schedule and write a final report
+   */
+  public synchronized void stop() {
+    if (scheduler == null) {
+      return;
+    }
+    scheduler.shutdownNow();
+    scheduler = null;
+    report();
+  }
+
+  /**
+   * Append the current metrics to the file now
+   */
+  public void report() {
+    String report = "=== Metrics at " + LocalDateTime.now() + " ===" + System.lineSeparator()
+        + registry.dump() + System.lineSeparator();
+    try {
+      Path parent = file.toAbsolutePath().getParent();
+      if (parent != null) {
+        Files.createDirectories(parent);
+      }
+      Files.writeString(file, report, StandardCharsets.UTF_8,
+          StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    } catch (IOException e) {
+      logger.error("Error writing metrics report to {}: {}", file, e.getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package com.tesdaciicc.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Latency distribution of an operation, recorded in nanoseconds
+ */
+public final class Timer {
+
+  private final String name;
+  private final Histogram histogram = new Histogram();
+
+  Timer(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Time a block of code:
+   * {@code try (Timer.Context timing = timer.time()) { ... }}
+   *
+   * @return Context that records the elapsed time when closed
+   */
+  public Context time() {
+    return new Context(this, System.nanoTime());
+  }
+
+  /**
+   * Run the work and record how long it took, whether or not it throws
+   */
+  public <T> T record(Supplier<T> work) {
+    long start = System.nanoTime();
+    try {
+      return work.get();
+    } finally {
+      record(System.nanoTime() - start);
+    }
+  }
+
+  public void record(long nanos) {
+    histogram.record(nanos);
+  }
+
+  public void record(long amount, TimeUnit unit) {
+    histogram.record(unit.toNanos(amount));
+  }
+
+  public Histogram.Snapshot snapshot() {
+    return histogram.snapshot();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * One timing in progress
+   */
+  public static final class Context implements AutoCloseable {
+    private final Timer timer;
+    private final long start;
+
+    private Context(Timer timer, long start) {
+      this.timer = timer;
+      this.start = start;
+    }
+
+    @Override
+    public void close() {
+      timer.record(System.nanoTime() - start);
+    }
+  }
+}
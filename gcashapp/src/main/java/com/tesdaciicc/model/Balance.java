@@ -8,7 +8,7 @@ public class Balance {
 
   private int id;
   private int userId;
-  private BigDecimal amount; 
+  private Money amount;
   private String createdDate;
   private String updatedDate;
 
@@ -17,13 +17,13 @@ public class Balance {
   }
 
   // Constructor for creating new balance (without ID)
-  public Balance(BigDecimal amount, int userId) {
+  public Balance(Money amount, int userId) {
     setAmount(amount);
     setUserId(userId);
   }
 
   // Full constructor (for reading from DB)
-  public Balance(int id, int userId, BigDecimal amount, String createdDate, String updatedDate) {
+  public Balance(int id, int userId, Money amount, String createdDate, String updatedDate) {
     setId(id);
     setUserId(userId);
     setAmount(amount);
@@ -31,7 +31,7 @@ public class Balance {
     setUpdatedDate(updatedDate);
   }
 
-  public Balance(int userId, BigDecimal amount) {
+  public Balance(int userId, Money amount) {
     setUserId(userId);
     setAmount(amount);
     setCreatedDate(createdDate);
@@ -47,17 +47,21 @@ public class Balance {
     this.id = id;
   }
 
-  public BigDecimal getAmount() {
+  public Money getAmount() {
     return amount;
   }
 
+  public void setAmount(Money amount) {
+    this.amount = amount != null ? amount : Money.ZERO;
+  }
+
   public void setAmount(BigDecimal amount) {
-    this.amount = amount != null ? amount : BigDecimal.ZERO;
+    this.amount = Money.of(amount);
   }
 
   // Convenience method for double values
   public void setAmount(double amount) {
-    this.amount = BigDecimal.valueOf(amount);
+    this.amount = Money.of(amount);
   }
 
   public int getUserId() {
@@ -86,20 +90,24 @@ public class Balance {
 
   // Utility method to get formatted amount
   public String getFormattedAmount() {
-    return "₱" + (amount != null ? String.format("%,.2f", amount) : "0.00");
+    return amount != null ? amount.format() : Money.ZERO.format();
   }
 
   // Utility method to check if amount is sufficient for a transaction
-  public boolean isSufficientFor(BigDecimal transactionAmount) {
+  public boolean isSufficientFor(Money transactionAmount) {
     if (amount == null || transactionAmount == null) {
       return false;
     }
     return amount.compareTo(transactionAmount) >= 0;
   }
 
+  public boolean isSufficientFor(BigDecimal transactionAmount) {
+    return transactionAmount != null && isSufficientFor(Money.of(transactionAmount));
+  }
+
   // Convenience method for double comparison
   public boolean isSufficientFor(double transactionAmount) {
-    return isSufficientFor(BigDecimal.valueOf(transactionAmount));
+    return isSufficientFor(Money.of(transactionAmount));
   }
 
   // Utility methods
@@ -109,9 +117,9 @@ public class Balance {
      * @param additionalAmount Amount to add
      * @return New balance amount
      */
-    public BigDecimal add(BigDecimal additionalAmount) {
+    public Money add(Money additionalAmount) {
         if (additionalAmount != null) {
-            this.amount = this.amount.add(additionalAmount);
+            this.amount = this.amount.plus(additionalAmount);
         }
         return this.amount;
     }
@@ -121,9 +129,9 @@ public class Balance {
      * @param deductionAmount Amount to subtract
      * @return New balance amount
      */
-    public BigDecimal subtract(BigDecimal deductionAmount) {
+    public Money subtract(Money deductionAmount) {
         if (deductionAmount != null) {
-            this.amount = this.amount.subtract(deductionAmount);
+            this.amount = this.amount.minus(deductionAmount);
         }
         return this.amount;
     }
@@ -134,7 +142,7 @@ public class Balance {
      */
     public boolean isZero() {
         //return amount.compareTo(BigDecimal.ZERO) == 0;
-        return amount != null && amount.compareTo(BigDecimal.ZERO) == 0;
+        return amount != null && amount.isZero();
     }
     
     /**
@@ -143,7 +151,7 @@ public class Balance {
      */
     public boolean isNegative() {
         //return amount.compareTo(BigDecimal.ZERO) < 0;
-        return amount != null && amount.compareTo(BigDecimal.ZERO) < 0;
+        return amount != null && amount.isNegative();
     }
     
     /**
@@ -152,7 +160,7 @@ public class Balance {
      */
     public boolean isPositive() {
         //return amount.compareTo(BigDecimal.ZERO) > 0;
-        return amount != null && amount.compareTo(BigDecimal.ZERO) > 0;
+        return amount != null && amount.isPositive();
     }
 
   @Override
@@ -6,10 +6,11 @@ import java.time.LocalDateTime;
 public class CashIn {
 
   private int transactionId;
-  private BigDecimal transactionAmount;
+  private Money transactionAmount;
   private String name;
   private int userId;
-  private LocalDateTime transactionDate;
+  private long transactionDate; // epoch millis, 0 when not set
+  private LocalDateTime localTransactionDate;
   private String transferToAccountNo;
   private String transferFromAccountNo;
   private String accountNumber;
@@ -19,24 +20,24 @@ public class CashIn {
     }
 
     // Constructor for cash-in operations
-    public CashIn(BigDecimal transactionAmount, String name, int userId, String transferToAccountNo, String transferFromAccountNo, String accountNumber) {
+    public CashIn(Money transactionAmount, String name, int userId, String transferToAccountNo, String transferFromAccountNo, String accountNumber) {
         setTransactionAmount(transactionAmount);
         setName(name);
         setUserId(userId);
         setTransferToAccountNo(transferToAccountNo);
         setTransferFromAccountNo(transferFromAccountNo);
         setAccountNumber(accountNumber);
-        setTransactionDate(LocalDateTime.now());
+        setTransactionDateMillis(EpochMillis.now());
     }
 
 
     // Full constructor (for reading from DB)
-    public CashIn(int transactionId, BigDecimal transactionAmount, String name, int userId, LocalDateTime transactionDate, String transferToAccountNo, String transferFromAccountNo, String accountNumber) {
+    public CashIn(int transactionId, Money transactionAmount, String name, int userId, long transactionDate, String transferToAccountNo, String transferFromAccountNo, String accountNumber) {
         setTransactionId(transactionId);
         setTransactionAmount(transactionAmount);
         setName(name);
         setUserId(userId);
-        setTransactionDate(transactionDate);
+        setTransactionDateMillis(transactionDate);
         setTransferToAccountNo(transferToAccountNo);
         setTransferFromAccountNo(transferFromAccountNo);
         setAccountNumber(accountNumber);
@@ -51,12 +52,16 @@ public class CashIn {
         this.transactionId = transactionId;
     }
 
-    public BigDecimal getTransactionAmount() {
+    public Money getTransactionAmount() {
         return transactionAmount;
     }
 
+    public void setTransactionAmount(Money transactionAmount) {
+        this.transactionAmount = transactionAmount != null ? transactionAmount : Money.ZERO;
+    }
+
     public void setTransactionAmount(BigDecimal transactionAmount) {
-        this.transactionAmount = transactionAmount != null ? transactionAmount : BigDecimal.ZERO;
+        this.transactionAmount = Money.of(transactionAmount);
     }
 
     public String getName() {
@@ -75,12 +80,27 @@ public class CashIn {
         this.userId = userId;
     }
 
+    /**
+     * @return Transaction date in local time, converted from the stored epoch millis on first use
+     */
     public LocalDateTime getTransactionDate() {
-        return transactionDate;
+        if (localTransactionDate == null && transactionDate != 0) {
+            localTransactionDate = EpochMillis.toLocalDateTime(transactionDate);
+        }
+        return localTransactionDate;
     }
 
     public void setTransactionDate(LocalDateTime transactionDate) {
+        setTransactionDateMillis(transactionDate != null ? EpochMillis.of(transactionDate) : 0);
+    }
+
+    public long getTransactionDateMillis() {
+        return transactionDate;
+    }
+
+    public void setTransactionDateMillis(long transactionDate) {
         this.transactionDate = transactionDate;
+        this.localTransactionDate = null;
     }
 
     public String getTransferToAccountNo() {
@@ -114,7 +134,7 @@ public class CashIn {
                 ", transactionAmount=" + transactionAmount +
                 ", name='" + name + '\'' +
                 ", userId=" + userId +
-                ", transactionDate=" + transactionDate +
+                ", transactionDate=" + getTransactionDate() +
                 ", transferToAccountNo='" + transferToAccountNo + '\'' +
                 ", transferFromAccountNo='" + transferFromAccountNo + '\'' +
                 ", accountNumber='" + accountNumber + '\'' +
@@ -7,10 +7,11 @@ import java.util.Objects;
 public class CashTransfer {
 
     private int transactionId;
-    private BigDecimal transactionAmount;
+    private Money transactionAmount;
     private String transactionName;
     private int userId; // Sender's user ID
-    private LocalDateTime transactionDate;
+    private long transactionDate; // epoch millis, 0 when not set
+    private LocalDateTime localTransactionDate;
     private String transferToAccountNo; // Recipient's mobile number (11 digits)
     private String transferFromAccountNo; // Sender's mobile number (11 digits)
     private String accountNumber; // Sender's account number (same as transferFromAccountNo)
@@ -22,7 +23,7 @@ public class CashTransfer {
     }
     
     // Constructor for new cash transfer (without ID)
-    public CashTransfer(BigDecimal transactionAmount, String transactionName, int userId, 
+    public CashTransfer(Money transactionAmount, String transactionName, int userId, 
                        String transferToAccountNo, String transferFromAccountNo, String description) {
         setTransactionAmount(transactionAmount);
         setTransactionName(transactionName);
@@ -31,19 +32,19 @@ public class CashTransfer {
         setTransferFromAccountNo(transferFromAccountNo);
         setAccountNumber(transferFromAccountNo); // Same as sender's number
         setDescription(description);
-        setTransactionDate(LocalDateTime.now());
+        setTransactionDateMillis(EpochMillis.now());
         setStatus("PENDING");
     }
     
     // Full constructor (for reading from DB)
-    public CashTransfer(int transactionId, BigDecimal transactionAmount, String transactionName, 
-                       int userId, LocalDateTime transactionDate, String transferToAccountNo, 
+    public CashTransfer(int transactionId, Money transactionAmount, String transactionName, 
+                       int userId, long transactionDate, String transferToAccountNo, 
                        String transferFromAccountNo, String accountNumber, String status, String description) {
         setTransactionId(transactionId);
         setTransactionAmount(transactionAmount);
         setTransactionName(transactionName);
         setUserId(userId);
-        setTransactionDate(transactionDate);
+        setTransactionDateMillis(transactionDate);
         setTransferToAccountNo(transferToAccountNo);
         setTransferFromAccountNo(transferFromAccountNo);
         setAccountNumber(accountNumber);
@@ -60,17 +61,22 @@ public class CashTransfer {
         this.transactionId = transactionId;
     }
     
-    public BigDecimal getTransactionAmount() {
+    public Money getTransactionAmount() {
         return transactionAmount;
     }
     
+    public void setTransactionAmount(Money transactionAmount) {
+        this.transactionAmount = transactionAmount != null ? transactionAmount : Money.ZERO;
+    }
+    
+    
     public void setTransactionAmount(BigDecimal transactionAmount) {
-        this.transactionAmount = transactionAmount != null ? transactionAmount : BigDecimal.ZERO;
+        this.transactionAmount = Money.of(transactionAmount);
     }
     
     // Convenience method for double values
     public void setTransactionAmount(double transactionAmount) {
-        this.transactionAmount = BigDecimal.valueOf(transactionAmount);
+        this.transactionAmount = Money.of(transactionAmount);
     }
     
     public String getTransactionName() {
@@ -89,12 +95,27 @@ public class CashTransfer {
         this.userId = userId;
     }
     
+    /**
+     * @return Transaction date in local time, converted from the stored epoch millis on first use
+     */
     public LocalDateTime getTransactionDate() {
-        return transactionDate;
+        if (localTransactionDate == null && transactionDate != 0) {
+            localTransactionDate = EpochMillis.toLocalDateTime(transactionDate);
+        }
+        return localTransactionDate;
     }
     
     public void setTransactionDate(LocalDateTime transactionDate) {
-        this.transactionDate = transactionDate != null ? transactionDate : LocalDateTime.now();
+        setTransactionDateMillis(transactionDate != null ? EpochMillis.of(transactionDate) : EpochMillis.now());
+    }
+    
+    public long getTransactionDateMillis() {
+        return transactionDate;
+    }
+    
+    public void setTransactionDateMillis(long transactionDate) {
+        this.transactionDate = transactionDate;
+        this.localTransactionDate = null;
     }
     
     public String getTransferToAccountNo() {
@@ -153,7 +174,7 @@ public class CashTransfer {
      * @return true if amount is valid
      */
     public boolean isValidAmount() {
-        return transactionAmount != null && transactionAmount.compareTo(BigDecimal.ZERO) > 0;
+        return transactionAmount != null && transactionAmount.isPositive();
     }
     
     /**
@@ -180,7 +201,15 @@ public class CashTransfer {
      * @return Formatted amount string
      */
     public String getFormattedAmount() {
-        return "₱" + (transactionAmount != null ? String.format("%,.2f", transactionAmount) : "0.00");
+        return transactionAmount != null ? transactionAmount.format() : Money.ZERO.format();
+    }
+    
+    /**
+     * Get formatted transaction date
+     * @return Formatted date string
+     */
+    public String getFormattedDate() {
+        return transactionDate != 0 ? EpochMillis.format(transactionDate) : "";
     }
     
     /**
@@ -235,7 +264,7 @@ public class CashTransfer {
                 ", transactionAmount=" + transactionAmount +
                 ", transactionName='" + transactionName + '\'' +
                 ", userId=" + userId +
-                ", transactionDate=" + transactionDate +
+                ", transactionDate=" + getTransactionDate() +
                 ", transferToAccountNo='" + transferToAccountNo + '\'' +
                 ", transferFromAccountNo='" + transferFromAccountNo + '\'' +
                 ", accountNumber='" + accountNumber + '\'' +
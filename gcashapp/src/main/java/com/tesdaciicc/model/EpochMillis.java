@@ -0,0 +1,48 @@
+package com.tesdaciicc.model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Conversions between the epoch-millisecond timestamps the database stores and
+ * the local date-times shown to users. The DAOs only move longs around; these
+ * are called when a date is actually displayed or entered.
+ */
+public final class EpochMillis {
+
+    private static final DateTimeFormatter DISPLAY_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private EpochMillis() {
+    }
+
+    public static long now() {
+        return System.currentTimeMillis();
+    }
+
+    public static long of(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * @param day Local calendar day
+     * @return Epoch millis of local midnight at the start of the day
+     */
+    public static long startOfDay(LocalDate day) {
+        return day.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    public static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    /**
+     * @param epochMillis Timestamp in epoch millis
+     * @return Local date and time as yyyy-MM-dd HH:mm:ss
+     */
+    public static String format(long epochMillis) {
+        return DISPLAY_FORMAT.format(toLocalDateTime(epochMillis));
+    }
+}
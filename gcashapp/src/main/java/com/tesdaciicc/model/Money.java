@@ -0,0 +1,133 @@
+package com.tesdaciicc.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of pesos held as a whole number of centavos, the unit the database
+ * stores. Arithmetic and comparisons are plain long operations; BigDecimal is
+ * only used when converting user input or printing.
+ *
+ * Instances are immutable. Overflow throws ArithmeticException instead of
+ * wrapping around.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    private static final int CENTAVOS_PER_PESO = 100;
+
+    private final long centavos;
+
+    private Money(long centavos) {
+        this.centavos = centavos;
+    }
+
+    public static Money ofCentavos(long centavos) {
+        return centavos == 0 ? ZERO : new Money(centavos);
+    }
+
+    /**
+     * @param pesos Amount in pesos; rounded half-up to whole centavos, null means zero
+     * @return Money for the amount
+     * @throws ArithmeticException if the amount does not fit in a long of centavos
+     */
+    public static Money of(BigDecimal pesos) {
+        if (pesos == null) {
+            return ZERO;
+        }
+        return ofCentavos(pesos.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public static Money of(double pesos) {
+        return of(BigDecimal.valueOf(pesos));
+    }
+
+    public static Money ofPesos(long pesos) {
+        return ofCentavos(Math.multiplyExact(pesos, CENTAVOS_PER_PESO));
+    }
+
+    public long getCentavos() {
+        return centavos;
+    }
+
+    public Money plus(Money other) {
+        return other.centavos == 0 ? this : ofCentavos(Math.addExact(centavos, other.centavos));
+    }
+
+    public Money minus(Money other) {
+        return other.centavos == 0 ? this : ofCentavos(Math.subtractExact(centavos, other.centavos));
+    }
+
+    public boolean isZero() {
+        return centavos == 0;
+    }
+
+    public boolean isPositive() {
+        return centavos > 0;
+    }
+
+    public boolean isNegative() {
+        return centavos < 0;
+    }
+
+    public boolean isGreaterThan(Money other) {
+        return centavos > other.centavos;
+    }
+
+    public boolean isLessThan(Money other) {
+        return centavos < other.centavos;
+    }
+
+    /**
+     * @return The amount in pesos with a scale of 2
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    /**
+     * Same output as "₱" + String.format("%,.2f", amount), without going through BigDecimal
+     * @return Amount with peso sign and thousands separators, e.g. ₱1,234.50
+     */
+    public String format() {
+        StringBuilder sb = new StringBuilder(16).append('₱');
+        if (centavos < 0) {
+            sb.append('-');
+        }
+        long abs = Math.abs(centavos);
+        long pesos = abs / CENTAVOS_PER_PESO;
+        long cents = abs % CENTAVOS_PER_PESO;
+
+        String digits = Long.toString(pesos);
+        int firstGroup = digits.length() % 3 == 0 ? 3 : digits.length() % 3;
+        sb.append(digits, 0, firstGroup);
+        for (int i = firstGroup; i < digits.length(); i += 3) {
+            sb.append(',').append(digits, i, i + 3);
+        }
+        return sb.append('.').append(cents < 10 ? "0" : "").append(cents).toString();
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(centavos, other.centavos);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Money other && centavos == other.centavos);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(centavos);
+    }
+
+    /**
+     * @return Plain amount in pesos, e.g. 1234.50
+     */
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,42 @@
+package com.tesdaciicc.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of transaction history plus the token for the page after it
+ */
+public class TransactionPage {
+    
+    private final List<Transactions> transactions;
+    private final String nextCursor;
+    
+    public TransactionPage(List<Transactions> transactions, String nextCursor) {
+        this.transactions = transactions != null ? transactions : Collections.emptyList();
+        this.nextCursor = nextCursor;
+    }
+    
+    public List<Transactions> getTransactions() {
+        return transactions;
+    }
+    
+    /**
+     * Opaque continuation token; pass it back to get the next page
+     * @return Token for the next page, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+    
+    @Override
+    public String toString() {
+        return "TransactionPage{" +
+                "transactions=" + transactions.size() +
+                ", hasNext=" + hasNext() +
+                '}';
+    }
+}
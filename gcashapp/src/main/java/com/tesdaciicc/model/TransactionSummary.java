@@ -0,0 +1,73 @@
+package com.tesdaciicc.model;
+
+/**
+ * Aggregate totals over a set of transactions, computed by the database
+ * instead of from loaded Transactions objects
+ */
+public class TransactionSummary {
+
+    private final long count;
+    private final Money totalAmount;
+    private final Money maxAmount;
+    private final Money minAmount;
+    private final long transferCount;
+    private final long cashInCount;
+    private final long cashOutCount;
+
+    public TransactionSummary(long count, Money totalAmount, Money maxAmount, Money minAmount,
+                              long transferCount, long cashInCount, long cashOutCount) {
+        this.count = count;
+        this.totalAmount = totalAmount != null ? totalAmount : Money.ZERO;
+        this.maxAmount = maxAmount != null ? maxAmount : Money.ZERO;
+        this.minAmount = minAmount != null ? minAmount : Money.ZERO;
+        this.transferCount = transferCount;
+        this.cashInCount = cashInCount;
+        this.cashOutCount = cashOutCount;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Money getTotalAmount() {
+        return totalAmount;
+    }
+
+    public Money getMaxAmount() {
+        return maxAmount;
+    }
+
+    public Money getMinAmount() {
+        return minAmount;
+    }
+
+    public long getTransferCount() {
+        return transferCount;
+    }
+
+    public long getCashInCount() {
+        return cashInCount;
+    }
+
+    public long getCashOutCount() {
+        return cashOutCount;
+    }
+
+    /**
+     * @return Transactions that are neither transfer, cash-in nor cash-out
+     */
+    public long getOtherCount() {
+        return count - transferCount - cashInCount - cashOutCount;
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionSummary{" +
+                "count=" + count +
+                ", totalAmount=" + totalAmount +
+                ", transferCount=" + transferCount +
+                ", cashInCount=" + cashInCount +
+                ", cashOutCount=" + cashOutCount +
+                '}';
+    }
+}
@@ -10,10 +10,11 @@ import java.util.Objects;
 public class Transactions {
     
     private int transactionId;
-    private BigDecimal transactionAmount;
+    private Money transactionAmount;
     private String transactionName;
     private int userId;
-    private LocalDateTime transactionDate;
+    private long transactionDate; // epoch millis, 0 when not set
+    private LocalDateTime localTransactionDate;
     private String transferToAccountNo;
     private String transferFromAccountNo;
     private String accountNumber;
@@ -23,7 +24,7 @@ public class Transactions {
     }
     
     // Constructor without ID (for creating new transactions)
-    public Transactions(BigDecimal transactionAmount, String transactionName, int userId, 
+    public Transactions(Money transactionAmount, String transactionName, int userId, 
                        LocalDateTime transactionDate, String transferToAccountNo, 
                        String transferFromAccountNo, String accountNumber) {
         setTransactionAmount(transactionAmount);
@@ -36,14 +37,14 @@ public class Transactions {
     }
     
     // Full constructor (for reading from database)
-    public Transactions(int transactionId, BigDecimal transactionAmount, String transactionName, 
-                       int userId, LocalDateTime transactionDate, String transferToAccountNo, 
+    public Transactions(int transactionId, Money transactionAmount, String transactionName, 
+                       int userId, long transactionDate, String transferToAccountNo, 
                        String transferFromAccountNo, String accountNumber) {
         setTransactionId(transactionId);
         setTransactionAmount(transactionAmount);
         setTransactionName(transactionName);
         setUserId(userId);
-        setTransactionDate(transactionDate);
+        setTransactionDateMillis(transactionDate);
         setTransferToAccountNo(transferToAccountNo);
         setTransferFromAccountNo(transferFromAccountNo);
         setAccountNumber(accountNumber);
@@ -58,17 +59,22 @@ public class Transactions {
         this.transactionId = transactionId;
     }
     
-    public BigDecimal getTransactionAmount() {
+    public Money getTransactionAmount() {
         return transactionAmount;
     }
     
+    public void setTransactionAmount(Money transactionAmount) {
+        this.transactionAmount = transactionAmount != null ? transactionAmount : Money.ZERO;
+    }
+    
+    
     public void setTransactionAmount(BigDecimal transactionAmount) {
-        this.transactionAmount = transactionAmount != null ? transactionAmount : BigDecimal.ZERO;
+        this.transactionAmount = Money.of(transactionAmount);
     }
     
     // Convenience method for double values
     public void setTransactionAmount(double transactionAmount) {
-        this.transactionAmount = BigDecimal.valueOf(transactionAmount);
+        this.transactionAmount = Money.of(transactionAmount);
     }
     
     public String getTransactionName() {
@@ -87,12 +93,27 @@ public class Transactions {
         this.userId = userId;
     }
     
+    /**
+     * @return Transaction date in local time, converted from the stored epoch millis on first use
+     */
     public LocalDateTime getTransactionDate() {
-        return transactionDate;
+        if (localTransactionDate == null && transactionDate != 0) {
+            localTransactionDate = EpochMillis.toLocalDateTime(transactionDate);
+        }
+        return localTransactionDate;
     }
     
     public void setTransactionDate(LocalDateTime transactionDate) {
-        this.transactionDate = transactionDate != null ? transactionDate : LocalDateTime.now();
+        setTransactionDateMillis(transactionDate != null ? EpochMillis.of(transactionDate) : EpochMillis.now());
+    }
+    
+    public long getTransactionDateMillis() {
+        return transactionDate;
+    }
+    
+    public void setTransactionDateMillis(long transactionDate) {
+        this.transactionDate = transactionDate;
+        this.localTransactionDate = null;
     }
     
     public String getTransferToAccountNo() {
@@ -126,7 +147,7 @@ public class Transactions {
      * @return Formatted amount string
      */
     public String getFormattedAmount() {
-        return "₱" + (transactionAmount != null ? String.format("%,.2f", transactionAmount) : "0.00");
+        return transactionAmount != null ? transactionAmount.format() : Money.ZERO.format();
     }
     
     /**
@@ -134,7 +155,7 @@ public class Transactions {
      * @return Formatted date string
      */
     public String getFormattedDate() {
-        return transactionDate != null ? transactionDate.toString().replace("T", " ") : "";
+        return transactionDate != 0 ? EpochMillis.format(transactionDate) : "";
     }
     
     /**
@@ -185,7 +206,7 @@ public class Transactions {
      * @return true if amount is positive
      */
     public boolean isPositiveAmount() {
-        return transactionAmount != null && transactionAmount.compareTo(BigDecimal.ZERO) > 0;
+        return transactionAmount != null && transactionAmount.isPositive();
     }
     
     /**
@@ -247,7 +268,7 @@ public class Transactions {
                 ", transactionAmount=" + transactionAmount +
                 ", transactionName='" + transactionName + '\'' +
                 ", userId=" + userId +
-                ", transactionDate=" + transactionDate +
+                ", transactionDate=" + getTransactionDate() +
                 ", transferToAccountNo='" + transferToAccountNo + '\'' +
                 ", transferFromAccountNo='" + transferFromAccountNo + '\'' +
                 ", accountNumber='" + accountNumber + '\'' +
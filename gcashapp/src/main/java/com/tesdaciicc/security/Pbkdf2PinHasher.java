@@ -0,0 +1,126 @@
+package com.tesdaciicc.security;
+
+import com.tesdaciicc.data.util.Config;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * PBKDF2 from the JDK. Hashes are stored as
+ * {@code pbkdf2-<prf>$<iterations>$<salt>$<hash>}, salt and hash in unpadded
+ * Base64, e.g. {@code pbkdf2-sha512$210000$...$...}.
+ *
+ * Values without the {@code pbkdf2-} prefix are PINs stored before hashing
+ * was introduced; they are compared as they are and always need a rehash.
+ */
+public final class Pbkdf2PinHasher implements PinHasher {
+
+  private static final String PREFIX = "pbkdf2-";
+  private static final String JCA_PREFIX = "PBKDF2WithHmac";
+  private static final SecureRandom secureRandom = new SecureRandom();
+  private static final Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+  private static final Base64.Decoder decoder = Base64.getDecoder();
+
+  private final String algorithm;
+  private final String id;
+  private final int iterations;
+  private final int saltBytes;
+  private final int keyBytes;
+
+  /**
+   * Hasher with the parameters in {@link Config}
+   */
+  public Pbkdf2PinHasher() {
+    this(Config.PIN_HASH_ALGORITHM, Config.PIN_HASH_ITERATIONS, Config.PIN_HASH_SALT_BYTES,
+        Config.PIN_HASH_KEY_BYTES);
+  }
+
+  /**
+   * @param algorithm  JCA name, PBKDF2WithHmacSHA256 or PBKDF2WithHmacSHA512
+   * @param iterations PBKDF2 iteration count
+   * @param saltBytes  Random salt length
+   * @param keyBytes   Derived hash length
+   */
+  public Pbkdf2PinHasher(String algorithm, int iterations, int saltBytes, int keyBytes) {
+    if (!algorithm.startsWith(JCA_PREFIX) || iterations <= 0 || saltBytes < 8 || keyBytes < 16) {
+      throw new IllegalArgumentException("Unsupported PBKDF2 parameters: " + algorithm + ", "
+          + iterations + " iterations, " + saltBytes + " salt bytes, " + keyBytes + " key bytes");
+    }
+    try {
+      SecretKeyFactory.getInstance(algorithm);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalArgumentException("PBKDF2 algorithm not available: " + algorithm, e);
+    }
+    this.algorithm = algorithm;
+    this.id = PREFIX + algorithm.substring(JCA_PREFIX.length()).toLowerCase(Locale.ROOT);
+    this.iterations = iterations;
+    this.saltBytes = saltBytes;
+    this.keyBytes = keyBytes;
+  }
+
+  @Override
+  public String hash(String pin) {
+    byte[] salt = new byte[saltBytes];
+    secureRandom.nextBytes(salt);
+    byte[] hash = derive(algorithm, pin, salt, iterations, keyBytes);
+    return id + "$" + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+  }
+
+  @Override
+  public boolean verify(String pin, String stored) {
+    if (pin == null || stored == null) {
+      return false;
+    }
+    if (!stored.startsWith(PREFIX)) {
+      return MessageDigest.isEqual(pin.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+    }
+    String[] parts = stored.split("\\$");
+    if (parts.length != 4) {
+      return false;
+    }
+    try {
+      String storedAlgorithm = JCA_PREFIX + parts[0].substring(PREFIX.length()).toUpperCase(Locale.ROOT);
+      int storedIterations = Integer.parseInt(parts[1]);
+      byte[] salt = decoder.decode(parts[2]);
+      byte[] expected = decoder.decode(parts[3]);
+      return MessageDigest.isEqual(derive(storedAlgorithm, pin, salt, storedIterations, expected.length), expected);
+    } catch (IllegalArgumentException | IllegalStateException e) {
+      // Malformed value or an algorithm this JDK lacks
+      return false;
+    }
+  }
+
+  @Override
+  public boolean needsRehash(String stored) {
+    if (stored == null || !stored.startsWith(PREFIX)) {
+      return true;
+    }
+    String[] parts = stored.split("\\$");
+    if (parts.length != 4 || !parts[0].equals(id) || !parts[1].equals(Integer.toString(iterations))) {
+      return true;
+    }
+    try {
+      return decoder.decode(parts[2]).length != saltBytes || decoder.decode(parts[3]).length != keyBytes;
+    } catch (IllegalArgumentException e) {
+      return true;
+    }
+  }
+
+  private static byte[] derive(String algorithm, String pin, byte[] salt, int iterations, int keyBytes) {
+    PBEKeySpec spec = new PBEKeySpec(pin.toCharArray(), salt, iterations, keyBytes * 8);
+    try {
+      return SecretKeyFactory.getInstance(algorithm).generateSecret(spec).getEncoded();
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("PBKDF2 failed: " + e.getMessage(), e);
+    } finally {
+      spec.clearPassword();
+    }
+  }
+}
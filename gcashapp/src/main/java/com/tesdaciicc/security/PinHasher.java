@@ -0,0 +1,30 @@
+package com.tesdaciicc.security;
+
+/**
+ * Turns PINs into the strings stored in users.pin and checks PINs against
+ * them. Implementations encode their parameters in the stored string, so a
+ * hash made with older settings still verifies and can be recognised for
+ * rehashing.
+ */
+public interface PinHasher {
+
+  /**
+   * @param pin PIN as entered
+   * @return Salted hash to store
+   */
+  String hash(String pin);
+
+  /**
+   * @param pin    PIN as entered
+   * @param stored Value of users.pin
+   * @return true if the PIN matches
+   */
+  boolean verify(String pin, String stored);
+
+  /**
+   * @param stored Value of users.pin
+   * @return true if it should be replaced with {@link #hash(String)} the next
+   *         time the PIN is known, e.g. a plain-text PIN or an outdated cost
+   */
+  boolean needsRehash(String stored);
+}
@@ -0,0 +1,205 @@
+package com.tesdaciicc.security;
+
+import com.tesdaciicc.data.util.Config;
+import com.tesdaciicc.metrics.MetricsRegistry;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs the slow part of PIN checks on a small, bounded pool of daemon threads.
+ *
+ * At most {@link Config#PIN_VERIFY_THREADS} hashes are computed at once and
+ * at most {@link Config#PIN_VERIFY_QUEUE_CAPACITY} wait for a thread; beyond
+ * that a check fails straight away with a {@link PinVerifierBusyException}
+ * instead of queueing, so a burst of logins costs a bounded amount of CPU and
+ * waiting.
+ *
+ * A successful check is remembered for {@link Config#PIN_VERIFY_CACHE_TTL_MINUTES}
+ * as an HMAC of the PIN under a key that lives only in this process, keyed by
+ * the stored hash. Repeating the same PIN against the same stored hash is
+ * then a map lookup; a wrong PIN or a changed hash always pays for the full
+ * KDF.
+ */
+public final class PinVerifier {
+
+  private static final PinVerifier instance = new PinVerifier(new Pbkdf2PinHasher(), Config.PIN_VERIFY_THREADS,
+      Config.PIN_VERIFY_QUEUE_CAPACITY, Config.PIN_VERIFY_CACHE_MAX_ENTRIES,
+      TimeUnit.MINUTES.toMillis(Config.PIN_VERIFY_CACHE_TTL_MINUTES));
+
+  static {
+    MetricsRegistry metrics = MetricsRegistry.getInstance();
+    metrics.gauge("security.pinVerifier.queued", instance::getQueuedCount);
+    metrics.gauge("security.pinVerifier.cacheSize", instance::getCacheSize);
+  }
+
+  private final PinHasher hasher;
+  private final ThreadPoolExecutor executor;
+  private final int maxCacheEntries;
+  private final long cacheTtlMillis;
+  private final byte[] cacheKey = new byte[32];
+  private final ConcurrentHashMap<String, Verified> verified = new ConcurrentHashMap<>();
+  private final LongAdder cacheHits = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+
+  PinVerifier(PinHasher hasher, int threads, int queueCapacity, int maxCacheEntries, long cacheTtlMillis) {
+    if (threads <= 0 || queueCapacity <= 0 || maxCacheEntries <= 0 || cacheTtlMillis <= 0) {
+      throw new IllegalArgumentException("PIN verifier sizes must be positive");
+    }
+    this.hasher = hasher;
+    this.maxCacheEntries = maxCacheEntries;
+    this.cacheTtlMillis = cacheTtlMillis;
+    new SecureRandom().nextBytes(cacheKey);
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), r -> {
+          Thread thread = new Thread(r, "pin-verifier-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  public static PinVerifier getInstance() {
+    return instance;
+  }
+
+  public PinHasher getHasher() {
+    return hasher;
+  }
+
+  /**
+   * @param pin    PIN as entered
+   * @param stored Value of users.pin
+   * @return Future completed with whether the PIN matches, or failed with a
+   *         PinVerifierBusyException if the pool is saturated
+   */
+  public CompletableFuture<Boolean> verify(String pin, String stored) {
+    if (pin == null || stored == null) {
+      return CompletableFuture.completedFuture(false);
+    }
+    byte[] mac = mac(pin);
+    Verified entry = verified.get(stored);
+    if (entry != null && System.currentTimeMillis() < entry.expiresAt && MessageDigest.isEqual(entry.mac, mac)) {
+      cacheHits.increment();
+      return CompletableFuture.completedFuture(true);
+    }
+    return submit(() -> {
+      boolean matches = hasher.verify(pin, stored);
+      if (matches) {
+        remember(stored, mac);
+      }
+      return matches;
+    });
+  }
+
+  /**
+   * The new hash is remembered as verified for the PIN, so a login right
+   * after a rehash or PIN change does not pay for the KDF again.
+   *
+   * @param pin PIN as entered
+   * @return Future completed with a new hash to store, or failed with a
+   *         PinVerifierBusyException if the pool is saturated
+   */
+  public CompletableFuture<String> hash(String pin) {
+    byte[] mac = mac(pin);
+    return submit(() -> {
+      String stored = hasher.hash(pin);
+      remember(stored, mac);
+      return stored;
+    });
+  }
+
+  /**
+   * Waits for a check or hash, passing a saturated pool on as is rather than
+   * wrapped in a CompletionException
+   *
+   * @param future Future from {@link #verify} or {@link #hash}
+   * @return The future's value
+   * @throws PinVerifierBusyException if the pool was saturated
+   */
+  public static <T> T await(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof PinVerifierBusyException busy) {
+        throw busy;
+      }
+      throw e;
+    }
+  }
+
+  public int getQueuedCount() {
+    return executor.getQueue().size();
+  }
+
+  public int getCacheSize() {
+    return verified.size();
+  }
+
+  public long getCacheHitCount() {
+    return cacheHits.sum();
+  }
+
+  public long getRejectedCount() {
+    return rejected.sum();
+  }
+
+  public void clearCache() {
+    verified.clear();
+  }
+
+  private <T> CompletableFuture<T> submit(Supplier<T> task) {
+    try {
+      return CompletableFuture.supplyAsync(task, executor);
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      return CompletableFuture.failedFuture(new PinVerifierBusyException(e));
+    }
+  }
+
+  private void remember(String stored, byte[] mac) {
+    long now = System.currentTimeMillis();
+    if (verified.size() >= maxCacheEntries) {
+      verified.values().removeIf(entry -> now >= entry.expiresAt);
+      if (verified.size() >= maxCacheEntries) {
+        return;
+      }
+    }
+    verified.put(stored, new Verified(mac, now + cacheTtlMillis));
+  }
+
+  private byte[] mac(String pin) {
+    try {
+      Mac hmac = Mac.getInstance("HmacSHA256");
+      hmac.init(new SecretKeySpec(cacheKey, "HmacSHA256"));
+      return hmac.doFinal(pin.getBytes(StandardCharsets.UTF_8));
+    } catch (GeneralSecurityException e) {
+      // Every Java platform is required to provide HmacSHA256
+      throw new IllegalStateException("HmacSHA256 not available", e);
+    }
+  }
+
+  private static final class Verified {
+    final byte[] mac;
+    final long expiresAt;
+
+    Verified(byte[] mac, long expiresAt) {
+      this.mac = mac;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
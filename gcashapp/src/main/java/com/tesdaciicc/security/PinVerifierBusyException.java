@@ -0,0 +1,18 @@
+package com.tesdaciicc.security;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Thrown when a PIN check or hash is turned away because the
+ * {@link PinVerifier} pool and its queue are full. Nothing was checked, so it
+ * says nothing about whether the PIN was right; the caller should try again
+ * shortly.
+ */
+public class PinVerifierBusyException extends RejectedExecutionException {
+
+  private static final long serialVersionUID = 1L;
+
+  public PinVerifierBusyException(Throwable cause) {
+    super("PIN verifier is busy", cause);
+  }
+}
@@ -0,0 +1,129 @@
+package com.tesdaciicc.service;
+
+import com.tesdaciicc.data.util.Config;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process locks keyed by userId, shared by every service instance.
+ *
+ * Accounts are hashed onto a fixed number of lock stripes. A transfer locks
+ * the stripes of both its sender and recipient, always lower stripe first,
+ * so two transfers going in opposite directions between the same accounts
+ * cannot deadlock. Transfers on unrelated accounts usually land on different
+ * stripes and run their checks in parallel; they only meet at the single
+ * writer connection when they commit.
+ */
+public final class AccountLockManager {
+
+    private static final AccountLockManager instance = new AccountLockManager(Config.ACCOUNT_LOCK_STRIPES);
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    AccountLockManager(int stripeCount) {
+        if (stripeCount <= 0 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("Stripe count must be a power of two: " + stripeCount);
+        }
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = stripeCount - 1;
+    }
+
+    public static AccountLockManager getInstance() {
+        return instance;
+    }
+
+    /**
+     * Lock a single account
+     * @param userId Account owner's user ID
+     * @return Held lock, release it with close()
+     */
+    public AccountLocks lock(int userId) {
+        return lockStripes(new int[] { stripeFor(userId) });
+    }
+
+    /**
+     * Lock two accounts in a fixed order
+     * @param firstUserId One account's user ID
+     * @param secondUserId The other account's user ID
+     * @return Held locks, release them with close()
+     */
+    public AccountLocks lock(int firstUserId, int secondUserId) {
+        return lockStripes(new int[] { stripeFor(firstUserId), stripeFor(secondUserId) });
+    }
+
+    /**
+     * Lock every account in a group, e.g. all accounts touched by a batch
+     * @param userIds User IDs to lock
+     * @return Held locks, release them with close()
+     */
+    public AccountLocks lockAll(Collection<Integer> userIds) {
+        int[] indexes = new int[userIds.size()];
+        int i = 0;
+        for (int userId : userIds) {
+            indexes[i++] = stripeFor(userId);
+        }
+        return lockStripes(indexes);
+    }
+
+    /**
+     * @param userId Account owner's user ID
+     * @return true if the calling thread holds the account's stripe, so
+     *         locking it now would not take a new lock out of order
+     */
+    public boolean isHeldByCurrentThread(int userId) {
+        return stripes[stripeFor(userId)].isHeldByCurrentThread();
+    }
+
+    private AccountLocks lockStripes(int[] indexes) {
+        int[] ordered = Arrays.stream(indexes).sorted().distinct().toArray();
+        ReentrantLock[] held = new ReentrantLock[ordered.length];
+        int count = 0;
+        try {
+            for (int index : ordered) {
+                stripes[index].lock();
+                held[count++] = stripes[index];
+            }
+        } catch (RuntimeException | Error e) {
+            while (count > 0) {
+                held[--count].unlock();
+            }
+            throw e;
+        }
+        return new AccountLocks(held);
+    }
+
+    private int stripeFor(int userId) {
+        // Spread sequential ids across stripes
+        int h = userId * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Locks held for one operation, released in reverse order on close()
+     */
+    public static final class AccountLocks implements AutoCloseable {
+        private final ReentrantLock[] locks;
+        private boolean released;
+
+        private AccountLocks(ReentrantLock[] locks) {
+            this.locks = locks;
+        }
+
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            for (int i = locks.length - 1; i >= 0; i--) {
+                locks[i].unlock();
+            }
+        }
+    }
+}
@@ -1,22 +1,24 @@
 package com.tesdaciicc.service;
 
 import com.tesdaciicc.data.repository.CashInDAO;
-import com.tesdaciicc.data.repository.UserAuthenticationDAO;
+import com.tesdaciicc.data.repository.UserRepository;
 import com.tesdaciicc.data.repository.BalanceDAO;
 import com.tesdaciicc.model.CashIn;
 import com.tesdaciicc.model.UserAuthentication;
 import com.tesdaciicc.model.Balance;
+import com.tesdaciicc.model.Money;
+import com.tesdaciicc.metrics.MetricsRegistry;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
-import com.tesdaciicc.data.util.ConnectionFactory;
+import java.util.stream.Stream;
+import com.tesdaciicc.data.util.TransactionTemplate;
 
 /**
  * Service class for Cash-In operations
@@ -25,14 +27,15 @@ import com.tesdaciicc.data.util.ConnectionFactory;
 public class CashInService {
 
     private static final Logger logger = LoggerFactory.getLogger(CashInService.class);
+    private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
     
     private final CashInDAO cashInDAO;
-    private final UserAuthenticationDAO userDAO;
+    private final UserRepository userRepository;
     private final BalanceDAO balanceDAO;
 
     public CashInService() {
         this.cashInDAO = new CashInDAO();
-        this.userDAO = new UserAuthenticationDAO();
+        this.userRepository = new UserRepository();
         this.balanceDAO = new BalanceDAO();
         logger.info("CashInService initialized");
     }
@@ -46,27 +49,31 @@ public class CashInService {
      * @return true if successful, false otherwise
      */
     public boolean processCashIn(String accountNumber, BigDecimal amount, String senderName) {
-        logger.info("Processing cash-in for account: {}, amount: {}", accountNumber, amount);
+        Boolean result = metrics.timer("service.cashIn").record(() -> {
+            logger.info("Processing cash-in for account: {}, amount: {}", accountNumber, amount);
 
-        // Validate input
-        if (!validateCashInInput(accountNumber, amount, senderName)) {
-            return false;
-        }
+            // Validate input
+            if (!validateCashInInput(accountNumber, amount, senderName)) {
+                return false;
+            }
 
-        // Ensure proper monetary scale
-        amount = amount.setScale(2, RoundingMode.HALF_UP);
+            // Whole centavos from here on
+            Money cashInAmount = Money.of(amount);
 
-        // Find user by account number
-        Optional<UserAuthentication> userOpt = userDAO.findByNumber(accountNumber);
-        if (!userOpt.isPresent()) {
-            logger.error("Account number not found: {}", accountNumber);
-            return false;
-        }
+            // Find user by account number
+            Optional<UserAuthentication> userOpt = userRepository.findByNumber(accountNumber);
+            if (!userOpt.isPresent()) {
+                logger.error("Account number not found: {}", accountNumber);
+                return false;
+            }
 
-        UserAuthentication user = userOpt.get();
+            UserAuthentication user = userOpt.get();
 
-        // Execute cash-in transaction
-        return executeCashInTransaction(user.getId(), accountNumber, amount, senderName);
+            // Execute cash-in transaction
+            return executeCashInTransaction(user.getId(), accountNumber, cashInAmount, senderName);
+        });
+        metrics.counter(result ? "service.cashIn.success" : "service.cashIn.failure").increment();
+        return result;
     }
 
     /**
@@ -80,82 +87,39 @@ public class CashInService {
     /**
      * Execute the actual cash-in transaction with proper transaction management
      */
-    private boolean executeCashInTransaction(int userId, String accountNumber, BigDecimal amount, String senderName) {
-        Connection connection = null;
-    try {
-        connection = ConnectionFactory.getConnection();
-        connection.setAutoCommit(false);
-
-        // Get current balance
-        Optional<Balance> balanceOpt = balanceDAO.findByUserId(userId);
-        if (!balanceOpt.isPresent()) {
-            logger.error("Balance not found for userId: {}", userId);
-            connection.rollback();
-            return false;
-        }
-
-        Balance currentBalance = balanceOpt.get();
-
-        // Create transaction record with proper transaction name
-        CashIn cashInTransaction = new CashIn(
-            amount,
-            "CASH_IN_COMPLETED",        // Set proper transaction name/status
-            userId,
-            accountNumber,               // transferToAccountNo
-            senderName,                  // transferFromAccountNo - now using senderName as source
-            accountNumber
-        );
-
-        // Insert transaction (using connection for consistency)
-        Optional<CashIn> createdTransaction = createTransactionWithConnection(connection, cashInTransaction);
-        if (!createdTransaction.isPresent()) {
-            connection.rollback();
-            return false;
-        }
-
-        // Update balance
-        BigDecimal newBalance = currentBalance.getAmount().add(amount);
-        if (!balanceDAO.updateBalance(userId, newBalance)) {
-            connection.rollback();
+    private boolean executeCashInTransaction(int userId, String accountNumber, Money amount, String senderName) {
+        try {
+            Money newBalance = TransactionTemplate.execute(connection -> {
+                // Create transaction record with proper transaction name
+                CashIn cashInTransaction = new CashIn(
+                    amount,
+                    "CASH_IN_COMPLETED",        // Set proper transaction name/status
+                    userId,
+                    accountNumber,               // transferToAccountNo
+                    senderName,                  // transferFromAccountNo - now using senderName as source
+                    accountNumber
+                );
+
+                if (!cashInDAO.create(cashInTransaction).isPresent()) {
+                    throw new SQLException("Failed to record cash-in transaction");
+                }
+
+                // Add the amount in place; an empty result means the user has no balance row
+                Optional<Money> updatedBalance = balanceDAO.credit(userId, amount);
+                if (!updatedBalance.isPresent()) {
+                    throw new SQLException("Balance not found for userId: " + userId);
+                }
+                return updatedBalance.get();
+            });
+
+            logger.info("Cash-in successful! Added {} to account {}. New balance: {}", 
+                       amount, accountNumber, newBalance);
+            return true;
+
+        } catch (Exception e) {
+            logger.error("Cash-in transaction failed for userId {}: {}", userId, e.getMessage(), e);
             return false;
         }
-
-        connection.commit();
-        logger.info("Cash-in successful! Added {} to account {}. New balance: {}", 
-                   amount, accountNumber, newBalance);
-        return true;
-
-    } catch (Exception e) {
-        if (connection != null) {
-            try {
-                connection.rollback();
-            } catch (SQLException rollbackEx) {
-                logger.error("Rollback failed: {}", rollbackEx.getMessage());
-            }
-        }
-        logger.error("Cash-in transaction failed for userId {}: {}", userId, e.getMessage(), e);
-        return false;
-
-    } finally {
-        if (connection != null) {
-            try {
-                connection.setAutoCommit(true);
-                connection.close();
-            } catch (SQLException e) {
-                logger.error("Error closing connection: {}", e.getMessage());
-            }
-        }
-    }
-    }
-
-    /**
-     * Create transaction with existing connection (for transaction management)
-     */
-    private Optional<CashIn> createTransactionWithConnection(Connection connection, CashIn cashIn) {
-        // This would require modifying CashInDAO to accept a connection parameter
-        // For now, we'll use the regular create method
-        // In a more sophisticated design, you might have a TransactionTemplate or similar
-        return cashInDAO.create(cashIn);
     }
 
     /**
@@ -198,8 +162,13 @@ public class CashInService {
         return cashInDAO.findAll();
     }
 
+    // Caller must close the stream; it holds a database connection while open
+    public Stream<CashIn> streamAllTransactions() {
+        return cashInDAO.streamAll();
+    }
+
     public BigDecimal getTotalCashIn(int userId) {
-        return cashInDAO.getTotalByUserId(userId);
+        return cashInDAO.getTotalByUserId(userId).toBigDecimal();
     }
 
     public int getTransactionCount(int userId) {
@@ -209,11 +178,11 @@ public class CashInService {
     // User and Balance related methods
     
     public Optional<UserAuthentication> getUserByAccountNumber(String accountNumber) {
-        return userDAO.findByNumber(accountNumber);
+        return userRepository.findByNumber(accountNumber);
     }
 
     public Optional<Balance> getCurrentBalance(String accountNumber) {
-        Optional<UserAuthentication> userOpt = userDAO.findByNumber(accountNumber);
+        Optional<UserAuthentication> userOpt = userRepository.findByNumber(accountNumber);
         if (userOpt.isPresent()) {
             return balanceDAO.findByUserId(userOpt.get().getId());
         }
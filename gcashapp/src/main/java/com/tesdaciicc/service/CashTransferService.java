@@ -3,44 +3,54 @@ package com.tesdaciicc.service;
 import com.tesdaciicc.model.CashTransfer;
 import com.tesdaciicc.model.UserAuthentication;
 import com.tesdaciicc.model.Balance;
+import com.tesdaciicc.model.Money;
 import com.tesdaciicc.data.repository.CashTransferDAO;
-import com.tesdaciicc.data.repository.UserDAO;
+import com.tesdaciicc.data.repository.UserRepository;
 import com.tesdaciicc.data.repository.BalanceDAO;
+import com.tesdaciicc.data.cache.DailyTransferCounters;
+import com.tesdaciicc.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
-import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
-import com.tesdaciicc.data.util.ConnectionFactory;
+import com.tesdaciicc.data.util.TransactionTemplate;
 
 public class CashTransferService {
     
     private static final Logger logger = LoggerFactory.getLogger(CashTransferService.class);
+    private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
     
     // DAOs
     private final CashTransferDAO transferDAO;
-    private final UserDAO userDAO;
+    private final UserRepository userRepository;
     private final BalanceDAO balanceDAO;
     
+    // Shared per-account locks for transfers in this process
+    private final AccountLockManager accountLocks = AccountLockManager.getInstance();
+    
+    // Today's transfer count and amount per sender, kept in memory
+    private final DailyTransferCounters dailyCounters = DailyTransferCounters.getInstance();
+    
     // Transfer limits and restrictions
-    private static final BigDecimal MIN_TRANSFER_AMOUNT = BigDecimal.valueOf(1.00);
-    private static final BigDecimal MAX_TRANSFER_AMOUNT = BigDecimal.valueOf(50000.00);
-    private static final BigDecimal DAILY_TRANSFER_LIMIT = BigDecimal.valueOf(100000.00);
+    private static final Money MIN_TRANSFER_AMOUNT = Money.ofPesos(1);
+    private static final Money MAX_TRANSFER_AMOUNT = Money.ofPesos(50000);
+    private static final Money DAILY_TRANSFER_LIMIT = Money.ofPesos(100000);
     private static final int MAX_DAILY_TRANSFERS = 20;
-    private static final BigDecimal SERVICE_FEE = BigDecimal.valueOf(5.00);
-    private static final BigDecimal FREE_TRANSFER_THRESHOLD = BigDecimal.valueOf(500.00);
+    private static final Money SERVICE_FEE = Money.ofPesos(5);
+    private static final Money FREE_TRANSFER_THRESHOLD = Money.ofPesos(500);
     
     // Mobile number validation pattern (Philippine format: 09XXXXXXXXX)
     private static final Pattern MOBILE_PATTERN = Pattern.compile("^09\\d{9}$");
     
     public CashTransferService() {
         this.transferDAO = new CashTransferDAO();
-        this.userDAO = new UserDAO();
+        this.userRepository = new UserRepository();
         this.balanceDAO = new BalanceDAO();
     }
     
@@ -52,73 +62,60 @@ public class CashTransferService {
      * @param description Transfer description/notes
      * @return TransferResult containing success/failure information
      */
+    @SuppressWarnings("try") // the account locks are only held, never referenced
     public TransferResult cashTransfer(int senderUserId, String recipientMobileNumber, 
                                      BigDecimal amount, String description) {
+        TransferResult result = metrics.timer("service.cashTransfer").record(() -> {
         
-        logger.info("Initiating cash transfer: User {} -> {} Amount: {}", 
-                   senderUserId, recipientMobileNumber, amount);
-        
-        // Step 1: Validate input parameters
-        TransferResult validationResult = validateTransferInput(senderUserId, recipientMobileNumber, amount);
-        if (!validationResult.isSuccess()) {
-            return validationResult;
-        }
-        
-        // Step 2: Get sender information
-        Optional<UserAuthentication> senderOpt = userDAO.findById(senderUserId);
-        if (!senderOpt.isPresent()) {
-            return TransferResult.failure("Sender account not found. Please log in again.");
-        }
-        
-        UserAuthentication sender = senderOpt.get();
-        
-        // Step 3: Check sender's balance
-        Optional<Balance> senderBalanceOpt = balanceDAO.findByUserId(senderUserId);
-        if (!senderBalanceOpt.isPresent()) {
-            return TransferResult.failure("Sender balance not found. Please contact support.");
-        }
+            logger.info("Initiating cash transfer: User {} -> {} Amount: {}", 
+                       senderUserId, recipientMobileNumber, amount);
         
-        Balance senderBalance = senderBalanceOpt.get();
-        
-        // Step 4: Calculate total amount including fees
-        BigDecimal serviceFee = calculateServiceFee(amount);
-        BigDecimal totalAmount = amount.add(serviceFee);
+            // Step 1: Validate input parameters
+            TransferResult validationResult = validateTransferInput(senderUserId, recipientMobileNumber, amount);
+            if (!validationResult.isSuccess()) {
+                return validationResult;
+            }
+            Money transferAmount = Money.of(amount);
         
-        // Step 5: Validate sender's balance
-        TransferResult balanceResult = validateSenderBalance(senderBalance, totalAmount);
-        if (!balanceResult.isSuccess()) {
-            return balanceResult;
-        }
+            // Step 2: Get sender information
+            Optional<UserAuthentication> senderOpt = userRepository.findById(senderUserId);
+            if (!senderOpt.isPresent()) {
+                return TransferResult.failure("Sender account not found. Please log in again.");
+            }
         
-        // Step 6: Check daily limits
-        TransferResult limitResult = validateDailyLimits(senderUserId, sender.getNumber(), amount);
-        if (!limitResult.isSuccess()) {
-            return limitResult;
-        }
+            UserAuthentication sender = senderOpt.get();
         
-        // Step 7: Validate recipient
-        TransferResult recipientResult = validateRecipient(recipientMobileNumber, sender.getNumber());
-        if (!recipientResult.isSuccess()) {
-            return recipientResult;
-        }
+            // Step 3: Calculate service fee; the balance itself is checked by the debit
+            Money serviceFee = calculateServiceFee(transferAmount);
         
-        Optional<UserAuthentication> recipientOpt = userDAO.findByNumber(recipientMobileNumber);
-        if (!recipientOpt.isPresent()) {
-            return TransferResult.failure("Recipient account not found. Please verify the mobile number.");
-        }
-        
-        UserAuthentication recipient = recipientOpt.get();
+            // Step 4: Validate recipient
+            TransferResult recipientResult = validateRecipient(recipientMobileNumber, sender.getNumber());
+            if (!recipientResult.isSuccess()) {
+                return recipientResult;
+            }
         
-        // Step 8: Get recipient's balance
-        Optional<Balance> recipientBalanceOpt = balanceDAO.findByUserId(recipient.getId());
-        if (!recipientBalanceOpt.isPresent()) {
-            return TransferResult.failure("Recipient balance not found. Transfer cannot proceed.");
-        }
+            Optional<UserAuthentication> recipientOpt = userRepository.findByNumber(recipientMobileNumber);
+            if (!recipientOpt.isPresent()) {
+                return TransferResult.failure("Recipient account not found. Please verify the mobile number.");
+            }
         
-        Balance recipientBalance = recipientBalanceOpt.get();
+            UserAuthentication recipient = recipientOpt.get();
         
-        // Step 9: Execute transfer using database transaction
-        return executeTransfer(sender, recipient, senderBalance, recipientBalance, amount, serviceFee, description);
+            // Hold both accounts from the limit check to the commit so concurrent
+            // transfers from the same sender cannot both pass the daily limits
+            try (AccountLockManager.AccountLocks locks = accountLocks.lock(sender.getId(), recipient.getId())) {
+                // Step 5: Check daily limits
+                TransferResult limitResult = validateDailyLimits(senderUserId, transferAmount);
+                if (!limitResult.isSuccess()) {
+                    return limitResult;
+                }
+            
+                // Step 6: Execute transfer using database transaction
+                return executeTransfer(sender, recipient, transferAmount, serviceFee, description);
+            }
+        });
+        metrics.counter(result.isSuccess() ? "service.cashTransfer.success" : "service.cashTransfer.failure").increment();
+        return result;
     }
     
     /**
@@ -148,12 +145,14 @@ public class CashTransferService {
             return TransferResult.failure("Transfer amount must be greater than zero.");
         }
         
-        if (amount.compareTo(MIN_TRANSFER_AMOUNT) < 0) {
-            return TransferResult.failure("Minimum transfer amount is ₱" + MIN_TRANSFER_AMOUNT);
+        // Compared as BigDecimal so oversized input is rejected before it is converted to centavos
+        if (amount.compareTo(MAX_TRANSFER_AMOUNT.toBigDecimal()) > 0) {
+            return TransferResult.failure("Maximum transfer amount is " + MAX_TRANSFER_AMOUNT.format());
         }
         
-        if (amount.compareTo(MAX_TRANSFER_AMOUNT) > 0) {
-            return TransferResult.failure("Maximum transfer amount is ₱" + String.format("%,.2f", MAX_TRANSFER_AMOUNT));
+        // Rounded to centavos first, the same as the amount that is transferred
+        if (Money.of(amount).isLessThan(MIN_TRANSFER_AMOUNT)) {
+            return TransferResult.failure("Minimum transfer amount is " + MIN_TRANSFER_AMOUNT.format());
         }
         
         return TransferResult.success("Input validation passed.", null);
@@ -162,41 +161,57 @@ public class CashTransferService {
     /**
      * Validate sender's balance
      */
-    private TransferResult validateSenderBalance(Balance senderBalance, BigDecimal totalAmount) {
+    private TransferResult validateSenderBalance(Balance senderBalance, Money totalAmount) {
         if (!senderBalance.isSufficientFor(totalAmount)) {
             return TransferResult.failure(String.format(
-                "Insufficient balance. Required: ₱%,.2f, Available: ₱%,.2f", 
-                totalAmount, senderBalance.getAmount()
+                "Insufficient balance. Required: %s, Available: %s", 
+                totalAmount.format(), senderBalance.getAmount().format()
             ));
         }
         
         // Check if balance would go negative
-        BigDecimal remainingBalance = senderBalance.getAmount().subtract(totalAmount);
-        if (remainingBalance.compareTo(BigDecimal.ZERO) < 0) {
+        Money remainingBalance = senderBalance.getAmount().minus(totalAmount);
+        if (remainingBalance.isNegative()) {
             return TransferResult.failure("Transfer would result in negative balance.");
         }
         
         return TransferResult.success("Balance validation passed.", null);
     }
     
+    /**
+     * Work out why a debit was refused, only called on the failure path
+     */
+    private String describeFailedDebit(int senderUserId, Money totalAmount) {
+        Optional<Balance> senderBalance = balanceDAO.findByUserId(senderUserId);
+        if (!senderBalance.isPresent()) {
+            return "Sender balance not found. Please contact support.";
+        }
+        
+        TransferResult balanceResult = validateSenderBalance(senderBalance.get(), totalAmount);
+        if (!balanceResult.isSuccess()) {
+            return balanceResult.getMessage();
+        }
+        return "Failed to update sender's balance. Transfer cancelled.";
+    }
+    
     /**
      * Validate daily transfer limits
      */
-    private TransferResult validateDailyLimits(int senderUserId, String senderMobileNumber, BigDecimal amount) {
+    private TransferResult validateDailyLimits(int senderUserId, Money amount) {
         // Check daily transfer count
-        int dailyCount = transferDAO.getDailyTransferCount(senderUserId, senderMobileNumber);
+        int dailyCount = dailyCounters.getCount(senderUserId);
         if (dailyCount >= MAX_DAILY_TRANSFERS) {
             return TransferResult.failure("Daily transfer limit exceeded. Maximum " + MAX_DAILY_TRANSFERS + " transfers per day.");
         }
         
         // Check daily transfer amount
-        BigDecimal dailyAmount = transferDAO.getDailyTransferAmount(senderUserId, senderMobileNumber);
-        BigDecimal totalDailyAmount = dailyAmount.add(amount);
+        Money dailyAmount = dailyCounters.getAmount(senderUserId);
+        Money totalDailyAmount = dailyAmount.plus(amount);
         
-        if (totalDailyAmount.compareTo(DAILY_TRANSFER_LIMIT) > 0) {
+        if (totalDailyAmount.isGreaterThan(DAILY_TRANSFER_LIMIT)) {
             return TransferResult.failure(String.format(
-                "Daily transfer limit exceeded. Limit: ₱%,.2f, Already used: ₱%,.2f, Requested: ₱%,.2f",
-                DAILY_TRANSFER_LIMIT, dailyAmount, amount
+                "Daily transfer limit exceeded. Limit: %s, Already used: %s, Requested: %s",
+                DAILY_TRANSFER_LIMIT.format(), dailyAmount.format(), amount.format()
             ));
         }
         
@@ -218,10 +233,10 @@ public class CashTransferService {
     /**
      * Calculate service fee based on transfer amount
      */
-    private BigDecimal calculateServiceFee(BigDecimal amount) {
+    private Money calculateServiceFee(Money amount) {
         // Free transfers for amounts above threshold
-        if (amount.compareTo(FREE_TRANSFER_THRESHOLD) >= 0) {
-            return BigDecimal.ZERO;
+        if (!amount.isLessThan(FREE_TRANSFER_THRESHOLD)) {
+            return Money.ZERO;
         }
         return SERVICE_FEE;
     }
@@ -230,95 +245,59 @@ public class CashTransferService {
      * Execute the actual transfer using database transaction
      */
     private TransferResult executeTransfer(UserAuthentication sender, UserAuthentication recipient,
-                                         Balance senderBalance, Balance recipientBalance,
-                                         BigDecimal amount, BigDecimal serviceFee, String description) {
-        
-        Connection connection = null;
+                                         Money amount, Money serviceFee, String description) {
         
         try {
-            // Start database transaction
-            connection = ConnectionFactory.getConnection();
-            connection.setAutoCommit(false);
-            
-            // Step 1: Deduct amount and service fee from sender's balance
-            BigDecimal totalDeduction = amount.add(serviceFee);
-            BigDecimal newSenderBalance = senderBalance.getAmount().subtract(totalDeduction);
-            
-            boolean senderUpdated = balanceDAO.updateBalance(sender.getId(), newSenderBalance);
-            if (!senderUpdated) {
-                connection.rollback();
-                return TransferResult.failure("Failed to update sender's balance. Transfer cancelled.");
-            }
-            
-            // Step 2: Add amount to recipient's balance
-            BigDecimal newRecipientBalance = recipientBalance.getAmount().add(amount);
-            
-            boolean recipientUpdated = balanceDAO.updateBalance(recipient.getId(), newRecipientBalance);
-            if (!recipientUpdated) {
-                connection.rollback();
-                return TransferResult.failure("Failed to update recipient's balance. Transfer cancelled.");
-            }
-            
-            // Step 3: Create transfer record
-            CashTransfer transfer = new CashTransfer(
-                amount,
-                "CASH_TRANSFER_COMPLETED",
-                sender.getId(),
-                recipient.getNumber(),
-                sender.getNumber(),
-                description != null ? description : "Cash Transfer"
-            );
-            
-            Optional<CashTransfer> savedTransfer = transferDAO.save(transfer);
-            if (!savedTransfer.isPresent()) {
-                connection.rollback();
-                return TransferResult.failure("Failed to record transfer transaction. Transfer cancelled.");
-            }
-            
-            // Commit transaction
-            connection.commit();
+            CashTransfer savedTransfer = TransactionTemplate.execute(connection -> {
+                // Step 1: Deduct amount and service fee from sender's balance if it covers them
+                Money totalDeduction = amount.plus(serviceFee);
+                
+                if (!balanceDAO.debitIfSufficient(sender.getId(), totalDeduction).isPresent()) {
+                    throw new TransferAbortedException(describeFailedDebit(sender.getId(), totalDeduction));
+                }
+                
+                // Step 2: Add amount to recipient's balance
+                if (!balanceDAO.credit(recipient.getId(), amount).isPresent()) {
+                    throw new TransferAbortedException("Recipient balance not found. Transfer cannot proceed.");
+                }
+                
+                // Step 3: Create transfer record
+                CashTransfer transfer = new CashTransfer(
+                    amount,
+                    "CASH_TRANSFER_COMPLETED",
+                    sender.getId(),
+                    recipient.getNumber(),
+                    sender.getNumber(),
+                    description != null ? description : "Cash Transfer"
+                );
+                
+                // Count it against today's limits; taken back out if the transfer rolls back
+                dailyCounters.record(sender.getId(), amount, transfer.getTransactionDate().toLocalDate());
+                
+                return transferDAO.save(transfer).orElseThrow(() -> new TransferAbortedException(
+                    "Failed to record transfer transaction. Transfer cancelled."));
+            });
             
             logger.info("Cash transfer completed successfully: {} -> {} Amount: ₱{}", 
                        sender.getNumber(), recipient.getNumber(), amount);
             
             // Create success result with transfer details
             return TransferResult.success(
-                String.format("Transfer successful! ₱%,.2f sent to %s. Service fee: ₱%,.2f", 
-                             amount, recipient.getNumber(), serviceFee),
-                savedTransfer.get()
+                String.format("Transfer successful! %s sent to %s. Service fee: %s", 
+                             amount.format(), recipient.getNumber(), serviceFee.format()),
+                savedTransfer
             );
             
+        } catch (TransferAbortedException e) {
+            return TransferResult.failure(e.getMessage());
+            
         } catch (SQLException e) {
             logger.error("Database error during transfer execution: {}", e.getMessage(), e);
-            try {
-                if (connection != null) {
-                    connection.rollback();
-                }
-            } catch (SQLException rollbackEx) {
-                logger.error("Error rolling back transaction: {}", rollbackEx.getMessage(), rollbackEx);
-            }
             return TransferResult.failure("Database error occurred. Transfer cancelled.");
             
         } catch (Exception e) {
             logger.error("Unexpected error during transfer execution: {}", e.getMessage(), e);
-            try {
-                if (connection != null) {
-                    connection.rollback();
-                }
-            } catch (SQLException rollbackEx) {
-                logger.error("Error rolling back transaction: {}", rollbackEx.getMessage(), rollbackEx);
-            }
             return TransferResult.failure("Unexpected error occurred. Transfer cancelled.");
-            
-        } finally {
-            if (connection != null) {
-                try {
-                    connection.setAutoCommit(true);
-                    connection.close();
-                } catch (SQLException e) {
-                    logger.error("Error closing connection: {}", e.getMessage(), e);
-                }
-            }
         }
     }
     
@@ -342,6 +321,16 @@ public class CashTransferService {
         return transferDAO.findByAccountNumber(accountNumber);
     }
     
+    /**
+     * Stream transfer history for an account number without loading it into memory
+     * @param accountNumber Account number (mobile number)
+     * @return Stream of transfers, newest first; close it when done
+     */
+    public Stream<CashTransfer> streamTransferHistory(String accountNumber) {
+        logger.debug("Streaming transfer history for account: {}", accountNumber);
+        return transferDAO.streamByAccountNumber(accountNumber);
+    }
+    
     /**
      * Find transfer by transaction ID
      * @param transactionId Transaction ID
@@ -358,13 +347,13 @@ public class CashTransferService {
      * @return DailyTransferSummary
      */
     public DailyTransferSummary getDailyTransferSummary(int userId, String accountNumber) {
-        BigDecimal dailyAmount = transferDAO.getDailyTransferAmount(userId, accountNumber);
-        int dailyCount = transferDAO.getDailyTransferCount(userId, accountNumber);
+        Money dailyAmount = dailyCounters.getAmount(userId);
+        int dailyCount = dailyCounters.getCount(userId);
         
         return new DailyTransferSummary(
-            dailyAmount,
+            dailyAmount.toBigDecimal(),
             dailyCount,
-            DAILY_TRANSFER_LIMIT.subtract(dailyAmount),
+            DAILY_TRANSFER_LIMIT.minus(dailyAmount).toBigDecimal(),
             MAX_DAILY_TRANSFERS - dailyCount
         );
     }
@@ -375,7 +364,7 @@ public class CashTransferService {
      * @return Service fee amount
      */
     public BigDecimal previewServiceFee(BigDecimal amount) {
-        return calculateServiceFee(amount);
+        return calculateServiceFee(Money.of(amount)).toBigDecimal();
     }
     
     /**
@@ -393,7 +382,7 @@ public class CashTransferService {
      * @return true if recipient exists
      */
     public boolean recipientExists(String mobileNumber) {
-        return userDAO.findByNumber(mobileNumber).isPresent();
+        return userRepository.findByNumber(mobileNumber).isPresent();
     }
     
     /**
@@ -402,12 +391,23 @@ public class CashTransferService {
      * @return Recipient name or null if not found
      */
     public String getRecipientName(String mobileNumber) {
-        Optional<UserAuthentication> recipient = userDAO.findByNumber(mobileNumber);
+        Optional<UserAuthentication> recipient = userRepository.findByNumber(mobileNumber);
         return recipient.map(UserAuthentication::getName).orElse(null);
     }
     
     // Inner classes for result handling
     
+    /**
+     * Thrown inside the transfer transaction to roll it back with a message for the user
+     */
+    private static class TransferAbortedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        TransferAbortedException(String message) {
+            super(message);
+        }
+    }
+    
     /**
      * Transfer result class to encapsulate success/failure information
      */
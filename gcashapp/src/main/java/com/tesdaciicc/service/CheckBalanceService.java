@@ -2,6 +2,7 @@ package com.tesdaciicc.service;
 
 import com.tesdaciicc.data.repository.BalanceDAO;
 import com.tesdaciicc.model.Balance;
+import com.tesdaciicc.model.Money;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,7 +39,7 @@ public class CheckBalanceService {
     Optional<Balance> balance = balanceDAO.findByUserId(userId);
 
     if (balance.isPresent()) {
-      BigDecimal amount = balance.get().getAmount();
+      BigDecimal amount = balance.get().getAmount().toBigDecimal();
       logger.info("Balance found for userId {}: {}", userId, amount);
       return Optional.of(amount);
     } else {
@@ -142,8 +143,7 @@ public class CheckBalanceService {
       return false;
     }
 
-    BigDecimal amount = initialAmount != null ? initialAmount : BigDecimal.ZERO;
-    Balance newBalance = new Balance(amount, userId);
+    Balance newBalance = new Balance(Money.of(initialAmount), userId);
 
     boolean success = balanceDAO.create(newBalance);
     if (success) {
@@ -196,7 +196,7 @@ public class CheckBalanceService {
       return false;
     }
 
-    return balanceDAO.updateBalance(userId, newAmount);
+    return balanceDAO.updateBalance(userId, Money.of(newAmount));
   }
 
   /**
@@ -0,0 +1,297 @@
+package com.tesdaciicc.service;
+
+import com.tesdaciicc.data.util.Config;
+import com.tesdaciicc.metrics.MetricsRegistry;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Failed-login counters over a sliding window, per identifier (email or
+ * number) and per source, shared by every service instance.
+ *
+ * A login reserves its attempt with {@link #tryAcquire(String, String)}
+ * before the database is touched: an identifier with
+ * {@link Config#MAX_LOGIN_ATTEMPTS} failures, or a source with
+ * {@link Config#MAX_LOGIN_ATTEMPTS_PER_SOURCE}, within the last
+ * {@link Config#LOGIN_WINDOW_SECONDS} is turned away. The reservation is
+ * counted as a failure up front, so logins racing on one identifier cannot
+ * all pass before any of them has failed; a successful login gives it back
+ * and clears its identifier's failures, but not its source's.
+ *
+ * Each window is a ring of time buckets, each bucket one long holding the
+ * bucket's start (in bucket units) and its count, updated with a single CAS,
+ * so counting takes no locks. Each dimension tracks at most
+ * {@link Config#LOGIN_LIMITER_MAX_KEYS} keys; once that many have failures in
+ * the window, further keys share one overflow window, which keeps memory
+ * bounded without switching throttling off under a flood of new identifiers.
+ */
+public final class LoginRateLimiter {
+
+    // The console app has no remote address; all of its logins share this source
+    public static final String LOCAL_SOURCE = "local";
+
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private static final LoginRateLimiter instance = new LoginRateLimiter(
+            TimeUnit.SECONDS.toMillis(Config.LOGIN_WINDOW_SECONDS), Config.LOGIN_WINDOW_BUCKETS,
+            Config.MAX_LOGIN_ATTEMPTS, Config.MAX_LOGIN_ATTEMPTS_PER_SOURCE, Config.LOGIN_LIMITER_MAX_KEYS);
+
+    static {
+        MetricsRegistry.getInstance().gauge("service.auth.loginLimiter.trackedKeys", instance::trackedKeys);
+    }
+
+    private final long bucketMillis;
+    private final int buckets;
+    private final int maxPerIdentifier;
+    private final int maxPerSource;
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, Window> identifiers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Window> sources = new ConcurrentHashMap<>();
+    private final Window identifierOverflow;
+    private final Window sourceOverflow;
+    // Stands in for keys with no failures; never incremented
+    private final Window empty;
+    private final LongAdder rejected = new LongAdder();
+
+    LoginRateLimiter(long windowMillis, int buckets, int maxPerIdentifier, int maxPerSource, int maxKeys) {
+        if (buckets <= 0 || windowMillis < buckets || maxPerIdentifier <= 0 || maxPerSource <= 0 || maxKeys <= 0) {
+            throw new IllegalArgumentException("Login window and limits must be positive");
+        }
+        this.bucketMillis = windowMillis / buckets;
+        this.buckets = buckets;
+        this.maxPerIdentifier = maxPerIdentifier;
+        this.maxPerSource = maxPerSource;
+        this.maxKeys = maxKeys;
+        this.identifierOverflow = new Window();
+        this.sourceOverflow = new Window();
+        this.empty = new Window();
+    }
+
+    public static LoginRateLimiter getInstance() {
+        return instance;
+    }
+
+    /**
+     * Reserve a login attempt. Unless it is released or succeeds, the
+     * attempt stays counted as a failure.
+     *
+     * @param identifier Email or phone number being logged in to
+     * @param source Where the attempt comes from
+     * @return The reserved attempt, empty if either has used up its failed attempts for the window
+     */
+    public Optional<Attempt> tryAcquire(String identifier, String source) {
+        long now = System.currentTimeMillis();
+        long bucket = now / bucketMillis;
+        String key = normalize(identifier);
+        Window identifierWindow = windowFor(identifiers, identifierOverflow, key, now);
+        Window sourceWindow = windowFor(sources, sourceOverflow, source, now);
+        // Count first and check after, so each racing attempt sees every one counted before it
+        identifierWindow.increment(bucket);
+        sourceWindow.increment(bucket);
+        if (identifierWindow.count(bucket) > maxPerIdentifier || sourceWindow.count(bucket) > maxPerSource) {
+            identifierWindow.decrement(bucket);
+            sourceWindow.decrement(bucket);
+            rejected.increment();
+            return Optional.empty();
+        }
+        return Optional.of(new Attempt(key, identifierWindow, sourceWindow, bucket));
+    }
+
+    /**
+     * @return Milliseconds until the identifier and source may try again, 0 if they may now
+     */
+    public long retryAfterMillis(String identifier, String source) {
+        long now = System.currentTimeMillis();
+        return Math.max(
+                lookup(identifiers, identifierOverflow, normalize(identifier)).retryAfterMillis(now, maxPerIdentifier),
+                lookup(sources, sourceOverflow, source).retryAfterMillis(now, maxPerSource));
+    }
+
+    public void clear() {
+        identifiers.clear();
+        sources.clear();
+        identifierOverflow.reset();
+        sourceOverflow.reset();
+    }
+
+    public int trackedKeys() {
+        return identifiers.size() + sources.size();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private Window lookup(ConcurrentHashMap<String, Window> windows, Window overflow, String key) {
+        Window window = windows.get(key);
+        if (window != null) {
+            return window;
+        }
+        // Keys that did not fit were counted in the overflow window
+        return windows.size() >= maxKeys ? overflow : empty;
+    }
+
+    private Window windowFor(ConcurrentHashMap<String, Window> windows, Window overflow, String key, long now) {
+        Window window = windows.get(key);
+        if (window != null) {
+            return window;
+        }
+        if (windows.size() >= maxKeys) {
+            // Make room by dropping keys with no failures left in the window
+            long bucket = now / bucketMillis;
+            windows.values().removeIf(w -> w.isIdle(bucket));
+            if (windows.size() >= maxKeys) {
+                return overflow;
+            }
+        }
+        return windows.computeIfAbsent(key, k -> new Window());
+    }
+
+    private static String normalize(String identifier) {
+        return identifier == null ? "" : identifier.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A reserved login attempt, counted as a failure until released
+     */
+    public final class Attempt {
+        private final String identifier;
+        private final Window identifierWindow;
+        private final Window sourceWindow;
+        private final long bucket;
+        private boolean settled;
+
+        private Attempt(String identifier, Window identifierWindow, Window sourceWindow, long bucket) {
+            this.identifier = identifier;
+            this.identifierWindow = identifierWindow;
+            this.sourceWindow = sourceWindow;
+            this.bucket = bucket;
+        }
+
+        /**
+         * The PIN was right: give the attempt back and clear the identifier's failures
+         */
+        public void succeeded() {
+            if (release()) {
+                identifiers.remove(identifier);
+            }
+        }
+
+        /**
+         * The attempt never got as far as checking the PIN, e.g. the service
+         * was busy or the database failed; give it back
+         *
+         * @return false if it had already been given back
+         */
+        public boolean release() {
+            if (settled) {
+                return false;
+            }
+            settled = true;
+            identifierWindow.decrement(bucket);
+            sourceWindow.decrement(bucket);
+            return true;
+        }
+    }
+
+    /**
+     * Ring of buckets; slot i holds (bucket number << COUNT_BITS) | count for
+     * the most recent bucket that mapped onto it
+     */
+    private final class Window {
+        private final AtomicLongArray slots;
+
+        Window() {
+            this.slots = new AtomicLongArray(buckets);
+        }
+
+        void increment(long bucket) {
+            int index = (int) (bucket % buckets);
+            while (true) {
+                long current = slots.get(index);
+                long count = (current >>> COUNT_BITS) == bucket ? current & COUNT_MASK : 0;
+                if (count == COUNT_MASK) {
+                    return;
+                }
+                if (slots.compareAndSet(index, current, (bucket << COUNT_BITS) | (count + 1))) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Take back one count from the bucket, unless it has already left the window
+         */
+        void decrement(long bucket) {
+            int index = (int) (bucket % buckets);
+            while (true) {
+                long current = slots.get(index);
+                if ((current >>> COUNT_BITS) != bucket || (current & COUNT_MASK) == 0) {
+                    return;
+                }
+                if (slots.compareAndSet(index, current, current - 1)) {
+                    return;
+                }
+            }
+        }
+
+        int count(long bucket) {
+            long total = 0;
+            for (int i = 0; i < buckets; i++) {
+                long slot = slots.get(i);
+                if (isLive(slot >>> COUNT_BITS, bucket)) {
+                    total += slot & COUNT_MASK;
+                }
+            }
+            return (int) Math.min(total, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Time until enough of the oldest buckets leave the window to bring the count under the limit
+         */
+        long retryAfterMillis(long now, int limit) {
+            long bucket = now / bucketMillis;
+            int excess = count(bucket) - limit + 1;
+            if (excess <= 0) {
+                return 0;
+            }
+            // Walk the live buckets from oldest to newest
+            for (long b = bucket - buckets + 1; b <= bucket; b++) {
+                long slot = slots.get((int) (b % buckets));
+                if ((slot >>> COUNT_BITS) == b) {
+                    excess -= (int) (slot & COUNT_MASK);
+                    if (excess <= 0) {
+                        return (b + buckets) * bucketMillis - now;
+                    }
+                }
+            }
+            return buckets * bucketMillis;
+        }
+
+        boolean isIdle(long bucket) {
+            for (int i = 0; i < buckets; i++) {
+                long slot = slots.get(i);
+                if (isLive(slot >>> COUNT_BITS, bucket) && (slot & COUNT_MASK) > 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void reset() {
+            for (int i = 0; i < buckets; i++) {
+                slots.set(i, 0);
+            }
+        }
+
+        private boolean isLive(long slotBucket, long bucket) {
+            return slotBucket > bucket - buckets && slotBucket <= bucket;
+        }
+    }
+}
@@ -1,16 +1,21 @@
 package com.tesdaciicc.service;
 
+import com.tesdaciicc.model.EpochMillis;
+import com.tesdaciicc.model.TransactionPage;
+import com.tesdaciicc.model.TransactionSummary;
 import com.tesdaciicc.model.Transactions;
 import com.tesdaciicc.data.repository.TransactionsDAO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service class for Transactions business logic
@@ -39,18 +44,12 @@ public class TransactionsService {
         logger.info("Retrieving all transactions via service layer");
         
         try {
+            // The query already applies the isValidTransaction rules
             List<Transactions> transactions = transactionsDAO.viewAll();
             
-            // Apply business logic if needed
-            // For example, filter out invalid transactions, apply formatting, etc.
-            List<Transactions> validTransactions = transactions.stream()
-                .filter(this::isValidTransaction)
-                .collect(Collectors.toList());
+            logger.info("Service returned {} valid transactions", transactions.size());
             
-            logger.info("Service returned {} valid transactions out of {} total", 
-                       validTransactions.size(), transactions.size());
-            
-            return validTransactions;
+            return transactions;
             
         } catch (Exception e) {
             logger.error("Error in service layer while retrieving all transactions: {}", e.getMessage(), e);
@@ -73,17 +72,12 @@ public class TransactionsService {
         }
         
         try {
+            // The query already applies the isValidTransaction rules
             List<Transactions> transactions = transactionsDAO.viewUserAll(userId);
             
-            // Apply business logic for user-specific transactions
-            List<Transactions> validTransactions = transactions.stream()
-                .filter(this::isValidTransaction)
-                .collect(Collectors.toList());
-            
-            logger.info("Service returned {} valid transactions for user {} out of {} total", 
-                       validTransactions.size(), userId, transactions.size());
+            logger.info("Service returned {} valid transactions for user {}", transactions.size(), userId);
             
-            return validTransactions;
+            return transactions;
             
         } catch (Exception e) {
             logger.error("Error in service layer while retrieving transactions for user {}: {}", 
@@ -92,6 +86,36 @@ public class TransactionsService {
         }
     }
     
+    /**
+     * Stream all valid transactions, newest first, without loading them into memory.
+     * The stream holds a database connection and must be closed (try-with-resources)
+     * @return Stream of all transactions with business logic applied
+     */
+    public Stream<Transactions> streamAll() {
+        logger.info("Streaming all transactions via service layer");
+        
+        return transactionsDAO.streamAll()
+            .filter(this::isValidTransaction);
+    }
+    
+    /**
+     * Stream all valid transactions for a specific user, newest first.
+     * The stream holds a database connection and must be closed (try-with-resources)
+     * @param userId User ID to filter transactions
+     * @return Stream of the user's transactions with business logic applied
+     */
+    public Stream<Transactions> streamUserAll(int userId) {
+        logger.info("Streaming all transactions for user ID: {} via service layer", userId);
+        
+        if (userId <= 0) {
+            logger.warn("Invalid user ID provided: {}", userId);
+            throw new IllegalArgumentException("User ID must be a positive integer");
+        }
+        
+        return transactionsDAO.streamUserAll(userId)
+            .filter(this::isValidTransaction);
+    }
+    
     /**
      * View a specific transaction by transaction ID
      * @param transactionId Transaction ID to retrieve
@@ -140,8 +164,9 @@ public class TransactionsService {
         logger.info("Generating statistics for all transactions");
         
         try {
-            List<Transactions> allTransactions = viewAll();
-            return generateStatistics(allTransactions, "All Transactions");
+            TransactionSummary summary = transactionsDAO.getTransactionSummary()
+                .orElseThrow(() -> new IllegalStateException("Transaction summary query failed"));
+            return toStatistics(summary, "All Transactions");
             
         } catch (Exception e) {
             logger.error("Error generating all transaction statistics: {}", e.getMessage(), e);
@@ -162,8 +187,9 @@ public class TransactionsService {
         }
         
         try {
-            List<Transactions> userTransactions = viewUserAll(userId);
-            return generateStatistics(userTransactions, "User " + userId + " Transactions");
+            TransactionSummary summary = transactionsDAO.getUserTransactionSummary(userId)
+                .orElseThrow(() -> new IllegalStateException("Transaction summary query failed"));
+            return toStatistics(summary, "User " + userId + " Transactions");
             
         } catch (Exception e) {
             logger.error("Error generating user {} transaction statistics: {}", userId, e.getMessage(), e);
@@ -227,6 +253,56 @@ public class TransactionsService {
         }
     }
     
+    /**
+     * Get one page of all transactions, newest first. Each page costs the same
+     * however deep it is, unlike {@link #viewAllPaginated(int, int)}
+     * @param cursor Token from the previous page, or null for the first page
+     * @param pageSize Number of transactions per page
+     * @return Page of transactions with the token for the next page
+     */
+    public TransactionPage viewAllPage(String cursor, int pageSize) {
+        logger.info("Retrieving transactions page: pageSize={}", pageSize);
+        
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be a positive integer");
+        }
+        
+        try {
+            return transactionsDAO.viewAllPage(cursor, pageSize);
+            
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error retrieving transactions page: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to retrieve transactions page", e);
+        }
+    }
+    
+    /**
+     * Get one page of a user's transactions, newest first
+     * @param userId User ID
+     * @param cursor Token from the previous page, or null for the first page
+     * @param pageSize Number of transactions per page
+     * @return Page of transactions with the token for the next page
+     */
+    public TransactionPage viewUserPage(int userId, String cursor, int pageSize) {
+        logger.info("Retrieving user transactions page: userId={}, pageSize={}", userId, pageSize);
+        
+        if (userId <= 0 || pageSize <= 0) {
+            throw new IllegalArgumentException("User ID and page size must be positive integers");
+        }
+        
+        try {
+            return transactionsDAO.viewUserPage(userId, cursor, pageSize);
+            
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error retrieving user transactions page: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to retrieve user transactions page", e);
+        }
+    }
+    
     /**
      * Search transactions by transaction name
      * @param searchTerm Search term to match against transaction name
@@ -307,12 +383,12 @@ public class TransactionsService {
             throw new IllegalArgumentException("User ID must be a positive integer");
         }
         
-        try {
-            List<Transactions> allUserTransactions = viewUserAll(userId);
-            LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-            
-            return allUserTransactions.stream()
-                .filter(t -> t.getTransactionDate().isAfter(thirtyDaysAgo))
+        long thirtyDaysAgo = EpochMillis.of(LocalDateTime.now().minusDays(30));
+        
+        try (Stream<Transactions> userTransactions = streamUserAll(userId)) {
+            // Rows come newest first, so stop reading at the first one older than the window
+            return userTransactions
+                .takeWhile(t -> t.getTransactionDateMillis() > thirtyDaysAgo)
                 .collect(Collectors.toList());
                 
         } catch (Exception e) {
@@ -383,13 +459,13 @@ public class TransactionsService {
         
         // Check if transaction has valid amount (positive)
         if (transaction.getTransactionAmount() == null || 
-            transaction.getTransactionAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            !transaction.getTransactionAmount().isPositive()) {
             logger.debug("Transaction has invalid amount: {}", transaction.getTransactionAmount());
             return false;
         }
         
         // Check if transaction has valid date
-        if (transaction.getTransactionDate() == null) {
+        if (transaction.getTransactionDateMillis() == 0) {
             logger.debug("Transaction has null date");
             return false;
         }
@@ -405,54 +481,35 @@ public class TransactionsService {
     }
     
     /**
-     * Generate statistics for a list of transactions
-     * @param transactions List of transactions
+     * Build statistics from the database summary. The summary only counts rows that
+     * pass the same checks as {@link #isValidTransaction(Transactions)}
+     * @param summary Aggregates computed by the database
      * @param label Label for the statistics
      * @return TransactionStatistics object
      */
-    private TransactionStatistics generateStatistics(List<Transactions> transactions, String label) {
+    private TransactionStatistics toStatistics(TransactionSummary summary, String label) {
         logger.debug("Generating statistics for: {}", label);
         
-        if (transactions == null || transactions.isEmpty()) {
+        if (summary.getCount() == 0) {
             return new TransactionStatistics(label, 0, BigDecimal.ZERO, BigDecimal.ZERO, 
                                            BigDecimal.ZERO, BigDecimal.ZERO, 0, 0, 0, 0);
         }
         
-        int totalCount = transactions.size();
-        
-        BigDecimal totalAmount = transactions.stream()
-            .map(Transactions::getTransactionAmount)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        BigDecimal averageAmount = totalAmount.divide(BigDecimal.valueOf(totalCount), 2, BigDecimal.ROUND_HALF_UP);
-        
-        BigDecimal maxAmount = transactions.stream()
-            .map(Transactions::getTransactionAmount)
-            .max(BigDecimal::compareTo)
-            .orElse(BigDecimal.ZERO);
-        
-        BigDecimal minAmount = transactions.stream()
-            .map(Transactions::getTransactionAmount)
-            .min(BigDecimal::compareTo)
-            .orElse(BigDecimal.ZERO);
-        
-        // Count transaction types
-        long transferCount = transactions.stream().mapToLong(t -> t.isTransfer() ? 1 : 0).sum();
-        long cashInCount = transactions.stream().mapToLong(t -> t.isCashIn() ? 1 : 0).sum();
-        long cashOutCount = transactions.stream().mapToLong(t -> t.isCashOut() ? 1 : 0).sum();
-        long otherCount = totalCount - transferCount - cashInCount - cashOutCount;
+        BigDecimal totalAmount = summary.getTotalAmount().toBigDecimal();
+        BigDecimal averageAmount = totalAmount
+            .divide(BigDecimal.valueOf(summary.getCount()), 2, RoundingMode.HALF_UP);
         
         return new TransactionStatistics(
             label,
-            totalCount,
+            (int) summary.getCount(),
             totalAmount,
             averageAmount,
-            maxAmount,
-            minAmount,
-            (int) transferCount,
-            (int) cashInCount,
-            (int) cashOutCount,
-            (int) otherCount
+            summary.getMaxAmount().toBigDecimal(),
+            summary.getMinAmount().toBigDecimal(),
+            (int) summary.getTransferCount(),
+            (int) summary.getCashInCount(),
+            (int) summary.getCashOutCount(),
+            (int) summary.getOtherCount()
         );
     }
     
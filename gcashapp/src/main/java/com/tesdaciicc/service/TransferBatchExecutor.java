@@ -0,0 +1,241 @@
+package com.tesdaciicc.service;
+
+import com.tesdaciicc.data.repository.UserRepository;
+import com.tesdaciicc.data.util.Config;
+import com.tesdaciicc.data.util.TransactionTemplate;
+import com.tesdaciicc.model.UserAuthentication;
+import com.tesdaciicc.service.CashTransferService.TransferResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group-commit front end for {@link CashTransferService}.
+ *
+ * Callers submit transfers and get a future back. A single worker thread
+ * collects up to {@code maxBatchSize} transfers, waiting at most
+ * {@code maxDelayMicros} after the first one arrives, and runs the whole batch
+ * in one database transaction, so the batch pays for one COMMIT and one fsync.
+ * Each transfer runs under its own savepoint: one that fails is rolled back
+ * on its own and the rest of the batch still commits. Futures are completed
+ * only after the commit, so a caller never sees success for a transfer that
+ * was not stored.
+ */
+public class TransferBatchExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransferBatchExecutor.class);
+    private static final String SHUTTING_DOWN = "Transfer service is shutting down. Please try again.";
+
+    private final CashTransferService transferService;
+    private final UserRepository userRepository;
+    private final AccountLockManager accountLocks = AccountLockManager.getInstance();
+    private final BlockingQueue<PendingTransfer> queue = new LinkedBlockingQueue<>();
+    // Guards running together with queue.add, so nothing is queued after shutdown has begun
+    private final Object submitLock = new Object();
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    public TransferBatchExecutor() {
+        this(new CashTransferService(), Config.TRANSFER_BATCH_MAX_SIZE, Config.TRANSFER_BATCH_MAX_DELAY_MICROS);
+    }
+
+    public TransferBatchExecutor(CashTransferService transferService, int maxBatchSize, long maxDelayMicros) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + maxBatchSize);
+        }
+        this.transferService = transferService;
+        this.userRepository = new UserRepository();
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, maxDelayMicros));
+        this.worker = new Thread(this::run, "transfer-batch");
+        this.worker.setDaemon(true);
+        this.worker.start();
+        logger.info("TransferBatchExecutor started (batch size {}, max delay {}us)", maxBatchSize, maxDelayMicros);
+    }
+
+    /**
+     * Queue a transfer for the next batch
+     * @param senderUserId Sender's user ID
+     * @param recipientMobileNumber Recipient's 11-digit mobile number
+     * @param amount Amount to transfer
+     * @param description Transfer description/notes
+     * @return Future completed with the transfer's own result once its batch has committed
+     */
+    public CompletableFuture<TransferResult> submit(int senderUserId, String recipientMobileNumber,
+                                                    BigDecimal amount, String description) {
+        PendingTransfer pending = new PendingTransfer(senderUserId, recipientMobileNumber, amount, description);
+        synchronized (submitLock) {
+            if (running) {
+                queue.add(pending);
+                return pending.future;
+            }
+        }
+        pending.future.complete(TransferResult.failure(SHUTTING_DOWN));
+        return pending.future;
+    }
+
+    /**
+     * Stop taking transfers, finish the ones already queued and stop the worker
+     */
+    public void shutdown() {
+        stopTaking();
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Only left over if the worker was interrupted
+        failQueued();
+        logger.info("TransferBatchExecutor stopped");
+    }
+
+    private void stopTaking() {
+        synchronized (submitLock) {
+            running = false;
+        }
+    }
+
+    private void failQueued() {
+        PendingTransfer pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future.complete(TransferResult.failure(SHUTTING_DOWN));
+        }
+    }
+
+    private void run() {
+        List<PendingTransfer> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingTransfer first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - batch.size());
+
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    PendingTransfer next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopTaking();
+                failAll(batch, SHUTTING_DOWN);
+                failQueued();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error in transfer batch: {}", e.getMessage(), e);
+                failAll(batch, "Unexpected error occurred. Transfer cancelled.");
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    @SuppressWarnings("try") // the account locks are only held, never referenced
+    private void processBatch(List<PendingTransfer> batch) {
+        // Take every account lock the batch needs before the writer connection,
+        // the same order a single cashTransfer uses, so the two cannot deadlock
+        try (AccountLockManager.AccountLocks locks = accountLocks.lockAll(accountsTouched(batch))) {
+            TransactionTemplate.execute(connection -> {
+                for (PendingTransfer pending : batch) {
+                    if (!recipientLocked(pending)) {
+                        // Locking it now, behind the writer and other stripes, could deadlock
+                        pending.result = TransferResult.failure(
+                                "Recipient account changed while the transfer was queued. Please try again.");
+                        continue;
+                    }
+                    // cashTransfer nests its own transaction, which becomes a savepoint here
+                    pending.result = transferService.cashTransfer(pending.senderUserId,
+                            pending.recipientMobileNumber, pending.amount, pending.description);
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            logger.error("Database error committing transfer batch of {}: {}", batch.size(), e.getMessage(), e);
+            failAll(batch, "Database error occurred. Transfer cancelled.");
+            return;
+        }
+
+        for (PendingTransfer pending : batch) {
+            pending.future.complete(pending.result);
+        }
+        logger.debug("Committed transfer batch of {}", batch.size());
+    }
+
+    private Set<Integer> accountsTouched(List<PendingTransfer> batch) {
+        Set<Integer> userIds = new HashSet<>();
+        for (PendingTransfer pending : batch) {
+            userIds.add(pending.senderUserId);
+            if (transferService.isValidMobileNumber(pending.recipientMobileNumber)) {
+                userRepository.findByNumber(pending.recipientMobileNumber)
+                        .map(UserAuthentication::getId)
+                        .ifPresent(userIds::add);
+            }
+        }
+        return userIds;
+    }
+
+    /**
+     * Looks the recipient up again inside the batch transaction, where the
+     * user cache is bypassed. A recipient registered, or a number moved to
+     * another account, after accountsTouched ran may sit on a stripe this
+     * batch does not hold.
+     */
+    private boolean recipientLocked(PendingTransfer pending) {
+        if (!transferService.isValidMobileNumber(pending.recipientMobileNumber)) {
+            return true; // cashTransfer rejects it before taking any lock
+        }
+        return userRepository.findByNumber(pending.recipientMobileNumber)
+                .map(recipient -> accountLocks.isHeldByCurrentThread(recipient.getId()))
+                .orElse(true);
+    }
+
+    private void failAll(List<PendingTransfer> batch, String message) {
+        for (PendingTransfer pending : batch) {
+            pending.future.complete(TransferResult.failure(message));
+        }
+    }
+
+    /**
+     * A queued transfer and the future its caller is waiting on
+     */
+    private static class PendingTransfer {
+        private final int senderUserId;
+        private final String recipientMobileNumber;
+        private final BigDecimal amount;
+        private final String description;
+        private final CompletableFuture<TransferResult> future = new CompletableFuture<>();
+        private TransferResult result;
+
+        private PendingTransfer(int senderUserId, String recipientMobileNumber, BigDecimal amount, String description) {
+            this.senderUserId = senderUserId;
+            this.recipientMobileNumber = recipientMobileNumber;
+            this.amount = amount;
+            this.description = description;
+        }
+    }
+}
@@ -2,12 +2,15 @@ package com.tesdaciicc.service;
 
 import com.tesdaciicc.data.repository.BalanceDAO;
 import com.tesdaciicc.data.repository.UserAuthenticationDAO;
-import com.tesdaciicc.data.util.ConnectionFactory;
+import com.tesdaciicc.data.repository.UserRepository;
+import com.tesdaciicc.data.util.TransactionTemplate;
 import com.tesdaciicc.model.Balance;
+import com.tesdaciicc.model.Money;
 import com.tesdaciicc.model.UserAuthentication;
+import com.tesdaciicc.metrics.MetricsRegistry;
+import com.tesdaciicc.security.PinVerifier;
+import com.tesdaciicc.security.PinVerifierBusyException;
 
-import java.math.BigDecimal;
-import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Optional;
 import java.util.regex.Pattern;
@@ -18,7 +21,11 @@ import org.slf4j.LoggerFactory;
 public class UserAuthenticationService {
 
   private static final Logger logger = LoggerFactory.getLogger(UserAuthenticationService.class);
+  private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
   private final UserAuthenticationDAO dao;
+  private final UserRepository userRepository = new UserRepository();
+  private final LoginRateLimiter loginLimiter = LoginRateLimiter.getInstance();
+  private final PinVerifier pinVerifier = PinVerifier.getInstance();
 
   // Validation patterns
   private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
@@ -38,75 +45,59 @@ public class UserAuthenticationService {
  * @return true if both user and balance are created successfully, false otherwise
  */
 public boolean registerUserWithBalance(UserAuthentication user) {
-    logger.info("Registering user with balance initialization: {}", user.getEmail());
+    Boolean result = metrics.timer("service.auth.registerUserWithBalance").record(() -> {
+        logger.info("Registering user with balance initialization: {}", user.getEmail());
     
-    Connection connection = null;
-    try {
-        // Get database connection and start transaction
-        connection = ConnectionFactory.getConnection();
-        connection.setAutoCommit(false);
-        
-        // Step 1: Register the user first
-        boolean userRegistered = registerUser(user);
-        if (!userRegistered) {
-            logger.error("Failed to register user: {}", user.getEmail());
-            connection.rollback();
-            return false;
-        }
-        
-        // Step 2: Find the newly created user to get their ID
-        Optional<UserAuthentication> registeredUserOpt = dao.findByEmail(user.getEmail());
-        if (!registeredUserOpt.isPresent()) {
-            logger.error("Could not find newly registered user: {}", user.getEmail());
-            connection.rollback();
+        if (!validateUser(user)) {
+            logger.warn("User validation failed for: {}", user.getEmail());
             return false;
         }
+
+        try {
+            // Hashed on the PIN verifier's pool before the transaction takes the writer
+            String pinHash = hashPin(user.getPin());
+
+            // User and balance are created in one transaction so neither exists without the other
+            boolean registered = TransactionTemplate.execute(connection -> {
+                // Step 1: Register the user first
+                if (!saveNewUser(user, pinHash)) {
+                    logger.error("Failed to register user: {}", user.getEmail());
+                    return false;
+                }
+            
+                // Step 2: Find the newly created user to get their ID
+                Optional<UserAuthentication> registeredUserOpt = userRepository.findByEmail(user.getEmail());
+                if (!registeredUserOpt.isPresent()) {
+                    throw new SQLException("Could not find newly registered user: " + user.getEmail());
+                }
+            
+                UserAuthentication registeredUser = registeredUserOpt.get();
+            
+                // Step 3: Create initial balance record with 0.00
+                BalanceDAO balanceDAO = new BalanceDAO();
+                Balance initialBalance = new Balance(
+                    registeredUser.getId(), // userId
+                    Money.ZERO             // Starting balance of 0.00
+                );
+            
+                if (!balanceDAO.create(initialBalance)) {
+                    throw new SQLException("Failed to create initial balance for user: " + user.getEmail());
+                }
+                return true;
+            });
         
-        UserAuthentication registeredUser = registeredUserOpt.get();
-        
-        // Step 3: Create initial balance record with 0.00
-        BalanceDAO balanceDAO = new BalanceDAO();
-        Balance initialBalance = new Balance(
-            registeredUser.getId(), // userId
-            BigDecimal.ZERO        // Starting balance of 0.00
-        );
-        
-        boolean balanceCreated = balanceDAO.create(initialBalance);
-        if (!balanceCreated) {
-            logger.error("Failed to create initial balance for user: {}", user.getEmail());
-            connection.rollback();
-            return false;
-        }
-        
-        // Step 4: Commit both user and balance creation
-        connection.commit();
-        logger.info("Successfully registered user with initial balance: {}", user.getEmail());
-        return true;
-        
-    } catch (Exception e) {
-        // Rollback transaction on any error
-        if (connection != null) {
-            try {
-                connection.rollback();
-                logger.error("Transaction rolled back due to error during registration: {}", e.getMessage());
-            } catch (SQLException rollbackEx) {
-                logger.error("Failed to rollback transaction: {}", rollbackEx.getMessage());
+            if (registered) {
+                logger.info("Successfully registered user with initial balance: {}", user.getEmail());
             }
-        }
-        logger.error("Error during user registration with balance: {}", e.getMessage(), e);
-        return false;
+            return registered;
         
-    } finally {
-        // Restore auto-commit and close connection
-        if (connection != null) {
-            try {
-                connection.setAutoCommit(true);
-                connection.close();
-            } catch (SQLException e) {
-                logger.error("Error closing connection: {}", e.getMessage());
-            }
+        } catch (Exception e) {
+            logger.error("Error during user registration with balance: {}", e.getMessage(), e);
+            return false;
         }
-    }
+    });
+    metrics.counter(result ? "service.auth.registerUserWithBalance.success" : "service.auth.registerUserWithBalance.failure").increment();
+    return result;
 }
 
 
@@ -125,20 +116,36 @@ public boolean registerUserWithBalance(UserAuthentication user) {
       return false;
     }
 
+    try {
+      return saveNewUser(userAuthentication, hashPin(userAuthentication.getPin()));
+    } catch (Exception e) {
+      logger.error("Registration error for user: {} - {}", userAuthentication.getEmail(), e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Saves a validated user unless the email or phone number is taken
+   * 
+   * @param userAuthentication User data to register
+   * @param pinHash            Hash of the user's PIN
+   * @return true if registration successful, false otherwise
+   */
+  private boolean saveNewUser(UserAuthentication userAuthentication, String pinHash) {
     // Check if email already exists
-    if (dao.findByEmail(userAuthentication.getEmail()).isPresent()) {
+    if (userRepository.findByEmail(userAuthentication.getEmail()).isPresent()) {
       logger.warn("Email already exists: {}", userAuthentication.getEmail());
       return false;
     }
 
     // Check if phone number already exists
-    if (dao.findByNumber(userAuthentication.getNumber()).isPresent()) {
+    if (userRepository.findByNumber(userAuthentication.getNumber()).isPresent()) {
       logger.warn("Phone number already exists: {}", userAuthentication.getNumber());
       return false;
     }
 
     try {
-      Optional<UserAuthentication> savedUser = dao.save(userAuthentication);
+      Optional<UserAuthentication> savedUser = userRepository.save(userAuthentication, pinHash);
       if (savedUser.isPresent()) {
         logger.info("User registered successfully with ID: {}", savedUser.get().getId());
         return true;
@@ -160,65 +167,87 @@ public boolean registerUserWithBalance(UserAuthentication user) {
    * @return UserAuthentication with token if successful, null if failed
    */
   public UserAuthentication loginUser(String emailOrNumber, String pin) {
-    logger.info("Attempting login for: {}", emailOrNumber);
+    return loginUser(emailOrNumber, pin, LoginRateLimiter.LOCAL_SOURCE);
+  }
 
-    // Validate input
-    if (emailOrNumber == null || emailOrNumber.trim().isEmpty()) {
-      logger.warn("Empty email/number provided for login");
-      return null;
-    }
+  /**
+   * Login from a given source. The attempt is reserved with the rate limiter
+   * before the database is queried, and identifiers and sources with too many
+   * recent failures are turned away.
+   * 
+   * @param emailOrNumber Email or phone number
+   * @param pin           User PIN
+   * @param source        Where the attempt comes from, for throttling
+   * @return UserAuthentication with token if successful, null if failed or throttled
+   * @throws PinVerifierBusyException if the PIN could not be checked right now;
+   *         the attempt is not counted as a failure
+   */
+  public UserAuthentication loginUser(String emailOrNumber, String pin, String source) {
+    UserAuthentication result = metrics.timer("service.auth.loginUser").record(() -> {
+      logger.info("Attempting login for: {}", emailOrNumber);
 
-    if (pin == null || !PIN_PATTERN.matcher(pin).matches()) {
-      logger.warn("Invalid PIN format for login: {}", emailOrNumber);
-      return null;
-    }
+      // Validate input
+      if (emailOrNumber == null || emailOrNumber.trim().isEmpty()) {
+        logger.warn("Empty email/number provided for login");
+        return null;
+      }
 
-    try {
-      Optional<UserAuthentication> authenticatedUser = dao.authenticate(emailOrNumber.trim(), pin);
+      if (pin == null || !PIN_PATTERN.matcher(pin).matches()) {
+        logger.warn("Invalid PIN format for login: {}", emailOrNumber);
+        return null;
+      }
 
-      // if (authenticatedUser.isPresent()) {
-      // UserAuthentication user = authenticatedUser.get();
-      // logger.info("User logged in successfully: {} with token", user.getId());
-      // return user; // Contains the generated token
+      Optional<LoginRateLimiter.Attempt> attempt = loginLimiter.tryAcquire(emailOrNumber, source);
+      if (attempt.isEmpty()) {
+        logger.warn("Too many failed logins, attempt rejected for: {}", emailOrNumber);
+        metrics.counter("service.auth.loginUser.throttled").increment();
+        return null;
+      }
 
-      if (authenticatedUser.isPresent()) {
-        UserAuthentication user = authenticatedUser.get();
+      try {
+        Optional<UserAuthentication> authenticatedUser = dao.authenticate(emailOrNumber.trim(), pin);
 
-        // Verify token exists in database
-        Optional<UserAuthentication> dbUser = dao.validateToken(user.getToken());
-        if (!dbUser.isPresent()) {
-          logger.error("CRITICAL: Token was generated but not saved to DB for user {}", user.getId());
+        if (authenticatedUser.isEmpty()) {
+          // The reserved attempt stays counted as the failure
+          logger.warn("Authentication failed for: {}", emailOrNumber);
           return null;
         }
 
-        logger.info("User logged in successfully: {} with token", user.getId());
-        return user;
-      }
-
-      if (authenticatedUser.isPresent()) {
         UserAuthentication user = authenticatedUser.get();
-        logger.debug("Login successful - User ID: {}, Token: {}",
-            user.getId(), user.getToken());
-        return user;
-      }
 
-      if (authenticatedUser.isPresent()) {
-        UserAuthentication user = authenticatedUser.get();
-        if (user.getToken() == null || user.getToken().isEmpty()) {
-          logger.error("Login succeeded but token was null for user: {}", user.getId());
+        // Verify token exists in database
+        if (dao.validateToken(user.getToken()).isEmpty()) {
+          attempt.get().release();
+          logger.error("CRITICAL: Token was generated but not saved to DB for user {}", user.getId());
           return null;
         }
+
+        attempt.get().succeeded();
         logger.info("User logged in successfully: {} with token", user.getId());
         return user;
-      } else {
-        logger.warn("Authentication failed for: {}", emailOrNumber);
+      } catch (PinVerifierBusyException e) {
+        attempt.get().release();
+        logger.warn("PIN checks are saturated, login not attempted for: {}", emailOrNumber);
+        metrics.counter("service.auth.loginUser.busy").increment();
+        throw e;
+      } catch (Exception e) {
+        attempt.get().release();
+        logger.error("Login failed for: {} - {}", emailOrNumber, e.getMessage());
         return null;
       }
-    } catch (Exception e) {
-      logger.error("Login failed for: {} - {}", emailOrNumber, e.getMessage());
-      return null;
-    }
 
+    });
+    metrics.counter(result != null ? "service.auth.loginUser.success" : "service.auth.loginUser.failure").increment();
+    return result;
+  }
+
+  /**
+   * @param emailOrNumber Email or phone number
+   * @return Seconds until a login for it is accepted again, 0 if it is not throttled
+   */
+  public long getLoginRetryAfterSeconds(String emailOrNumber) {
+    long millis = loginLimiter.retryAfterMillis(emailOrNumber, LoginRateLimiter.LOCAL_SOURCE);
+    return (millis + 999) / 1000;
   }
 
   /**
@@ -259,59 +288,85 @@ public boolean registerUserWithBalance(UserAuthentication user) {
    * @return true if PIN change successful, false otherwise
    */
   public boolean changePin(String emailOrNumber, String oldPin, String newPin) {
-    logger.info("Attempting PIN change for: {}", emailOrNumber);
+    Boolean result = metrics.timer("service.auth.changePin").record(() -> {
+      logger.info("Attempting PIN change for: {}", emailOrNumber);
 
-    // Validate inputs
-    if (emailOrNumber == null || emailOrNumber.trim().isEmpty()) {
-      logger.warn("Empty email/number provided for PIN change");
-      return false;
-    }
-
-    if (oldPin == null || !PIN_PATTERN.matcher(oldPin).matches()) {
-      logger.warn("Invalid old PIN format for: {}", emailOrNumber);
-      return false;
-    }
+      // Validate inputs
+      if (emailOrNumber == null || emailOrNumber.trim().isEmpty()) {
+        logger.warn("Empty email/number provided for PIN change");
+        return false;
+      }
 
-    if (newPin == null || !PIN_PATTERN.matcher(newPin).matches()) {
-      logger.warn("Invalid new PIN format for: {}", emailOrNumber);
-      return false;
-    }
+      if (oldPin == null || !PIN_PATTERN.matcher(oldPin).matches()) {
+        logger.warn("Invalid old PIN format for: {}", emailOrNumber);
+        return false;
+      }
 
-    if (oldPin.equals(newPin)) {
-      logger.warn("New PIN same as old PIN for: {}", emailOrNumber);
-      return false;
-    }
+      if (newPin == null || !PIN_PATTERN.matcher(newPin).matches()) {
+        logger.warn("Invalid new PIN format for: {}", emailOrNumber);
+        return false;
+      }
 
-    if (newPin.equals(oldPin) || newPin.matches("(.)\\1{3}")) {
-      logger.warn("Avoid using easily guessable sequences like 1111, 1234, or your birthdate: {}", emailOrNumber);
-      return false;
-    }
+      if (oldPin.equals(newPin)) {
+        logger.warn("New PIN same as old PIN for: {}", emailOrNumber);
+        return false;
+      }
 
-    try {
-      // First verify old PIN by attempting authentication
-      Optional<UserAuthentication> user = dao.authenticate(emailOrNumber.trim(), oldPin);
+      if (newPin.equals(oldPin) || newPin.matches("(.)\\1{3}")) {
+        logger.warn("Avoid using easily guessable sequences like 1111, 1234, or your birthdate: {}", emailOrNumber);
+        return false;
+      }
 
-      if (user.isPresent()) {
-        // Old PIN is correct, update to new PIN
-        boolean updated = dao.updatePin(user.get().getId(), newPin);
+      Optional<LoginRateLimiter.Attempt> attempt = loginLimiter.tryAcquire(emailOrNumber,
+          LoginRateLimiter.LOCAL_SOURCE);
+      if (attempt.isEmpty()) {
+        logger.warn("Too many failed logins, PIN change rejected for: {}", emailOrNumber);
+        return false;
+      }
 
-        if (updated) {
-          // Logout all sessions for security after PIN change
-          dao.logoutAll(user.get().getId());
-          logger.info("PIN changed successfully for user: {}", user.get().getId());
-          return true;
+      try {
+        // First verify old PIN by attempting authentication
+        Optional<UserAuthentication> user = dao.authenticate(emailOrNumber.trim(), oldPin);
+
+        if (user.isPresent()) {
+          attempt.get().succeeded();
+          // Old PIN is correct, update to new PIN
+          boolean updated = userRepository.updatePin(user.get().getId(), hashPin(newPin));
+
+          if (updated) {
+            // Logout all sessions for security after PIN change
+            dao.logoutAll(user.get().getId());
+            logger.info("PIN changed successfully for user: {}", user.get().getId());
+            return true;
+          } else {
+            logger.error("Failed to update PIN in database for user: {}", user.get().getId());
+            return false;
+          }
         } else {
-          logger.error("Failed to update PIN in database for user: {}", user.get().getId());
+          // The reserved attempt stays counted as the failure
+          logger.warn("Old PIN verification failed for: {}", emailOrNumber);
           return false;
         }
-      } else {
-        logger.warn("Old PIN verification failed for: {}", emailOrNumber);
+      } catch (Exception e) {
+        attempt.get().release();
+        logger.error("PIN change failed for: {} - {}", emailOrNumber, e.getMessage());
         return false;
       }
-    } catch (Exception e) {
-      logger.error("PIN change failed for: {} - {}", emailOrNumber, e.getMessage());
-      return false;
-    }
+    });
+    metrics.counter(result ? "service.auth.changePin.success" : "service.auth.changePin.failure").increment();
+    return result;
+  }
+
+  /**
+   * Hashes a PIN on the PIN verifier's pool, so the caller must not hold the
+   * writer
+   * 
+   * @param pin PIN to hash
+   * @return Hash to store in users.pin
+   * @throws PinVerifierBusyException if the pool is saturated
+   */
+  private String hashPin(String pin) {
+    return PinVerifier.await(pinVerifier.hash(pin));
   }
 
   /**
@@ -321,25 +376,29 @@ public boolean registerUserWithBalance(UserAuthentication user) {
    * @return true if logout successful, false otherwise
    */
   public boolean logout(String token) {
-    if (token == null || token.trim().isEmpty()) {
-      logger.warn("Empty token provided for logout");
-      return false;
-    }
+    Boolean result = metrics.timer("service.auth.logout").record(() -> {
+      if (token == null || token.trim().isEmpty()) {
+        logger.warn("Empty token provided for logout");
+        return false;
+      }
 
-    try {
-      boolean loggedOut = dao.logout(token.trim());
+      try {
+        boolean loggedOut = dao.logout(token.trim());
 
-      if (loggedOut) {
-        logger.info("User logged out successfully");
-        return true;
-      } else {
-        logger.warn("Logout failed - token may not exist");
+        if (loggedOut) {
+          logger.info("User logged out successfully");
+          return true;
+        } else {
+          logger.warn("Logout failed - token may not exist");
+          return false;
+        }
+      } catch (Exception e) {
+        logger.error("Logout error: {}", e.getMessage());
         return false;
       }
-    } catch (Exception e) {
-      logger.error("Logout error: {}", e.getMessage());
-      return false;
-    }
+    });
+    metrics.counter(result ? "service.auth.logout.success" : "service.auth.logout.failure").increment();
+    return result;
   }
 
   /**
@@ -349,19 +408,23 @@ public boolean registerUserWithBalance(UserAuthentication user) {
    * @return true if logout successful
    */
   public boolean logoutAll(Integer userId) {
-    if (userId == null || userId <= 0) {
-      logger.warn("Invalid user ID provided for logout all");
-      return false;
-    }
+    Boolean result = metrics.timer("service.auth.logoutAll").record(() -> {
+      if (userId == null || userId <= 0) {
+        logger.warn("Invalid user ID provided for logout all");
+        return false;
+      }
 
-    try {
-      boolean loggedOut = dao.logoutAll(userId);
-      logger.info("All sessions logged out for user: {}", userId);
-      return loggedOut;
-    } catch (Exception e) {
-      logger.error("Logout all error for user: {} - {}", userId, e.getMessage());
-      return false;
-    }
+      try {
+        boolean loggedOut = dao.logoutAll(userId);
+        logger.info("All sessions logged out for user: {}", userId);
+        return loggedOut;
+      } catch (Exception e) {
+        logger.error("Logout all error for user: {} - {}", userId, e.getMessage());
+        return false;
+      }
+    });
+    metrics.counter(result ? "service.auth.logoutAll.success" : "service.auth.logoutAll.failure").increment();
+    return result;
   }
 
   /**
@@ -377,7 +440,7 @@ public boolean registerUserWithBalance(UserAuthentication user) {
     }
 
     try {
-      Optional<UserAuthentication> user = dao.findById(userId);
+      Optional<UserAuthentication> user = userRepository.findById(userId);
 
       if (user.isPresent()) {
         UserAuthentication profile = user.get();
@@ -414,7 +477,7 @@ public boolean registerUserWithBalance(UserAuthentication user) {
     }
 
     try {
-      boolean updated = dao.update(userAuthentication);
+      boolean updated = userRepository.update(userAuthentication);
 
       if (updated) {
         logger.info("User profile updated successfully: {}", userAuthentication.getId());
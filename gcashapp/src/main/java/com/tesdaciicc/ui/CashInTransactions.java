@@ -91,7 +91,7 @@ public class CashInTransactions {
                         try {
                             var balanceOpt = cashInService.getCurrentBalance(user.getNumber());
                             if (balanceOpt.isPresent()) {
-                                System.out.println("Updated Balance: ₱" + String.format("%,.2f", balanceOpt.get().getAmount()));
+                                System.out.println("Updated Balance: " + balanceOpt.get().getFormattedAmount());
                             }
                         } catch (Exception e) {
                             // Don't fail the whole operation if balance check fails
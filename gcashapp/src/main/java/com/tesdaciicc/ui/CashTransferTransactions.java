@@ -1,7 +1,6 @@
 package com.tesdaciicc.ui;
 
 import java.math.BigDecimal;
-import java.time.format.DateTimeFormatter;
 
 import com.tesdaciicc.model.CashTransfer;
 import com.tesdaciicc.model.UserAuthentication;
@@ -114,8 +113,7 @@ public class CashTransferTransactions {
                     CashTransfer transfer = result.getTransfer();
                     System.out.println("\n📄 Transaction Details:");
                     System.out.println("   Transaction ID: " + transfer.getTransactionId());
-                    System.out.println("   Date: " + transfer.getTransactionDate().format(
-                        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+                    System.out.println("   Date: " + transfer.getFormattedDate());
                     System.out.println("   Status: COMPLETED");
                 }
                 
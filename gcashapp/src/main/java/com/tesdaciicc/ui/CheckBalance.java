@@ -147,7 +147,7 @@ public class CheckBalance {
       System.out.printf("Last Updated: %s%n", balance.getUpdatedDate());
 
       // Balance status
-      BigDecimal amount = balance.getAmount();
+      BigDecimal amount = balance.getAmount().toBigDecimal();
       if (amount.compareTo(BigDecimal.ZERO) == 0) {
         System.out.println("Status: 🔴 No Balance");
       } else if (amount.compareTo(new BigDecimal("100")) < 0) {
@@ -2,6 +2,7 @@ package com.tesdaciicc.ui;
 
 import com.tesdaciicc.data.repository.UserAuthenticationDAO;
 import com.tesdaciicc.model.UserAuthentication;
+import com.tesdaciicc.security.PinVerifierBusyException;
 import com.tesdaciicc.service.UserAuthenticationService;
 
 import org.slf4j.Logger;
@@ -67,9 +68,17 @@ public class Login {
                 return new LoginResult(true, "Login successful", authenticatedUser);
             } else {
                 logger.warn("Authentication failed for: {}", emailOrNumber);
+                long retryAfter = authService.getLoginRetryAfterSeconds(emailOrNumber.trim());
+                if (retryAfter > 0) {
+                    return new LoginResult(false,
+                            "Too many failed attempts. Please try again in " + retryAfter + " seconds", null);
+                }
                 return new LoginResult(false, "Invalid email/phone number or PIN", null);
             }
             
+        } catch (PinVerifierBusyException e) {
+            logger.warn("Authentication busy for: {}", emailOrNumber);
+            return new LoginResult(false, "The service is busy. Please try again in a moment", null);
         } catch (Exception e) {
             logger.error("Authentication error for: {} - {}", emailOrNumber, e.getMessage());
             return new LoginResult(false, "Authentication failed due to system error", null);
@@ -1,6 +1,7 @@
 package com.tesdaciicc.ui;
 
 import com.tesdaciicc.data.repository.UserAuthenticationDAO;
+import com.tesdaciicc.data.repository.UserRepository;
 import com.tesdaciicc.model.UserAuthentication;
 import com.tesdaciicc.service.UserAuthenticationService;
 
@@ -191,13 +192,13 @@ public class Registration {
         try {
             // Check if email exists
             if (authService.validateToken("dummy") != null) { // Just to access DAO through service
-                UserAuthenticationDAO dao = new UserAuthenticationDAO();
+                UserRepository userRepository = new UserRepository();
                 
-                if (dao.findByEmail(email).isPresent()) {
+                if (userRepository.findByEmail(email).isPresent()) {
                     return "Email address is already registered. Please use a different email or try logging in.";
                 }
                 
-                if (dao.findByNumber(number).isPresent()) {
+                if (userRepository.findByNumber(number).isPresent()) {
                     return "Phone number is already registered. Please use a different phone number or try logging in.";
                 }
             }
@@ -222,8 +223,8 @@ public class Registration {
         }
         
         try {
-            UserAuthenticationDAO dao = new UserAuthenticationDAO();
-            return dao.findByEmail(email.trim().toLowerCase()).isPresent();
+            UserRepository userRepository = new UserRepository();
+            return userRepository.findByEmail(email.trim().toLowerCase()).isPresent();
         } catch (Exception e) {
             logger.error("Error checking email registration status: {}", e.getMessage());
             return false;
@@ -242,8 +243,8 @@ public class Registration {
         }
         
         try {
-            UserAuthenticationDAO dao = new UserAuthenticationDAO();
-            return dao.findByNumber(number.trim()).isPresent();
+            UserRepository userRepository = new UserRepository();
+            return userRepository.findByNumber(number.trim()).isPresent();
         } catch (Exception e) {
             logger.error("Error checking phone number registration status: {}", e.getMessage());
             return false;
@@ -257,8 +258,8 @@ public class Registration {
      */
     public int getUserCount() {
         try {
-            UserAuthenticationDAO dao = new UserAuthenticationDAO();
-            return dao.count();
+            UserRepository userRepository = new UserRepository();
+            return userRepository.count();
         } catch (Exception e) {
             logger.error("Error getting user count: {}", e.getMessage());
             return -1;
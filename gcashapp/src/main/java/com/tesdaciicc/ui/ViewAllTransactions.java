@@ -1,12 +1,16 @@
 package com.tesdaciicc.ui;
 
+import com.tesdaciicc.model.TransactionPage;
 import com.tesdaciicc.model.Transactions;
 import com.tesdaciicc.model.UserAuthentication;
 import com.tesdaciicc.service.TransactionsService;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Scanner;
+import java.util.stream.Stream;
 
 public class ViewAllTransactions {
 
@@ -69,21 +73,23 @@ public class ViewAllTransactions {
     private static void viewAllUserTransactions(UserAuthentication user, TransactionsService service) {
         System.out.println("\n>>>   All My Transactions   <<<");
         
-        try {
-            List<Transactions> transactions = service.viewUserAll(user.getId());
+        // Rows are printed as they are read, so long histories are not loaded into memory
+        try (Stream<Transactions> transactions = service.streamUserAll(user.getId())) {
+            Iterator<Transactions> iterator = transactions.iterator();
             
-            if (transactions.isEmpty()) {
+            if (!iterator.hasNext()) {
                 System.out.println("No transactions found for your account.");
                 return;
             }
             
-            System.out.println("Total Transactions: " + transactions.size());
             System.out.println("=" .repeat(120));
             System.out.printf("%-5s | %-15s | %-20s | %-12s | %-20s | %-15s | %-15s%n",
                             "ID", "Amount", "Name", "Type", "Date", "From Account", "To Account");
             System.out.println("=" .repeat(120));
             
-            for (Transactions transaction : transactions) {
+            int count = 0;
+            while (iterator.hasNext()) {
+                Transactions transaction = iterator.next();
                 System.out.printf("%-5d | %-15s | %-20s | %-12s | %-20s | %-15s | %-15s%n",
                     transaction.getTransactionId(),
                     transaction.getFormattedAmount(),
@@ -93,9 +99,11 @@ public class ViewAllTransactions {
                     truncateString(transaction.getTransferFromAccountNo(), 15),
                     truncateString(transaction.getTransferToAccountNo(), 15)
                 );
+                count++;
             }
             
             System.out.println("=" .repeat(120));
+            System.out.println("Total Transactions: " + count);
             
         } catch (Exception e) {
             System.out.println("Error retrieving transactions: " + e.getMessage());
@@ -211,9 +219,13 @@ public class ViewAllTransactions {
         final int PAGE_SIZE = 10;
         int currentPage = 1;
         boolean continuePaging = true;
+        // cursors.get(i) fetches page i + 1; page 1 starts from no cursor
+        List<String> cursors = new ArrayList<>();
+        cursors.add(null);
         
         try {
-            long totalTransactions = service.getUserTransactionCount(user.getId());
+            // Pages hold only valid transactions, which is what the statistics count
+            long totalTransactions = service.getUserTransactionStatistics(user.getId()).getTotalCount();
             int totalPages = (int) Math.ceil((double) totalTransactions / PAGE_SIZE);
             
             if (totalTransactions == 0) {
@@ -222,7 +234,11 @@ public class ViewAllTransactions {
             }
             
             while (continuePaging) {
-                List<Transactions> transactions = service.viewUserAllPaginated(user.getId(), currentPage, PAGE_SIZE);
+                TransactionPage page = service.viewUserPage(user.getId(), cursors.get(currentPage - 1), PAGE_SIZE);
+                List<Transactions> transactions = page.getTransactions();
+                if (page.hasNext() && cursors.size() == currentPage) {
+                    cursors.add(page.getNextCursor());
+                }
                 
                 System.out.println("\nPage " + currentPage + " of " + totalPages + 
                                 " (Total: " + totalTransactions + " transactions)");
@@ -244,7 +260,7 @@ public class ViewAllTransactions {
                 System.out.println("=" .repeat(100));
                 System.out.println("\nNavigation Options:");
                 if (currentPage > 1) System.out.print("P - Previous Page | ");
-                if (currentPage < totalPages) System.out.print("N - Next Page | ");
+                if (page.hasNext()) System.out.print("N - Next Page | ");
                 System.out.println("Q - Quit Pagination");
                 System.out.print("Choose option: ");
                 
@@ -259,7 +275,7 @@ public class ViewAllTransactions {
                         }
                     }
                     case "N" -> {
-                        if (currentPage < totalPages) {
+                        if (page.hasNext()) {
                             currentPage++;
                         } else {
                             System.out.println("Already on last page.");
@@ -12,22 +12,22 @@ INSERT OR IGNORE INTO users (userId, name, email, number, pin) VALUES
     (9, 'George Taylor', 'george.taylor@email.com', '09333444555', '5555'),
     (10, 'Helen Clark', 'helen.clark@email.com', '09666777888', '6666');
 
--- Insert balance dummy data
+-- Insert balance dummy data (amounts in centavos)
 INSERT OR IGNORE INTO balance (userId, balanceAmount) VALUES
-    (1, 15000.50),
-    (2, 8750.25),
-    (3, 25000.00),
-    (4, 500.75),
-    (5, 12345.60),
-    (6, 0.00),
-    (7, 99999.99),
-    (8, 3250.40),
-    (9, 7800.80),
-    (10, 18500.30);
+    (1, 1500050),
+    (2, 875025),
+    (3, 2500000),
+    (4, 50075),
+    (5, 1234560),
+    (6, 0),
+    (7, 9999999),
+    (8, 325040),
+    (9, 780080),
+    (10, 1850030);
 
     INSERT INTO transactions (transactionAmount, transactionName, userId, transferToAccountNo, transferFromAccountNo, accountNumber)
 VALUES 
-    (100.00, 'John Doe', 1, '1001', 'CASH_IN_SOURCE', '1001'),
-    (1000.00, 'Jane Smith', 1, '1001', 'CASH_IN_SOURCE', '1001'),
-    (300.00, 'Bob Johnson', 2, '1002', 'CASH_IN_SOURCE', '1002'),
-    (3500.00, 'Alice Brown', 2, '1002', 'CASH_IN_SOURCE', '1002');
\ No newline at end of file
+    (10000, 'John Doe', 1, '1001', 'CASH_IN_SOURCE', '1001'),
+    (100000, 'Jane Smith', 1, '1001', 'CASH_IN_SOURCE', '1001'),
+    (30000, 'Bob Johnson', 2, '1002', 'CASH_IN_SOURCE', '1002'),
+    (350000, 'Alice Brown', 2, '1002', 'CASH_IN_SOURCE', '1002');
\ No newline at end of file
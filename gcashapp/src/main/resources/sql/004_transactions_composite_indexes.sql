@@ -0,0 +1,11 @@
+-- Migration 1: composite indexes matched to the transactions query shapes
+
+-- Per-user history, newest first (TransactionsDAO user queries and pages)
+CREATE INDEX IF NOT EXISTS idx_transactions_userId_date ON transactions(userId, transactionDate);
+
+-- Outgoing transfers of an account by date; also covers the daily limit
+-- COUNT/SUM queries, which then never touch the table itself
+CREATE INDEX IF NOT EXISTS idx_transactions_from_date ON transactions(transferFromAccountNo, transactionDate, userId, transactionAmount);
+
+-- Incoming transfers of an account by date
+CREATE INDEX IF NOT EXISTS idx_transactions_to_date ON transactions(transferToAccountNo, transactionDate);
@@ -0,0 +1,100 @@
+-- Migration 2: per-user transaction statistics kept up to date by triggers, so
+-- TransactionsService.getUserTransactionStatistics is a primary key lookup
+-- instead of an aggregate over the user's whole history.
+--
+-- Only rows that pass TransactionsService.isValidTransaction are counted, and
+-- the type counts follow Transactions.getTransactionType(). Amounts are summed
+-- as whole centavos so the total stays exact.
+
+CREATE TABLE IF NOT EXISTS user_transaction_stats (
+    userId INTEGER PRIMARY KEY,
+    transactionCount INTEGER NOT NULL DEFAULT 0,
+    totalCentavos INTEGER NOT NULL DEFAULT 0,
+    minAmount REAL,
+    maxAmount REAL,
+    transferCount INTEGER NOT NULL DEFAULT 0,
+    cashInCount INTEGER NOT NULL DEFAULT 0,
+    cashOutCount INTEGER NOT NULL DEFAULT 0
+);
+
+-- New transaction: add it to the owner's running totals
+CREATE TRIGGER IF NOT EXISTS trg_transactions_stats_insert
+AFTER INSERT ON transactions
+WHEN NEW.transactionId > 0 AND NEW.userId > 0 AND NEW.transactionAmount > 0
+     AND NEW.transactionDate IS NOT NULL AND TRIM(COALESCE(NEW.transactionName, '')) <> ''
+BEGIN
+    INSERT INTO user_transaction_stats (userId, transactionCount, totalCentavos, minAmount, maxAmount,
+                                        transferCount, cashInCount, cashOutCount)
+    VALUES (NEW.userId, 1, CAST(ROUND(NEW.transactionAmount * 100) AS INTEGER),
+            NEW.transactionAmount, NEW.transactionAmount,
+            TRIM(COALESCE(NEW.transferToAccountNo, '')) <> '' AND TRIM(COALESCE(NEW.transferFromAccountNo, '')) <> '',
+            TRIM(COALESCE(NEW.transferToAccountNo, '')) <> '' AND TRIM(COALESCE(NEW.transferFromAccountNo, '')) = '',
+            TRIM(COALESCE(NEW.transferFromAccountNo, '')) <> '' AND TRIM(COALESCE(NEW.transferToAccountNo, '')) = '')
+    ON CONFLICT (userId) DO UPDATE SET
+        transactionCount = transactionCount + excluded.transactionCount,
+        totalCentavos = totalCentavos + excluded.totalCentavos,
+        minAmount = MIN(COALESCE(minAmount, excluded.minAmount), excluded.minAmount),
+        maxAmount = MAX(COALESCE(maxAmount, excluded.maxAmount), excluded.maxAmount),
+        transferCount = transferCount + excluded.transferCount,
+        cashInCount = cashInCount + excluded.cashInCount,
+        cashOutCount = cashOutCount + excluded.cashOutCount;
+END;
+
+-- Deleted transaction: subtract it; min/max are only re-read from the user's
+-- remaining rows when the deleted amount was the current min or max
+CREATE TRIGGER IF NOT EXISTS trg_transactions_stats_delete
+AFTER DELETE ON transactions
+WHEN OLD.transactionId > 0 AND OLD.userId > 0 AND OLD.transactionAmount > 0
+     AND OLD.transactionDate IS NOT NULL AND TRIM(COALESCE(OLD.transactionName, '')) <> ''
+BEGIN
+    UPDATE user_transaction_stats SET
+        transactionCount = transactionCount - 1,
+        totalCentavos = totalCentavos - CAST(ROUND(OLD.transactionAmount * 100) AS INTEGER),
+        transferCount = transferCount - (TRIM(COALESCE(OLD.transferToAccountNo, '')) <> '' AND TRIM(COALESCE(OLD.transferFromAccountNo, '')) <> ''),
+        cashInCount = cashInCount - (TRIM(COALESCE(OLD.transferToAccountNo, '')) <> '' AND TRIM(COALESCE(OLD.transferFromAccountNo, '')) = ''),
+        cashOutCount = cashOutCount - (TRIM(COALESCE(OLD.transferFromAccountNo, '')) <> '' AND TRIM(COALESCE(OLD.transferToAccountNo, '')) = ''),
+        minAmount = CASE WHEN OLD.transactionAmount <= minAmount THEN
+            (SELECT MIN(transactionAmount) FROM transactions
+             WHERE userId = OLD.userId AND transactionId > 0 AND transactionAmount > 0
+               AND transactionDate IS NOT NULL AND TRIM(COALESCE(transactionName, '')) <> '')
+            ELSE minAmount END,
+        maxAmount = CASE WHEN OLD.transactionAmount >= maxAmount THEN
+            (SELECT MAX(transactionAmount) FROM transactions
+             WHERE userId = OLD.userId AND transactionId > 0 AND transactionAmount > 0
+               AND transactionDate IS NOT NULL AND TRIM(COALESCE(transactionName, '')) <> '')
+            ELSE maxAmount END
+    WHERE userId = OLD.userId;
+END;
+
+-- Updated transaction (rare; e.g. a renamed transfer): recompute both owners
+CREATE TRIGGER IF NOT EXISTS trg_transactions_stats_update
+AFTER UPDATE ON transactions
+BEGIN
+    DELETE FROM user_transaction_stats WHERE userId IN (OLD.userId, NEW.userId);
+    INSERT INTO user_transaction_stats (userId, transactionCount, totalCentavos, minAmount, maxAmount,
+                                        transferCount, cashInCount, cashOutCount)
+    SELECT userId, COUNT(*), SUM(CAST(ROUND(transactionAmount * 100) AS INTEGER)),
+           MIN(transactionAmount), MAX(transactionAmount),
+           SUM(TRIM(COALESCE(transferToAccountNo, '')) <> '' AND TRIM(COALESCE(transferFromAccountNo, '')) <> ''),
+           SUM(TRIM(COALESCE(transferToAccountNo, '')) <> '' AND TRIM(COALESCE(transferFromAccountNo, '')) = ''),
+           SUM(TRIM(COALESCE(transferFromAccountNo, '')) <> '' AND TRIM(COALESCE(transferToAccountNo, '')) = '')
+    FROM transactions
+    WHERE userId IN (OLD.userId, NEW.userId) AND transactionId > 0 AND userId > 0 AND transactionAmount > 0
+      AND transactionDate IS NOT NULL AND TRIM(COALESCE(transactionName, '')) <> ''
+    GROUP BY userId;
+END;
+
+-- Backfill from the existing history
+DELETE FROM user_transaction_stats;
+
+INSERT INTO user_transaction_stats (userId, transactionCount, totalCentavos, minAmount, maxAmount,
+                                    transferCount, cashInCount, cashOutCount)
+SELECT userId, COUNT(*), SUM(CAST(ROUND(transactionAmount * 100) AS INTEGER)),
+       MIN(transactionAmount), MAX(transactionAmount),
+       SUM(TRIM(COALESCE(transferToAccountNo, '')) <> '' AND TRIM(COALESCE(transferFromAccountNo, '')) <> ''),
+       SUM(TRIM(COALESCE(transferToAccountNo, '')) <> '' AND TRIM(COALESCE(transferFromAccountNo, '')) = ''),
+       SUM(TRIM(COALESCE(transferFromAccountNo, '')) <> '' AND TRIM(COALESCE(transferToAccountNo, '')) = '')
+FROM transactions
+WHERE transactionId > 0 AND userId > 0 AND transactionAmount > 0
+  AND transactionDate IS NOT NULL AND TRIM(COALESCE(transactionName, '')) <> ''
+GROUP BY userId;
@@ -0,0 +1,144 @@
+-- Migration 3: store money as INTEGER centavos instead of REAL pesos.
+--
+-- SQLite cannot change a column type in place, so balance and transactions
+-- are copied into new tables and renamed; indexes and the stats triggers go
+-- with the old tables and are created again below. user_transaction_stats
+-- now holds min/max in centavos as well.
+
+DROP TRIGGER IF EXISTS trg_transactions_stats_insert;
+DROP TRIGGER IF EXISTS trg_transactions_stats_delete;
+DROP TRIGGER IF EXISTS trg_transactions_stats_update;
+
+-- Balance
+CREATE TABLE balance_centavos (
+    balanceId INTEGER PRIMARY KEY AUTOINCREMENT,
+    userId INTEGER NOT NULL,
+    balanceAmount INTEGER NOT NULL DEFAULT 0,
+    createdDate TEXT NOT NULL DEFAULT (datetime('now')),
+    updatedDate TEXT NOT NULL DEFAULT (datetime('now')),
+    FOREIGN KEY (userId) REFERENCES users(userId) ON DELETE CASCADE
+);
+
+INSERT INTO balance_centavos (balanceId, userId, balanceAmount, createdDate, updatedDate)
+SELECT balanceId, userId, CAST(ROUND(balanceAmount * 100) AS INTEGER), createdDate, updatedDate
+FROM balance;
+
+DROP TABLE balance;
+ALTER TABLE balance_centavos RENAME TO balance;
+
+CREATE INDEX IF NOT EXISTS idx_balance_userId ON balance(userId);
+
+-- Transactions
+CREATE TABLE transactions_centavos (
+    transactionId INTEGER PRIMARY KEY AUTOINCREMENT,
+    transactionAmount INTEGER NOT NULL CHECK (transactionAmount > 0),
+    transactionName TEXT NOT NULL,
+    userId INTEGER NOT NULL,
+    transactionDate TEXT NOT NULL DEFAULT (datetime('now')),
+    transferToAccountNo TEXT,
+    transferFromAccountNo TEXT,
+    accountNumber TEXT NOT NULL,
+    FOREIGN KEY (userId) REFERENCES users(userId)
+);
+
+INSERT INTO transactions_centavos (transactionId, transactionAmount, transactionName, userId, transactionDate,
+                                   transferToAccountNo, transferFromAccountNo, accountNumber)
+SELECT transactionId, CAST(ROUND(transactionAmount * 100) AS INTEGER), transactionName, userId, transactionDate,
+       transferToAccountNo, transferFromAccountNo, accountNumber
+FROM transactions;
+
+DROP TABLE transactions;
+ALTER TABLE transactions_centavos RENAME TO transactions;
+
+CREATE INDEX IF NOT EXISTS idx_transactions_userId ON transactions(userId);
+CREATE INDEX IF NOT EXISTS idx_transactions_accountNumber ON transactions(accountNumber);
+CREATE INDEX IF NOT EXISTS idx_transactions_date ON transactions(transactionDate);
+CREATE INDEX IF NOT EXISTS idx_transactions_userId_date ON transactions(userId, transactionDate);
+CREATE INDEX IF NOT EXISTS idx_transactions_from_date ON transactions(transferFromAccountNo, transactionDate, userId, transactionAmount);
+CREATE INDEX IF NOT EXISTS idx_transactions_to_date ON transactions(transferToAccountNo, transactionDate);
+
+-- Per-user stats, amounts in centavos
+DROP TABLE IF EXISTS user_transaction_stats;
+
+CREATE TABLE user_transaction_stats (
+    userId INTEGER PRIMARY KEY,
+    transactionCount INTEGER NOT NULL DEFAULT 0,
+    totalCentavos INTEGER NOT NULL DEFAULT 0,
+    minCentavos INTEGER,
+    maxCentavos INTEGER,
+    transferCount INTEGER NOT NULL DEFAULT 0,
+    cashInCount INTEGER NOT NULL DEFAULT 0,
+    cashOutCount INTEGER NOT NULL DEFAULT 0
+);
+
+CREATE TRIGGER trg_transactions_stats_insert
+AFTER INSERT ON transactions
+WHEN NEW.transactionId > 0 AND NEW.userId > 0 AND NEW.transactionAmount > 0
+     AND NEW.transactionDate IS NOT NULL AND TRIM(COALESCE(NEW.transactionName, '')) <> ''
+BEGIN
+    INSERT INTO user_transaction_stats (userId, transactionCount, totalCentavos, minCentavos, maxCentavos,
+                                        transferCount, cashInCount, cashOutCount)
+    VALUES (NEW.userId, 1, NEW.transactionAmount, NEW.transactionAmount, NEW.transactionAmount,
+            TRIM(COALESCE(NEW.transferToAccountNo, '')) <> '' AND TRIM(COALESCE(NEW.transferFromAccountNo, '')) <> '',
+            TRIM(COALESCE(NEW.transferToAccountNo, '')) <> '' AND TRIM(COALESCE(NEW.transferFromAccountNo, '')) = '',
+            TRIM(COALESCE(NEW.transferFromAccountNo, '')) <> '' AND TRIM(COALESCE(NEW.transferToAccountNo, '')) = '')
+    ON CONFLICT (userId) DO UPDATE SET
+        transactionCount = transactionCount + excluded.transactionCount,
+        totalCentavos = totalCentavos + excluded.totalCentavos,
+        minCentavos = MIN(COALESCE(minCentavos, excluded.minCentavos), excluded.minCentavos),
+        maxCentavos = MAX(COALESCE(maxCentavos, excluded.maxCentavos), excluded.maxCentavos),
+        transferCount = transferCount + excluded.transferCount,
+        cashInCount = cashInCount + excluded.cashInCount,
+        cashOutCount = cashOutCount + excluded.cashOutCount;
+END;
+
+CREATE TRIGGER trg_transactions_stats_delete
+AFTER DELETE ON transactions
+WHEN OLD.transactionId > 0 AND OLD.userId > 0 AND OLD.transactionAmount > 0
+     AND OLD.transactionDate IS NOT NULL AND TRIM(COALESCE(OLD.transactionName, '')) <> ''
+BEGIN
+    UPDATE user_transaction_stats SET
+        transactionCount = transactionCount - 1,
+        totalCentavos = totalCentavos - OLD.transactionAmount,
+        transferCount = transferCount - (TRIM(COALESCE(OLD.transferToAccountNo, '')) <> '' AND TRIM(COALESCE(OLD.transferFromAccountNo, '')) <> ''),
+        cashInCount = cashInCount - (TRIM(COALESCE(OLD.transferToAccountNo, '')) <> '' AND TRIM(COALESCE(OLD.transferFromAccountNo, '')) = ''),
+        cashOutCount = cashOutCount - (TRIM(COALESCE(OLD.transferFromAccountNo, '')) <> '' AND TRIM(COALESCE(OLD.transferToAccountNo, '')) = ''),
+        minCentavos = CASE WHEN OLD.transactionAmount <= minCentavos THEN
+            (SELECT MIN(transactionAmount) FROM transactions
+             WHERE userId = OLD.userId AND transactionId > 0 AND transactionAmount > 0
+               AND transactionDate IS NOT NULL AND TRIM(COALESCE(transactionName, '')) <> '')
+            ELSE minCentavos END,
+        maxCentavos = CASE WHEN OLD.transactionAmount >= maxCentavos THEN
+            (SELECT MAX(transactionAmount) FROM transactions
+             WHERE userId = OLD.userId AND transactionId > 0 AND transactionAmount > 0
+               AND transactionDate IS NOT NULL AND TRIM(COALESCE(transactionName, '')) <> '')
+            ELSE maxCentavos END
+    WHERE userId = OLD.userId;
+END;
+
+CREATE TRIGGER trg_transactions_stats_update
+AFTER UPDATE ON transactions
+BEGIN
+    DELETE FROM user_transaction_stats WHERE userId IN (OLD.userId, NEW.userId);
+    INSERT INTO user_transaction_stats (userId, transactionCount, totalCentavos, minCentavos, maxCentavos,
+                                        transferCount, cashInCount, cashOutCount)
+    SELECT userId, COUNT(*), SUM(transactionAmount), MIN(transactionAmount), MAX(transactionAmount),
+           SUM(TRIM(COALESCE(transferToAccountNo, '')) <> '' AND TRIM(COALESCE(transferFromAccountNo, '')) <> ''),
+           SUM(TRIM(COALESCE(transferToAccountNo, '')) <> '' AND TRIM(COALESCE(transferFromAccountNo, '')) = ''),
+           SUM(TRIM(COALESCE(transferFromAccountNo, '')) <> '' AND TRIM(COALESCE(transferToAccountNo, '')) = '')
+    FROM transactions
+    WHERE userId IN (OLD.userId, NEW.userId) AND transactionId > 0 AND userId > 0 AND transactionAmount > 0
+      AND transactionDate IS NOT NULL AND TRIM(COALESCE(transactionName, '')) <> ''
+    GROUP BY userId;
+END;
+
+INSERT INTO user_transaction_stats (userId, transactionCount, totalCentavos, minCentavos, maxCentavos,
+                                    transferCount, cashInCount, cashOutCount)
+SELECT userId, COUNT(*), SUM(transactionAmount), MIN(transactionAmount), MAX(transactionAmount),
+       SUM(TRIM(COALESCE(transferToAccountNo, '')) <> '' AND TRIM(COALESCE(transferFromAccountNo, '')) <> ''),
+       SUM(TRIM(COALESCE(transferToAccountNo, '')) <> '' AND TRIM(COALESCE(transferFromAccountNo, '')) = ''),
+       SUM(TRIM(COALESCE(transferFromAccountNo, '')) <> '' AND TRIM(COALESCE(transferToAccountNo, '')) = '')
+FROM transactions
+WHERE transactionId > 0 AND userId > 0 AND transactionAmount > 0
+  AND transactionDate IS NOT NULL AND TRIM(COALESCE(transactionName, '')) <> ''
+GROUP BY userId;
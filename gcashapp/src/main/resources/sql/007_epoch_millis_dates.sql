@@ -0,0 +1,108 @@
+-- Migration 4: store transactionDate as INTEGER epoch milliseconds instead of
+-- 'yyyy-MM-dd HH:mm:ss' text, so the DAOs bind and read longs and only the UI
+-- turns them into local date-times.
+--
+-- The column keeps its TEXT affinity unless the table is rebuilt, so this is
+-- the same copy/drop/rename as migration 3. Transfer rows, whose accountNumber
+-- is the sender's, were written by CashTransferDAO in local time; every other
+-- row, cash-ins and the seed data, took the datetime('now') default, which is
+-- UTC. Values that cannot be parsed get the migration time, as the old row
+-- mappers did.
+
+DROP TRIGGER IF EXISTS trg_transactions_stats_insert;
+DROP TRIGGER IF EXISTS trg_transactions_stats_delete;
+DROP TRIGGER IF EXISTS trg_transactions_stats_update;
+
+CREATE TABLE transactions_epoch (
+    transactionId INTEGER PRIMARY KEY AUTOINCREMENT,
+    transactionAmount INTEGER NOT NULL CHECK (transactionAmount > 0),
+    transactionName TEXT NOT NULL,
+    userId INTEGER NOT NULL,
+    transactionDate INTEGER NOT NULL DEFAULT (CAST(unixepoch('subsec') * 1000 AS INTEGER)),
+    transferToAccountNo TEXT,
+    transferFromAccountNo TEXT,
+    accountNumber TEXT NOT NULL,
+    FOREIGN KEY (userId) REFERENCES users(userId)
+);
+
+INSERT INTO transactions_epoch (transactionId, transactionAmount, transactionName, userId, transactionDate,
+                                transferToAccountNo, transferFromAccountNo, accountNumber)
+SELECT transactionId, transactionAmount, transactionName, userId,
+       COALESCE(CAST(ROUND((CASE WHEN accountNumber = transferFromAccountNo
+                                 THEN julianday(transactionDate, 'utc')
+                                 ELSE julianday(transactionDate) END - 2440587.5) * 86400000) AS INTEGER),
+                CAST(unixepoch('subsec') * 1000 AS INTEGER)),
+       transferToAccountNo, transferFromAccountNo, accountNumber
+FROM transactions;
+
+DROP TABLE transactions;
+ALTER TABLE transactions_epoch RENAME TO transactions;
+
+CREATE INDEX IF NOT EXISTS idx_transactions_userId ON transactions(userId);
+CREATE INDEX IF NOT EXISTS idx_transactions_accountNumber ON transactions(accountNumber);
+CREATE INDEX IF NOT EXISTS idx_transactions_date ON transactions(transactionDate);
+CREATE INDEX IF NOT EXISTS idx_transactions_userId_date ON transactions(userId, transactionDate);
+CREATE INDEX IF NOT EXISTS idx_transactions_from_date ON transactions(transferFromAccountNo, transactionDate, userId, transactionAmount);
+CREATE INDEX IF NOT EXISTS idx_transactions_to_date ON transactions(transferToAccountNo, transactionDate);
+
+-- The stats triggers went with the old table; the stats rows themselves are unchanged
+CREATE TRIGGER trg_transactions_stats_insert
+AFTER INSERT ON transactions
+WHEN NEW.transactionId > 0 AND NEW.userId > 0 AND NEW.transactionAmount > 0
+     AND NEW.transactionDate IS NOT NULL AND TRIM(COALESCE(NEW.transactionName, '')) <> ''
+BEGIN
+    INSERT INTO user_transaction_stats (userId, transactionCount, totalCentavos, minCentavos, maxCentavos,
+                                        transferCount, cashInCount, cashOutCount)
+    VALUES (NEW.userId, 1, NEW.transactionAmount, NEW.transactionAmount, NEW.transactionAmount,
+            TRIM(COALESCE(NEW.transferToAccountNo, '')) <> '' AND TRIM(COALESCE(NEW.transferFromAccountNo, '')) <> '',
+            TRIM(COALESCE(NEW.transferToAccountNo, '')) <> '' AND TRIM(COALESCE(NEW.transferFromAccountNo, '')) = '',
+            TRIM(COALESCE(NEW.transferFromAccountNo, '')) <> '' AND TRIM(COALESCE(NEW.transferToAccountNo, '')) = '')
+    ON CONFLICT (userId) DO UPDATE SET
+        transactionCount = transactionCount + excluded.transactionCount,
+        totalCentavos = totalCentavos + excluded.totalCentavos,
+        minCentavos = MIN(COALESCE(minCentavos, excluded.minCentavos), excluded.minCentavos),
+        maxCentavos = MAX(COALESCE(maxCentavos, excluded.maxCentavos), excluded.maxCentavos),
+        transferCount = transferCount + excluded.transferCount,
+        cashInCount = cashInCount + excluded.cashInCount,
+        cashOutCount = cashOutCount + excluded.cashOutCount;
+END;
+
+CREATE TRIGGER trg_transactions_stats_delete
+AFTER DELETE ON transactions
+WHEN OLD.transactionId > 0 AND OLD.userId > 0 AND OLD.transactionAmount > 0
+     AND OLD.transactionDate IS NOT NULL AND TRIM(COALESCE(OLD.transactionName, '')) <> ''
+BEGIN
+    UPDATE user_transaction_stats SET
+        transactionCount = transactionCount - 1,
+        totalCentavos = totalCentavos - OLD.transactionAmount,
+        transferCount = transferCount - (TRIM(COALESCE(OLD.transferToAccountNo, '')) <> '' AND TRIM(COALESCE(OLD.transferFromAccountNo, '')) <> ''),
+        cashInCount = cashInCount - (TRIM(COALESCE(OLD.transferToAccountNo, '')) <> '' AND TRIM(COALESCE(OLD.transferFromAccountNo, '')) = ''),
+        cashOutCount = cashOutCount - (TRIM(COALESCE(OLD.transferFromAccountNo, '')) <> '' AND TRIM(COALESCE(OLD.transferToAccountNo, '')) = ''),
+        minCentavos = CASE WHEN OLD.transactionAmount <= minCentavos THEN
+            (SELECT MIN(transactionAmount) FROM transactions
+             WHERE userId = OLD.userId AND transactionId > 0 AND transactionAmount > 0
+               AND transactionDate IS NOT NULL AND TRIM(COALESCE(transactionName, '')) <> '')
+            ELSE minCentavos END,
+        maxCentavos = CASE WHEN OLD.transactionAmount >= maxCentavos THEN
+            (SELECT MAX(transactionAmount) FROM transactions
+             WHERE userId = OLD.userId AND transactionId > 0 AND transactionAmount > 0
+               AND transactionDate IS NOT NULL AND TRIM(COALESCE(transactionName, '')) <> '')
+            ELSE maxCentavos END
+    WHERE userId = OLD.userId;
+END;
+
+CREATE TRIGGER trg_transactions_stats_update
+AFTER UPDATE ON transactions
+BEGIN
+    DELETE FROM user_transaction_stats WHERE userId IN (OLD.userId, NEW.userId);
+    INSERT INTO user_transaction_stats (userId, transactionCount, totalCentavos, minCentavos, maxCentavos,
+                                        transferCount, cashInCount, cashOutCount)
+    SELECT userId, COUNT(*), SUM(transactionAmount), MIN(transactionAmount), MAX(transactionAmount),
+           SUM(TRIM(COALESCE(transferToAccountNo, '')) <> '' AND TRIM(COALESCE(transferFromAccountNo, '')) <> ''),
+           SUM(TRIM(COALESCE(transferToAccountNo, '')) <> '' AND TRIM(COALESCE(transferFromAccountNo, '')) = ''),
+           SUM(TRIM(COALESCE(transferFromAccountNo, '')) <> '' AND TRIM(COALESCE(transferToAccountNo, '')) = '')
+    FROM transactions
+    WHERE userId IN (OLD.userId, NEW.userId) AND transactionId > 0 AND userId > 0 AND transactionAmount > 0
+      AND transactionDate IS NOT NULL AND TRIM(COALESCE(transactionName, '')) <> ''
+    GROUP BY userId;
+END;
@@ -0,0 +1,28 @@
+-- Migration 5: login sessions get their own table instead of the users.token
+-- column, so a login appends a row here rather than rewriting the user's row,
+-- and a user can be logged in on several devices at once.
+--
+-- Only the SHA-256 of a token is stored, as a 32-byte BLOB primary key; the
+-- table is WITHOUT ROWID so a token lookup is a single seek into the primary
+-- key. All times are epoch milliseconds. lastSeen is written in batches by
+-- SessionActivity and is advisory; expiresAt alone decides validity.
+--
+-- Tokens already in users.token were never hashed and cannot be carried over
+-- in SQL, so they are cleared and those users log in again. The column itself
+-- stays because 002_indexes.sql still indexes it on every start.
+
+CREATE TABLE IF NOT EXISTS sessions (
+    tokenHash BLOB PRIMARY KEY,
+    userId INTEGER NOT NULL,
+    createdAt INTEGER NOT NULL,
+    expiresAt INTEGER NOT NULL,
+    lastSeen INTEGER NOT NULL,
+    FOREIGN KEY (userId) REFERENCES users(userId) ON DELETE CASCADE
+) WITHOUT ROWID;
+
+-- Logout from all devices, the per-user session cap, and the cascade from users
+CREATE INDEX IF NOT EXISTS idx_sessions_userId_createdAt ON sessions(userId, createdAt);
+-- Expiry sweep
+CREATE INDEX IF NOT EXISTS idx_sessions_expiresAt ON sessions(expiresAt);
+
+UPDATE users SET token = NULL WHERE token IS NOT NULL;
@@ -0,0 +1,17 @@
+-- Migration 6: users.pin holds a PBKDF2 hash (see Pbkdf2PinHasher) instead of
+-- the PIN itself, which no longer fits CHECK(length(pin) BETWEEN 4 AND 6).
+--
+-- Rebuilding users would cascade-delete every balance and session through
+-- their foreign keys, so the column is swapped in place instead: copied
+-- aside, dropped with its CHECK, added back without it, and filled again.
+-- pin moves to the last column; every query names its columns.
+--
+-- Existing PINs stay in plain text here: PBKDF2 cannot run in SQL. The DAOs
+-- still accept them and replace each with a hash on the user's next login.
+
+ALTER TABLE users ADD COLUMN pinLegacy TEXT;
+UPDATE users SET pinLegacy = pin;
+ALTER TABLE users DROP COLUMN pin;
+ALTER TABLE users ADD COLUMN pin TEXT NOT NULL DEFAULT '';
+UPDATE users SET pin = pinLegacy;
+ALTER TABLE users DROP COLUMN pinLegacy;
@@ -0,0 +1,24 @@
+package com.tesdaciicc;
+
+import static org.junit.Assert.assertTrue;
+
+import com.tesdaciicc.data.util.DatabaseUtil;
+
+/**
+ * Schema and seed data for tests that need the real tables. Surefire points
+ * gcashapp.db.url at a file under target/, so this never touches the
+ * application's database.
+ */
+public final class TestDatabase {
+
+  private TestDatabase() {
+  }
+
+  /**
+   * Drops every table, clears the caches and recreates the schema with the seed users
+   */
+  public static void reset() {
+    assertTrue("drop tables", DatabaseUtil.dropAllTables());
+    assertTrue("initialize database", DatabaseUtil.initializeDatabase());
+  }
+}
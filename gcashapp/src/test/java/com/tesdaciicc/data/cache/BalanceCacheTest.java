@@ -0,0 +1,144 @@
+package com.tesdaciicc.data.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.SQLException;
+
+import org.junit.Test;
+
+import com.tesdaciicc.data.util.TransactionTemplate;
+import com.tesdaciicc.model.Balance;
+import com.tesdaciicc.model.Money;
+
+public class BalanceCacheTest {
+
+  private static Balance balance(int userId, long centavos) {
+    return new Balance(userId * 10, userId, Money.ofCentavos(centavos), "created", "updated");
+  }
+
+  private static long centavos(BalanceCache cache, int userId) {
+    return cache.get(userId).orElseThrow().getAmount().getCentavos();
+  }
+
+  @Test
+  public void hitReturnsACopyOfTheCachedRow() {
+    BalanceCache cache = new BalanceCache(16, 1);
+    cache.put(balance(1, 500));
+
+    Balance first = cache.get(1).orElseThrow();
+    first.setAmount(Money.ofCentavos(999));
+    Balance second = cache.get(1).orElseThrow();
+
+    assertNotSame(first, second);
+    assertEquals(500, second.getAmount().getCentavos());
+    assertEquals(10, second.getId());
+    assertEquals("updated", second.getUpdatedDate());
+    assertFalse(cache.get(2).isPresent());
+    assertEquals(2, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  public void putIfUnchangedFillsWhenNothingWasWritten() {
+    BalanceCache cache = new BalanceCache(16, 1);
+    long stamp = cache.readStamp(1);
+    cache.putIfUnchanged(balance(1, 500), stamp);
+    assertEquals(500, centavos(cache, 1));
+  }
+
+  @Test
+  public void putIfUnchangedIsIgnoredAfterAWrite() {
+    BalanceCache cache = new BalanceCache(16, 1);
+    long stamp = cache.readStamp(1);
+    // A committed write lands while the slow read is still in flight
+    cache.put(balance(1, 700));
+    cache.putIfUnchanged(balance(1, 500), stamp);
+    assertEquals(700, centavos(cache, 1));
+  }
+
+  @Test
+  public void putIfUnchangedIsIgnoredAfterAnInvalidation() {
+    BalanceCache cache = new BalanceCache(16, 1);
+    long stamp = cache.readStamp(1);
+    cache.invalidate(1);
+    cache.putIfUnchanged(balance(1, 500), stamp);
+    assertFalse(cache.get(1).isPresent());
+
+    stamp = cache.readStamp(1);
+    cache.clear();
+    cache.putIfUnchanged(balance(1, 500), stamp);
+    assertFalse(cache.get(1).isPresent());
+  }
+
+  @Test
+  public void fullSegmentEvictsTheLeastRecentlyUsed() {
+    BalanceCache cache = new BalanceCache(3, 1);
+    cache.put(balance(1, 100));
+    cache.put(balance(2, 200));
+    cache.put(balance(3, 300));
+    cache.get(1); // 2 is now the eldest
+
+    cache.put(balance(4, 400));
+
+    assertEquals(3, cache.size());
+    assertEquals(1, cache.getEvictionCount());
+    assertFalse(cache.get(2).isPresent());
+    assertTrue(cache.get(1).isPresent());
+    assertTrue(cache.get(3).isPresent());
+    assertTrue(cache.get(4).isPresent());
+  }
+
+  @Test
+  public void replacingAnEntryDoesNotEvict() {
+    BalanceCache cache = new BalanceCache(2, 1);
+    cache.put(balance(1, 100));
+    cache.put(balance(2, 200));
+    cache.put(balance(1, 150));
+    assertEquals(2, cache.size());
+    assertEquals(0, cache.getEvictionCount());
+    assertEquals(150, centavos(cache, 1));
+  }
+
+  @Test
+  public void segmentCountMustBeAPowerOfTwo() {
+    try {
+      new BalanceCache(16, 3);
+      fail("Accepted 3 segments");
+    } catch (IllegalArgumentException expected) {
+      // rejected
+    }
+  }
+
+  @Test
+  public void putAfterCommitPublishesOnlyOnceCommitted() throws SQLException {
+    BalanceCache cache = new BalanceCache(16, 1);
+    cache.put(balance(1, 100));
+    TransactionTemplate.execute(connection -> {
+      cache.putAfterCommit(balance(1, 200));
+      // Neither the old nor the uncommitted balance is served meanwhile
+      assertFalse(cache.get(1).isPresent());
+      return null;
+    });
+    assertEquals(200, centavos(cache, 1));
+  }
+
+  @Test
+  public void putAfterCommitIsDroppedOnRollback() {
+    BalanceCache cache = new BalanceCache(16, 1);
+    cache.put(balance(1, 100));
+    try {
+      TransactionTemplate.execute(connection -> {
+        cache.putAfterCommit(balance(1, 200));
+        throw new SQLException("rolled back");
+      });
+      fail("Exception was swallowed");
+    } catch (SQLException expected) {
+      // rolled back
+    }
+    assertFalse(cache.get(1).isPresent());
+  }
+}
@@ -0,0 +1,91 @@
+package com.tesdaciicc.data.cache;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.tesdaciicc.data.repository.CashTransferDAO;
+import com.tesdaciicc.data.util.TransactionTemplate;
+import com.tesdaciicc.model.Money;
+
+public class DailyTransferCountersTest {
+
+  /**
+   * Serves fixed totals and remembers which days were loaded
+   */
+  private static final class StubDAO extends CashTransferDAO {
+    private final List<LocalDate> loads = new ArrayList<>();
+    private Map<Integer, DailyTotal> totals = Map.of();
+
+    @Override
+    public Map<Integer, DailyTotal> getDailyTransferTotals(LocalDate day) {
+      loads.add(day);
+      return totals;
+    }
+  }
+
+  @Test
+  public void startsFromTheStoredTotals() {
+    StubDAO dao = new StubDAO();
+    dao.totals = Map.of(1, new CashTransferDAO.DailyTotal(2, Money.ofPesos(300)));
+    DailyTransferCounters counters = new DailyTransferCounters(dao);
+
+    assertEquals(2, counters.getCount(1));
+    assertEquals(Money.ofPesos(300), counters.getAmount(1));
+    assertEquals(0, counters.getCount(2));
+    assertEquals(Money.ZERO, counters.getAmount(2));
+    assertEquals(List.of(LocalDate.now()), dao.loads);
+  }
+
+  @Test
+  public void recordAddsToTodaysTotals() {
+    DailyTransferCounters counters = new DailyTransferCounters(new StubDAO());
+    counters.record(1, Money.ofPesos(100), LocalDate.now());
+    counters.record(1, Money.ofPesos(50), LocalDate.now());
+    assertEquals(2, counters.getCount(1));
+    assertEquals(Money.ofPesos(150), counters.getAmount(1));
+  }
+
+  @Test
+  public void transferDatedBeforeMidnightIsNotCountedToday() {
+    DailyTransferCounters counters = new DailyTransferCounters(new StubDAO());
+    counters.record(1, Money.ofPesos(100), LocalDate.now().minusDays(1));
+    assertEquals(0, counters.getCount(1));
+    assertEquals(Money.ZERO, counters.getAmount(1));
+  }
+
+  @Test
+  public void transferDatedAheadReloadsOnceCommitted() throws SQLException {
+    StubDAO dao = new StubDAO();
+    DailyTransferCounters counters = new DailyTransferCounters(dao);
+    TransactionTemplate.execute(connection -> {
+      counters.record(1, Money.ofPesos(100), LocalDate.now().plusDays(1));
+      return null;
+    });
+    counters.getCount(1);
+    assertEquals(2, dao.loads.size());
+  }
+
+  @Test
+  public void rolledBackTransferIsTakenOffAgain() {
+    DailyTransferCounters counters = new DailyTransferCounters(new StubDAO());
+    counters.record(1, Money.ofPesos(100), LocalDate.now());
+    try {
+      TransactionTemplate.execute(connection -> {
+        counters.record(1, Money.ofPesos(40), LocalDate.now());
+        assertEquals(2, counters.getCount(1));
+        throw new SQLException("rolled back");
+      });
+    } catch (SQLException expected) {
+      // rolled back
+    }
+    assertEquals(1, counters.getCount(1));
+    assertEquals(Money.ofPesos(100), counters.getAmount(1));
+  }
+}
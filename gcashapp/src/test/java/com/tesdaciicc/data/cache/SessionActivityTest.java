@@ -0,0 +1,100 @@
+package com.tesdaciicc.data.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tesdaciicc.TestDatabase;
+import com.tesdaciicc.data.repository.SessionDAO;
+import com.tesdaciicc.data.util.ConnectionFactory;
+
+public class SessionActivityTest {
+
+  private static final long HOUR = 60 * 60 * 1000L;
+
+  private final SessionDAO sessionDAO = new SessionDAO();
+  private long createdAt;
+
+  @Before
+  public void setUp() {
+    TestDatabase.reset();
+    createdAt = System.currentTimeMillis() - HOUR;
+  }
+
+  /**
+   * @return lastSeen of the user's only session, or -1 if it has none
+   */
+  private static long lastSeen(int userId) throws SQLException {
+    try (Connection connection = ConnectionFactory.getReadConnection();
+        PreparedStatement statement = connection.prepareStatement("SELECT lastSeen FROM sessions WHERE userId = ?")) {
+      statement.setInt(1, userId);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        return resultSet.next() ? resultSet.getLong(1) : -1;
+      }
+    }
+  }
+
+  @Test
+  public void flushWritesTheNotedTimes() throws SQLException {
+    SessionActivity activity = new SessionActivity(sessionDAO, 10);
+    assertTrue(sessionDAO.create(1, "token-a", createdAt, createdAt + 2 * HOUR));
+    assertTrue(sessionDAO.create(2, "token-b", createdAt, createdAt + 2 * HOUR));
+
+    long before = System.currentTimeMillis();
+    activity.touch("token-a");
+    activity.touch("token-a");
+    activity.touch("logged-out");
+    assertEquals(2, activity.getPendingCount());
+    assertEquals(createdAt, lastSeen(1));
+
+    activity.flush();
+    assertEquals(0, activity.getPendingCount());
+    assertTrue(lastSeen(1) >= before);
+    assertEquals(createdAt, lastSeen(2));
+  }
+
+  @Test
+  public void touchesBeyondThePendingLimitAreDropped() {
+    SessionActivity activity = new SessionActivity(sessionDAO, 2);
+    activity.touch("a");
+    activity.touch("b");
+    activity.touch("c");
+    activity.touch("a"); // already pending, just updated
+    assertEquals(2, activity.getPendingCount());
+    assertEquals(1, activity.getDroppedCount());
+
+    activity.flush();
+    activity.touch("c");
+    assertEquals(1, activity.getPendingCount());
+  }
+
+  @Test
+  public void sweepDeletesExpiredSessions() throws SQLException {
+    SessionActivity activity = new SessionActivity(sessionDAO, 10);
+    assertTrue(sessionDAO.create(1, "expired", createdAt, createdAt + 1));
+    assertTrue(sessionDAO.create(2, "current", createdAt, createdAt + 2 * HOUR));
+
+    activity.sweep();
+    assertEquals(-1, lastSeen(1));
+    assertEquals(createdAt, lastSeen(2));
+  }
+
+  @Test
+  public void stopFlushesWhatIsPending() throws SQLException {
+    SessionActivity activity = new SessionActivity(sessionDAO, 10);
+    assertTrue(sessionDAO.create(1, "token-a", createdAt, createdAt + 2 * HOUR));
+
+    activity.start(HOUR, HOUR);
+    activity.touch("token-a");
+    activity.stop();
+    assertEquals(0, activity.getPendingCount());
+    assertTrue(lastSeen(1) > createdAt);
+  }
+}
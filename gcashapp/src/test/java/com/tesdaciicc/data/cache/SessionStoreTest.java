@@ -0,0 +1,133 @@
+package com.tesdaciicc.data.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.SQLException;
+
+import org.junit.Test;
+
+import com.tesdaciicc.data.util.TransactionTemplate;
+import com.tesdaciicc.model.UserAuthentication;
+
+public class SessionStoreTest {
+
+  private static final long HOUR = 60 * 60 * 1000L;
+
+  private static UserAuthentication user(int id) {
+    return new UserAuthentication(id, "User " + id, "user" + id + "@email.com", "0912000000" + id, "pin",
+        "created", "updated");
+  }
+
+  private static long later() {
+    return System.currentTimeMillis() + HOUR;
+  }
+
+  @Test
+  public void hitReturnsACopyCarryingTheToken() {
+    SessionStore store = new SessionStore(HOUR, 5, 100);
+    store.put("t1", user(1), later());
+
+    UserAuthentication first = store.get("t1").orElseThrow();
+    first.setName("changed");
+    UserAuthentication second = store.get("t1").orElseThrow();
+
+    assertNotSame(first, second);
+    assertEquals("User 1", second.getName());
+    assertEquals("t1", second.getToken());
+    assertFalse(store.get("unknown").isPresent());
+    assertEquals(2, store.getHitCount());
+    assertEquals(1, store.getMissCount());
+  }
+
+  @Test
+  public void entryIsNotTrustedPastTheSessionsOwnExpiry() {
+    SessionStore store = new SessionStore(HOUR, 5, 100);
+    store.put("t1", user(1), System.currentTimeMillis() - 1);
+    assertFalse(store.get("t1").isPresent());
+    assertEquals(0, store.size());
+    assertEquals(1, store.getExpirationCount());
+  }
+
+  @Test
+  public void entryIsNotTrustedPastTheTtl() throws InterruptedException {
+    SessionStore store = new SessionStore(20, 5, 100);
+    store.put("t1", user(1), later());
+    assertTrue(store.get("t1").isPresent());
+    Thread.sleep(40);
+    assertFalse(store.get("t1").isPresent());
+  }
+
+  @Test
+  public void oldestSessionGoesBeyondThePerUserLimit() {
+    SessionStore store = new SessionStore(HOUR, 2, 100);
+    store.put("t1", user(1), later());
+    store.put("t2", user(1), later());
+    store.put("t3", user(1), later());
+    store.put("other", user(2), later());
+
+    assertFalse(store.get("t1").isPresent());
+    assertTrue(store.get("t2").isPresent());
+    assertTrue(store.get("t3").isPresent());
+    assertTrue(store.get("other").isPresent());
+    assertEquals(3, store.size());
+  }
+
+  @Test
+  public void fullStoreSkipsNewSessionsAfterPurgingExpiredOnes() {
+    SessionStore store = new SessionStore(HOUR, 5, 2);
+    store.put("expired", user(1), System.currentTimeMillis() - 1);
+    store.put("t2", user(2), later());
+    store.put("t3", user(3), later()); // purges "expired" to make room
+    store.put("t4", user(4), later()); // full with live sessions
+
+    assertTrue(store.get("t2").isPresent());
+    assertTrue(store.get("t3").isPresent());
+    assertFalse(store.get("t4").isPresent());
+    assertEquals(2, store.size());
+  }
+
+  @Test
+  public void invalidateUserDropsEverySessionOfThatUser() {
+    SessionStore store = new SessionStore(HOUR, 5, 100);
+    store.put("t1", user(1), later());
+    store.put("t2", user(1), later());
+    store.put("other", user(2), later());
+
+    store.invalidateUser(1);
+
+    assertFalse(store.get("t1").isPresent());
+    assertFalse(store.get("t2").isPresent());
+    assertTrue(store.get("other").isPresent());
+  }
+
+  @Test
+  public void putIfUnchangedBacksOutAfterAnInvalidation() {
+    SessionStore store = new SessionStore(HOUR, 5, 100);
+    long stamp = store.readStamp();
+    // A logout lands while the token is still being read from the database
+    store.invalidate("t1");
+    store.putIfUnchanged("t1", user(1), later(), stamp);
+    assertFalse(store.get("t1").isPresent());
+
+    stamp = store.readStamp();
+    store.putIfUnchanged("t1", user(1), later(), stamp);
+    assertTrue(store.get("t1").isPresent());
+  }
+
+  @Test
+  public void invalidateUserAfterCommitAlsoDropsSessionsAddedDuringTheTransaction() throws SQLException {
+    SessionStore store = new SessionStore(HOUR, 5, 100);
+    store.put("t1", user(1), later());
+    TransactionTemplate.execute(connection -> {
+      store.invalidateUserAfterCommit(1);
+      assertFalse(store.get("t1").isPresent());
+      // Read and cached by another request before the change commits
+      store.put("t2", user(1), later());
+      return null;
+    });
+    assertFalse(store.get("t2").isPresent());
+  }
+}
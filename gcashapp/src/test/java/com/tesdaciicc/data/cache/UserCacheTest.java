@@ -0,0 +1,86 @@
+package com.tesdaciicc.data.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.tesdaciicc.model.UserAuthentication;
+
+public class UserCacheTest {
+
+  private static UserAuthentication user(int id) {
+    return new UserAuthentication(id, "User " + id, "user" + id + "@email.com", "0912000000" + id, "pin",
+        "created", "updated");
+  }
+
+  private static void put(UserCache cache, int id) {
+    cache.putIfUnchanged(user(id), cache.readStamp());
+  }
+
+  @Test
+  public void hitReturnsACopyWithoutTheToken() {
+    UserCache cache = new UserCache(16);
+    UserAuthentication loaded = user(1);
+    loaded.setToken("secret");
+    cache.putIfUnchanged(loaded, cache.readStamp());
+    loaded.setName("changed after caching");
+
+    UserAuthentication first = cache.get(1).orElseThrow();
+    first.setName("changed by a caller");
+    UserAuthentication second = cache.get(1).orElseThrow();
+
+    assertNotSame(first, second);
+    assertEquals("User 1", second.getName());
+    assertNull(second.getToken());
+    assertFalse(cache.get(2).isPresent());
+    assertEquals(2, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  public void leastRecentlyUsedUserMakesRoom() {
+    UserCache cache = new UserCache(2);
+    put(cache, 1);
+    put(cache, 2);
+    cache.get(1);
+    put(cache, 3);
+
+    assertEquals(2, cache.size());
+    assertTrue(cache.get(1).isPresent());
+    assertFalse(cache.get(2).isPresent());
+    assertTrue(cache.get(3).isPresent());
+
+    put(cache, 4);
+    assertTrue(cache.get(4).isPresent());
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  public void putAfterAnInvalidationIsIgnored() {
+    UserCache cache = new UserCache(16);
+    long stamp = cache.readStamp();
+    cache.invalidate(1);
+    cache.putIfUnchanged(user(1), stamp);
+    assertFalse(cache.get(1).isPresent());
+
+    put(cache, 1);
+    assertTrue(cache.get(1).isPresent());
+  }
+
+  @Test
+  public void invalidateDropsOnlyThatUser() {
+    UserCache cache = new UserCache(16);
+    put(cache, 1);
+    put(cache, 2);
+    cache.invalidate(1);
+    assertFalse(cache.get(1).isPresent());
+    assertTrue(cache.get(2).isPresent());
+
+    cache.clear();
+    assertEquals(0, cache.size());
+  }
+}
@@ -0,0 +1,97 @@
+package com.tesdaciicc.data.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class UserIdCacheTest {
+
+  private static void put(UserIdCache cache, String identifier, int userId) {
+    cache.putIfUnchanged(identifier, userId, cache.readStamp());
+  }
+
+  @Test
+  public void cachedMappingIsReturned() {
+    UserIdCache cache = new UserIdCache(16);
+    put(cache, "a@email.com", 1);
+    put(cache, "09123456789", 1);
+
+    assertEquals(Integer.valueOf(1), cache.get("a@email.com"));
+    assertEquals(Integer.valueOf(1), cache.get("09123456789"));
+    assertNull(cache.get("b@email.com"));
+    assertEquals(2, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  public void leastRecentlyUsedIdentifierMakesRoom() {
+    UserIdCache cache = new UserIdCache(2);
+    put(cache, "a", 1);
+    put(cache, "b", 2);
+    cache.get("a");
+    put(cache, "c", 3);
+
+    assertEquals(2, cache.size());
+    assertEquals(Integer.valueOf(1), cache.get("a"));
+    assertNull(cache.get("b"));
+    assertEquals(Integer.valueOf(3), cache.get("c"));
+
+    // A full cache keeps admitting new identifiers
+    put(cache, "d", 4);
+    assertEquals(Integer.valueOf(4), cache.get("d"));
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  public void putAfterAnInvalidationIsIgnored() {
+    UserIdCache cache = new UserIdCache(16);
+    long stamp = cache.readStamp();
+    // A write lands while the reader is querying the old row
+    cache.invalidateUser(1);
+    cache.putIfUnchanged("a@email.com", 1, stamp);
+    assertNull(cache.get("a@email.com"));
+
+    cache.putIfUnchanged("a@email.com", 1, cache.readStamp());
+    assertEquals(Integer.valueOf(1), cache.get("a@email.com"));
+  }
+
+  @Test
+  public void invalidateUserDropsEveryIdentifierOfThatUser() {
+    UserIdCache cache = new UserIdCache(16);
+    put(cache, "a@email.com", 1);
+    put(cache, "09123456789", 1);
+    put(cache, "b@email.com", 2);
+
+    cache.invalidateUser(1);
+    assertNull(cache.get("a@email.com"));
+    assertNull(cache.get("09123456789"));
+    assertEquals(Integer.valueOf(2), cache.get("b@email.com"));
+
+    cache.invalidate("b@email.com");
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void identifierMovedToAnotherUserIsNotDroppedWithTheOldOne() {
+    UserIdCache cache = new UserIdCache(16);
+    put(cache, "shared@email.com", 1);
+    put(cache, "shared@email.com", 2);
+
+    cache.invalidateUser(1);
+    assertEquals(Integer.valueOf(2), cache.get("shared@email.com"));
+    cache.invalidateUser(2);
+    assertNull(cache.get("shared@email.com"));
+  }
+
+  @Test
+  public void evictedIdentifierIsForgottenByItsUser() {
+    UserIdCache cache = new UserIdCache(1);
+    put(cache, "a", 1);
+    put(cache, "b", 2);
+    // "a" was evicted; re-adding it for another user must survive invalidating user 1
+    put(cache, "a", 3);
+    cache.invalidateUser(1);
+    assertEquals(Integer.valueOf(3), cache.get("a"));
+  }
+}
@@ -0,0 +1,117 @@
+package com.tesdaciicc.data.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tesdaciicc.TestDatabase;
+import com.tesdaciicc.data.util.ConnectionFactory;
+import com.tesdaciicc.model.Money;
+
+public class BalanceDAOTest {
+
+  private final BalanceDAO dao = new BalanceDAO();
+
+  @Before
+  public void setUp() {
+    TestDatabase.reset();
+  }
+
+  /**
+   * @return Balance in centavos as stored, bypassing the balance cache
+   */
+  private static long storedCentavos(int userId) throws SQLException {
+    try (Connection connection = ConnectionFactory.getReadConnection();
+        PreparedStatement statement = connection.prepareStatement("SELECT balanceAmount FROM balance WHERE userId = ?")) {
+      statement.setInt(1, userId);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        assertTrue(resultSet.next());
+        return resultSet.getLong(1);
+      }
+    }
+  }
+
+  @Test
+  public void debitAndCreditReturnTheNewBalance() throws SQLException {
+    assertTrue(dao.updateBalance(1, Money.ofCentavos(10_000)));
+
+    assertEquals(Money.ofCentavos(7_500), dao.debitIfSufficient(1, Money.ofCentavos(2_500)).orElseThrow());
+    assertEquals(Money.ofCentavos(8_000), dao.credit(1, Money.ofCentavos(500)).orElseThrow());
+    // The whole balance can be spent
+    assertEquals(Money.ofCentavos(0), dao.debitIfSufficient(1, Money.ofCentavos(8_000)).orElseThrow());
+
+    assertEquals(0, storedCentavos(1));
+    assertEquals(Money.ofCentavos(0), dao.findByUserId(1).orElseThrow().getAmount());
+  }
+
+  @Test
+  public void insufficientDebitLeavesTheBalanceUntouched() throws SQLException {
+    assertTrue(dao.updateBalance(1, Money.ofCentavos(10_000)));
+    String updatedDate = dao.findByUserId(1).orElseThrow().getUpdatedDate();
+
+    assertFalse(dao.debitIfSufficient(1, Money.ofCentavos(10_001)).isPresent());
+
+    assertEquals(10_000, storedCentavos(1));
+    assertEquals(Money.ofCentavos(10_000), dao.findByUserId(1).orElseThrow().getAmount());
+    assertEquals(updatedDate, dao.findByUserId(1).orElseThrow().getUpdatedDate());
+  }
+
+  @Test
+  public void missingBalanceIsNeitherDebitedNorCredited() {
+    assertTrue(dao.delete(1));
+    assertFalse(dao.debitIfSufficient(1, Money.ofCentavos(1)).isPresent());
+    assertFalse(dao.credit(1, Money.ofCentavos(1)).isPresent());
+    assertFalse(dao.findByUserId(1).isPresent());
+  }
+
+  @Test
+  public void concurrentDebitsNeverOverdraw() throws Exception {
+    int threads = 8;
+    int attemptsPerThread = 20;
+    assertTrue(dao.updateBalance(4, Money.ofCentavos(1_000)));
+
+    AtomicInteger applied = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          for (int j = 0; j < attemptsPerThread; j++) {
+            dao.debitIfSufficient(4, Money.ofCentavos(100)).ifPresent(balance -> {
+              assertTrue("negative balance " + balance, balance.getCentavos() >= 0);
+              applied.incrementAndGet();
+            });
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(10, applied.get());
+    assertEquals(0, storedCentavos(4));
+  }
+}
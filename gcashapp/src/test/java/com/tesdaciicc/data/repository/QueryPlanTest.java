@@ -0,0 +1,82 @@
+package com.tesdaciicc.data.repository;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.tesdaciicc.TestDatabase;
+import com.tesdaciicc.data.util.ConnectionFactory;
+
+/**
+ * Checks with EXPLAIN QUERY PLAN that the hot transactions queries are served
+ * by the composite indexes from the migrations instead of scanning the table.
+ * It lives beside the DAOs so it can read their package-private query strings.
+ */
+public class QueryPlanTest {
+
+  @BeforeClass
+  public static void createSchema() {
+    TestDatabase.reset();
+  }
+
+  /**
+   * Asserts the plan uses every expected index, never scans the transactions
+   * table and does not sort the whole result in a temporary b-tree. Sorting
+   * only the tie-breaking last ORDER BY term among equal dates is allowed.
+   */
+  private static void assertPlan(String sql, String... expectedIndexes) throws SQLException {
+    String plan = explain(sql);
+    for (String index : expectedIndexes) {
+      assertTrue("does not use " + index + ":\n" + plan, plan.contains(index));
+    }
+    assertFalse("scans the transactions table:\n" + plan, plan.contains("SCAN transactions"));
+    assertFalse("sorts with a temporary b-tree:\n" + plan, plan.contains("USE TEMP B-TREE FOR ORDER BY"));
+  }
+
+  private static String explain(String sql) throws SQLException {
+    StringBuilder plan = new StringBuilder();
+    // Parameters are left unbound; the plan does not depend on their values
+    try (Connection connection = ConnectionFactory.getReadConnection();
+        PreparedStatement statement = connection.prepareStatement("EXPLAIN QUERY PLAN " + sql);
+        ResultSet resultSet = statement.executeQuery()) {
+      while (resultSet.next()) {
+        plan.append(resultSet.getString("detail")).append('\n');
+      }
+    }
+    return plan.toString();
+  }
+
+  @Test
+  public void userHistoryUsesTheUserDateIndex() throws SQLException {
+    assertPlan(TransactionsDAO.SELECT_TRANSACTIONS_BY_USER_ID, "idx_transactions_userId_date");
+    assertPlan(TransactionsDAO.SELECT_VALID_TRANSACTIONS_BY_USER_ID, "idx_transactions_userId_date");
+  }
+
+  @Test
+  public void userHistoryPageUsesTheUserDateIndex() throws SQLException {
+    assertPlan(TransactionsDAO.SELECT_USER_TRANSACTIONS_PAGE_AFTER, "idx_transactions_userId_date");
+  }
+
+  @Test
+  public void allTransactionsPageUsesTheDateIndex() throws SQLException {
+    assertPlan(TransactionsDAO.SELECT_TRANSACTIONS_PAGE_AFTER, "idx_transactions_date");
+  }
+
+  @Test
+  public void transfersByAccountUseBothDirectionIndexes() throws SQLException {
+    assertPlan(CashTransferDAO.SELECT_TRANSFERS_BY_ACCOUNT, "idx_transactions_from_date", "idx_transactions_to_date");
+  }
+
+  @Test
+  public void dailyTransferTotalsUseTheSenderDateIndex() throws SQLException {
+    assertPlan(CashTransferDAO.SELECT_DAILY_TRANSFER_AMOUNT, "idx_transactions_from_date");
+    assertPlan(CashTransferDAO.COUNT_DAILY_TRANSFERS, "idx_transactions_from_date");
+  }
+}
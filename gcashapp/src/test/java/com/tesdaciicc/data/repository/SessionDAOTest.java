@@ -0,0 +1,149 @@
+package com.tesdaciicc.data.repository;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tesdaciicc.TestDatabase;
+import com.tesdaciicc.data.util.Config;
+import com.tesdaciicc.data.util.ConnectionFactory;
+
+public class SessionDAOTest {
+
+  private static final long HOUR = 60 * 60 * 1000L;
+
+  private final SessionDAO sessionDAO = new SessionDAO();
+  private final UserAuthenticationDAO authenticationDAO = new UserAuthenticationDAO();
+  private long now;
+
+  @Before
+  public void setUp() {
+    TestDatabase.reset();
+    now = System.currentTimeMillis();
+  }
+
+  private static long queryLong(String sql, Object parameter) throws SQLException {
+    try (Connection connection = ConnectionFactory.getReadConnection();
+        PreparedStatement statement = connection.prepareStatement(sql)) {
+      statement.setObject(1, parameter);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        assertTrue(resultSet.next());
+        return resultSet.getLong(1);
+      }
+    }
+  }
+
+  private static long sessionCount(int userId) throws SQLException {
+    return queryLong("SELECT COUNT(*) FROM sessions WHERE userId = ?", userId);
+  }
+
+  private static long lastSeen(String token) throws SQLException {
+    return queryLong("SELECT lastSeen FROM sessions WHERE tokenHash = ?", SessionDAO.hashToken(token));
+  }
+
+  private boolean isValid(String token) {
+    return authenticationDAO.validateToken(token).isPresent();
+  }
+
+  @Test
+  public void sessionIsStoredUnderTheTokenHash() throws Exception {
+    assertTrue(sessionDAO.create(1, "token-a", now, now + HOUR));
+
+    byte[] expected = MessageDigest.getInstance("SHA-256").digest("token-a".getBytes(StandardCharsets.UTF_8));
+    assertArrayEquals(expected, SessionDAO.hashToken("token-a"));
+    assertEquals(1, queryLong("SELECT COUNT(*) FROM sessions WHERE tokenHash = ?", expected));
+    assertEquals(0, queryLong("SELECT COUNT(*) FROM sessions WHERE CAST(tokenHash AS TEXT) = ?", "token-a"));
+    assertEquals(now, lastSeen("token-a"));
+
+    assertEquals(1, authenticationDAO.validateToken(" token-a ").orElseThrow().getId());
+    assertFalse(isValid("token-b"));
+    assertFalse(isValid(" "));
+  }
+
+  @Test
+  public void oldestSessionsBeyondTheCapAreEnded() throws SQLException {
+    int sessions = Config.MAX_SESSIONS_PER_USER + 2;
+    for (int i = 1; i <= sessions; i++) {
+      assertTrue(sessionDAO.create(1, "token-" + i, now + i, now + HOUR));
+    }
+    assertTrue(sessionDAO.create(2, "other", now, now + HOUR));
+
+    assertEquals(Config.MAX_SESSIONS_PER_USER, sessionCount(1));
+    assertFalse(isValid("token-1"));
+    assertFalse(isValid("token-2"));
+    for (int i = 3; i <= sessions; i++) {
+      assertTrue("token-" + i, isValid("token-" + i));
+    }
+    assertEquals(1, sessionCount(2));
+  }
+
+  @Test
+  public void expiredSessionsAreRejectedAndSwept() throws SQLException {
+    assertTrue(sessionDAO.create(1, "expired", now - HOUR, now - 1));
+    assertTrue(sessionDAO.create(1, "current", now, now + HOUR));
+
+    assertFalse(isValid("expired"));
+    assertTrue(isValid("current"));
+
+    assertEquals(1, sessionDAO.deleteExpired(now));
+    assertEquals(0, sessionDAO.deleteExpired(now));
+    assertEquals(1, sessionCount(1));
+  }
+
+  @Test
+  public void logoutEndsOnlyThatSession() throws SQLException {
+    assertTrue(sessionDAO.create(1, "phone", now, now + HOUR));
+    assertTrue(sessionDAO.create(1, "laptop", now + 1, now + HOUR));
+    assertTrue(isValid("phone")); // now in the session store too
+
+    assertTrue(authenticationDAO.logout("phone"));
+    assertFalse(isValid("phone"));
+    assertTrue(isValid("laptop"));
+
+    assertFalse(authenticationDAO.logout("phone"));
+    assertFalse(authenticationDAO.logout(null));
+    assertEquals(1, sessionCount(1));
+  }
+
+  @Test
+  public void logoutAllEndsEverySessionOfTheUser() throws SQLException {
+    assertTrue(sessionDAO.create(1, "phone", now, now + HOUR));
+    assertTrue(sessionDAO.create(1, "laptop", now + 1, now + HOUR));
+    assertTrue(sessionDAO.create(2, "other", now, now + HOUR));
+    assertTrue(isValid("phone"));
+    assertTrue(isValid("laptop"));
+
+    assertTrue(authenticationDAO.logoutAll(1));
+    assertFalse(isValid("phone"));
+    assertFalse(isValid("laptop"));
+    assertTrue(isValid("other"));
+    assertEquals(0, sessionCount(1));
+
+    // Nothing left to end is still a successful logout
+    assertTrue(authenticationDAO.logoutAll(1));
+  }
+
+  @Test
+  public void lastSeenOnlyMovesForward() throws SQLException {
+    assertTrue(sessionDAO.create(1, "token-a", now, now + HOUR));
+
+    assertTrue(sessionDAO.updateLastSeen(Map.of("token-a", now + 500, "ended", now + 500)));
+    assertEquals(now + 500, lastSeen("token-a"));
+
+    assertTrue(sessionDAO.updateLastSeen(Map.of("token-a", now + 100)));
+    assertEquals(now + 500, lastSeen("token-a"));
+    assertEquals(1, sessionCount(1));
+  }
+}
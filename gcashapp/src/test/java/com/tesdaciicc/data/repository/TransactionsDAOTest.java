@@ -0,0 +1,200 @@
+package com.tesdaciicc.data.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tesdaciicc.TestDatabase;
+import com.tesdaciicc.data.util.Config;
+import com.tesdaciicc.data.util.ConnectionFactory;
+import com.tesdaciicc.model.TransactionPage;
+import com.tesdaciicc.model.Transactions;
+
+public class TransactionsDAOTest {
+
+  private final TransactionsDAO dao = new TransactionsDAO();
+
+  static void execute(String sql) throws SQLException {
+    try (Connection connection = ConnectionFactory.getWriteConnection();
+        Statement statement = connection.createStatement()) {
+      statement.executeUpdate(sql);
+    }
+  }
+
+  static void insert(int transactionId, int userId, long date, String name) throws SQLException {
+    insert(transactionId, userId, 10000, date, name, "'09987654321'", "'09123456789'");
+  }
+
+  /**
+   * @param to   SQL literal for transferToAccountNo, e.g. "NULL" for a cash-out
+   * @param from SQL literal for transferFromAccountNo, e.g. "NULL" for a cash-in
+   */
+  static void insert(int transactionId, int userId, long centavos, long date, String name, String to, String from)
+      throws SQLException {
+    execute("INSERT INTO transactions (transactionId, transactionAmount, transactionName, userId, transactionDate, "
+        + "transferToAccountNo, transferFromAccountNo, accountNumber) VALUES (" + transactionId + ", " + centavos
+        + ", '" + name + "', " + userId + ", " + date + ", " + to + ", " + from + ", '09123456789')");
+  }
+
+  /**
+   * @return Every user's stats row as text, in userId order. Users left without
+   *         valid transactions keep a zero row from the triggers but get none
+   *         from a rebuild, so they are skipped.
+   */
+  private static List<String> statsRows() throws SQLException {
+    List<String> rows = new ArrayList<>();
+    try (Connection connection = ConnectionFactory.getReadConnection();
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT userId, transactionCount, totalCentavos, maxCentavos, "
+            + "minCentavos, transferCount, cashInCount, cashOutCount FROM user_transaction_stats "
+            + "WHERE transactionCount > 0 ORDER BY userId")) {
+      while (resultSet.next()) {
+        StringBuilder row = new StringBuilder();
+        for (int column = 1; column <= 8; column++) {
+          row.append(resultSet.getString(column)).append(column < 8 ? "," : "");
+        }
+        rows.add(row.toString());
+      }
+    }
+    return rows;
+  }
+
+  private static List<Integer> ids(TransactionPage page) {
+    List<Integer> ids = new ArrayList<>();
+    for (Transactions transaction : page.getTransactions()) {
+      ids.add(transaction.getTransactionId());
+    }
+    return ids;
+  }
+
+  @Before
+  public void seedHistory() throws SQLException {
+    TestDatabase.reset();
+    execute("DELETE FROM transactions");
+    // User 1, newest first: 6, 5, 4, 3, 2, 1; three share a date
+    insert(1, 1, 1_000, "CASH_TRANSFER_COMPLETED");
+    insert(2, 1, 2_000, "CASH_TRANSFER_COMPLETED");
+    insert(3, 1, 2_000, "CASH_TRANSFER_COMPLETED");
+    insert(4, 1, 2_000, "CASH_TRANSFER_COMPLETED");
+    insert(5, 1, 3_000, "CASH_TRANSFER_COMPLETED");
+    insert(6, 1, 4_000, "CASH_TRANSFER_COMPLETED");
+    // Invalid: a blank name, between 6 and 5
+    insert(8, 1, 3_500, " ");
+    insert(9, 2, 2_500, "CASH_TRANSFER_COMPLETED");
+  }
+
+  @Test
+  public void cursorsWalkTheHistoryAcrossTiedDates() {
+    TransactionPage first = dao.viewUserPage(1, null, 2);
+    assertEquals(List.of(6, 5), ids(first));
+    assertNotNull(first.getNextCursor());
+
+    TransactionPage second = dao.viewUserPage(1, first.getNextCursor(), 2);
+    assertEquals(List.of(4, 3), ids(second));
+
+    // Page three starts among rows with the same date as the end of page two
+    TransactionPage third = dao.viewUserPage(1, second.getNextCursor(), 2);
+    assertEquals(List.of(2, 1), ids(third));
+    assertNull(third.getNextCursor());
+  }
+
+  @Test
+  public void invalidRowsDoNotShortenAPage() {
+    TransactionPage first = dao.viewUserPage(1, null, 3);
+    assertEquals(List.of(6, 5, 4), ids(first));
+    TransactionPage second = dao.viewUserPage(1, first.getNextCursor(), 3);
+    assertEquals(List.of(3, 2, 1), ids(second));
+    // Exactly full: the extra row fetched to look ahead was not there
+    assertNull(second.getNextCursor());
+  }
+
+  @Test
+  public void allTransactionsPagesIncludeEveryUser() {
+    List<Integer> seen = new ArrayList<>();
+    String cursor = null;
+    do {
+      TransactionPage page = dao.viewAllPage(cursor, 4);
+      seen.addAll(ids(page));
+      cursor = page.getNextCursor();
+    } while (cursor != null);
+    assertEquals(List.of(6, 5, 9, 4, 3, 2, 1), seen);
+  }
+
+  @Test
+  public void emptyHistoryIsOneLastPage() {
+    TransactionPage page = dao.viewUserPage(3, null, 10);
+    assertEquals(List.of(), ids(page));
+    assertNull(page.getNextCursor());
+  }
+
+  @Test
+  public void malformedCursorIsRejected() {
+    String noSeparator = Base64.getUrlEncoder().encodeToString("12345".getBytes(StandardCharsets.UTF_8));
+    String notNumbers = Base64.getUrlEncoder().encodeToString("a|b".getBytes(StandardCharsets.UTF_8));
+    for (String cursor : List.of("not a cursor!", noSeparator, notNumbers)) {
+      try {
+        dao.viewUserPage(1, cursor, 2);
+        fail("Accepted cursor " + cursor);
+      } catch (IllegalArgumentException expected) {
+        // rejected
+      }
+    }
+  }
+
+  @Test
+  public void pageSizeIsBounded() {
+    for (int limit : new int[] { 0, Config.TRANSACTION_PAGE_MAX_SIZE + 1 }) {
+      try {
+        dao.viewAllPage(null, limit);
+        fail("Accepted page size " + limit);
+      } catch (IllegalArgumentException expected) {
+        // rejected
+      }
+    }
+  }
+
+  @Test
+  public void statsTriggersAgreeWithARebuild() throws SQLException {
+    // Cash-ins and cash-outs next to the seeded transfers, with distinct amounts
+    insert(10, 1, 2_500, 5_000, "CASH_IN_COMPLETED", "'09123456789'", "NULL");
+    insert(11, 1, 99_999, 6_000, "CASH_OUT_COMPLETED", "NULL", "'09123456789'");
+    insert(12, 2, 1, 7_000, "CASH_IN_COMPLETED", "'09987654321'", "''");
+    insert(13, 3, 4_200, 8_000, "CASH_TRANSFER_COMPLETED", "'09987654321'", "'09111111111'");
+    assertStatsMatchRebuild();
+
+    // Amount, owner and validity changes
+    execute("UPDATE transactions SET transactionAmount = 123 WHERE transactionId = 2");
+    execute("UPDATE transactions SET userId = 2 WHERE transactionId = 5");
+    execute("UPDATE transactions SET transactionName = 'CASH_TRANSFER_COMPLETED' WHERE transactionId = 8");
+    execute("UPDATE transactions SET transactionName = '' WHERE transactionId = 13");
+    assertStatsMatchRebuild();
+
+    // The current minimum and maximum, and the invalid row
+    execute("DELETE FROM transactions WHERE transactionId IN (11, 12, 13)");
+    execute("DELETE FROM transactions WHERE transactionId = 2");
+    assertStatsMatchRebuild();
+
+    execute("DELETE FROM transactions WHERE userId = 2");
+    assertStatsMatchRebuild();
+  }
+
+  private void assertStatsMatchRebuild() throws SQLException {
+    List<String> maintained = statsRows();
+    assertTrue(dao.rebuildUserTransactionStats());
+    assertEquals(statsRows(), maintained);
+  }
+}
@@ -0,0 +1,29 @@
+package com.tesdaciicc.data.repository;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class UserIdentifierTest {
+
+  @Test
+  public void mobileNumbersAreNotEmails() {
+    assertFalse(UserIdentifier.isEmail("09123456789"));
+    assertFalse(UserIdentifier.isEmail("0912345678")); // too short, but no '@' either
+    assertFalse(UserIdentifier.isEmail("+639123456789"));
+    assertFalse(UserIdentifier.isEmail(""));
+  }
+
+  @Test
+  public void emailsAreEmails() {
+    assertTrue(UserIdentifier.isEmail("john.doe@email.com"));
+    assertTrue(UserIdentifier.isEmail("a+b_c@sub.example.ph"));
+  }
+
+  @Test
+  public void looseEmailsAcceptedAtRegistrationAreEmails() {
+    assertTrue(UserIdentifier.isEmail("user@localhost"));
+    assertTrue(UserIdentifier.isEmail("first last@email.com"));
+  }
+}
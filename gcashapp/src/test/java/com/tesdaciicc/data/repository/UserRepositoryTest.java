@@ -0,0 +1,100 @@
+package com.tesdaciicc.data.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tesdaciicc.TestDatabase;
+import com.tesdaciicc.data.cache.UserCache;
+import com.tesdaciicc.data.cache.UserIdCache;
+import com.tesdaciicc.data.util.TransactionTemplate;
+import com.tesdaciicc.model.UserAuthentication;
+
+public class UserRepositoryTest {
+
+  private final UserRepository repository = new UserRepository();
+  private final UserCache userCache = UserCache.getInstance();
+  private final UserIdCache userIdCache = UserIdCache.getInstance();
+
+  @Before
+  public void setUp() {
+    TestDatabase.reset();
+  }
+
+  @Test
+  public void lookupsByEmailAndNumberShareTheCachedRow() {
+    UserAuthentication byEmail = repository.findByEmailOrNumber("john.doe@email.com").orElseThrow();
+    assertEquals(1, byEmail.getId());
+    assertEquals(Integer.valueOf(1), userIdCache.get("john.doe@email.com"));
+    assertTrue(userCache.get(1).isPresent());
+
+    UserAuthentication byNumber = repository.findByEmailOrNumber("09123456789").orElseThrow();
+    assertEquals(1, byNumber.getId());
+    assertEquals("john.doe@email.com", byNumber.getEmail());
+    assertEquals(Integer.valueOf(1), userIdCache.get("09123456789"));
+
+    // Both identifiers now resolve to the cached row without a query by index
+    long hits = userCache.getHitCount();
+    repository.findByEmailOrNumber("09123456789").orElseThrow();
+    repository.findByEmailOrNumber("john.doe@email.com").orElseThrow();
+    assertEquals(hits + 2, userCache.getHitCount());
+
+    assertEquals(byEmail.getName(), repository.findById(1).orElseThrow().getName());
+    assertFalse(repository.findByEmailOrNumber("nobody@email.com").isPresent());
+    assertFalse(repository.findByEmailOrNumber("09000000000").isPresent());
+    assertFalse(repository.findByEmailOrNumber(null).isPresent());
+  }
+
+  @Test
+  public void updateDropsTheOldIdentifiers() {
+    UserAuthentication user = repository.findByEmail("john.doe@email.com").orElseThrow();
+    repository.findByNumber("09123456789").orElseThrow();
+
+    user.setName("John Updated");
+    user.setEmail("john.new@email.com");
+    user.setNumber("09111111111");
+    assertTrue(repository.update(user));
+
+    assertFalse(repository.findByEmail("john.doe@email.com").isPresent());
+    assertFalse(repository.findByNumber("09123456789").isPresent());
+    assertEquals("John Updated", repository.findByEmailOrNumber("john.new@email.com").orElseThrow().getName());
+    assertEquals(1, repository.findByEmailOrNumber("09111111111").orElseThrow().getId());
+    assertEquals("John Updated", repository.findById(1).orElseThrow().getName());
+  }
+
+  @Test
+  public void updateInsideATransactionIsSeenAfterCommit() throws Exception {
+    repository.findById(2).orElseThrow();
+
+    TransactionTemplate.execute(connection -> {
+      UserAuthentication user = repository.findById(2).orElseThrow();
+      user.setName("Jane Updated");
+      assertTrue(repository.update(user));
+      // The caches are bypassed while this thread's change is uncommitted
+      assertEquals("Jane Updated", repository.findById(2).orElseThrow().getName());
+      return null;
+    });
+
+    assertEquals("Jane Updated", repository.findById(2).orElseThrow().getName());
+    assertEquals("Jane Updated", repository.findByEmail("jane.smith@email.com").orElseThrow().getName());
+  }
+
+  @Test
+  public void deletedUserIsNotFoundThroughTheCaches() {
+    // A user without transactions, which would block the delete
+    UserAuthentication saved = repository.save(
+        new UserAuthentication("Temp User", "temp@email.com", "09555555555", "1111"), "hash").orElseThrow();
+    int id = saved.getId();
+    assertEquals(id, repository.findByEmailOrNumber("temp@email.com").orElseThrow().getId());
+    assertEquals(id, repository.findByEmailOrNumber("09555555555").orElseThrow().getId());
+
+    assertTrue(repository.delete(id));
+    assertFalse(repository.findById(id).isPresent());
+    assertFalse(repository.findByEmailOrNumber("temp@email.com").isPresent());
+    assertFalse(repository.findByEmailOrNumber("09555555555").isPresent());
+    assertFalse(repository.delete(id));
+  }
+}
@@ -0,0 +1,354 @@
+package com.tesdaciicc.data.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ConnectionPoolTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private String url;
+  private final List<ConnectionPool> pools = new ArrayList<>();
+
+  @Before
+  public void setUp() throws Exception {
+    File db = folder.newFile("pool.db");
+    url = "jdbc:sqlite:" + db.getAbsolutePath();
+    try (Connection connection = DriverManager.getConnection(url);
+        Statement statement = connection.createStatement()) {
+      statement.execute("CREATE TABLE t (v INTEGER)");
+    }
+  }
+
+  @After
+  public void tearDown() {
+    for (ConnectionPool pool : pools) {
+      pool.shutdown();
+    }
+  }
+
+  private ConnectionPool pool(int min, int max, boolean reentrant) {
+    ConnectionPool pool = new ConnectionPool("test", url, List.of("PRAGMA busy_timeout = 5000"), min, max,
+        60_000, 200, 0, 2, reentrant);
+    pools.add(pool);
+    return pool;
+  }
+
+  private static int count(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM t")) {
+      resultSet.next();
+      return resultSet.getInt(1);
+    }
+  }
+
+  @Test
+  public void returnedConnectionIsReused() throws Exception {
+    ConnectionPool pool = pool(0, 2, false);
+    try (Connection connection = pool.getConnection()) {
+      assertFalse(connection.isClosed());
+      assertEquals(1, pool.getActiveConnections());
+    }
+    try (Connection connection = pool.getConnection()) {
+      assertEquals(0, count(connection));
+    }
+    assertEquals(1, pool.getTotalConnections());
+    assertEquals(1, pool.getIdleConnections());
+    assertEquals(0, pool.getActiveConnections());
+  }
+
+  @Test
+  public void exhaustedPoolTimesOut() throws Exception {
+    ConnectionPool pool = pool(0, 1, false);
+    try (Connection held = pool.getConnection()) {
+      CountDownLatch done = new CountDownLatch(1);
+      AtomicInteger timeouts = new AtomicInteger();
+      Thread other = new Thread(() -> {
+        try (Connection connection = pool.getConnection()) {
+          fail("Borrowed beyond the maximum size: " + connection);
+        } catch (SQLException e) {
+          timeouts.incrementAndGet();
+        } finally {
+          done.countDown();
+        }
+      });
+      other.start();
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+      assertEquals(1, timeouts.get());
+      assertFalse(held.isClosed());
+    }
+  }
+
+  @Test
+  public void closedHandleCannotBeUsed() throws Exception {
+    ConnectionPool pool = pool(0, 1, false);
+    Connection connection = pool.getConnection();
+    connection.close();
+    connection.close(); // second close is a no-op
+    assertTrue(connection.isClosed());
+    try {
+      connection.createStatement();
+      fail("Used a connection after returning it");
+    } catch (SQLException expected) {
+      // returned to the pool
+    }
+    assertEquals(0, pool.getActiveConnections());
+  }
+
+  @Test
+  public void uncommittedWorkIsRolledBackOnReturn() throws Exception {
+    ConnectionPool pool = pool(0, 1, false);
+    try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+      connection.setAutoCommit(false);
+      statement.executeUpdate("INSERT INTO t VALUES (1)");
+    }
+    try (Connection connection = pool.getConnection()) {
+      assertTrue(connection.getAutoCommit());
+      assertEquals(0, count(connection));
+    }
+  }
+
+  @Test
+  public void reentrantPoolHandsTheHeldConnectionBack() throws Exception {
+    ConnectionPool pool = pool(0, 1, true);
+    assertFalse(pool.isHeldByCurrentThread());
+    try (Connection outer = pool.getConnection()) {
+      outer.setAutoCommit(false);
+      try (Connection nested = pool.getConnection(); Statement statement = nested.createStatement()) {
+        assertTrue(pool.isHeldByCurrentThread());
+        statement.executeUpdate("INSERT INTO t VALUES (1)");
+      }
+      // Closing the nested handle leaves the transaction with the outer borrower
+      assertFalse(outer.isClosed());
+      assertEquals(1, count(outer));
+      assertEquals(1, pool.getActiveConnections());
+      outer.commit();
+      outer.setAutoCommit(true);
+    }
+    assertFalse(pool.isHeldByCurrentThread());
+    try (Connection connection = pool.getConnection()) {
+      assertEquals(1, count(connection));
+    }
+  }
+
+  @Test
+  public void concurrentBorrowsNeverExceedMaximum() throws Exception {
+    ConnectionPool pool = pool(1, 3, false);
+    AtomicInteger maxActive = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < 50; j++) {
+            try (Connection connection = getWithRetry(pool)) {
+              maxActive.accumulateAndGet(pool.getActiveConnections(), Math::max);
+              count(connection);
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertTrue("active connections: " + maxActive.get(), maxActive.get() <= 3);
+    assertTrue(pool.getTotalConnections() <= 3);
+    assertEquals(0, pool.getActiveConnections());
+  }
+
+  private static Connection getWithRetry(ConnectionPool pool) throws SQLException {
+    while (true) {
+      try {
+        return pool.getConnection();
+      } catch (SQLException e) {
+        if (!e.getMessage().startsWith("Timed out")) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  @Test
+  public void shutdownRejectsNewBorrows() throws Exception {
+    ConnectionPool pool = pool(1, 1, false);
+    pool.shutdown();
+    assertEquals(0, pool.getTotalConnections());
+    try {
+      pool.getConnection();
+      fail("Borrowed from a closed pool");
+    } catch (SQLException expected) {
+      // closed
+    }
+  }
+
+  @Test
+  public void statementsClosedDuringABorrowAreNotKept() throws Exception {
+    ConnectionPool pool = pool(0, 1, false);
+    Statement leftOpen;
+    try (Connection connection = pool.getConnection()) {
+      for (int i = 0; i < 1000; i++) {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT " + (i % 100))) {
+          statement.executeQuery().close();
+        }
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("SELECT 1");
+        }
+      }
+      assertTrue("tracked statements: " + pool.getTrackedStatements(), pool.getTrackedStatements() <= 32);
+
+      leftOpen = connection.createStatement();
+    }
+    // Whatever the caller forgot is still closed on return
+    assertTrue(leftOpen.isClosed());
+    assertEquals(0, pool.getTrackedStatements());
+  }
+
+  @Test
+  public void cachedStatementIsReusedAfterClose() throws Exception {
+    try (Connection connection = DriverManager.getConnection(url)) {
+      StatementCache cache = new StatementCache(connection, 4);
+      PreparedStatement first = cache.prepare("SELECT v FROM t WHERE v = ?", Statement.NO_GENERATED_KEYS);
+      PreparedStatement physical = first.unwrap(PreparedStatement.class);
+      first.setInt(1, 1);
+      first.close();
+      assertTrue(first.isClosed());
+      assertFalse(physical.isClosed());
+
+      PreparedStatement second = cache.prepare("SELECT v FROM t WHERE v = ?", Statement.NO_GENERATED_KEYS);
+      assertSame(physical, second.unwrap(PreparedStatement.class));
+      assertEquals(1, cache.size());
+      second.close();
+
+      // Generated keys make a different statement
+      cache.prepare("SELECT v FROM t WHERE v = ?", Statement.RETURN_GENERATED_KEYS).close();
+      assertEquals(2, cache.size());
+      cache.closeAll();
+      assertTrue(physical.isClosed());
+    }
+  }
+
+  @Test
+  public void closedCachedStatementCannotBeUsed() throws Exception {
+    try (Connection connection = DriverManager.getConnection(url)) {
+      StatementCache cache = new StatementCache(connection, 4);
+      PreparedStatement statement = cache.prepare("SELECT 1", Statement.NO_GENERATED_KEYS);
+      statement.close();
+      try {
+        statement.executeQuery();
+        fail("Used a statement after returning it");
+      } catch (SQLException expected) {
+        // back in the cache
+      }
+      cache.closeAll();
+    }
+  }
+
+  @Test
+  public void leastRecentlyUsedStatementIsEvicted() throws Exception {
+    try (Connection connection = DriverManager.getConnection(url)) {
+      StatementCache cache = new StatementCache(connection, 2);
+      PreparedStatement a = physical(cache, "SELECT 1");
+      PreparedStatement b = physical(cache, "SELECT 2");
+      physical(cache, "SELECT 1"); // a is now the most recently used
+      PreparedStatement c = physical(cache, "SELECT 3");
+
+      assertEquals(2, cache.size());
+      assertTrue(b.isClosed());
+      assertFalse(a.isClosed());
+      assertFalse(c.isClosed());
+      assertSame(a, physical(cache, "SELECT 1"));
+      assertNotSame(b, physical(cache, "SELECT 2"));
+      cache.closeAll();
+    }
+  }
+
+  /**
+   * Prepare and return a statement
+   *
+   * @return The physical statement behind the cached one
+   */
+  private static PreparedStatement physical(StatementCache cache, String sql) throws SQLException {
+    try (PreparedStatement statement = cache.prepare(sql, Statement.NO_GENERATED_KEYS)) {
+      return statement.unwrap(PreparedStatement.class);
+    }
+  }
+
+  @Test
+  public void sameSqlInUseGetsAnUncachedStatement() throws Exception {
+    try (Connection connection = DriverManager.getConnection(url)) {
+      StatementCache cache = new StatementCache(connection, 4);
+      PreparedStatement outer = cache.prepare("SELECT 1", Statement.NO_GENERATED_KEYS);
+      PreparedStatement inner = cache.prepare("SELECT 1", Statement.NO_GENERATED_KEYS);
+      PreparedStatement cached = outer.unwrap(PreparedStatement.class);
+      assertNotSame(cached, inner.unwrap(PreparedStatement.class));
+
+      inner.close();
+      assertTrue(inner.isClosed());
+      assertEquals(1, cache.size());
+      outer.close();
+      assertFalse(cached.isClosed());
+      assertSame(cached, physical(cache, "SELECT 1"));
+      cache.closeAll();
+    }
+  }
+
+  @Test
+  public void settingsAreRestoredOrTheStatementIsDropped() throws Exception {
+    try (Connection connection = DriverManager.getConnection(url)) {
+      StatementCache cache = new StatementCache(connection, 4);
+      PreparedStatement statement = cache.prepare("SELECT v FROM t", Statement.NO_GENERATED_KEYS);
+      PreparedStatement fetched = statement.unwrap(PreparedStatement.class);
+      int defaultFetchSize = statement.getFetchSize();
+      statement.setFetchSize(defaultFetchSize + 50);
+      statement.close();
+
+      // The fetch size is put back and the statement kept
+      statement = cache.prepare("SELECT v FROM t", Statement.NO_GENERATED_KEYS);
+      assertSame(fetched, statement.unwrap(PreparedStatement.class));
+      assertEquals(defaultFetchSize, statement.getFetchSize());
+
+      // Other settings are not tracked, so the statement is closed instead
+      statement.setMaxRows(5);
+      statement.close();
+      assertTrue(fetched.isClosed());
+      assertEquals(0, cache.size());
+
+      statement = cache.prepare("SELECT v FROM t", Statement.NO_GENERATED_KEYS);
+      assertNotSame(fetched, statement.unwrap(PreparedStatement.class));
+      assertEquals(0, statement.getMaxRows());
+      statement.close();
+      cache.closeAll();
+    }
+  }
+}
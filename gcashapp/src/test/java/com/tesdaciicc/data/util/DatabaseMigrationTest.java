@@ -0,0 +1,86 @@
+package com.tesdaciicc.data.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.tesdaciicc.TestDatabase;
+
+public class DatabaseMigrationTest {
+
+  // Migrations before 007_epoch_millis_dates.sql
+  private static final int TEXT_DATES_VERSION = 3;
+
+  @After
+  public void restoreSchema() {
+    TestDatabase.reset();
+  }
+
+  private static void execute(String sql) throws SQLException {
+    try (Connection connection = ConnectionFactory.getWriteConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute(sql);
+    }
+  }
+
+  private static long transactionDate(int transactionId) throws SQLException {
+    try (Connection connection = ConnectionFactory.getReadConnection();
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(
+            "SELECT transactionDate FROM transactions WHERE transactionId = " + transactionId)) {
+      assertTrue(resultSet.next());
+      return resultSet.getLong(1);
+    }
+  }
+
+  @Test
+  public void textDatesBecomeEpochMillisInTheZoneTheyWereWrittenIn() throws SQLException {
+    // Surefire runs the tests in Asia/Manila so the two conversions differ
+    assertNotEquals(ZoneOffset.UTC, ZoneId.systemDefault().getRules().getOffset(LocalDateTime.of(2024, 1, 15, 0, 0)));
+
+    assertTrue(DatabaseUtil.dropAllTables());
+    assertTrue(DatabaseUtil.runSqlFromResource(Config.INIT_SQL_FILE));
+    assertTrue(DatabaseUtil.runSqlFromResource(Config.INDEX_SQL_FILE));
+    for (int version = 1; version <= TEXT_DATES_VERSION; version++) {
+      assertTrue(DatabaseUtil.runSqlFromResource(Config.MIGRATION_SQL_FILES.get(version - 1)));
+    }
+    execute("PRAGMA user_version = " + TEXT_DATES_VERSION);
+
+    execute("INSERT INTO users (userId, name, email, number, pin) VALUES "
+        + "(1, 'John Doe', 'john.doe@email.com', '09123456789', '1234'), "
+        + "(2, 'Jane Smith', 'jane.smith@email.com', '09987654321', '5678')");
+    // A cash-in as CashInDAO wrote it, dated by the column's datetime('now') default
+    execute("INSERT INTO transactions (transactionId, transactionAmount, transactionName, userId, "
+        + "transactionDate, transferToAccountNo, transferFromAccountNo, accountNumber) "
+        + "VALUES (1, 10000, 'CASH_IN_COMPLETED', 1, '2024-01-15 00:30:00', '09123456789', 'GCash Partner', '09123456789')");
+    // A transfer as CashTransferDAO wrote it, with LocalDateTime.now()
+    execute("INSERT INTO transactions (transactionId, transactionAmount, transactionName, userId, "
+        + "transactionDate, transferToAccountNo, transferFromAccountNo, accountNumber) "
+        + "VALUES (2, 5000, 'CASH_TRANSFER_COMPLETED', 1, '2024-01-15 08:30:00', '09987654321', '09123456789', '09123456789')");
+    // A row from an unparseable date keeps a usable value
+    execute("INSERT INTO transactions (transactionId, transactionAmount, transactionName, userId, "
+        + "transactionDate, transferToAccountNo, transferFromAccountNo, accountNumber) "
+        + "VALUES (3, 2500, 'CASH_IN_COMPLETED', 2, 'yesterday', '09987654321', 'Bank', '09987654321')");
+
+    long before = System.currentTimeMillis();
+    assertTrue(DatabaseUtil.initializeDatabase());
+    assertEquals(Config.MIGRATION_SQL_FILES.size(), DatabaseUtil.getSchemaVersion());
+
+    LocalDateTime cashIn = LocalDateTime.of(2024, 1, 15, 0, 30);
+    LocalDateTime transfer = LocalDateTime.of(2024, 1, 15, 8, 30);
+    assertEquals(cashIn.toInstant(ZoneOffset.UTC).toEpochMilli(), transactionDate(1));
+    assertEquals(transfer.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), transactionDate(2));
+    assertTrue(transactionDate(3) >= before - 1000);
+  }
+}
@@ -0,0 +1,129 @@
+package com.tesdaciicc.data.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.tesdaciicc.TestDatabase;
+import com.tesdaciicc.metrics.MetricsRegistry;
+import com.tesdaciicc.metrics.Timer;
+
+public class ResultSetStreamTest {
+
+  private static final String USER_IDS = "SELECT userId FROM users WHERE userId <= ? ORDER BY userId";
+
+  private final Timer timer = MetricsRegistry.getInstance().timer("test.resultSetStream");
+  private ConnectionPool readers;
+
+  @BeforeClass
+  public static void createSchema() {
+    TestDatabase.reset();
+  }
+
+  @Before
+  public void setUp() throws SQLException {
+    readers = ConnectionFactory.getReaderPool();
+    assertReturned();
+  }
+
+  private void assertReturned() {
+    assertEquals("borrowed readers", 0, readers.getActiveConnections());
+    assertEquals("idle readers", readers.getTotalConnections(), readers.getIdleConnections());
+  }
+
+  private Stream<Integer> userIds(int maxUserId) throws SQLException {
+    return ResultSetStream.query(USER_IDS, stmt -> stmt.setInt(1, maxUserId), rs -> rs.getInt("userId"), timer);
+  }
+
+  @Test
+  public void fullyConsumedStreamReturnsItsConnection() throws SQLException {
+    long timed = timer.snapshot().getCount();
+    Stream<Integer> rows = userIds(3);
+    assertEquals(1, readers.getActiveConnections());
+
+    // Not closed: reading past the last row releases the connection
+    assertEquals(List.of(1, 2, 3), rows.toList());
+    assertReturned();
+    assertEquals(timed + 1, timer.snapshot().getCount());
+
+    rows.close();
+    assertEquals(timed + 1, timer.snapshot().getCount());
+  }
+
+  @Test
+  public void stoppingEarlyHoldsTheConnectionUntilClose() throws SQLException {
+    long timed = timer.snapshot().getCount();
+    Optional<Integer> first;
+    try (Stream<Integer> rows = userIds(10)) {
+      first = rows.findFirst();
+      assertEquals(1, readers.getActiveConnections());
+      assertEquals(timed, timer.snapshot().getCount());
+    }
+    assertEquals(Optional.of(1), first);
+    assertReturned();
+    assertEquals(timed + 1, timer.snapshot().getCount());
+  }
+
+  @Test
+  public void mapperSqlExceptionReturnsTheConnection() throws SQLException {
+    Stream<Integer> rows = ResultSetStream.query(USER_IDS, stmt -> stmt.setInt(1, 10), rs -> {
+      if (rs.getInt("userId") == 2) {
+        throw new SQLException("bad row");
+      }
+      return rs.getInt("userId");
+    }, timer);
+    try {
+      rows.forEach(userId -> { });
+      fail("Mapper failure was swallowed");
+    } catch (RuntimeException expected) {
+      assertEquals("bad row", expected.getCause().getMessage());
+    }
+    assertReturned();
+  }
+
+  @Test
+  public void mapperRuntimeExceptionReturnsTheConnectionOnClose() throws SQLException {
+    IllegalStateException failure = new IllegalStateException("bad row");
+    try (Stream<Integer> rows = ResultSetStream.query(USER_IDS, stmt -> stmt.setInt(1, 10), rs -> {
+      throw failure;
+    }, timer)) {
+      rows.forEach(userId -> { });
+      fail("Mapper failure was swallowed");
+    } catch (IllegalStateException expected) {
+      assertSame(failure, expected);
+    }
+    assertReturned();
+  }
+
+  @Test
+  public void failedSetupReturnsTheConnection() {
+    long timed = timer.snapshot().getCount();
+    try {
+      ResultSetStream.query("SELECT nope FROM users", stmt -> { }, rs -> rs.getInt(1), timer);
+      fail("Ran invalid SQL");
+    } catch (SQLException expected) {
+      // prepare failed
+    }
+    assertReturned();
+
+    try {
+      ResultSetStream.query(USER_IDS, stmt -> {
+        throw new SQLException("cannot bind");
+      }, rs -> rs.getInt(1), timer);
+      fail("Binder failure was swallowed");
+    } catch (SQLException expected) {
+      assertEquals("cannot bind", expected.getMessage());
+    }
+    assertReturned();
+    assertEquals(timed + 2, timer.snapshot().getCount());
+  }
+}
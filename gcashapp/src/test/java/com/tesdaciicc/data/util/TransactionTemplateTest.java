@@ -0,0 +1,166 @@
+package com.tesdaciicc.data.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TransactionTemplateTest {
+
+  @BeforeClass
+  public static void createTable() throws SQLException {
+    try (Connection connection = ConnectionFactory.getWriteConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute("CREATE TABLE IF NOT EXISTS tx_test (v INTEGER NOT NULL)");
+    }
+  }
+
+  @Before
+  public void clearTable() throws SQLException {
+    try (Connection connection = ConnectionFactory.getWriteConnection();
+        Statement statement = connection.createStatement()) {
+      statement.executeUpdate("DELETE FROM tx_test");
+    }
+  }
+
+  private static void insert(Connection connection, int value) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.executeUpdate("INSERT INTO tx_test (v) VALUES (" + value + ")");
+    }
+  }
+
+  private static List<Integer> values() throws SQLException {
+    List<Integer> values = new ArrayList<>();
+    try (Connection connection = ConnectionFactory.getReadConnection();
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT v FROM tx_test ORDER BY v")) {
+      while (resultSet.next()) {
+        values.add(resultSet.getInt(1));
+      }
+    }
+    return values;
+  }
+
+  @Test
+  public void commitsAndRunsAfterCommitActions() throws SQLException {
+    List<String> events = new ArrayList<>();
+    String result = TransactionTemplate.execute(connection -> {
+      assertTrue(TransactionTemplate.isActive());
+      insert(connection, 1);
+      TransactionTemplate.afterCommit(() -> events.add("committed"));
+      assertTrue(events.isEmpty());
+      return "done";
+    });
+    assertEquals("done", result);
+    assertEquals(List.of("committed"), events);
+    assertEquals(List.of(1), values());
+    assertFalse(TransactionTemplate.isActive());
+  }
+
+  @Test
+  public void failureRollsBackAndRunsUndoActions() throws SQLException {
+    List<String> events = new ArrayList<>();
+    try {
+      TransactionTemplate.execute(connection -> {
+        insert(connection, 1);
+        TransactionTemplate.afterCommit(() -> events.add("committed"));
+        TransactionTemplate.onRollback(() -> events.add("undo 1"));
+        TransactionTemplate.onRollback(() -> events.add("undo 2"));
+        throw new IllegalStateException("boom");
+      });
+      fail("Exception was swallowed");
+    } catch (IllegalStateException e) {
+      assertEquals("boom", e.getMessage());
+    }
+    assertEquals(List.of("undo 2", "undo 1"), events);
+    assertTrue(values().isEmpty());
+    assertFalse(TransactionTemplate.isActive());
+  }
+
+  @Test
+  public void failedNestedCallRollsBackToItsSavepointOnly() throws SQLException {
+    List<String> events = new ArrayList<>();
+    TransactionTemplate.execute(connection -> {
+      insert(connection, 1);
+      TransactionTemplate.afterCommit(() -> events.add("outer committed"));
+      try {
+        TransactionTemplate.execute(inner -> {
+          assertSame(connection, inner);
+          insert(inner, 2);
+          TransactionTemplate.afterCommit(() -> events.add("inner committed"));
+          TransactionTemplate.onRollback(() -> events.add("inner undone"));
+          throw new SQLException("inner failure");
+        });
+        fail("Nested exception was swallowed");
+      } catch (SQLException e) {
+        assertEquals("inner failure", e.getMessage());
+      }
+      TransactionTemplate.execute(inner -> {
+        insert(inner, 3);
+        return null;
+      });
+      return null;
+    });
+    assertEquals(List.of("inner undone", "outer committed"), events);
+    assertEquals(List.of(1, 3), values());
+  }
+
+  @Test
+  public void outerFailureUndoesCommittedSavepoints() throws SQLException {
+    List<String> events = new ArrayList<>();
+    try {
+      TransactionTemplate.execute(connection -> {
+        TransactionTemplate.execute(inner -> {
+          insert(inner, 1);
+          TransactionTemplate.onRollback(() -> events.add("inner undone"));
+          return null;
+        });
+        throw new SQLException("outer failure");
+      });
+      fail("Exception was swallowed");
+    } catch (SQLException e) {
+      assertEquals("outer failure", e.getMessage());
+    }
+    assertEquals(List.of("inner undone"), events);
+    assertTrue(values().isEmpty());
+  }
+
+  @Test
+  public void uncommittedWritesAreVisibleOnlyToTheOwningThread() throws Exception {
+    TransactionTemplate.execute(connection -> {
+      insert(connection, 7);
+      assertEquals(List.of(7), values());
+      List<Integer> seenElsewhere = CompletableFuture.supplyAsync(() -> {
+        try {
+          return values();
+        } catch (SQLException e) {
+          throw new IllegalStateException(e);
+        }
+      }).join();
+      assertTrue(seenElsewhere.isEmpty());
+      return null;
+    });
+    assertEquals(List.of(7), values());
+  }
+
+  @Test
+  public void afterCommitOutsideTransactionRunsImmediately() {
+    List<String> events = new ArrayList<>();
+    TransactionTemplate.afterCommit(() -> events.add("ran"));
+    TransactionTemplate.onRollback(() -> events.add("ignored"));
+    assertEquals(List.of("ran"), events);
+  }
+}
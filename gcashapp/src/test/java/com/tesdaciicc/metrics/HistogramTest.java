@@ -0,0 +1,78 @@
+package com.tesdaciicc.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class HistogramTest {
+
+  /**
+   * Values are reported within 1/64 of the true value
+   */
+  private static void assertWithin(long expected, long actual) {
+    assertTrue(actual + " is not within 1/64 of " + expected, Math.abs(actual - expected) <= expected / 64);
+  }
+
+  @Test
+  public void percentilesOfAUniformSpread() {
+    // 1..100000 microseconds, once each: the p-th percentile is p * 1000 us
+    Histogram histogram = new Histogram();
+    for (int i = 1; i <= 100_000; i++) {
+      histogram.record(i * 1_000L);
+    }
+    Histogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(100_000, snapshot.getCount());
+    assertWithin(50_000_000L, snapshot.getValueAtPercentile(50));
+    assertWithin(99_000_000L, snapshot.getValueAtPercentile(99));
+    assertWithin(99_900_000L, snapshot.getValueAtPercentile(99.9));
+    assertEquals(100_000_000L, snapshot.getValueAtPercentile(100));
+    assertEquals(100_000_000L, snapshot.getMax());
+    assertEquals(50_000_500.0, snapshot.getMean(), 0.001);
+  }
+
+  @Test
+  public void smallValuesAreExact() {
+    Histogram histogram = new Histogram();
+    for (int i = 0; i < 100; i++) {
+      histogram.record(i);
+    }
+    Histogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(49, snapshot.getValueAtPercentile(50));
+    assertEquals(98, snapshot.getValueAtPercentile(99));
+    assertEquals(0, snapshot.getValueAtPercentile(0));
+  }
+
+  @Test
+  public void everyValueFallsInABucketJustAboveIt() {
+    Random random = new Random(42);
+    for (int i = 0; i < 100_000; i++) {
+      long value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+      long highest = Histogram.highestValueAt(Histogram.indexFor(value));
+      assertTrue(value + " reported as " + highest, highest >= value);
+      assertWithin(value, highest);
+    }
+    assertEquals(Long.MAX_VALUE, Histogram.highestValueAt(Histogram.indexFor(Long.MAX_VALUE)));
+  }
+
+  @Test
+  public void percentileNeverExceedsTheMax() {
+    Histogram histogram = new Histogram();
+    histogram.record(1_000_001);
+    assertEquals(1_000_001, histogram.snapshot().getValueAtPercentile(50));
+  }
+
+  @Test
+  public void emptyAndNegative() {
+    Histogram histogram = new Histogram();
+    assertEquals(0, histogram.snapshot().getValueAtPercentile(99));
+    assertEquals(0.0, histogram.snapshot().getMean(), 0.0);
+
+    histogram.record(-5);
+    Histogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(1, snapshot.getCount());
+    assertEquals(0, snapshot.getMax());
+  }
+}
@@ -0,0 +1,116 @@
+package com.tesdaciicc.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.tesdaciicc.TestDatabase;
+import com.tesdaciicc.data.repository.BalanceDAO;
+import com.tesdaciicc.data.repository.TransactionsDAO;
+import com.tesdaciicc.model.Transactions;
+
+public class MetricsRegistryTest {
+
+  private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private long count(String timer) {
+    return metrics.timer(timer).snapshot().getCount();
+  }
+
+  @Test
+  public void metricsAreCreatedOnceByName() {
+    assertSame(metrics.timer("test.registry.timer"), metrics.timer("test.registry.timer"));
+    assertSame(metrics.counter("test.registry.counter"), metrics.counter("test.registry.counter"));
+  }
+
+  @Test
+  public void timerRecordsEvenWhenTheWorkThrows() {
+    Timer timer = metrics.timer("test.registry.throws");
+    assertEquals("done", timer.record(() -> "done"));
+    try {
+      timer.record(() -> {
+        throw new IllegalStateException("failed");
+      });
+      fail("Exception was swallowed");
+    } catch (IllegalStateException expected) {
+      // rethrown
+    }
+    try (Timer.Context timing = timer.time()) {
+      // timed block
+    }
+    timer.record(3, TimeUnit.MILLISECONDS);
+    Histogram.Snapshot snapshot = timer.snapshot();
+    assertEquals(4, snapshot.getCount());
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(3), snapshot.getMax(), TimeUnit.MILLISECONDS.toNanos(3) / 64);
+  }
+
+  @Test
+  public void dumpListsEveryKindOfMetric() {
+    metrics.counter("test.registry.dumpCounter").increment();
+    metrics.gauge("test.registry.dumpGauge", () -> 0.5);
+    metrics.gauge("test.registry.brokenGauge", () -> {
+      throw new IllegalStateException("unavailable");
+    });
+    metrics.timer("test.registry.dumpTimer").record(2, TimeUnit.MILLISECONDS);
+    metrics.timer("test.registry.unusedTimer");
+
+    String dump = metrics.dump();
+    assertTrue(dump, dump.contains("test.registry.dumpCounter") && dump.contains("count=1"));
+    assertTrue(dump, dump.contains("test.registry.dumpGauge") && dump.contains("value=0.5000"));
+    assertTrue(dump, dump.contains("error: unavailable"));
+    assertTrue(dump, dump.contains("test.registry.dumpTimer"));
+    assertFalse(dump, dump.contains("test.registry.unusedTimer"));
+  }
+
+  @Test
+  public void reporterAppendsADumpPerReport() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("reports/metrics.log");
+    metrics.counter("test.registry.reported").increment();
+    MetricsReporter reporter = new MetricsReporter(metrics, file);
+    reporter.report();
+    reporter.start(1, TimeUnit.HOURS);
+    reporter.stop();
+
+    String report = Files.readString(file, StandardCharsets.UTF_8);
+    assertEquals(2, report.split("=== Metrics at ", -1).length - 1);
+    assertTrue(report.contains("test.registry.reported"));
+  }
+
+  @Test
+  public void daoCallsAreTimed() {
+    TestDatabase.reset();
+    long before = count("dao.balance.findByUserId");
+    BalanceDAO balanceDAO = new BalanceDAO();
+    for (int i = 0; i < 10; i++) {
+      balanceDAO.findByUserId(1);
+    }
+    assertEquals(before + 10, count("dao.balance.findByUserId"));
+  }
+
+  @Test
+  public void streamIsTimedUntilItIsClosed() {
+    TestDatabase.reset();
+    long before = count("dao.transactions.streamUserAll");
+    try (Stream<Transactions> rows = new TransactionsDAO().streamUserAll(1)) {
+      assertEquals(before, count("dao.transactions.streamUserAll"));
+      rows.findFirst();
+    }
+    assertEquals(before + 1, count("dao.transactions.streamUserAll"));
+  }
+}
@@ -0,0 +1,105 @@
+package com.tesdaciicc.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+public class MoneyTest {
+
+    @Test
+    public void bigDecimalIsRoundedHalfUpToCentavos() {
+        assertEquals(123_45, Money.of(new BigDecimal("123.45")).getCentavos());
+        assertEquals(1_01, Money.of(new BigDecimal("1.005")).getCentavos());
+        assertEquals(1_00, Money.of(new BigDecimal("1.004")).getCentavos());
+        assertEquals(-1_01, Money.of(new BigDecimal("-1.005")).getCentavos());
+        assertEquals(10_00, Money.of(new BigDecimal("1E+1")).getCentavos());
+        assertSame(Money.ZERO, Money.of((BigDecimal) null));
+    }
+
+    @Test
+    public void doubleUsesItsDecimalRepresentation() {
+        // 0.1 + 0.2 is 0.30000000000000004 as a double
+        assertEquals(30, Money.of(0.1 + 0.2).getCentavos());
+        assertEquals(1999, Money.of(19.99).getCentavos());
+    }
+
+    @Test
+    public void pesosAreConvertedExactly() {
+        assertEquals(5_000_00, Money.ofPesos(5_000).getCentavos());
+        assertSame(Money.ZERO, Money.ofCentavos(0));
+    }
+
+    @Test
+    public void arithmeticAndComparisons() {
+        Money a = Money.ofCentavos(1_50);
+        Money b = Money.ofCentavos(75);
+        assertEquals(Money.ofCentavos(2_25), a.plus(b));
+        assertEquals(Money.ofCentavos(75), a.minus(b));
+        assertTrue(b.minus(a).isNegative());
+        assertSame(a, a.plus(Money.ZERO));
+        assertSame(a, a.minus(Money.ZERO));
+
+        assertTrue(a.isGreaterThan(b));
+        assertTrue(b.isLessThan(a));
+        assertFalse(a.isLessThan(a));
+        assertTrue(a.compareTo(b) > 0);
+        assertTrue(Money.ZERO.isZero());
+        assertTrue(a.isPositive());
+    }
+
+    @Test
+    public void overflowThrowsInsteadOfWrapping() {
+        Money max = Money.ofCentavos(Long.MAX_VALUE);
+        try {
+            max.plus(Money.ofCentavos(1));
+            fail("Overflow wrapped around");
+        } catch (ArithmeticException expected) {
+            // overflow
+        }
+        try {
+            Money.ofPesos(Long.MAX_VALUE / 10);
+            fail("Overflow wrapped around");
+        } catch (ArithmeticException expected) {
+            // overflow
+        }
+        try {
+            Money.of(new BigDecimal("1E+30"));
+            fail("Overflow wrapped around");
+        } catch (ArithmeticException expected) {
+            // does not fit in a long
+        }
+    }
+
+    @Test
+    public void formatGroupsThousandsAndPadsCentavos() {
+        assertEquals("₱0.00", Money.ZERO.format());
+        assertEquals("₱0.05", Money.ofCentavos(5).format());
+        assertEquals("₱999.10", Money.ofCentavos(999_10).format());
+        assertEquals("₱1,000.00", Money.ofPesos(1_000).format());
+        assertEquals("₱15,000.50", Money.ofCentavos(1_500_050).format());
+        assertEquals("₱1,234,567.89", Money.ofCentavos(123_456_789).format());
+        assertEquals("₱-1,234.50", Money.ofCentavos(-123_450).format());
+    }
+
+    @Test
+    public void bigDecimalAndStringKeepTwoDecimals() {
+        assertEquals(new BigDecimal("1234.50"), Money.ofCentavos(123_450).toBigDecimal());
+        assertEquals("1234.50", Money.ofCentavos(123_450).toString());
+        assertEquals("-0.05", Money.ofCentavos(-5).toString());
+    }
+
+    @Test
+    public void equalityIsByAmount() {
+        assertEquals(Money.ofCentavos(100), Money.ofPesos(1));
+        assertEquals(Money.ofCentavos(100).hashCode(), Money.ofPesos(1).hashCode());
+        assertNotEquals(Money.ofCentavos(100), Money.ofCentavos(101));
+        assertNotEquals(Money.ofCentavos(100), new BigDecimal("1.00"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.tesdaciicc.security;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class Pbkdf2PinHasherTest {
+
+  // Few iterations keep the tests fast; the format does not depend on the cost
+  private final Pbkdf2PinHasher hasher = new Pbkdf2PinHasher("PBKDF2WithHmacSHA512", 1_000, 16, 32);
+
+  @Test
+  public void hashVerifiesOnlyItsOwnPin() {
+    String stored = hasher.hash("1234");
+    assertTrue(hasher.verify("1234", stored));
+    assertFalse(hasher.verify("1235", stored));
+    assertFalse(hasher.verify(null, stored));
+    assertFalse(hasher.verify("1234", null));
+  }
+
+  @Test
+  public void hashCarriesItsParameters() {
+    String[] parts = hasher.hash("1234").split("\\$");
+    assertEquals(4, parts.length);
+    assertEquals("pbkdf2-sha512", parts[0]);
+    assertEquals("1000", parts[1]);
+    // Unpadded Base64 of 16 salt bytes and 32 hash bytes
+    assertEquals(22, parts[2].length());
+    assertEquals(43, parts[3].length());
+  }
+
+  @Test
+  public void samePinIsSaltedDifferentlyEachTime() {
+    String first = hasher.hash("1234");
+    String second = hasher.hash("1234");
+    assertNotEquals(first, second);
+    assertTrue(hasher.verify("1234", first));
+    assertTrue(hasher.verify("1234", second));
+  }
+
+  @Test
+  public void plainTextPinIsComparedAndNeedsRehash() {
+    assertTrue(hasher.verify("1234", "1234"));
+    assertFalse(hasher.verify("1234", "5678"));
+    assertTrue(hasher.needsRehash("1234"));
+    assertTrue(hasher.needsRehash(null));
+  }
+
+  @Test
+  public void hashFromOtherSettingsStillVerifiesButNeedsRehash() {
+    String older = new Pbkdf2PinHasher("PBKDF2WithHmacSHA256", 500, 16, 32).hash("1234");
+    assertTrue(hasher.verify("1234", older));
+    assertTrue(hasher.needsRehash(older));
+    assertTrue(hasher.needsRehash(new Pbkdf2PinHasher("PBKDF2WithHmacSHA512", 2_000, 16, 32).hash("1234")));
+    assertTrue(hasher.needsRehash(new Pbkdf2PinHasher("PBKDF2WithHmacSHA512", 1_000, 16, 64).hash("1234")));
+    assertFalse(hasher.needsRehash(hasher.hash("1234")));
+  }
+
+  @Test
+  public void malformedHashDoesNotVerify() {
+    assertFalse(hasher.verify("1234", "pbkdf2-sha512$1000$salt"));
+    assertFalse(hasher.verify("1234", "pbkdf2-sha512$many$c2FsdHNhbHRzYWx0c2FsdA$aGFzaA"));
+    assertFalse(hasher.verify("1234", "pbkdf2-md5$1000$c2FsdHNhbHRzYWx0c2FsdA$aGFzaA"));
+    assertTrue(hasher.needsRehash("pbkdf2-sha512$1000$salt"));
+  }
+
+  @Test
+  public void unsupportedParametersAreRejected() {
+    try {
+      new Pbkdf2PinHasher("SHA-512", 1_000, 16, 32);
+      fail("Accepted a non-PBKDF2 algorithm");
+    } catch (IllegalArgumentException expected) {
+      // rejected
+    }
+    try {
+      new Pbkdf2PinHasher("PBKDF2WithHmacSHA512", 1_000, 4, 32);
+      fail("Accepted a 4-byte salt");
+    } catch (IllegalArgumentException expected) {
+      // rejected
+    }
+  }
+}
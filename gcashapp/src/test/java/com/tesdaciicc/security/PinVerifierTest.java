@@ -0,0 +1,71 @@
+package com.tesdaciicc.security;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class PinVerifierTest {
+
+  private static final long HOUR = 60 * 60 * 1000L;
+
+  /**
+   * Stores PINs as they are and waits for the gate before each hash
+   */
+  private static final class GatedHasher implements PinHasher {
+    final CountDownLatch gate = new CountDownLatch(1);
+
+    @Override
+    public String hash(String pin) {
+      try {
+        gate.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return "hashed:" + pin;
+    }
+
+    @Override
+    public boolean verify(String pin, String stored) {
+      return stored.equals("hashed:" + pin);
+    }
+
+    @Override
+    public boolean needsRehash(String stored) {
+      return false;
+    }
+  }
+
+  @Test
+  public void saturatedPoolFailsWithBusyInsteadOfQueueing() {
+    GatedHasher hasher = new GatedHasher();
+    PinVerifier verifier = new PinVerifier(hasher, 1, 1, 100, HOUR);
+    CompletableFuture<String> running = verifier.hash("1111");
+    CompletableFuture<String> queued = verifier.hash("2222");
+    try {
+      PinVerifier.await(verifier.hash("3333"));
+      fail("Saturated pool accepted a hash");
+    } catch (PinVerifierBusyException expected) {
+      // turned away
+    }
+    assertEquals(1, verifier.getRejectedCount());
+
+    hasher.gate.countDown();
+    assertEquals("hashed:1111", PinVerifier.await(running));
+    assertEquals("hashed:2222", PinVerifier.await(queued));
+  }
+
+  @Test
+  public void newHashIsRememberedAsVerified() {
+    GatedHasher hasher = new GatedHasher();
+    hasher.gate.countDown();
+    PinVerifier verifier = new PinVerifier(hasher, 1, 1, 100, HOUR);
+    String stored = PinVerifier.await(verifier.hash("1234"));
+    assertTrue(PinVerifier.await(verifier.verify("1234", stored)));
+    assertEquals(1, verifier.getCacheHitCount());
+  }
+}
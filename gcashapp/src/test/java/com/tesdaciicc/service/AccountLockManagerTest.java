@@ -0,0 +1,178 @@
+package com.tesdaciicc.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+public class AccountLockManagerTest {
+
+    private final AccountLockManager locks = new AccountLockManager(64);
+
+    /**
+     * @return An account on a different stripe from userId
+     */
+    private int otherStripeThan(int userId) {
+        try (AccountLockManager.AccountLocks held = locks.lock(userId)) {
+            for (int candidate = userId + 1; ; candidate++) {
+                if (!locks.isHeldByCurrentThread(candidate)) {
+                    return candidate;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void locksAreHeldUntilClosed() {
+        int a = 1;
+        int b = otherStripeThan(a);
+        assertFalse(locks.isHeldByCurrentThread(a));
+        try (AccountLockManager.AccountLocks held = locks.lock(a, b)) {
+            assertTrue(locks.isHeldByCurrentThread(a));
+            assertTrue(locks.isHeldByCurrentThread(b));
+        }
+        assertFalse(locks.isHeldByCurrentThread(a));
+        assertFalse(locks.isHeldByCurrentThread(b));
+    }
+
+    @Test
+    public void sameAccountTwiceIsLockedOnce() {
+        try (AccountLockManager.AccountLocks held = locks.lock(5, 5)) {
+            assertTrue(locks.isHeldByCurrentThread(5));
+        }
+        assertFalse(locks.isHeldByCurrentThread(5));
+
+        try (AccountLockManager.AccountLocks held = locks.lockAll(List.of(5, 5, 5))) {
+            assertTrue(locks.isHeldByCurrentThread(5));
+        }
+        assertFalse(locks.isHeldByCurrentThread(5));
+    }
+
+    @Test
+    public void locksAreReentrant() {
+        int a = 1;
+        int b = otherStripeThan(a);
+        try (AccountLockManager.AccountLocks outer = locks.lock(a)) {
+            try (AccountLockManager.AccountLocks inner = locks.lock(a, b)) {
+                assertTrue(locks.isHeldByCurrentThread(b));
+            }
+            assertTrue(locks.isHeldByCurrentThread(a));
+            assertFalse(locks.isHeldByCurrentThread(b));
+        }
+        assertFalse(locks.isHeldByCurrentThread(a));
+    }
+
+    @Test
+    public void closeReleasesOnlyOnce() {
+        try (AccountLockManager.AccountLocks outer = locks.lock(7)) {
+            AccountLockManager.AccountLocks inner = locks.lock(7);
+            inner.close();
+            inner.close();
+            assertTrue(locks.isHeldByCurrentThread(7));
+        }
+        assertFalse(locks.isHeldByCurrentThread(7));
+    }
+
+    @Test
+    public void locksAreReleasedWhenTheWorkThrows() {
+        int a = 1;
+        int b = otherStripeThan(a);
+        try (AccountLockManager.AccountLocks held = locks.lock(a, b)) {
+            throw new IllegalStateException("transfer failed");
+        } catch (IllegalStateException expected) {
+            // released by try-with-resources
+        }
+        assertFalse(locks.isHeldByCurrentThread(a));
+        assertFalse(locks.isHeldByCurrentThread(b));
+    }
+
+    @Test
+    public void otherThreadsWaitForTheLock() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> waiting;
+            try (AccountLockManager.AccountLocks held = locks.lock(3)) {
+                waiting = executor.submit(() -> {
+                    try (AccountLockManager.AccountLocks other = locks.lock(3)) {
+                        assertTrue(locks.isHeldByCurrentThread(3));
+                    }
+                });
+                try {
+                    waiting.get(100, TimeUnit.MILLISECONDS);
+                    fail("Second thread did not wait for the lock");
+                } catch (TimeoutException expected) {
+                    // still blocked
+                }
+            }
+            waiting.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void oppositePairsDoNotDeadlock() throws Exception {
+        int a = 1;
+        int b = otherStripeThan(a);
+        int c = otherStripeThan(b);
+        int rounds = 20_000;
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Runnable forward = () -> repeat(start, rounds, () -> locks.lock(a, b), inside, maxInside);
+            Runnable backward = () -> repeat(start, rounds, () -> locks.lock(b, a), inside, maxInside);
+            Runnable group = () -> repeat(start, rounds, () -> locks.lockAll(List.of(c, b, a)), inside, maxInside);
+            Future<?> first = executor.submit(forward);
+            Future<?> second = executor.submit(backward);
+            Future<?> third = executor.submit(group);
+            start.countDown();
+            first.get(30, TimeUnit.SECONDS);
+            second.get(30, TimeUnit.SECONDS);
+            third.get(30, TimeUnit.SECONDS);
+            assertEquals(1, maxInside.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void repeat(CountDownLatch start, int rounds,
+            Supplier<AccountLockManager.AccountLocks> lock,
+            AtomicInteger inside, AtomicInteger maxInside) {
+        try {
+            start.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        for (int i = 0; i < rounds; i++) {
+            try (AccountLockManager.AccountLocks held = lock.get()) {
+                maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                inside.decrementAndGet();
+            }
+        }
+    }
+
+    @Test
+    public void stripeCountMustBeAPowerOfTwo() {
+        try {
+            new AccountLockManager(12);
+            fail("Accepted 12 stripes");
+        } catch (IllegalArgumentException expected) {
+            // rejected
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.tesdaciicc.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class LoginRateLimiterTest {
+
+    private static final long MINUTE = 60_000L;
+
+    private static void failOnce(LoginRateLimiter limiter, String identifier, String source) {
+        assertTrue(limiter.tryAcquire(identifier, source).isPresent());
+    }
+
+    @Test
+    public void identifierIsTurnedAwayAfterMaxFailures() {
+        LoginRateLimiter limiter = new LoginRateLimiter(MINUTE, 6, 3, 100, 100);
+        failOnce(limiter, "john@email.com", "a");
+        failOnce(limiter, "john@email.com", "b");
+        failOnce(limiter, "john@email.com", "c");
+
+        assertFalse(limiter.tryAcquire("john@email.com", "d").isPresent());
+        assertTrue(limiter.retryAfterMillis("john@email.com", "d") > 0);
+        assertEquals(1, limiter.getRejectedCount());
+        assertTrue(limiter.tryAcquire("jane@email.com", "d").isPresent());
+    }
+
+    @Test
+    public void identifiersAreTrimmedAndCaseInsensitive() {
+        LoginRateLimiter limiter = new LoginRateLimiter(MINUTE, 6, 2, 100, 100);
+        failOnce(limiter, "John@Email.com", "a");
+        failOnce(limiter, " john@email.com ", "a");
+        assertFalse(limiter.tryAcquire("JOHN@EMAIL.COM", "a").isPresent());
+    }
+
+    @Test
+    public void sourceIsTurnedAwayAcrossIdentifiers() {
+        LoginRateLimiter limiter = new LoginRateLimiter(MINUTE, 6, 100, 2, 100);
+        failOnce(limiter, "user1", "attacker");
+        failOnce(limiter, "user2", "attacker");
+        assertFalse(limiter.tryAcquire("user3", "attacker").isPresent());
+        assertTrue(limiter.tryAcquire("user3", "elsewhere").isPresent());
+    }
+
+    @Test
+    public void successClearsTheIdentifiersFailures() {
+        LoginRateLimiter limiter = new LoginRateLimiter(MINUTE, 6, 2, 100, 100);
+        failOnce(limiter, "john", "a");
+        limiter.tryAcquire("john", "a").orElseThrow().succeeded();
+
+        failOnce(limiter, "john", "a");
+        failOnce(limiter, "john", "a");
+        assertFalse(limiter.tryAcquire("john", "a").isPresent());
+    }
+
+    @Test
+    public void successDoesNotClearTheSourcesFailures() {
+        LoginRateLimiter limiter = new LoginRateLimiter(MINUTE, 6, 100, 2, 100);
+        failOnce(limiter, "user1", "a");
+        limiter.tryAcquire("user2", "a").orElseThrow().succeeded();
+        failOnce(limiter, "user3", "a");
+        assertFalse(limiter.tryAcquire("user4", "a").isPresent());
+    }
+
+    @Test
+    public void releasedAttemptIsNotCounted() {
+        LoginRateLimiter limiter = new LoginRateLimiter(MINUTE, 6, 1, 1, 100);
+        for (int i = 0; i < 5; i++) {
+            LoginRateLimiter.Attempt attempt = limiter.tryAcquire("john", "a").orElseThrow();
+            assertTrue(attempt.release());
+            assertFalse(attempt.release());
+        }
+        assertEquals(0, limiter.retryAfterMillis("john", "a"));
+        failOnce(limiter, "john", "a");
+        assertFalse(limiter.tryAcquire("john", "a").isPresent());
+    }
+
+    @Test
+    public void racingAttemptsNeverExceedTheLimit() throws Exception {
+        LoginRateLimiter limiter = new LoginRateLimiter(MINUTE, 6, 3, 100, 100);
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Optional<LoginRateLimiter.Attempt>>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return limiter.tryAcquire("john", "a");
+                }));
+            }
+            start.countDown();
+            int acquired = 0;
+            for (Future<Optional<LoginRateLimiter.Attempt>> future : futures) {
+                if (future.get(10, TimeUnit.SECONDS).isPresent()) {
+                    acquired++;
+                }
+            }
+            assertTrue("acquired " + acquired, acquired >= 1 && acquired <= 3);
+            assertEquals(threads - acquired, limiter.getRejectedCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failuresLeaveTheWindow() throws InterruptedException {
+        LoginRateLimiter limiter = new LoginRateLimiter(100, 4, 1, 100, 100);
+        failOnce(limiter, "john", "a");
+        assertFalse(limiter.tryAcquire("john", "a").isPresent());
+        Thread.sleep(150);
+        assertTrue(limiter.tryAcquire("john", "a").isPresent());
+    }
+
+    @Test
+    public void keysBeyondTheLimitShareTheOverflowWindow() {
+        LoginRateLimiter limiter = new LoginRateLimiter(MINUTE, 6, 2, 100, 1);
+        failOnce(limiter, "tracked", "a");
+        failOnce(limiter, "new1", "a");
+        failOnce(limiter, "new2", "a");
+        // new1 and new2 used up the shared window
+        assertFalse(limiter.tryAcquire("new3", "a").isPresent());
+        assertEquals(2, limiter.trackedKeys());
+    }
+}
@@ -0,0 +1,138 @@
+package com.tesdaciicc.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tesdaciicc.TestDatabase;
+import com.tesdaciicc.data.repository.UserRepository;
+import com.tesdaciicc.model.UserAuthentication;
+import com.tesdaciicc.security.PinVerifier;
+import com.tesdaciicc.service.CashTransferService.TransferResult;
+
+public class TransferBatchExecutorTest {
+
+    private static final String JOHN = "09123456789";
+    private static final String JANE = "09987654321";
+
+    @Before
+    public void setUp() {
+        TestDatabase.reset();
+    }
+
+    @Test
+    public void transfersInOneBatchAllComplete() throws Exception {
+        TransferBatchExecutor executor = new TransferBatchExecutor(new CashTransferService(), 16, 5_000);
+        try {
+            List<CompletableFuture<TransferResult>> futures = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                futures.add(executor.submit(i % 2 == 0 ? 1 : 2, i % 2 == 0 ? JANE : JOHN,
+                        new BigDecimal("10.00"), "batch " + i));
+            }
+            for (CompletableFuture<TransferResult> future : futures) {
+                TransferResult result = future.get(30, TimeUnit.SECONDS);
+                assertTrue(result.getMessage(), result.isSuccess());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void submitAfterShutdownFailsImmediately() throws Exception {
+        TransferBatchExecutor executor = new TransferBatchExecutor(new CashTransferService(), 16, 0);
+        executor.shutdown();
+        TransferResult result = executor.submit(1, JANE, new BigDecimal("10.00"), "late")
+                .get(1, TimeUnit.SECONDS);
+        assertFalse(result.isSuccess());
+    }
+
+    @Test
+    public void submitsRacingShutdownAllComplete() throws Exception {
+        TransferBatchExecutor executor = new TransferBatchExecutor(new CashTransferService(), 8, 0);
+        List<CompletableFuture<TransferResult>> futures = new ArrayList<>();
+        CountDownLatch started = new CountDownLatch(4);
+        List<Thread> submitters = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                started.countDown();
+                for (int i = 0; i < 200; i++) {
+                    CompletableFuture<TransferResult> future =
+                            executor.submit(1, JANE, new BigDecimal("1.00"), "race");
+                    synchronized (futures) {
+                        futures.add(future);
+                    }
+                }
+            });
+            submitters.add(thread);
+            thread.start();
+        }
+        started.await();
+        executor.shutdown();
+        for (Thread thread : submitters) {
+            thread.join();
+        }
+        assertEquals(800, futures.size());
+        for (CompletableFuture<TransferResult> future : futures) {
+            // Completed one way or the other; none is left hanging
+            future.get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void recipientRegisteredAfterLockingIsNotLockedLate() throws Exception {
+        String newNumber = "09171112222";
+        UserRepository users = new UserRepository();
+        String pinHash = PinVerifier.await(PinVerifier.getInstance().hash("4321"));
+        AtomicInteger newUserId = new AtomicInteger();
+        // The first check comes from the lookup that picks the locks to take, the
+        // second from inside the batch; registering in between simulates a sign-up
+        // landing after the batch locked its accounts
+        CashTransferService service = new CashTransferService() {
+            private int checks;
+
+            @Override
+            public boolean isValidMobileNumber(String mobileNumber) {
+                if (newNumber.equals(mobileNumber) && ++checks == 2) {
+                    UserAuthentication user = new UserAuthentication("Late Joiner", "late@email.com", newNumber, "4321");
+                    newUserId.set(users.save(user, pinHash).orElseThrow().getId());
+                }
+                return super.isValidMobileNumber(mobileNumber);
+            }
+        };
+        TransferBatchExecutor executor = new TransferBatchExecutor(service, 16, 0);
+        try {
+            TransferResult result = executor.submit(1, newNumber, new BigDecimal("10.00"), "late recipient")
+                    .get(30, TimeUnit.SECONDS);
+            assertTrue(newUserId.get() > 0);
+
+            boolean sharesSenderStripe;
+            try (AccountLockManager.AccountLocks locks = AccountLockManager.getInstance().lock(1)) {
+                assertTrue(AccountLockManager.getInstance().isHeldByCurrentThread(1));
+                sharesSenderStripe = AccountLockManager.getInstance().isHeldByCurrentThread(newUserId.get());
+                locks.close();
+            }
+            if (sharesSenderStripe) {
+                // Its stripe was locked anyway through the sender
+                assertFalse(result.getMessage().contains("changed while the transfer was queued"));
+            } else {
+                assertFalse(result.isSuccess());
+                assertEquals("Recipient account changed while the transfer was queued. Please try again.",
+                        result.getMessage());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}